@@ -15,38 +15,29 @@
  */
 package org.jebtk.core;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * A map of fixed size that begins to excise the oldest elements once the map
- * reaches a maximum size.
+ * reaches a maximum size. The map is not thread safe; use {@link Cache} for a
+ * concurrent, least recently used cache.
  *
  * @author Antony Holmes
  * @param <T> the generic type
  * @param <X> the generic type
  */
-public class AgeMap<T, X> extends HashMap<T, X> {
+public class AgeMap<T, X> extends LinkedHashMap<T, X> {
 
   /**
    * The constant serialVersionUID.
    */
   private static final long serialVersionUID = 1L;
 
-  /**
-   * The member age map.
-   */
-  private Map<Integer, T> mAgeMap = new HashMap<Integer, T>();
-
-  /**
-   * Track the oldest id.
-   */
-  private int mOldest = 0;
-
   /**
    * The member max size.
    */
-  private int mMaxSize = 0;
+  private final int mMaxSize;
 
   /**
    * Instantiates a new age map.
@@ -64,19 +55,18 @@ public class AgeMap<T, X> extends HashMap<T, X> {
    */
   @Override
   public X put(T key, X value) {
-    // First clear the cache of junk
-    if (!containsKey(key)) {
-      if (size() == mMaxSize) {
-        remove(mAgeMap.get(mOldest));
-        mAgeMap.remove(mOldest);
-        ++mOldest;
-      }
-
-      mAgeMap.put(size(), key);
-    }
-
     super.put(key, value);
 
     return value;
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+   */
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<T, X> eldest) {
+    return size() > mMaxSize;
+  }
 }
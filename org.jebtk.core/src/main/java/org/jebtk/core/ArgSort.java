@@ -0,0 +1,805 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts primitive arrays by index. Rather than sorting the values, the
+ * functions return the indices of the values in sorted order, so that
+ * {@code values[idx[0]]} is the smallest value, without creating an object
+ * per value. Sorts are stable merge sorts and large arrays are sorted in
+ * parallel on the common fork join pool. Doubles are ordered as by
+ * {@link Double#compare(double, double)} so NaNs sort last. The reorder
+ * functions apply a sort order to the sorted array or to companion arrays.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class ArgSort {
+
+  /** Ranges this size or smaller are insertion sorted. */
+  private static final int INSERTION_SORT_SIZE = 32;
+
+  /** Arrays this size or larger are sorted in parallel by default. */
+  public static final int PARALLEL_SIZE = 1 << 16;
+
+  /** Ranges this size or smaller are not split into parallel tasks. */
+  private static final int PARALLEL_GRAIN = 1 << 13;
+
+  /**
+   * Compares values by their index.
+   */
+  private interface IndexComparator {
+
+    /**
+     * Compare the values at two indices.
+     *
+     * @param i the i
+     * @param j the j
+     * @return the int
+     */
+    int compare(int i, int j);
+  }
+
+  /**
+   * Compares the values in a double array.
+   */
+  private static class DoubleComparator implements IndexComparator {
+
+    /** The m values. */
+    private final double[] mValues;
+
+    /**
+     * Instantiates a new double comparator.
+     *
+     * @param values the values
+     */
+    public DoubleComparator(double[] values) {
+      mValues = values;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      return Double.compare(mValues[i], mValues[j]);
+    }
+  }
+
+  /**
+   * Compares the values in an int array.
+   */
+  private static class IntComparator implements IndexComparator {
+
+    /** The m values. */
+    private final int[] mValues;
+
+    /**
+     * Instantiates a new int comparator.
+     *
+     * @param values the values
+     */
+    public IntComparator(int[] values) {
+      mValues = values;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      return Integer.compare(mValues[i], mValues[j]);
+    }
+  }
+
+  /**
+   * Compares the values in a double array in descending order. NaNs still
+   * sort last.
+   */
+  private static class DescendingDoubleComparator implements IndexComparator {
+
+    /** The m values. */
+    private final double[] mValues;
+
+    /**
+     * Instantiates a new descending double comparator.
+     *
+     * @param values the values
+     */
+    public DescendingDoubleComparator(double[] values) {
+      mValues = values;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      double v1 = mValues[i];
+      double v2 = mValues[j];
+
+      if (Double.isNaN(v1) || Double.isNaN(v2)) {
+        return Double.compare(v1, v2);
+      }
+
+      return Double.compare(v2, v1);
+    }
+  }
+
+  /**
+   * Compares the values in an int array in descending order.
+   */
+  private static class DescendingIntComparator implements IndexComparator {
+
+    /** The m values. */
+    private final int[] mValues;
+
+    /**
+     * Instantiates a new descending int comparator.
+     *
+     * @param values the values
+     */
+    public DescendingIntComparator(int[] values) {
+      mValues = values;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      return Integer.compare(mValues[j], mValues[i]);
+    }
+  }
+
+  /**
+   * Orders equal values by their index so that partial sorts give the same
+   * result as a stable sort.
+   */
+  private static class IndexOrderComparator implements IndexComparator {
+
+    /** The m c. */
+    private final IndexComparator mC;
+
+    /**
+     * Instantiates a new index order comparator.
+     *
+     * @param c the c
+     */
+    public IndexOrderComparator(IndexComparator c) {
+      mC = c;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      int r = mC.compare(i, j);
+
+      return r != 0 ? r : Integer.compare(i, j);
+    }
+  }
+
+  /**
+   * Merge sorts part of an index array as a fork join task.
+   */
+  private static class SortTask extends RecursiveAction {
+
+    /**
+     * The constant serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** The m idx. */
+    private final int[] mIdx;
+
+    /** The m tmp. */
+    private final int[] mTmp;
+
+    /** The m start. */
+    private final int mStart;
+
+    /** The m end. */
+    private final int mEnd;
+
+    /** The m c. */
+    private final IndexComparator mC;
+
+    /**
+     * Instantiates a new sort task.
+     *
+     * @param idx   the idx
+     * @param tmp   the tmp
+     * @param start the start
+     * @param end   the end
+     * @param c     the c
+     */
+    public SortTask(int[] idx, int[] tmp, int start, int end, IndexComparator c) {
+      mIdx = idx;
+      mTmp = tmp;
+      mStart = start;
+      mEnd = end;
+      mC = c;
+    }
+
+    @Override
+    protected void compute() {
+      if (mEnd - mStart <= PARALLEL_GRAIN) {
+        sort(mIdx, mTmp, mStart, mEnd, mC);
+      } else {
+        int mid = (mStart + mEnd) >>> 1;
+
+        invokeAll(new SortTask(mIdx, mTmp, mStart, mid, mC), new SortTask(mIdx, mTmp, mid, mEnd, mC));
+
+        merge(mIdx, mTmp, mStart, mid, mEnd, mC);
+      }
+    }
+  }
+
+  /**
+   * Instantiates a new arg sort.
+   */
+  private ArgSort() {
+    // Do nothing
+  }
+
+  /**
+   * Returns the indices of the values in ascending order. Equal values keep
+   * their original order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] argsort(double[] values) {
+    return argsort(values, values.length >= PARALLEL_SIZE);
+  }
+
+  /**
+   * Returns the indices of the values in ascending order. Equal values keep
+   * their original order.
+   *
+   * @param values   the values
+   * @param parallel whether to sort using multiple threads
+   * @return the indices
+   */
+  public static int[] argsort(double[] values, boolean parallel) {
+    return sort(values.length, new DoubleComparator(values), parallel);
+  }
+
+  /**
+   * Returns the indices of the values in ascending order. Equal values keep
+   * their original order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] argsort(int[] values) {
+    return argsort(values, values.length >= PARALLEL_SIZE);
+  }
+
+  /**
+   * Returns the indices of the values in ascending order. Equal values keep
+   * their original order.
+   *
+   * @param values   the values
+   * @param parallel whether to sort using multiple threads
+   * @return the indices
+   */
+  public static int[] argsort(int[] values, boolean parallel) {
+    return sort(values.length, new IntComparator(values), parallel);
+  }
+
+  /**
+   * Returns the indices of the values in descending order, with NaNs last.
+   * Equal values keep their original order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] argsortDesc(double[] values) {
+    return argsortDesc(values, values.length >= PARALLEL_SIZE);
+  }
+
+  /**
+   * Returns the indices of the values in descending order, with NaNs last.
+   * Equal values keep their original order.
+   *
+   * @param values   the values
+   * @param parallel whether to sort using multiple threads
+   * @return the indices
+   */
+  public static int[] argsortDesc(double[] values, boolean parallel) {
+    return sort(values.length, new DescendingDoubleComparator(values), parallel);
+  }
+
+  /**
+   * Returns the indices of the values in descending order. Equal values keep
+   * their original order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] argsortDesc(int[] values) {
+    return argsortDesc(values, values.length >= PARALLEL_SIZE);
+  }
+
+  /**
+   * Returns the indices of the values in descending order. Equal values keep
+   * their original order.
+   *
+   * @param values   the values
+   * @param parallel whether to sort using multiple threads
+   * @return the indices
+   */
+  public static int[] argsortDesc(int[] values, boolean parallel) {
+    return sort(values.length, new DescendingIntComparator(values), parallel);
+  }
+
+  /**
+   * Returns the indices of the values in ascending order using an in place
+   * quick sort. Faster than {@link #argsort(double[])} and needs no buffer,
+   * but equal values may be in any order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] quickArgsort(double[] values) {
+    return quickSort(values.length, new DoubleComparator(values));
+  }
+
+  /**
+   * Returns the indices of the values in ascending order using an in place
+   * quick sort. Equal values may be in any order.
+   *
+   * @param values the values
+   * @return the indices
+   */
+  public static int[] quickArgsort(int[] values) {
+    return quickSort(values.length, new IntComparator(values));
+  }
+
+  /**
+   * Returns the indices of the k largest values, largest first, without
+   * sorting the whole array. The result is the same as the first k indices
+   * of {@link #argsortDesc(double[])}.
+   *
+   * @param values the values
+   * @param k      the k
+   * @return the indices
+   */
+  public static int[] top(double[] values, int k) {
+    return select(values.length, k, new DescendingDoubleComparator(values));
+  }
+
+  /**
+   * Returns the indices of the k largest values, largest first.
+   *
+   * @param values the values
+   * @param k      the k
+   * @return the indices
+   */
+  public static int[] top(int[] values, int k) {
+    return select(values.length, k, new DescendingIntComparator(values));
+  }
+
+  /**
+   * Returns the indices of the k smallest values, smallest first, without
+   * sorting the whole array. The result is the same as the first k indices
+   * of {@link #argsort(double[])}.
+   *
+   * @param values the values
+   * @param k      the k
+   * @return the indices
+   */
+  public static int[] bottom(double[] values, int k) {
+    return select(values.length, k, new DoubleComparator(values));
+  }
+
+  /**
+   * Returns the indices of the k smallest values, smallest first.
+   *
+   * @param values the values
+   * @param k      the k
+   * @return the indices
+   */
+  public static int[] bottom(int[] values, int k) {
+    return select(values.length, k, new IntComparator(values));
+  }
+
+  /**
+   * Reorder an array so that element i of the result is values[idx[i]].
+   * Used to apply the result of an argsort to the sorted array or to
+   * companion arrays.
+   *
+   * @param values the values
+   * @param idx    the indices
+   * @return the reordered values
+   */
+  public static double[] reorder(double[] values, int[] idx) {
+    double[] ret = new double[idx.length];
+
+    for (int i = 0; i < idx.length; ++i) {
+      ret[i] = values[idx[i]];
+    }
+
+    return ret;
+  }
+
+  /**
+   * Reorder an array so that element i of the result is values[idx[i]].
+   *
+   * @param values the values
+   * @param idx    the indices
+   * @return the reordered values
+   */
+  public static int[] reorder(int[] values, int[] idx) {
+    int[] ret = new int[idx.length];
+
+    for (int i = 0; i < idx.length; ++i) {
+      ret[i] = values[idx[i]];
+    }
+
+    return ret;
+  }
+
+  /**
+   * Reorder an array so that element i of the result is values[idx[i]].
+   *
+   * @param <T>    the generic type
+   * @param values the values
+   * @param idx    the indices
+   * @return the reordered values
+   */
+  public static <T> T[] reorder(T[] values, int[] idx) {
+    T[] ret = Arrays.copyOf(values, idx.length);
+
+    for (int i = 0; i < idx.length; ++i) {
+      ret[i] = values[idx[i]];
+    }
+
+    return ret;
+  }
+
+  /**
+   * Reorder a list so that element i of the result is values.get(idx[i]).
+   *
+   * @param <T>    the generic type
+   * @param values the values
+   * @param idx    the indices
+   * @return the reordered values
+   */
+  public static <T> List<T> reorder(List<T> values, int[] idx) {
+    List<T> ret = new ArrayList<T>(idx.length);
+
+    for (int i : idx) {
+      ret.add(values.get(i));
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the inverse of a permutation, i.e. where each original index ended
+   * up. The inverse of an argsort gives the 0 based ordinal rank of each
+   * value.
+   *
+   * @param idx the indices
+   * @return the inverse
+   */
+  public static int[] invert(int[] idx) {
+    int[] ret = new int[idx.length];
+
+    for (int i = 0; i < idx.length; ++i) {
+      ret[idx[i]] = i;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Sort the indices 0 to n - 1.
+   *
+   * @param n        the n
+   * @param c        the c
+   * @param parallel the parallel
+   * @return the int[]
+   */
+  private static int[] sort(int n, IndexComparator c, boolean parallel) {
+    int[] idx = new int[n];
+
+    for (int i = 0; i < n; ++i) {
+      idx[i] = i;
+    }
+
+    if (n > INSERTION_SORT_SIZE) {
+      int[] tmp = new int[n];
+
+      if (parallel && n > PARALLEL_GRAIN) {
+        ForkJoinPool.commonPool().invoke(new SortTask(idx, tmp, 0, n, c));
+      } else {
+        sort(idx, tmp, 0, n, c);
+      }
+    } else {
+      insertionSort(idx, 0, n, c);
+    }
+
+    return idx;
+  }
+
+  /**
+   * Quick sort the indices 0 to n - 1.
+   *
+   * @param n the n
+   * @param c the c
+   * @return the int[]
+   */
+  private static int[] quickSort(int n, IndexComparator c) {
+    int[] idx = new int[n];
+
+    for (int i = 0; i < n; ++i) {
+      idx[i] = i;
+    }
+
+    quickSort(idx, 0, n, c);
+
+    return idx;
+  }
+
+  /**
+   * Quick sort a range of an index array. Ranges are split three ways, into
+   * values less than, equal to and greater than the pivot, so runs of equal
+   * values do not degrade the sort.
+   *
+   * @param idx   the idx
+   * @param start the start
+   * @param end   the end, exclusive
+   * @param c     the c
+   */
+  private static void quickSort(int[] idx, int start, int end, IndexComparator c) {
+    while (end - start > INSERTION_SORT_SIZE) {
+      int pivot = medianOf3(idx[start], idx[(start + end) >>> 1], idx[end - 1], c);
+
+      int lt = start;
+      int i = start;
+      int gt = end - 1;
+
+      while (i <= gt) {
+        int r = c.compare(idx[i], pivot);
+
+        if (r < 0) {
+          swap(idx, lt++, i++);
+        } else if (r > 0) {
+          swap(idx, i, gt--);
+        } else {
+          ++i;
+        }
+      }
+
+      // Recurse into the smaller side to bound the stack depth
+      if (lt - start < end - gt - 1) {
+        quickSort(idx, start, lt, c);
+        start = gt + 1;
+      } else {
+        quickSort(idx, gt + 1, end, c);
+        end = lt;
+      }
+    }
+
+    insertionSort(idx, start, end, c);
+  }
+
+  /**
+   * Returns the index whose value is the median of three.
+   *
+   * @param a the a
+   * @param b the b
+   * @param d the d
+   * @param c the c
+   * @return the int
+   */
+  private static int medianOf3(int a, int b, int d, IndexComparator c) {
+    if (c.compare(a, b) < 0) {
+      if (c.compare(b, d) < 0) {
+        return b;
+      }
+
+      return c.compare(a, d) < 0 ? d : a;
+    } else {
+      if (c.compare(a, d) < 0) {
+        return a;
+      }
+
+      return c.compare(b, d) < 0 ? d : b;
+    }
+  }
+
+  /**
+   * Returns the first k indices of a sort, using a heap of the best k indices
+   * seen so far so that selecting is O(n log k).
+   *
+   * @param n the n
+   * @param k the k
+   * @param c the c
+   * @return the int[]
+   */
+  private static int[] select(int n, int k, IndexComparator c) {
+    k = Math.max(0, Math.min(k, n));
+
+    IndexComparator ic = new IndexOrderComparator(c);
+
+    // Max heap so the worst of the k is at the root
+    int[] heap = new int[k];
+
+    for (int i = 0; i < k; ++i) {
+      heap[i] = i;
+      siftUp(heap, i, ic);
+    }
+
+    for (int i = k; i < n; ++i) {
+      if (k > 0 && ic.compare(i, heap[0]) < 0) {
+        heap[0] = i;
+        siftDown(heap, 0, k, ic);
+      }
+    }
+
+    if (k > INSERTION_SORT_SIZE) {
+      sort(heap, new int[k], 0, k, ic);
+    } else {
+      insertionSort(heap, 0, k, ic);
+    }
+
+    return heap;
+  }
+
+  /**
+   * Move a heap element towards the root until the heap is ordered.
+   *
+   * @param heap the heap
+   * @param i    the i
+   * @param c    the c
+   */
+  private static void siftUp(int[] heap, int i, IndexComparator c) {
+    int v = heap[i];
+
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+
+      if (c.compare(heap[parent], v) >= 0) {
+        break;
+      }
+
+      heap[i] = heap[parent];
+      i = parent;
+    }
+
+    heap[i] = v;
+  }
+
+  /**
+   * Move a heap element away from the root until the heap is ordered.
+   *
+   * @param heap the heap
+   * @param i    the i
+   * @param n    the size of the heap
+   * @param c    the c
+   */
+  private static void siftDown(int[] heap, int i, int n, IndexComparator c) {
+    int v = heap[i];
+
+    while (true) {
+      int child = 2 * i + 1;
+
+      if (child >= n) {
+        break;
+      }
+
+      if (child + 1 < n && c.compare(heap[child + 1], heap[child]) > 0) {
+        ++child;
+      }
+
+      if (c.compare(v, heap[child]) >= 0) {
+        break;
+      }
+
+      heap[i] = heap[child];
+      i = child;
+    }
+
+    heap[i] = v;
+  }
+
+  /**
+   * Swap two elements of an array.
+   *
+   * @param idx the idx
+   * @param i   the i
+   * @param j   the j
+   */
+  private static void swap(int[] idx, int i, int j) {
+    int t = idx[i];
+    idx[i] = idx[j];
+    idx[j] = t;
+  }
+
+  /**
+   * Merge sort a range of an index array.
+   *
+   * @param idx   the idx
+   * @param tmp   a buffer the same size as idx
+   * @param start the start
+   * @param end   the end, exclusive
+   * @param c     the c
+   */
+  private static void sort(int[] idx, int[] tmp, int start, int end, IndexComparator c) {
+    if (end - start <= INSERTION_SORT_SIZE) {
+      insertionSort(idx, start, end, c);
+      return;
+    }
+
+    int mid = (start + end) >>> 1;
+
+    sort(idx, tmp, start, mid, c);
+    sort(idx, tmp, mid, end, c);
+
+    merge(idx, tmp, start, mid, end, c);
+  }
+
+  /**
+   * Merge two adjacent sorted ranges.
+   *
+   * @param idx   the idx
+   * @param tmp   the tmp
+   * @param start the start
+   * @param mid   the start of the second range
+   * @param end   the end
+   * @param c     the c
+   */
+  private static void merge(int[] idx, int[] tmp, int start, int mid, int end, IndexComparator c) {
+    // Already in order
+    if (c.compare(idx[mid - 1], idx[mid]) <= 0) {
+      return;
+    }
+
+    System.arraycopy(idx, start, tmp, start, end - start);
+
+    int i = start;
+    int j = mid;
+
+    for (int k = start; k < end; ++k) {
+      // Take from the left on ties to keep the sort stable
+      if (j == end || (i < mid && c.compare(tmp[i], tmp[j]) <= 0)) {
+        idx[k] = tmp[i++];
+      } else {
+        idx[k] = tmp[j++];
+      }
+    }
+  }
+
+  /**
+   * Insertion sort a range of an index array.
+   *
+   * @param idx   the idx
+   * @param start the start
+   * @param end   the end
+   * @param c     the c
+   */
+  private static void insertionSort(int[] idx, int start, int end, IndexComparator c) {
+    for (int i = start + 1; i < end; ++i) {
+      int v = idx[i];
+
+      int j = i - 1;
+
+      while (j >= start && c.compare(idx[j], v) > 0) {
+        idx[j + 1] = idx[j];
+        --j;
+      }
+
+      idx[j + 1] = v;
+    }
+  }
+}
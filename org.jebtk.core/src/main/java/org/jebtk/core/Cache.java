@@ -0,0 +1,789 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe cache with least recently used eviction. Entries are held in a
+ * concurrent map so reads never block. The recency order is kept in a linked
+ * list guarded by a lock; reads that cannot take the lock immediately record
+ * the access in a buffer that is replayed by the next thread holding the lock
+ * so the order is approximate under heavy load.
+ *
+ * The cache can be limited by the number of entries and by the total weight
+ * of its entries. Entries can expire a fixed time after they were written or
+ * last read, and missing values can be created by a {@link CacheLoader}. Hits,
+ * misses, loads, evictions and expirations are counted for monitoring.
+ *
+ * @author Antony Holmes
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class Cache<K, V> {
+
+  /** The maximum number of reads waiting to update the recency order. */
+  private static final int MAX_BUFFER_SIZE = 1024;
+
+  /**
+   * A cache entry and its position in the recency list.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   */
+  private static class Node<K, V> {
+
+    /** The m key. */
+    final K mKey;
+
+    /** The m value. */
+    final V mValue;
+
+    /** The m weight. */
+    final int mWeight;
+
+    /** The time the entry was written. */
+    final long mWriteTime;
+
+    /** The time the entry was last read. */
+    volatile long mAccessTime;
+
+    /** The previous (more recently used) node. Guarded by the lock. */
+    Node<K, V> mPrev;
+
+    /** The next (less recently used) node. Guarded by the lock. */
+    Node<K, V> mNext;
+
+    /** Whether the node is in the list. Guarded by the lock. */
+    boolean mLinked = false;
+
+    /**
+     * Instantiates a new node.
+     *
+     * @param key    the key
+     * @param value  the value
+     * @param weight the weight
+     * @param time   the time
+     */
+    Node(K key, V value, int weight, long time) {
+      mKey = key;
+      mValue = value;
+      mWeight = weight;
+      mWriteTime = time;
+      mAccessTime = time;
+    }
+  }
+
+  /**
+   * A load of a key, remembering the thread running it so that a loader that
+   * asks for its own key can be detected.
+   *
+   * @param <V> the value type
+   */
+  private static class Load<V> extends FutureTask<V> {
+
+    /** The thread running the load. */
+    final Thread mThread = Thread.currentThread();
+
+    /**
+     * Instantiates a new load.
+     *
+     * @param callable the callable
+     */
+    Load(Callable<V> callable) {
+      super(callable);
+    }
+  }
+
+  /** The m map. */
+  private final ConcurrentHashMap<K, Node<K, V>> mMap;
+
+  /**
+   * Loads in progress. Threads missing the same key wait for the first
+   * thread's load rather than starting their own.
+   */
+  private final ConcurrentHashMap<K, Load<V>> mLoading = new ConcurrentHashMap<K, Load<V>>();
+
+  /** Guards the recency list and the size and weight totals. */
+  private final ReentrantLock mLock = new ReentrantLock();
+
+  /** Sentinel of the recency list. mHead.mNext is the most recently used. */
+  private final Node<K, V> mHead = new Node<K, V>(null, null, 0, 0);
+
+  /** Reads waiting to be applied to the recency list. */
+  private final ConcurrentLinkedQueue<Node<K, V>> mBuffer = new ConcurrentLinkedQueue<Node<K, V>>();
+
+  /** The m buffer size. */
+  private final AtomicInteger mBufferSize = new AtomicInteger(0);
+
+  /** The m max size. */
+  private final int mMaxSize;
+
+  /** The m size. Guarded by the lock. */
+  private int mSize = 0;
+
+  /** The m max weight. */
+  private long mMaxWeight = Long.MAX_VALUE;
+
+  /** The m weight. Guarded by the lock. */
+  private long mWeight = 0;
+
+  /** The m weigher. */
+  private Weigher<K, V> mWeigher = null;
+
+  /** The m loader. */
+  private CacheLoader<K, V> mLoader = null;
+
+  /** Nanoseconds after writing when entries expire. */
+  private long mExpireAfterWrite = -1;
+
+  /** Nanoseconds after reading when entries expire. */
+  private long mExpireAfterAccess = -1;
+
+  /** The m hits. */
+  private final LongAdder mHits = new LongAdder();
+
+  /** The m misses. */
+  private final LongAdder mMisses = new LongAdder();
+
+  /** The m loads. */
+  private final LongAdder mLoads = new LongAdder();
+
+  /** The m evictions. */
+  private final LongAdder mEvictions = new LongAdder();
+
+  /** The m expirations. */
+  private final LongAdder mExpirations = new LongAdder();
+
+  /**
+   * Instantiates a new cache.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  public Cache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Cache size must be positive.");
+    }
+
+    mMaxSize = maxSize;
+    mMap = new ConcurrentHashMap<K, Node<K, V>>(Math.min(maxSize, 1024));
+
+    mHead.mPrev = mHead;
+    mHead.mNext = mHead;
+  }
+
+  /**
+   * Limit the total weight of the entries. Should be set before the cache is
+   * used.
+   *
+   * @param maxWeight the max weight
+   * @param weigher   the weigher
+   * @return the cache
+   */
+  public Cache<K, V> setMaxWeight(long maxWeight, Weigher<K, V> weigher) {
+    mMaxWeight = maxWeight;
+    mWeigher = weigher;
+
+    return this;
+  }
+
+  /**
+   * Set the loader used by {@link #get(Object)} to create missing values.
+   * Should be set before the cache is used.
+   *
+   * @param loader the loader
+   * @return the cache
+   */
+  public Cache<K, V> setLoader(CacheLoader<K, V> loader) {
+    mLoader = loader;
+
+    return this;
+  }
+
+  /**
+   * Expire entries a fixed time after they were added. Should be set before
+   * the cache is used.
+   *
+   * @param time the time
+   * @param unit the unit
+   * @return the cache
+   */
+  public Cache<K, V> setExpireAfterWrite(long time, TimeUnit unit) {
+    mExpireAfterWrite = time > 0 ? unit.toNanos(time) : -1;
+
+    return this;
+  }
+
+  /**
+   * Expire entries a fixed time after they were last read. Should be set
+   * before the cache is used.
+   *
+   * @param time the time
+   * @param unit the unit
+   * @return the cache
+   */
+  public Cache<K, V> setExpireAfterAccess(long time, TimeUnit unit) {
+    mExpireAfterAccess = time > 0 ? unit.toNanos(time) : -1;
+
+    return this;
+  }
+
+  /**
+   * Returns the value of a key. If the key is missing and a loader has been
+   * set, the value is loaded and added to the cache.
+   *
+   * @param key the key
+   * @return the value or null.
+   */
+  public V get(K key) {
+    return get(key, mLoader);
+  }
+
+  /**
+   * Returns the value of a key, using a loader to create it if it is missing.
+   * Only one thread loads a given key at a time; other threads wanting the
+   * same key wait for its value. The loader runs outside the map so loads
+   * of different keys never block each other.
+   *
+   * @param key    the key
+   * @param loader the loader. If null, missing values are not loaded.
+   * @return the value or null.
+   * @throws IllegalStateException if the loader asks for the key it is
+   *                               loading.
+   */
+  public V get(final K key, final CacheLoader<K, V> loader) {
+    V value = getIfPresent(key);
+
+    if (value != null || loader == null) {
+      return value;
+    }
+
+    Load<V> task = new Load<V>(new Callable<V>() {
+      @Override
+      public V call() throws Exception {
+        // The key may have been loaded between the read above and claiming
+        // the load
+        Node<K, V> node = mMap.get(key);
+
+        if (node != null && !isExpired(node, System.nanoTime())) {
+          return node.mValue;
+        }
+
+        V v = loader.load(key);
+
+        if (v == null) {
+          return null;
+        }
+
+        mLoads.increment();
+
+        // The value is added before the load is removed from the loading
+        // map so that later readers find one or the other
+        return insert(key, v);
+      }
+    });
+
+    Load<V> current = mLoading.putIfAbsent(key, task);
+
+    if (current != null) {
+      if (current.mThread == Thread.currentThread()) {
+        // Waiting for our own load would never finish
+        throw new IllegalStateException("Recursive load of key " + key);
+      }
+
+      // Another thread is loading the key
+      return getLoaded(current);
+    }
+
+    try {
+      task.run();
+
+      return getLoaded(task);
+    } finally {
+      mLoading.remove(key, task);
+    }
+  }
+
+  /**
+   * Returns the value of a key without loading it.
+   *
+   * @param key the key
+   * @return the value or null if the key is not in the cache.
+   */
+  public V getIfPresent(K key) {
+    Node<K, V> node = mMap.get(key);
+
+    if (node == null) {
+      mMisses.increment();
+
+      return null;
+    }
+
+    long now = System.nanoTime();
+
+    if (isExpired(node, now)) {
+      if (mMap.remove(key, node)) {
+        mExpirations.increment();
+
+        removed(node);
+      }
+
+      mMisses.increment();
+
+      return null;
+    }
+
+    mHits.increment();
+
+    if (mExpireAfterAccess > 0) {
+      node.mAccessTime = now;
+    }
+
+    accessed(node);
+
+    return node.mValue;
+  }
+
+  /**
+   * Add or replace a value.
+   *
+   * @param key   the key
+   * @param value the value. Cannot be null.
+   */
+  public void put(K key, V value) {
+    if (value == null) {
+      throw new NullPointerException("Cache values cannot be null.");
+    }
+
+    Node<K, V> node = new Node<K, V>(key, value, weigh(key, value), System.nanoTime());
+
+    Node<K, V> old = mMap.put(key, node);
+
+    mLock.lock();
+
+    try {
+      if (old != null) {
+        unlink(old);
+      }
+
+      link(node);
+      drain();
+      evict();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Remove a key.
+   *
+   * @param key the key
+   * @return the value of the key or null if it was not in the cache.
+   */
+  public V remove(K key) {
+    Node<K, V> node = mMap.remove(key);
+
+    if (node == null) {
+      return null;
+    }
+
+    removed(node);
+
+    return node.mValue;
+  }
+
+  /**
+   * Remove all entries.
+   */
+  public void clear() {
+    mLock.lock();
+
+    try {
+      for (Node<K, V> node : mMap.values()) {
+        if (mMap.remove(node.mKey, node)) {
+          unlink(node);
+        }
+      }
+
+      drain();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Remove expired entries. Expired entries are also removed when they are
+   * read, so this only needs to be called to release memory held by entries
+   * that are no longer requested.
+   */
+  public void cleanUp() {
+    long now = System.nanoTime();
+
+    mLock.lock();
+
+    try {
+      drain();
+
+      Node<K, V> node = mHead.mNext;
+
+      while (node != mHead) {
+        Node<K, V> next = node.mNext;
+
+        if (isExpired(node, now) && mMap.remove(node.mKey, node)) {
+          unlink(node);
+          mExpirations.increment();
+        }
+
+        node = next;
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mMap.size();
+  }
+
+  /**
+   * Returns the total weight of the entries.
+   *
+   * @return the weight
+   */
+  public long getWeight() {
+    mLock.lock();
+
+    try {
+      return mWeight;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the hits.
+   *
+   * @return the hits
+   */
+  public long getHits() {
+    return mHits.sum();
+  }
+
+  /**
+   * Gets the misses.
+   *
+   * @return the misses
+   */
+  public long getMisses() {
+    return mMisses.sum();
+  }
+
+  /**
+   * Returns the number of values created by a loader.
+   *
+   * @return the loads
+   */
+  public long getLoads() {
+    return mLoads.sum();
+  }
+
+  /**
+   * Returns the number of entries removed to keep the cache within its size
+   * and weight limits.
+   *
+   * @return the evictions
+   */
+  public long getEvictions() {
+    return mEvictions.sum();
+  }
+
+  /**
+   * Gets the expirations.
+   *
+   * @return the expirations
+   */
+  public long getExpirations() {
+    return mExpirations.sum();
+  }
+
+  /**
+   * Returns the fraction of reads that found a value.
+   *
+   * @return the hit rate
+   */
+  public double getHitRate() {
+    long hits = getHits();
+    long total = hits + getMisses();
+
+    return total > 0 ? (double) hits / total : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "[size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + ", loads=" + getLoads()
+        + ", evictions=" + getEvictions() + ", expirations=" + getExpirations() + "]";
+  }
+
+  /**
+   * Weigh.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the int
+   */
+  private int weigh(K key, V value) {
+    return mWeigher != null ? mWeigher.weigh(key, value) : 1;
+  }
+
+  /**
+   * Add a loaded value unless a value was put while it was loading, in
+   * which case the put value is kept. Replaces an expired entry.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the value of the key.
+   */
+  private V insert(K key, V value) {
+    Node<K, V> node = new Node<K, V>(key, value, weigh(key, value), System.nanoTime());
+
+    while (true) {
+      Node<K, V> old = mMap.putIfAbsent(key, node);
+
+      if (old == null) {
+        added(node);
+
+        return value;
+      }
+
+      if (!isExpired(old, node.mWriteTime)) {
+        return old.mValue;
+      }
+
+      if (mMap.replace(key, old, node)) {
+        mExpirations.increment();
+
+        removed(old);
+        added(node);
+
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Wait for a load to finish.
+   *
+   * @param <V>  the value type
+   * @param task the task
+   * @return the loaded value.
+   */
+  private static <V> V getLoaded(FutureTask<V> task) {
+    boolean interrupted = false;
+
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          // Loads are not cancelled, so wait for the value and restore the
+          // interrupt afterwards
+          interrupted = true;
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          } else {
+            throw new IllegalStateException(cause);
+          }
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Checks if a node has expired.
+   *
+   * @param node the node
+   * @param now  the now
+   * @return true, if is expired
+   */
+  private boolean isExpired(Node<K, V> node, long now) {
+    return (mExpireAfterWrite > 0 && now - node.mWriteTime > mExpireAfterWrite)
+        || (mExpireAfterAccess > 0 && now - node.mAccessTime > mExpireAfterAccess);
+  }
+
+  /**
+   * Record a read. If another thread is updating the recency list, the read
+   * is buffered rather than waiting.
+   *
+   * @param node the node
+   */
+  private void accessed(Node<K, V> node) {
+    if (mLock.tryLock()) {
+      try {
+        drain();
+        moveToFront(node);
+      } finally {
+        mLock.unlock();
+      }
+    } else if (mBufferSize.get() < MAX_BUFFER_SIZE) {
+      mBufferSize.incrementAndGet();
+      mBuffer.offer(node);
+    }
+  }
+
+  /**
+   * Update the recency list after a node was added to the map.
+   *
+   * @param node the node
+   */
+  private void added(Node<K, V> node) {
+    mLock.lock();
+
+    try {
+      link(node);
+      drain();
+      evict();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Update the recency list after a node was removed from the map.
+   *
+   * @param node the node
+   */
+  private void removed(Node<K, V> node) {
+    mLock.lock();
+
+    try {
+      unlink(node);
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Apply buffered reads. Must hold the lock.
+   */
+  private void drain() {
+    Node<K, V> node;
+
+    while ((node = mBuffer.poll()) != null) {
+      mBufferSize.decrementAndGet();
+
+      moveToFront(node);
+    }
+  }
+
+  /**
+   * Remove least recently used entries until the cache is within its limits.
+   * Must hold the lock.
+   */
+  private void evict() {
+    while ((mSize > mMaxSize || mWeight > mMaxWeight) && mHead.mPrev != mHead) {
+      Node<K, V> node = mHead.mPrev;
+
+      unlink(node);
+
+      if (mMap.remove(node.mKey, node)) {
+        mEvictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Add a node to the front of the list if it is still the current value of
+   * its key. A node replaced before it was linked is never linked. Must hold
+   * the lock.
+   *
+   * @param node the node
+   */
+  private void link(Node<K, V> node) {
+    if (node.mLinked || mMap.get(node.mKey) != node) {
+      return;
+    }
+
+    node.mPrev = mHead;
+    node.mNext = mHead.mNext;
+    mHead.mNext.mPrev = node;
+    mHead.mNext = node;
+    node.mLinked = true;
+
+    ++mSize;
+    mWeight += node.mWeight;
+  }
+
+  /**
+   * Remove a node from the list. Must hold the lock.
+   *
+   * @param node the node
+   */
+  private void unlink(Node<K, V> node) {
+    if (!node.mLinked) {
+      return;
+    }
+
+    node.mPrev.mNext = node.mNext;
+    node.mNext.mPrev = node.mPrev;
+    node.mPrev = null;
+    node.mNext = null;
+    node.mLinked = false;
+
+    --mSize;
+    mWeight -= node.mWeight;
+  }
+
+  /**
+   * Move a node to the front of the list. Must hold the lock.
+   *
+   * @param node the node
+   */
+  private void moveToFront(Node<K, V> node) {
+    if (!node.mLinked || mHead.mNext == node) {
+      return;
+    }
+
+    node.mPrev.mNext = node.mNext;
+    node.mNext.mPrev = node.mPrev;
+
+    node.mPrev = mHead;
+    node.mNext = mHead.mNext;
+    mHead.mNext.mPrev = node;
+    mHead.mNext = node;
+  }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+/**
+ * Creates the value of a key missing from a {@link Cache}.
+ *
+ * @author Antony Holmes
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public interface CacheLoader<K, V> {
+
+  /**
+   * Load the value of a key.
+   *
+   * @param key the key
+   * @return the value or null if the key has no value.
+   */
+  V load(K key);
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columnar numeric table. Each column is stored in a contiguous double array
+ * and row and column names are stored once, so a table of r x c values costs
+ * roughly 8rc bytes rather than one boxed object per cell as with
+ * {@link TableData}.
+ */
+public class DoubleTableData {
+
+  /** The row names or null if the table has no row header. */
+  private final String[] mRowNames;
+
+  /** The column names or null if the table has no column header. */
+  private final String[] mColNames;
+
+  /** The columns. */
+  private final double[][] mColumns;
+
+  /** The row count. */
+  private final int mRows;
+
+  /**
+   * Instantiates a new double table data.
+   *
+   * @param rows the rows
+   * @param cols the cols
+   */
+  public DoubleTableData(int rows, int cols) {
+    this(null, null, new double[cols][rows]);
+  }
+
+  /**
+   * Instantiates a new double table data. The column arrays are used as is and
+   * must all be the same length.
+   *
+   * @param rowNames the row names (may be null)
+   * @param colNames the column names (may be null)
+   * @param columns  the columns
+   */
+  public DoubleTableData(String[] rowNames, String[] colNames, double[][] columns) {
+    mRows = columns.length > 0 ? columns[0].length : (rowNames != null ? rowNames.length : 0);
+
+    for (double[] column : columns) {
+      if (column.length != mRows) {
+        throw new IllegalArgumentException("Columns must be the same length.");
+      }
+    }
+
+    if (rowNames != null && rowNames.length != mRows) {
+      throw new IllegalArgumentException("Row names must match the number of rows.");
+    }
+
+    if (colNames != null && colNames.length != columns.length) {
+      throw new IllegalArgumentException("Column names must match the number of columns.");
+    }
+
+    mRowNames = rowNames;
+    mColNames = colNames;
+    mColumns = columns;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the row count
+   */
+  public int getRowCount() {
+    return mRows;
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return the col count
+   */
+  public int getColCount() {
+    return mColumns.length;
+  }
+
+  /**
+   * Gets a value.
+   *
+   * @param row the row
+   * @param col the col
+   * @return the double
+   */
+  public double get(int row, int col) {
+    return mColumns[col][row];
+  }
+
+  /**
+   * Sets a value.
+   *
+   * @param row   the row
+   * @param col   the col
+   * @param value the value
+   */
+  public void set(int row, int col, double value) {
+    mColumns[col][row] = value;
+  }
+
+  /**
+   * Returns the backing array of a column. Changes to the array are reflected in
+   * the table.
+   *
+   * @param col the col
+   * @return the column
+   */
+  public double[] getColumn(int col) {
+    return mColumns[col];
+  }
+
+  /**
+   * Returns a copy of a row.
+   *
+   * @param row the row
+   * @return the row
+   */
+  public double[] getRow(int row) {
+    double[] ret = new double[mColumns.length];
+
+    for (int i = 0; i < mColumns.length; ++i) {
+      ret[i] = mColumns[i][row];
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns true if the table has row names.
+   *
+   * @return true, if successful
+   */
+  public boolean hasRowNames() {
+    return mRowNames != null;
+  }
+
+  /**
+   * Returns true if the table has column names.
+   *
+   * @return true, if successful
+   */
+  public boolean hasColNames() {
+    return mColNames != null;
+  }
+
+  /**
+   * Gets the row name.
+   *
+   * @param row the row
+   * @return the row name
+   */
+  public String getRowName(int row) {
+    return mRowNames[row];
+  }
+
+  /**
+   * Gets the column name.
+   *
+   * @param col the col
+   * @return the column name
+   */
+  public String getColName(int col) {
+    return mColNames[col];
+  }
+
+  /**
+   * Gets the row names.
+   *
+   * @return the row names or null.
+   */
+  public List<String> getRowNames() {
+    return mRowNames != null ? Collections.unmodifiableList(Arrays.asList(mRowNames)) : null;
+  }
+
+  /**
+   * Gets the column names.
+   *
+   * @return the column names or null.
+   */
+  public List<String> getColNames() {
+    return mColNames != null ? Collections.unmodifiableList(Arrays.asList(mColNames)) : null;
+  }
+
+  /**
+   * Returns a {@link TableData} view of this table so that it can be passed to
+   * code expecting the row based representation. No values are copied. Cells
+   * can be read and set through the view, but rows and columns cannot be added
+   * or removed.
+   *
+   * @return the table data
+   */
+  public TableData<Double> toTableData() {
+    TableData<Double> ret = new TableData<Double>(new AbstractList<List<Double>>() {
+      @Override
+      public List<Double> get(int row) {
+        return new RowView(row);
+      }
+
+      @Override
+      public int size() {
+        return mRows;
+      }
+    });
+
+    ret.columnHeadings = getColNames();
+    ret.rowHeader = getRowNames();
+
+    return ret;
+  }
+
+  /**
+   * Presents one row of the table as a list.
+   */
+  private class RowView extends AbstractList<Double> {
+
+    /** The m row. */
+    private final int mRow;
+
+    /**
+     * Instantiates a new row view.
+     *
+     * @param row the row
+     */
+    public RowView(int row) {
+      mRow = row;
+    }
+
+    @Override
+    public Double get(int col) {
+      return mColumns[col][mRow];
+    }
+
+    @Override
+    public Double set(int col, Double value) {
+      double old = mColumns[col][mRow];
+
+      mColumns[col][mRow] = value;
+
+      return old;
+    }
+
+    @Override
+    public int size() {
+      return mColumns.length;
+    }
+  }
+}
@@ -269,7 +269,8 @@ public class Indexed<K extends Number, V extends Comparable<? super V>> implemen
   }
 
   /**
-   * Int index.
+   * Int index. To sort an array by value, {@link ArgSort} avoids boxing each
+   * index and value.
    *
    * @param items the items
    * @return the list
@@ -21,12 +21,12 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
+import org.jebtk.core.collections.DoubleList;
+import org.jebtk.core.collections.IntList;
+import org.jebtk.core.collections.LongList;
 import org.jebtk.core.collections.UniqueArrayList;
 import org.jebtk.core.geom.IntPos2D;
 
@@ -189,6 +189,64 @@ public class Mathematics {
     return min;
   }
 
+  /**
+   * Min.
+   *
+   * @param values the values
+   * @param start  the start
+   * @param length the length
+   * @return the double
+   */
+  public static final double min(double[] values, int start, int length) {
+    double min = Double.MAX_VALUE;
+
+    int end = start + length;
+
+    for (int i = start; i < end; ++i) {
+      min = Math.min(min, values[i]);
+    }
+
+    return min;
+  }
+
+  /**
+   * Min of a list without unboxing.
+   *
+   * @param values the values
+   * @return the double
+   */
+  public static final double min(DoubleList values) {
+    double[] data = values.getArray();
+    int n = values.size();
+
+    double min = Double.POSITIVE_INFINITY;
+
+    for (int i = 0; i < n; ++i) {
+      min = Math.min(min, data[i]);
+    }
+
+    return min;
+  }
+
+  /**
+   * Min of a list without unboxing.
+   *
+   * @param values the values
+   * @return the int
+   */
+  public static final int min(IntList values) {
+    int[] data = values.getArray();
+    int n = values.size();
+
+    int min = Integer.MAX_VALUE;
+
+    for (int i = 0; i < n; ++i) {
+      min = Math.min(min, data[i]);
+    }
+
+    return min;
+  }
+
   /**
    * Returns the maximum value in a list of numbers.
    *
@@ -284,6 +342,45 @@ public class Mathematics {
     return max;
   }
 
+  /**
+   * Max of a list without unboxing.
+   *
+   * @param values the values
+   * @return the double
+   */
+  public static final double max(DoubleList values) {
+    double[] data = values.getArray();
+    int n = values.size();
+
+    // Not Double.MIN_VALUE, which is the smallest positive double
+    double max = Double.NEGATIVE_INFINITY;
+
+    for (int i = 0; i < n; ++i) {
+      max = Math.max(max, data[i]);
+    }
+
+    return max;
+  }
+
+  /**
+   * Max of a list without unboxing.
+   *
+   * @param values the values
+   * @return the int
+   */
+  public static final int max(IntList values) {
+    int[] data = values.getArray();
+    int n = values.size();
+
+    int max = Integer.MIN_VALUE;
+
+    for (int i = 0; i < n; ++i) {
+      max = Math.max(max, data[i]);
+    }
+
+    return max;
+  }
+
   /**
    * Returns the sum of a list of numbers.
    *
@@ -300,6 +397,64 @@ public class Mathematics {
     return sum;
   }
 
+  /**
+   * Returns the sum of a list of numbers without unboxing.
+   *
+   * @param l the l
+   * @return the double
+   */
+  public static double sum(DoubleList l) {
+    return sum(l.getArray(), 0, l.size());
+  }
+
+  /**
+   * Returns the sum of a list of ints without unboxing.
+   *
+   * @param l the l
+   * @return the long
+   */
+  public static long sum(IntList l) {
+    int[] data = l.getArray();
+    int n = l.size();
+
+    long sum = 0;
+
+    for (int i = 0; i < n; ++i) {
+      sum += data[i];
+    }
+
+    return sum;
+  }
+
+  /**
+   * Returns the sum of a list of longs without unboxing.
+   *
+   * @param l the l
+   * @return the long
+   */
+  public static long sum(LongList l) {
+    long[] data = l.getArray();
+    int n = l.size();
+
+    long sum = 0;
+
+    for (int i = 0; i < n; ++i) {
+      sum += data[i];
+    }
+
+    return sum;
+  }
+
+  /**
+   * Returns the mean of a list of numbers without unboxing.
+   *
+   * @param l the l
+   * @return the double
+   */
+  public static double mean(DoubleList l) {
+    return sum(l) / l.size();
+  }
+
   /**
    * Returns the sum of a sequence of numbers from 0 to x inclusive using Gauss
    * sumation.
@@ -610,94 +765,27 @@ public class Mathematics {
    * @return the list
    */
   public static List<Double> linearInterpolation(List<Double> x, List<Double> y, List<Double> values) {
+    double[] v = new double[values.size()];
 
-    System.err.println("interpolating");
+    for (int i = 0; i < v.length; ++i) {
+      v[i] = values.get(i);
+    }
 
-    List<Double> ret = new ArrayList<Double>(values.size());
+    double[] interpolated = linearInterpolation(x, y, v);
 
-    // pair and sort the x y values
-    // index on y since we want to sort by x
-    List<Indexed<Double, Double>> indexed = Indexed.pair(y, x);
-
-    // sort by x
-    Collections.sort(indexed);
-
-    boolean found = false;
-    double yd;
-    double xd;
-    double vi;
-    double v;
-
-    for (int i = 0; i < values.size(); ++i) {
-      v = values.get(i);
-
-      found = false;
-
-      /*
-       * // Modified binary search to find points to // interpolate between. Assumes
-       * values are // ordered smallest to largest.
-       * 
-       * mins = 0; // skip last element maxs = indexed.size() - 2;
-       * 
-       * while(maxs >= mins) { mids = mins + (maxs - mins) / 2;
-       * 
-       * //System.err.println("khsdfhsd " + mids);
-       * 
-       * if (indexed.get(mids).value <= v && indexed.get(mids + 1).value > v) { //
-       * found the correct bin
-       * 
-       * yd = indexed.get(mids + 1).index - indexed.get(mids).index;
-       * 
-       * xd = (v - indexed.get(mids).value) / (indexed.get(mids + 1).value -
-       * indexed.get(mids).value);
-       * 
-       * vi = indexed.get(mids).index + yd * xd;
-       * 
-       * ret.add(vi);
-       * 
-       * found = true;
-       * 
-       * break; } else if (indexed.get(mids).value == indexed.get(mids + 1).value) {
-       * // In regions where there are multiple bins with the same // value, keep
-       * skipping forward one until we find a bin // boundary. This portion of the
-       * algorithm is searching // linearly, but for the most part, if the values are
-       * // reasonably unique, the algorithm will perform in N(log 2) ++mins; } else
-       * if (indexed.get(mids).value > v) { maxs = mids - 1; } else if
-       * (indexed.get(mids).value < v) { mins = mids + 1; } else { break; } }
-       */
-
-      for (int j = 0; j < indexed.size() - 1; ++j) {
-        // find where this v lies between
-
-        if (indexed.get(j).getValue() <= v && indexed.get(j + 1).getValue() > v) {
-          // interpolate
-
-          yd = indexed.get(j + 1).getIndex() - indexed.get(j).getIndex();
-
-          xd = (v - indexed.get(j).getValue()) / (indexed.get(j + 1).getValue() - indexed.get(j).getValue());
-
-          vi = indexed.get(j).getIndex() + yd * xd;
-
-          ret.add(vi);
-
-          found = true;
-
-          break;
-        }
-      }
+    List<Double> ret = new ArrayList<Double>(interpolated.length);
 
-      if (!found) {
-        // the value lies outside the function range
-        // so just use the max value
-        ret.add(indexed.get(indexed.size() - 1).getIndex());
-      }
+    for (double vi : interpolated) {
+      ret.add(vi);
     }
 
     return ret;
   }
 
   /**
-   * Linear interpolation.
+   * Linear interpolation. The points are sorted by x once and each value is
+   * then located with a binary search. Values outside the range of x are given
+   * the y of the largest x.
    *
    * @param x      the x
    * @param y      the y
@@ -710,54 +798,70 @@ public class Mathematics {
 
     double[] ret = new double[n];
 
-    // pair and sort the x y values
-    // index on y since we want to sort by x
-    List<Indexed<Double, Double>> indexed = Indexed.pair(y, x);
+    int m = x.size();
 
-    // sort by x
-    Collections.sort(indexed);
+    double[] xs = new double[m];
+    double[] ys = new double[m];
 
-    boolean found = false;
-    double yd;
-    double xd;
-    double vi;
-    double v;
+    for (int i = 0; i < m; ++i) {
+      xs[i] = x.get(i);
+      ys[i] = y.get(i);
+    }
 
-    double max = indexed.get(indexed.size() - 1).getIndex();
+    // sort the x y values by x
+    int[] idx = ArgSort.argsort(xs);
 
-    for (int i = 0; i < n; ++i) {
-      v = values[i];
+    xs = ArgSort.reorder(xs, idx);
+    ys = ArgSort.reorder(ys, idx);
 
-      found = false;
+    double max = ys[m - 1];
 
-      for (int j = 0; j < indexed.size() - 1; ++j) {
-        // find where this v lies between
+    for (int i = 0; i < n; ++i) {
+      double v = values[i];
 
-        if (indexed.get(j).getValue() <= v && indexed.get(j + 1).getValue() > v) {
-          // interpolate
+      // the last x <= v
+      int j = upperBound(xs, v) - 1;
 
-          yd = indexed.get(j + 1).getIndex() - indexed.get(j).getIndex();
+      if (j >= 0 && j < m - 1) {
+        // interpolate
+        double yd = ys[j + 1] - ys[j];
 
-          xd = (v - indexed.get(j).getValue()) / (indexed.get(j + 1).getValue() - indexed.get(j).getValue());
+        double xd = (v - xs[j]) / (xs[j + 1] - xs[j]);
 
-          vi = indexed.get(j).getIndex() + yd * xd;
+        ret[i] = ys[j] + yd * xd;
+      } else {
+        // the value lies outside the function range
+        // so just use the max value
+        ret[i] = max;
+      }
+    }
 
-          ret[i] = vi;
+    return ret;
+  }
 
-          found = true;
+  /**
+   * Returns the index of the first element of a sorted array that is greater
+   * than v, or the length of the array if there is none.
+   *
+   * @param a the a
+   * @param v the v
+   * @return the int
+   */
+  private static int upperBound(double[] a, double v) {
+    int lo = 0;
+    int hi = a.length;
 
-          break;
-        }
-      }
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
 
-      if (!found) {
-        // the value lies outside the function range
-        // so just use the max value
-        ret[i] = max; // indexed.get(indexed.size() - 1).getIndex();
+      if (a[mid] <= v) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
       }
     }
 
-    return ret;
+    return lo;
   }
 
   /**
@@ -1417,6 +1521,26 @@ public class Mathematics {
     return ret;
   }
 
+  /**
+   * Sum part of an array.
+   *
+   * @param values the values
+   * @param start  the start
+   * @param length the length
+   * @return the double
+   */
+  public static double sum(final double[] values, int start, int length) {
+    double ret = 0;
+
+    int end = start + length;
+
+    for (int i = start; i < end; ++i) {
+      ret += values[i];
+    }
+
+    return ret;
+  }
+
   /**
    * Returns {@code b} to the {@code k}th power using integers.
    *
@@ -1457,76 +1581,15 @@ public class Mathematics {
   }
 
   /**
-   * Tied rank.
+   * Returns the fractional ranks of the values, i.e. tied values get the
+   * mean of the ranks they span. Ranks are 1 based.
    *
    * @param values the values
    * @return the double[]
+   * @see Ranks
    */
   public static double[] tiedRank(double[] values) {
-    Map<Double, Integer> countMap = new HashMap<Double, Integer>();
-
-    for (double value : values) {
-      if (!countMap.containsKey(value)) {
-        countMap.put(value, 0);
-      }
-
-      countMap.put(value, countMap.get(value) + 1);
-    }
-
-    List<Indexed<Integer, Double>> sorted = IndexedInt.index(values);
-
-    // Items are now rank sorted
-    Collections.sort(sorted);
-
-    double rank = 1.0;
-
-    double currentValue = Double.MIN_VALUE;
-
-    double v;
-
-    Map<Integer, Double> ranks = new HashMap<Integer, Double>();
-
-    // ranks.put(sorted.get(0).getIndex(), rank /
-    // countMap.get(sorted.get(0).getValue()));
-
-    for (int i = 0; i < sorted.size(); ++i) {
-      v = sorted.get(i).getValue();
-
-      if (v > currentValue) {
-        // We have moved into a new block so calculate the fractional
-        // rank for this block
-
-        // Since we are using zero based indices, the rank is the
-        // number of items in the group (since for each index we
-        // must add 1 to get the one based index) plus the zero
-        // based ranks of each group member.
-
-        rank = countMap.get(v);
-
-        for (int j = 0; j < countMap.get(v); ++j) {
-          rank += i + j;
-        }
-
-        rank /= countMap.get(v);
-
-        // increase the rank by the number of previous items
-        // rank += i; //countMap.get(sorted.get(i - 1).getValue());
-      }
-
-      currentValue = v;
-
-      ranks.put(sorted.get(i).getIndex(), rank);
-    }
-
-    int n = values.length;
-
-    double[] ret = new double[n];
-
-    for (int i = 0; i < n; ++i) {
-      ret[i] = ranks.get(i);
-    }
-
-    return ret;
+    return Ranks.rank(values);
   }
 
   /**
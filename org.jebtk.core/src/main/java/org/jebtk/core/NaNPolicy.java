@@ -0,0 +1,46 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+/**
+ * How NaN values are ranked by {@link Ranks}.
+ *
+ * @author Antony Holmes
+ *
+ */
+public enum NaNPolicy {
+
+  /**
+   * NaNs are given a rank of NaN and the other values are ranked as if the
+   * NaNs were not present.
+   */
+  KEEP,
+
+  /**
+   * NaNs are ranked as tied values smaller than all other values.
+   */
+  FIRST,
+
+  /**
+   * NaNs are ranked as tied values larger than all other values.
+   */
+  LAST,
+
+  /**
+   * NaNs cause an exception to be thrown.
+   */
+  ERROR
+}
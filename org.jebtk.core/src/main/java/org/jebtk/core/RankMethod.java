@@ -0,0 +1,52 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+/**
+ * How tied values are ranked by {@link Ranks}. The examples show the ranks
+ * given to the values 10, 20, 20, 30.
+ *
+ * @author Antony Holmes
+ *
+ */
+public enum RankMethod {
+
+  /**
+   * Tied values get the mean of the ranks they span, e.g. 1, 2.5, 2.5, 4.
+   */
+  FRACTIONAL,
+
+  /**
+   * Tied values get the lowest rank they span, e.g. 1, 2, 2, 4.
+   */
+  COMPETITION,
+
+  /**
+   * Tied values get the highest rank they span, e.g. 1, 3, 3, 4.
+   */
+  MODIFIED_COMPETITION,
+
+  /**
+   * Tied values get the same rank and ranks have no gaps, e.g. 1, 2, 2, 3.
+   */
+  DENSE,
+
+  /**
+   * Each value gets a distinct rank, with ties ranked in the order they
+   * appear, e.g. 1, 2, 3, 4.
+   */
+  ORDINAL
+}
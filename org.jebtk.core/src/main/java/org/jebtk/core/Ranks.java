@@ -0,0 +1,217 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+/**
+ * Ranks primitive arrays. Ranks are 1 based, so the smallest value has rank
+ * 1, and are computed from a single {@link ArgSort} of the values, so ranking
+ * n values is O(n log n) with no boxing.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class Ranks {
+
+  /**
+   * Instantiates a new ranks.
+   */
+  private Ranks() {
+    // Do nothing
+  }
+
+  /**
+   * Returns the fractional ranks of the values. NaNs are given a rank of NaN.
+   *
+   * @param values the values
+   * @return the ranks
+   */
+  public static double[] rank(double[] values) {
+    return rank(values, RankMethod.FRACTIONAL);
+  }
+
+  /**
+   * Returns the ranks of the values. NaNs are given a rank of NaN.
+   *
+   * @param values the values
+   * @param method how tied values are ranked
+   * @return the ranks
+   */
+  public static double[] rank(double[] values, RankMethod method) {
+    return rank(values, method, NaNPolicy.KEEP);
+  }
+
+  /**
+   * Returns the ranks of the values.
+   *
+   * @param values the values
+   * @param method how tied values are ranked
+   * @param policy how NaNs are ranked
+   * @return the ranks
+   */
+  public static double[] rank(double[] values, RankMethod method, NaNPolicy policy) {
+    return rank(values, method, policy, values.length >= ArgSort.PARALLEL_SIZE);
+  }
+
+  /**
+   * Returns the ranks of the values.
+   *
+   * @param values   the values
+   * @param method   how tied values are ranked
+   * @param policy   how NaNs are ranked
+   * @param parallel whether to sort the values using multiple threads
+   * @return the ranks
+   */
+  public static double[] rank(double[] values, RankMethod method, NaNPolicy policy, boolean parallel) {
+    int n = values.length;
+
+    // NaNs are sorted to the end
+    int[] idx = ArgSort.argsort(values, parallel);
+
+    int nans = 0;
+
+    while (nans < n && Double.isNaN(values[idx[n - 1 - nans]])) {
+      ++nans;
+    }
+
+    if (nans > 0 && policy == NaNPolicy.ERROR) {
+      throw new IllegalArgumentException("Values cannot be NaN.");
+    }
+
+    double[] ret = new double[n];
+
+    int m = n - nans;
+
+    int dense;
+
+    switch (policy) {
+    case FIRST:
+      // The NaNs fill the first ranks
+      dense = rank(values, idx, m, n, 0, 0, method, ret);
+      rank(values, idx, 0, m, nans, dense, method, ret);
+      break;
+    case LAST:
+      dense = rank(values, idx, 0, m, 0, 0, method, ret);
+      rank(values, idx, m, n, m, dense, method, ret);
+      break;
+    default:
+      rank(values, idx, 0, m, 0, 0, method, ret);
+
+      for (int i = m; i < n; ++i) {
+        ret[idx[i]] = Double.NaN;
+      }
+
+      break;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the ranks of the values.
+   *
+   * @param values the values
+   * @param method how tied values are ranked
+   * @return the ranks
+   */
+  public static double[] rank(int[] values, RankMethod method) {
+    double[] d = new double[values.length];
+
+    for (int i = 0; i < values.length; ++i) {
+      d[i] = values[i];
+    }
+
+    return rank(d, method, NaNPolicy.KEEP);
+  }
+
+  /**
+   * Rank a run of sorted indices, where NaNs are considered equal.
+   *
+   * @param values the values
+   * @param idx    the indices of the values in sorted order
+   * @param start  the start of the run
+   * @param end    the end of the run
+   * @param offset the number of values ranked before the run
+   * @param dense  the last dense rank assigned before the run
+   * @param method the method
+   * @param ret    the array to write the ranks to
+   * @return the last dense rank assigned
+   */
+  private static int rank(double[] values,
+      int[] idx,
+      int start,
+      int end,
+      int offset,
+      int dense,
+      RankMethod method,
+      double[] ret) {
+    int i = start;
+
+    while (i < end) {
+      double v = values[idx[i]];
+
+      int j = i + 1;
+
+      while (j < end && equal(values[idx[j]], v)) {
+        ++j;
+      }
+
+      // The 1 based positions of the group
+      int first = offset + i - start + 1;
+      int last = offset + j - start;
+
+      ++dense;
+
+      for (int k = i; k < j; ++k) {
+        double r;
+
+        switch (method) {
+        case COMPETITION:
+          r = first;
+          break;
+        case MODIFIED_COMPETITION:
+          r = last;
+          break;
+        case DENSE:
+          r = dense;
+          break;
+        case ORDINAL:
+          r = first + k - i;
+          break;
+        default:
+          r = (first + last) / 2.0;
+          break;
+        }
+
+        ret[idx[k]] = r;
+      }
+
+      i = j;
+    }
+
+    return dense;
+  }
+
+  /**
+   * Returns true if two values should be tied.
+   *
+   * @param v1 the v 1
+   * @param v2 the v 2
+   * @return true, if successful
+   */
+  private static boolean equal(double v1, double v2) {
+    return v1 == v2 || (Double.isNaN(v1) && Double.isNaN(v2));
+  }
+}
@@ -41,7 +41,24 @@ public class TableData<T> implements Iterable<List<T>> {
   /**
    * The data.
    */
-  private List<List<T>> data = new ArrayList<List<T>>();
+  private List<List<T>> data;
+
+  /**
+   * Instantiates a new empty table.
+   */
+  public TableData() {
+    this(new ArrayList<List<T>>());
+  }
+
+  /**
+   * Instantiates a new table backed by a list of rows. The rows are not copied
+   * so this can be used to present another storage format as a table.
+   *
+   * @param data the rows
+   */
+  public TableData(List<List<T>> data) {
+    this.data = data;
+  }
 
   /**
    * Removes the row.
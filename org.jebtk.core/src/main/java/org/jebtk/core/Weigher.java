@@ -0,0 +1,36 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core;
+
+/**
+ * Calculates the weight of a {@link Cache} entry, for example its
+ * approximate size in bytes.
+ *
+ * @author Antony Holmes
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public interface Weigher<K, V> {
+
+  /**
+   * Returns the weight of an entry. Must not be negative.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the weight
+   */
+  int weigh(K key, V value);
+}
@@ -34,8 +34,12 @@ import java.util.TreeSet;
 import org.jebtk.core.Function;
 import org.jebtk.core.Indexed;
 import org.jebtk.core.Mathematics;
+import org.jebtk.core.NaNPolicy;
 import org.jebtk.core.NumConvertable;
+import org.jebtk.core.RankMethod;
+import org.jebtk.core.Ranks;
 import org.jebtk.core.sys.SysUtils;
+import org.jebtk.core.text.NaturalComparator;
 import org.jebtk.core.text.TextUtils;
 
 /**
@@ -277,6 +281,33 @@ public class CollectionUtils {
     return ret;
   }
 
+  /**
+   * Returns a naturally sorted copy of a collection so that, for example,
+   * chr2 sorts before chr10.
+   *
+   * @param <T>        the generic type
+   * @param collection the collection
+   * @return the list
+   * @see NaturalComparator
+   */
+  public static <T> List<T> naturalSort(Collection<T> collection) {
+    return naturalSort(collection, false);
+  }
+
+  /**
+   * Returns a naturally sorted copy of a collection. Each item's string is
+   * created once up front rather than on every comparison.
+   *
+   * @param <T>        the generic type
+   * @param collection the collection
+   * @param parallel   whether to sort using multiple threads. Only worthwhile
+   *                   for large collections.
+   * @return the list
+   */
+  public static <T> List<T> naturalSort(Collection<T> collection, boolean parallel) {
+    return NaturalComparator.sort(collection, parallel);
+  }
+
   /**
    * Sort.
    *
@@ -884,20 +915,19 @@ public class CollectionUtils {
       return Collections.emptyList();
     }
 
-    List<Double> list2 = new ArrayList<Double>(list);
+    double[] values = new double[list.size()];
 
-    List<Integer> rank = new ArrayList<Integer>(list.size());
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = list.get(i);
+    }
 
-    Map<Double, Integer> position = new HashMap<Double, Integer>();
+    // Tied values get the last position they span
+    double[] ranks = Ranks.rank(values, RankMethod.MODIFIED_COMPETITION, NaNPolicy.LAST);
 
-    Collections.sort(list2);
+    List<Integer> rank = new ArrayList<Integer>(values.length);
 
-    for (int i = 0; i < list2.size(); ++i) {
-      position.put(list2.get(i), i);
-    }
-
-    for (int i = 0; i < list.size(); ++i) {
-      rank.add(position.get(list.get(i)));
+    for (double r : ranks) {
+      rank.add((int) r - 1);
     }
 
     return rank;
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.collections;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock free queue for passing objects between threads. Each slot
+ * carries a sequence number that tells producers and consumers whether the
+ * slot is free or filled, so offers and polls only need a single compare and
+ * set on the tail or head counter. Unlike {@link CircularArray}, a full buffer
+ * rejects new elements rather than overwriting the oldest.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public class ConcurrentRingBuffer<T> {
+
+  /** The m buffer. */
+  private final Object[] mBuffer;
+
+  /** The sequence number of each slot. */
+  private final AtomicLongArray mSequences;
+
+  /** The m mask. */
+  private final int mMask;
+
+  /** The position of the next element to be added. */
+  private final AtomicLong mTail = new AtomicLong(0);
+
+  /** The position of the next element to be removed. */
+  private final AtomicLong mHead = new AtomicLong(0);
+
+  /**
+   * Instantiates a new ring buffer.
+   *
+   * @param capacity the capacity. Rounded up to a power of 2.
+   */
+  public ConcurrentRingBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+
+    int size = Integer.highestOneBit(capacity);
+
+    if (size < capacity) {
+      size <<= 1;
+    }
+
+    mBuffer = new Object[size];
+    mSequences = new AtomicLongArray(size);
+    mMask = size - 1;
+
+    for (int i = 0; i < size; ++i) {
+      mSequences.set(i, i);
+    }
+  }
+
+  /**
+   * Add an element to the buffer.
+   *
+   * @param item the item
+   * @return true, if the item was added or false if the buffer is full.
+   */
+  public boolean offer(T item) {
+    long pos = mTail.get();
+
+    while (true) {
+      int index = (int) pos & mMask;
+
+      long diff = mSequences.get(index) - pos;
+
+      if (diff == 0) {
+        if (mTail.compareAndSet(pos, pos + 1)) {
+          mBuffer[index] = item;
+
+          // Publish the slot to consumers
+          mSequences.lazySet(index, pos + 1);
+
+          return true;
+        }
+
+        pos = mTail.get();
+      } else if (diff < 0) {
+        // The slot still holds an element from the previous lap
+        return false;
+      } else {
+        pos = mTail.get();
+      }
+    }
+  }
+
+  /**
+   * Remove the oldest element from the buffer.
+   *
+   * @return the element or null if the buffer is empty.
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long pos = mHead.get();
+
+    while (true) {
+      int index = (int) pos & mMask;
+
+      long diff = mSequences.get(index) - (pos + 1);
+
+      if (diff == 0) {
+        if (mHead.compareAndSet(pos, pos + 1)) {
+          T item = (T) mBuffer[index];
+
+          mBuffer[index] = null;
+
+          // Free the slot for the next lap
+          mSequences.lazySet(index, pos + mMask + 1);
+
+          return item;
+        }
+
+        pos = mHead.get();
+      } else if (diff < 0) {
+        return null;
+      } else {
+        pos = mHead.get();
+      }
+    }
+  }
+
+  /**
+   * Remove up to a maximum number of elements and add them to a collection.
+   *
+   * @param c   the collection
+   * @param max the max number of elements to remove
+   * @return the number of elements removed
+   */
+  public int drainTo(Collection<? super T> c, int max) {
+    int n = 0;
+
+    T item;
+
+    while (n < max && (item = poll()) != null) {
+      c.add(item);
+      ++n;
+    }
+
+    return n;
+  }
+
+  /**
+   * Returns the approximate number of elements in the buffer.
+   *
+   * @return the int
+   */
+  public int size() {
+    while (true) {
+      long head = mHead.get();
+      long tail = mTail.get();
+
+      if (head == mHead.get()) {
+        return (int) Math.max(0, Math.min(tail - head, mBuffer.length));
+      }
+    }
+  }
+
+  /**
+   * Checks if is empty.
+   *
+   * @return true, if is empty
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the maximum number of elements the buffer can hold.
+   *
+   * @return the int
+   */
+  public int capacity() {
+    return mBuffer.length;
+  }
+}
@@ -15,17 +15,27 @@
  */
 package org.jebtk.core.collections;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * A specialized DefaultHashMap for storing the number of times a key is added.
+ * A map for storing the number of times a key is added. Counts are stored
+ * unboxed in an {@link ObjectIntHashMap} so incrementing a key does not allocate.
  *
  * @param <K> the key type
  */
-public class CountMap<K> extends DefaultHashMap<K, Integer> {
+public class CountMap<K> extends AbstractMap<K, Integer> implements IterMap<K, Integer> {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = 1L;
+
+  /** The counts. */
+  private final ObjectIntHashMap<K> mCounts;
+
   private int mMaxC = Integer.MIN_VALUE;
   private K mMaxK = null;
 
@@ -42,26 +52,177 @@ public class CountMap<K> extends DefaultHashMap<K, Integer> {
    * @param defaultValue the default value
    */
   public CountMap(int defaultValue) {
-    super(defaultValue);
+    mCounts = new ObjectIntHashMap<K>(HashMapCreator.INITIAL_CAPACITY, ObjectIntHashMap.DEFAULT_FILL_FACTOR,
+        defaultValue);
   }
 
   /**
-   * Removal has no effect.
+   * Returns the count of a key without boxing. Keys not in the map have the
+   * default value.
    *
    * @param key the key
-   * @return the integer
+   * @return the count
+   */
+  public int getCount(Object key) {
+    return mCounts.get(key);
+  }
+
+  @Override
+  public Integer get(Object key) {
+    return getCount(key);
+  }
+
+  /**
+   * Set the count of a key. Counts are stored unboxed so null values are not
+   * allowed.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the previous count or null if the key was not in the map.
+   * @throws NullPointerException if the value is null.
+   */
+  @Override
+  public Integer put(K key, Integer value) {
+    if (value == null) {
+      throw new NullPointerException("Counts cannot be null.");
+    }
+
+    boolean exists = mCounts.containsKey(key);
+
+    int ret = mCounts.put(key, value);
+
+    return exists ? ret : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return mCounts.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return mCounts.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return mCounts.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    mCounts.clear();
+  }
+
+  /**
+   * Returns a view of the entries backed by the map. Setting the value of an
+   * entry or removing an entry, including through {@link #keySet()} and
+   * {@link #values()} which are built on this view, changes the map.
+   */
+  @Override
+  public Set<Map.Entry<K, Integer>> entrySet() {
+    return new AbstractSet<Map.Entry<K, Integer>>() {
+      @Override
+      public Iterator<Map.Entry<K, Integer>> iterator() {
+        // Removing a key can move other keys between slots so iterate over
+        // a snapshot of the keys and look each value up as it is reached
+        final Iterator<K> keys = mCounts.keys().iterator();
+
+        return new Iterator<Map.Entry<K, Integer>>() {
+          private K mKey;
+
+          @Override
+          public boolean hasNext() {
+            return keys.hasNext();
+          }
+
+          @Override
+          public Map.Entry<K, Integer> next() {
+            mKey = keys.next();
+
+            return new SimpleEntry<K, Integer>(mKey, mCounts.get(mKey)) {
+              private static final long serialVersionUID = 1L;
+
+              @Override
+              public Integer setValue(Integer value) {
+                put(getKey(), value);
+
+                return super.setValue(value);
+              }
+            };
+          }
+
+          @Override
+          public void remove() {
+            keys.remove();
+
+            mCounts.remove(mKey);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return mCounts.size();
+      }
+
+      @Override
+      public void clear() {
+        mCounts.clear();
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Map.Entry<K, Integer>> iterator() {
+    return entrySet().iterator();
+  }
+
+  @Override
+  public Map.Entry<K, Integer> first() {
+    return iterator().next();
+  }
+
+  /**
+   * Removes a key from the map.
+   *
+   * @param key the key
+   * @return the count of the key or null if the key was not in the map.
    */
   @Override
   public Integer remove(Object key) {
-    /*
-     * Integer ret = super.get(key);
-     * 
-     * dec((K) key);
-     * 
-     * return ret;
-     */
+    int size = mCounts.size();
+
+    int ret = mCounts.remove(key);
+
+    if (mCounts.size() == size) {
+      return null;
+    }
 
-    return super.get(key);
+    if (mMaxK != null && mMaxK.equals(key)) {
+      updateMax();
+    }
+
+    return ret;
+  }
+
+  /**
+   * Find the largest count after the key with the largest count has been
+   * removed.
+   */
+  private void updateMax() {
+    mMaxC = Integer.MIN_VALUE;
+    mMaxK = null;
+
+    mCounts.forEach(new ObjectIntFunction<K>() {
+      @Override
+      public void apply(K key, int value) {
+        if (value > mMaxC) {
+          mMaxC = value;
+          mMaxK = key;
+        }
+      }
+    });
   }
 
   /**
@@ -109,9 +270,7 @@ public class CountMap<K> extends DefaultHashMap<K, Integer> {
    * @param inc the inc
    */
   public void inc(K key, int inc) {
-    int c = get(key) + inc;
-
-    put(key, c);
+    int c = mCounts.adjustOrPut(key, inc, mCounts.getNoValue() + inc);
 
     if (c > mMaxC) {
       mMaxC = c;
@@ -1,148 +1,289 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package org.jebtk.core.collections;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.RandomAccess;
 
-public class DoubleList implements List<Double> {
+/**
+ * A list of doubles backed by a growable primitive array. The
+ * {@link java.util.List} methods box their values, but the primitive methods
+ * such as {@link #add(double)} and {@link #getDouble(int)} do not, so prefer
+ * those in numeric code.
+ */
+public class DoubleList extends AbstractList<Double> implements RandomAccess {
 
-  @Override
-  public int size() {
-    // TODO Auto-generated method stub
-    return 0;
-  }
+  /** The Constant DEFAULT_CAPACITY. */
+  private static final int DEFAULT_CAPACITY = 16;
 
-  @Override
-  public boolean isEmpty() {
-    // TODO Auto-generated method stub
-    return false;
+  /** The m data. */
+  private double[] mData;
+
+  /** The m size. */
+  private int mSize = 0;
+
+  /**
+   * Instantiates a new double list.
+   */
+  public DoubleList() {
+    this(DEFAULT_CAPACITY);
   }
 
-  @Override
-  public boolean contains(Object o) {
-    // TODO Auto-generated method stub
-    return false;
+  /**
+   * Instantiates a new double list.
+   *
+   * @param initialCapacity the initial capacity
+   */
+  public DoubleList(int initialCapacity) {
+    mData = new double[Math.max(1, initialCapacity)];
   }
 
-  @Override
-  public Iterator<Double> iterator() {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Instantiates a new double list containing a copy of some values.
+   *
+   * @param values the values
+   */
+  public DoubleList(double[] values) {
+    this(values.length);
+
+    addAll(values);
   }
 
-  @Override
-  public Object[] toArray() {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Instantiates a new double list containing the values of a collection.
+   *
+   * @param values the values
+   */
+  public DoubleList(Collection<? extends Number> values) {
+    this(values.size());
+
+    for (Number v : values) {
+      add(v.doubleValue());
+    }
   }
 
   @Override
-  public <T> T[] toArray(T[] a) {
-    // TODO Auto-generated method stub
-    return null;
+  public int size() {
+    return mSize;
   }
 
   @Override
-  public boolean add(Double e) {
-    // TODO Auto-generated method stub
-    return false;
+  public Double get(int index) {
+    return getDouble(index);
   }
 
-  @Override
-  public boolean remove(Object o) {
-    // TODO Auto-generated method stub
-    return false;
+  /**
+   * Returns a value without boxing.
+   *
+   * @param index the index
+   * @return the double
+   */
+  public double getDouble(int index) {
+    checkIndex(index);
+
+    return mData[index];
   }
 
   @Override
-  public boolean containsAll(Collection<?> c) {
-    // TODO Auto-generated method stub
-    return false;
+  public Double set(int index, Double element) {
+    return set(index, element.doubleValue());
   }
 
-  @Override
-  public boolean addAll(Collection<? extends Double> c) {
-    // TODO Auto-generated method stub
-    return false;
+  /**
+   * Set a value.
+   *
+   * @param index the index
+   * @param value the value
+   * @return the previous value
+   */
+  public double set(int index, double value) {
+    checkIndex(index);
+
+    double ret = mData[index];
+
+    mData[index] = value;
+
+    return ret;
   }
 
   @Override
-  public boolean addAll(int index, Collection<? extends Double> c) {
-    // TODO Auto-generated method stub
-    return false;
+  public boolean add(Double e) {
+    return add(e.doubleValue());
   }
 
-  @Override
-  public boolean removeAll(Collection<?> c) {
-    // TODO Auto-generated method stub
-    return false;
+  /**
+   * Append a value.
+   *
+   * @param value the value
+   * @return true
+   */
+  public boolean add(double value) {
+    ensureCapacity(mSize + 1);
+
+    mData[mSize++] = value;
+
+    ++modCount;
+
+    return true;
   }
 
   @Override
-  public boolean retainAll(Collection<?> c) {
-    // TODO Auto-generated method stub
-    return false;
+  public void add(int index, Double element) {
+    add(index, element.doubleValue());
   }
 
-  @Override
-  public void clear() {
-    // TODO Auto-generated method stub
+  /**
+   * Insert a value.
+   *
+   * @param index the index
+   * @param value the value
+   */
+  public void add(int index, double value) {
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
 
-  }
+    ensureCapacity(mSize + 1);
 
-  @Override
-  public Double get(int index) {
-    // TODO Auto-generated method stub
-    return null;
+    System.arraycopy(mData, index, mData, index + 1, mSize - index);
+
+    mData[index] = value;
+
+    ++mSize;
+    ++modCount;
   }
 
-  @Override
-  public Double set(int index, Double element) {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Append an array of values.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(double[] values) {
+    return addAll(values, 0, values.length);
   }
 
-  @Override
-  public void add(int index, Double element) {
-    // TODO Auto-generated method stub
+  /**
+   * Append part of an array of values.
+   *
+   * @param values the values
+   * @param offset the offset
+   * @param length the length
+   * @return true, if the list changed
+   */
+  public boolean addAll(double[] values, int offset, int length) {
+    ensureCapacity(mSize + length);
+
+    System.arraycopy(values, offset, mData, mSize, length);
+
+    mSize += length;
+    ++modCount;
+
+    return length > 0;
+  }
 
+  /**
+   * Append the values of another list.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(DoubleList values) {
+    return addAll(values.mData, 0, values.mSize);
   }
 
   @Override
   public Double remove(int index) {
-    // TODO Auto-generated method stub
-    return null;
+    checkIndex(index);
+
+    double ret = mData[index];
+
+    System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
+
+    --mSize;
+    ++modCount;
+
+    return ret;
   }
 
   @Override
-  public int indexOf(Object o) {
-    // TODO Auto-generated method stub
-    return 0;
+  public void clear() {
+    mSize = 0;
+    ++modCount;
   }
 
-  @Override
-  public int lastIndexOf(Object o) {
-    // TODO Auto-generated method stub
-    return 0;
+  /**
+   * Sort the values into ascending order in place.
+   */
+  public void sort() {
+    Arrays.sort(mData, 0, mSize);
+
+    ++modCount;
   }
 
-  @Override
-  public ListIterator<Double> listIterator() {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Returns the array backing the list without copying it. Only the first
+   * {@link #size()} elements are valid. Writes to the array change the list,
+   * and the list stops using the array if it has to grow.
+   *
+   * @return the double[]
+   */
+  public double[] getArray() {
+    return mData;
   }
 
-  @Override
-  public ListIterator<Double> listIterator(int index) {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Returns a copy of the values.
+   *
+   * @return the double[]
+   */
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(mData, mSize);
   }
 
-  @Override
-  public List<Double> subList(int fromIndex, int toIndex) {
-    // TODO Auto-generated method stub
-    return null;
+  /**
+   * Make sure the list can hold a number of values without growing.
+   *
+   * @param capacity the capacity
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity > mData.length) {
+      mData = Arrays.copyOf(mData, Math.max(capacity, mData.length * 2));
+    }
   }
 
+  /**
+   * Shrink the backing array to the size of the list.
+   */
+  public void trimToSize() {
+    if (mData.length > mSize) {
+      mData = Arrays.copyOf(mData, Math.max(1, mSize));
+    }
+  }
+
+  /**
+   * Check index.
+   *
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
 }
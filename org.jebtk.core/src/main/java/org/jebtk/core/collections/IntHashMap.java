@@ -410,4 +410,12 @@ public abstract class IntHashMap<T> implements IterMap<Integer, T> {
     return h ^ (h >> 16);
   }
 
+  private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+  public static int phiMix(final long x) {
+    long h = x * LONG_PHI;
+    h ^= (h >>> 32);
+    return (int) (h ^ (h >>> 16));
+  }
+
 }
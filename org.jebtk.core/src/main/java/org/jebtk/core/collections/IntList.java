@@ -0,0 +1,289 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of ints backed by a growable primitive array. The
+ * {@link java.util.List} methods box their values, but the primitive methods
+ * such as {@link #add(int)} and {@link #getInt(int)} do not, so prefer
+ * those in numeric code.
+ */
+public class IntList extends AbstractList<Integer> implements RandomAccess {
+
+  /** The Constant DEFAULT_CAPACITY. */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** The m data. */
+  private int[] mData;
+
+  /** The m size. */
+  private int mSize = 0;
+
+  /**
+   * Instantiates a new int list.
+   */
+  public IntList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new int list.
+   *
+   * @param initialCapacity the initial capacity
+   */
+  public IntList(int initialCapacity) {
+    mData = new int[Math.max(1, initialCapacity)];
+  }
+
+  /**
+   * Instantiates a new int list containing a copy of some values.
+   *
+   * @param values the values
+   */
+  public IntList(int[] values) {
+    this(values.length);
+
+    addAll(values);
+  }
+
+  /**
+   * Instantiates a new int list containing the values of a collection.
+   *
+   * @param values the values
+   */
+  public IntList(Collection<? extends Number> values) {
+    this(values.size());
+
+    for (Number v : values) {
+      add(v.intValue());
+    }
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  @Override
+  public Integer get(int index) {
+    return getInt(index);
+  }
+
+  /**
+   * Returns a value without boxing.
+   *
+   * @param index the index
+   * @return the int
+   */
+  public int getInt(int index) {
+    checkIndex(index);
+
+    return mData[index];
+  }
+
+  @Override
+  public Integer set(int index, Integer element) {
+    return set(index, element.intValue());
+  }
+
+  /**
+   * Set a value.
+   *
+   * @param index the index
+   * @param value the value
+   * @return the previous value
+   */
+  public int set(int index, int value) {
+    checkIndex(index);
+
+    int ret = mData[index];
+
+    mData[index] = value;
+
+    return ret;
+  }
+
+  @Override
+  public boolean add(Integer e) {
+    return add(e.intValue());
+  }
+
+  /**
+   * Append a value.
+   *
+   * @param value the value
+   * @return true
+   */
+  public boolean add(int value) {
+    ensureCapacity(mSize + 1);
+
+    mData[mSize++] = value;
+
+    ++modCount;
+
+    return true;
+  }
+
+  @Override
+  public void add(int index, Integer element) {
+    add(index, element.intValue());
+  }
+
+  /**
+   * Insert a value.
+   *
+   * @param index the index
+   * @param value the value
+   */
+  public void add(int index, int value) {
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+
+    ensureCapacity(mSize + 1);
+
+    System.arraycopy(mData, index, mData, index + 1, mSize - index);
+
+    mData[index] = value;
+
+    ++mSize;
+    ++modCount;
+  }
+
+  /**
+   * Append an array of values.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(int[] values) {
+    return addAll(values, 0, values.length);
+  }
+
+  /**
+   * Append part of an array of values.
+   *
+   * @param values the values
+   * @param offset the offset
+   * @param length the length
+   * @return true, if the list changed
+   */
+  public boolean addAll(int[] values, int offset, int length) {
+    ensureCapacity(mSize + length);
+
+    System.arraycopy(values, offset, mData, mSize, length);
+
+    mSize += length;
+    ++modCount;
+
+    return length > 0;
+  }
+
+  /**
+   * Append the values of another list.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(IntList values) {
+    return addAll(values.mData, 0, values.mSize);
+  }
+
+  @Override
+  public Integer remove(int index) {
+    checkIndex(index);
+
+    int ret = mData[index];
+
+    System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
+
+    --mSize;
+    ++modCount;
+
+    return ret;
+  }
+
+  @Override
+  public void clear() {
+    mSize = 0;
+    ++modCount;
+  }
+
+  /**
+   * Sort the values into ascending order in place.
+   */
+  public void sort() {
+    Arrays.sort(mData, 0, mSize);
+
+    ++modCount;
+  }
+
+  /**
+   * Returns the array backing the list without copying it. Only the first
+   * {@link #size()} elements are valid. Writes to the array change the list,
+   * and the list stops using the array if it has to grow.
+   *
+   * @return the int[]
+   */
+  public int[] getArray() {
+    return mData;
+  }
+
+  /**
+   * Returns a copy of the values.
+   *
+   * @return the int[]
+   */
+  public int[] toIntArray() {
+    return Arrays.copyOf(mData, mSize);
+  }
+
+  /**
+   * Make sure the list can hold a number of values without growing.
+   *
+   * @param capacity the capacity
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity > mData.length) {
+      mData = Arrays.copyOf(mData, Math.max(capacity, mData.length * 2));
+    }
+  }
+
+  /**
+   * Shrink the backing array to the size of the list.
+   */
+  public void trimToSize() {
+    if (mData.length > mSize) {
+      mData = Arrays.copyOf(mData, Math.max(1, mSize));
+    }
+  }
+
+  /**
+   * Check index.
+   *
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
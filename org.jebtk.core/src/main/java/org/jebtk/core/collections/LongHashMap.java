@@ -0,0 +1,384 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing long to object map using linear probing. Keys are stored in
+ * a primitive array so are not boxed. Like {@link IntHashMap}, key 0 marks a
+ * free slot so it is stored separately.
+ *
+ * Missing keys return null.
+ *
+ * @param <T> the generic type
+ */
+public class LongHashMap<T> implements Serializable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 1L;
+
+  /** The Constant DEFAULT_SIZE. */
+  public static final int DEFAULT_SIZE = 16;
+
+  /** The Constant DEFAULT_FILL_FACTOR. */
+  public static final double DEFAULT_FILL_FACTOR = 0.75;
+
+  /** The Constant FREE_KEY. */
+  private static final long FREE_KEY = IntHashMap.FREE_KEY;
+
+  /** The m keys. */
+  private long[] mKeys;
+
+  /** The m values. */
+  private Object[] mValues;
+
+  /** Do we have 'free' key in the map? */
+  private boolean mHasFreeKey = false;
+
+  /** Value of 'free' key */
+  private T mFreeValue = null;
+
+  /** Fill factor, must be between (0 and 1) */
+  private final double mFillFactor;
+
+  /** We will resize a map once it reaches this size */
+  private int mThreshold;
+
+  /** Current map size */
+  private int mSize = 0;
+
+  /** Mask to calculate the original position */
+  private int mMask;
+
+  /**
+   * Instantiates a new long hash map.
+   */
+  public LongHashMap() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Instantiates a new long hash map.
+   *
+   * @param size the expected number of keys
+   */
+  public LongHashMap(int size) {
+    this(size, DEFAULT_FILL_FACTOR);
+  }
+
+  /**
+   * Instantiates a new long hash map.
+   *
+   * @param size       the expected number of keys
+   * @param fillFactor the fill factor
+   */
+  public LongHashMap(int size, double fillFactor) {
+    if (fillFactor <= 0 || fillFactor >= 1) {
+      throw new IllegalArgumentException("FillFactor must be in (0, 1)");
+    }
+
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive!");
+    }
+
+    mFillFactor = fillFactor;
+
+    alloc(IntHashMap.arraySize(size, fillFactor));
+  }
+
+  /**
+   * Returns the value of a key or null if the key is not in the map.
+   *
+   * @param key the key
+   * @return the t
+   */
+  @SuppressWarnings("unchecked")
+  public T get(long key) {
+    if (key == FREE_KEY) {
+      return mFreeValue;
+    }
+
+    int ptr = index(key);
+
+    return ptr >= 0 ? (T) mValues[ptr] : null;
+  }
+
+  /**
+   * Put.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the previous value or null if the key was not in the map.
+   */
+  @SuppressWarnings("unchecked")
+  public T put(long key, T value) {
+    if (key == FREE_KEY) {
+      T ret = mFreeValue;
+
+      if (!mHasFreeKey) {
+        mHasFreeKey = true;
+        ++mSize;
+      }
+
+      mFreeValue = value;
+
+      return ret;
+    }
+
+    int ptr = index(key);
+
+    if (ptr >= 0) {
+      T ret = (T) mValues[ptr];
+      mValues[ptr] = value;
+      return ret;
+    }
+
+    insert(-ptr - 1, key, value);
+
+    return null;
+  }
+
+  /**
+   * Returns true if the key is in the map.
+   *
+   * @param key the key
+   * @return true, if successful
+   */
+  public boolean containsKey(long key) {
+    if (key == FREE_KEY) {
+      return mHasFreeKey;
+    }
+
+    return index(key) >= 0;
+  }
+
+  /**
+   * Removes a key.
+   *
+   * @param key the key
+   * @return the value of the key or null if the key was not in the map.
+   */
+  @SuppressWarnings("unchecked")
+  public T remove(long key) {
+    if (key == FREE_KEY) {
+      if (!mHasFreeKey) {
+        return null;
+      }
+
+      T ret = mFreeValue;
+
+      mHasFreeKey = false;
+      mFreeValue = null;
+      --mSize;
+
+      return ret;
+    }
+
+    int ptr = index(key);
+
+    if (ptr < 0) {
+      return null;
+    }
+
+    T ret = (T) mValues[ptr];
+
+    shiftKeys(ptr);
+    --mSize;
+
+    return ret;
+  }
+
+  /**
+   * Call a function on each key value pair. The map should not be modified
+   * by the function.
+   *
+   * @param f the f
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(LongObjectFunction<T> f) {
+    if (mHasFreeKey) {
+      f.apply(FREE_KEY, mFreeValue);
+    }
+
+    for (int i = 0; i < mKeys.length; ++i) {
+      if (mKeys[i] != FREE_KEY) {
+        f.apply(mKeys[i], (T) mValues[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the keys in the map.
+   *
+   * @return the long[]
+   */
+  public long[] keys() {
+    long[] ret = new long[mSize];
+
+    int c = 0;
+
+    if (mHasFreeKey) {
+      ret[c++] = FREE_KEY;
+    }
+
+    for (long key : mKeys) {
+      if (key != FREE_KEY) {
+        ret[c++] = key;
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Size.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Checks if is empty.
+   *
+   * @return true, if is empty
+   */
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * Clear.
+   */
+  public void clear() {
+    mSize = 0;
+    mHasFreeKey = false;
+    mFreeValue = null;
+    Arrays.fill(mKeys, FREE_KEY);
+    Arrays.fill(mValues, null);
+  }
+
+  /**
+   * Find a key.
+   *
+   * @param key the key
+   * @return the slot of the key or, if the key is not in the map, -(slot + 1)
+   *         where slot is where the key should be inserted.
+   */
+  private int index(long key) {
+    int ptr = IntHashMap.phiMix(key) & mMask;
+    long k;
+
+    while ((k = mKeys[ptr]) != FREE_KEY) {
+      if (k == key) {
+        return ptr;
+      }
+
+      ptr = (ptr + 1) & mMask;
+    }
+
+    return -ptr - 1;
+  }
+
+  /**
+   * Insert a new key into a free slot.
+   *
+   * @param ptr   the ptr
+   * @param key   the key
+   * @param value the value
+   */
+  private void insert(int ptr, long key, T value) {
+    mKeys[ptr] = key;
+    mValues[ptr] = value;
+
+    if (++mSize >= mThreshold) {
+      rehash(mKeys.length * 2);
+    }
+  }
+
+  /**
+   * Shift entries following a removed key so that probing still finds them.
+   *
+   * @param pos the pos
+   */
+  private void shiftKeys(int pos) {
+    int last;
+    int slot;
+    long k;
+
+    while (true) {
+      pos = ((last = pos) + 1) & mMask;
+
+      while (true) {
+        if ((k = mKeys[pos]) == FREE_KEY) {
+          mKeys[last] = FREE_KEY;
+          mValues[last] = null;
+          return;
+        }
+
+        // calculate the starting slot for the current key
+        slot = IntHashMap.phiMix(k) & mMask;
+
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+
+        pos = (pos + 1) & mMask;
+      }
+
+      mKeys[last] = k;
+      mValues[last] = mValues[pos];
+    }
+  }
+
+  /**
+   * Allocate empty arrays.
+   *
+   * @param capacity the capacity
+   */
+  private void alloc(int capacity) {
+    mKeys = new long[capacity];
+    mValues = new Object[capacity];
+    mMask = capacity - 1;
+    mThreshold = (int) (capacity * mFillFactor);
+  }
+
+  /**
+   * Rehash.
+   *
+   * @param newCapacity the new capacity
+   */
+  private void rehash(int newCapacity) {
+    long[] oldKeys = mKeys;
+    Object[] oldValues = mValues;
+
+    alloc(newCapacity);
+
+    for (int i = 0; i < oldKeys.length; ++i) {
+      long key = oldKeys[i];
+
+      if (key != FREE_KEY) {
+        int ptr = -index(key) - 1;
+
+        mKeys[ptr] = key;
+        mValues[ptr] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of longs backed by a growable primitive array. The
+ * {@link java.util.List} methods box their values, but the primitive methods
+ * such as {@link #add(long)} and {@link #getLong(int)} do not, so prefer
+ * those in numeric code.
+ */
+public class LongList extends AbstractList<Long> implements RandomAccess {
+
+  /** The Constant DEFAULT_CAPACITY. */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** The m data. */
+  private long[] mData;
+
+  /** The m size. */
+  private int mSize = 0;
+
+  /**
+   * Instantiates a new long list.
+   */
+  public LongList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new long list.
+   *
+   * @param initialCapacity the initial capacity
+   */
+  public LongList(int initialCapacity) {
+    mData = new long[Math.max(1, initialCapacity)];
+  }
+
+  /**
+   * Instantiates a new long list containing a copy of some values.
+   *
+   * @param values the values
+   */
+  public LongList(long[] values) {
+    this(values.length);
+
+    addAll(values);
+  }
+
+  /**
+   * Instantiates a new long list containing the values of a collection.
+   *
+   * @param values the values
+   */
+  public LongList(Collection<? extends Number> values) {
+    this(values.size());
+
+    for (Number v : values) {
+      add(v.longValue());
+    }
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  @Override
+  public Long get(int index) {
+    return getLong(index);
+  }
+
+  /**
+   * Returns a value without boxing.
+   *
+   * @param index the index
+   * @return the long
+   */
+  public long getLong(int index) {
+    checkIndex(index);
+
+    return mData[index];
+  }
+
+  @Override
+  public Long set(int index, Long element) {
+    return set(index, element.longValue());
+  }
+
+  /**
+   * Set a value.
+   *
+   * @param index the index
+   * @param value the value
+   * @return the previous value
+   */
+  public long set(int index, long value) {
+    checkIndex(index);
+
+    long ret = mData[index];
+
+    mData[index] = value;
+
+    return ret;
+  }
+
+  @Override
+  public boolean add(Long e) {
+    return add(e.longValue());
+  }
+
+  /**
+   * Append a value.
+   *
+   * @param value the value
+   * @return true
+   */
+  public boolean add(long value) {
+    ensureCapacity(mSize + 1);
+
+    mData[mSize++] = value;
+
+    ++modCount;
+
+    return true;
+  }
+
+  @Override
+  public void add(int index, Long element) {
+    add(index, element.longValue());
+  }
+
+  /**
+   * Insert a value.
+   *
+   * @param index the index
+   * @param value the value
+   */
+  public void add(int index, long value) {
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+
+    ensureCapacity(mSize + 1);
+
+    System.arraycopy(mData, index, mData, index + 1, mSize - index);
+
+    mData[index] = value;
+
+    ++mSize;
+    ++modCount;
+  }
+
+  /**
+   * Append an array of values.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(long[] values) {
+    return addAll(values, 0, values.length);
+  }
+
+  /**
+   * Append part of an array of values.
+   *
+   * @param values the values
+   * @param offset the offset
+   * @param length the length
+   * @return true, if the list changed
+   */
+  public boolean addAll(long[] values, int offset, int length) {
+    ensureCapacity(mSize + length);
+
+    System.arraycopy(values, offset, mData, mSize, length);
+
+    mSize += length;
+    ++modCount;
+
+    return length > 0;
+  }
+
+  /**
+   * Append the values of another list.
+   *
+   * @param values the values
+   * @return true, if the list changed
+   */
+  public boolean addAll(LongList values) {
+    return addAll(values.mData, 0, values.mSize);
+  }
+
+  @Override
+  public Long remove(int index) {
+    checkIndex(index);
+
+    long ret = mData[index];
+
+    System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
+
+    --mSize;
+    ++modCount;
+
+    return ret;
+  }
+
+  @Override
+  public void clear() {
+    mSize = 0;
+    ++modCount;
+  }
+
+  /**
+   * Sort the values into ascending order in place.
+   */
+  public void sort() {
+    Arrays.sort(mData, 0, mSize);
+
+    ++modCount;
+  }
+
+  /**
+   * Returns the array backing the list without copying it. Only the first
+   * {@link #size()} elements are valid. Writes to the array change the list,
+   * and the list stops using the array if it has to grow.
+   *
+   * @return the long[]
+   */
+  public long[] getArray() {
+    return mData;
+  }
+
+  /**
+   * Returns a copy of the values.
+   *
+   * @return the long[]
+   */
+  public long[] toLongArray() {
+    return Arrays.copyOf(mData, mSize);
+  }
+
+  /**
+   * Make sure the list can hold a number of values without growing.
+   *
+   * @param capacity the capacity
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity > mData.length) {
+      mData = Arrays.copyOf(mData, Math.max(capacity, mData.length * 2));
+    }
+  }
+
+  /**
+   * Shrink the backing array to the size of the list.
+   */
+  public void trimToSize() {
+    if (mData.length > mSize) {
+      mData = Arrays.copyOf(mData, Math.max(1, mSize));
+    }
+  }
+
+  /**
+   * Check index.
+   *
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
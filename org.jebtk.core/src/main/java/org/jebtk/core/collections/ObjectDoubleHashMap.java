@@ -0,0 +1,456 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.collections;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open addressing object to double map using linear probing. Values are
+ * stored in a primitive array so are not boxed. A null key is allowed and is
+ * stored separately.
+ *
+ * Missing keys return the no value given to the constructor (0 by default).
+ *
+ * @param <K> the key type
+ */
+public class ObjectDoubleHashMap<K> implements Serializable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 1L;
+
+  /** The Constant DEFAULT_SIZE. */
+  public static final int DEFAULT_SIZE = 16;
+
+  /** The Constant DEFAULT_FILL_FACTOR. */
+  public static final double DEFAULT_FILL_FACTOR = 0.75;
+
+  /** The m keys. */
+  private Object[] mKeys;
+
+  /** The m values. */
+  private double[] mValues;
+
+  /** Do we have a null key in the map? */
+  private boolean mHasFreeKey = false;
+
+  /** Value of the null key */
+  private double mFreeValue;
+
+  /** The value returned for missing keys. */
+  private final double mNoValue;
+
+  /** Fill factor, must be between (0 and 1) */
+  private final double mFillFactor;
+
+  /** We will resize a map once it reaches this size */
+  private int mThreshold;
+
+  /** Current map size */
+  private int mSize = 0;
+
+  /** Mask to calculate the original position */
+  private int mMask;
+
+  /**
+   * Instantiates a new object double hash map.
+   */
+  public ObjectDoubleHashMap() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Instantiates a new object double hash map.
+   *
+   * @param size the expected number of keys
+   */
+  public ObjectDoubleHashMap(int size) {
+    this(size, DEFAULT_FILL_FACTOR, 0);
+  }
+
+  /**
+   * Instantiates a new object double hash map.
+   *
+   * @param size       the expected number of keys
+   * @param fillFactor the fill factor
+   * @param noValue    the value returned for missing keys
+   */
+  public ObjectDoubleHashMap(int size, double fillFactor, double noValue) {
+    if (fillFactor <= 0 || fillFactor >= 1) {
+      throw new IllegalArgumentException("FillFactor must be in (0, 1)");
+    }
+
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive!");
+    }
+
+    mFillFactor = fillFactor;
+    mNoValue = noValue;
+
+    alloc(IntHashMap.arraySize(size, fillFactor));
+  }
+
+  /**
+   * Returns the value of a key or the no value if the key is not in the map.
+   *
+   * @param key the key
+   * @return the double
+   */
+  public double get(Object key) {
+    return get(key, mNoValue);
+  }
+
+  /**
+   * Returns the value of a key or a default value if the key is not in the
+   * map.
+   *
+   * @param key          the key
+   * @param defaultValue the default value
+   * @return the double
+   */
+  public double get(Object key, double defaultValue) {
+    if (key == null) {
+      return mHasFreeKey ? mFreeValue : defaultValue;
+    }
+
+    int ptr = index(key);
+
+    return ptr >= 0 ? mValues[ptr] : defaultValue;
+  }
+
+  /**
+   * Put.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the previous value or the no value if the key was not in the map.
+   */
+  public double put(K key, double value) {
+    if (key == null) {
+      double ret = mHasFreeKey ? mFreeValue : mNoValue;
+
+      if (!mHasFreeKey) {
+        mHasFreeKey = true;
+        ++mSize;
+      }
+
+      mFreeValue = value;
+
+      return ret;
+    }
+
+    int ptr = index(key);
+
+    if (ptr >= 0) {
+      double ret = mValues[ptr];
+      mValues[ptr] = value;
+      return ret;
+    }
+
+    insert(-ptr - 1, key, value);
+
+    return mNoValue;
+  }
+
+  /**
+   * Adds to the value of a key if it exists, otherwise the key is added with
+   * an initial value.
+   *
+   * @param key    the key
+   * @param adjust the amount to add to an existing value
+   * @param put    the value of a new key
+   * @return the new value of the key
+   */
+  public double adjustOrPut(K key, double adjust, double put) {
+    if (key == null) {
+      if (mHasFreeKey) {
+        mFreeValue += adjust;
+      } else {
+        mHasFreeKey = true;
+        mFreeValue = put;
+        ++mSize;
+      }
+
+      return mFreeValue;
+    }
+
+    int ptr = index(key);
+
+    if (ptr >= 0) {
+      return mValues[ptr] += adjust;
+    }
+
+    insert(-ptr - 1, key, put);
+
+    return put;
+  }
+
+  /**
+   * Returns true if the key is in the map.
+   *
+   * @param key the key
+   * @return true, if successful
+   */
+  public boolean containsKey(Object key) {
+    if (key == null) {
+      return mHasFreeKey;
+    }
+
+    return index(key) >= 0;
+  }
+
+  /**
+   * Removes a key.
+   *
+   * @param key the key
+   * @return the value of the key or the no value if the key was not in the
+   *         map.
+   */
+  public double remove(Object key) {
+    if (key == null) {
+      if (!mHasFreeKey) {
+        return mNoValue;
+      }
+
+      mHasFreeKey = false;
+      --mSize;
+
+      return mFreeValue;
+    }
+
+    int ptr = index(key);
+
+    if (ptr < 0) {
+      return mNoValue;
+    }
+
+    double ret = mValues[ptr];
+
+    shiftKeys(ptr);
+    --mSize;
+
+    return ret;
+  }
+
+  /**
+   * Call a function on each key value pair. The map should not be modified
+   * by the function.
+   *
+   * @param f the f
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(ObjectDoubleFunction<K> f) {
+    if (mHasFreeKey) {
+      f.apply(null, mFreeValue);
+    }
+
+    for (int i = 0; i < mKeys.length; ++i) {
+      if (mKeys[i] != null) {
+        f.apply((K) mKeys[i], mValues[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the keys in the map.
+   *
+   * @return the list
+   */
+  @SuppressWarnings("unchecked")
+  public List<K> keys() {
+    List<K> ret = new ArrayList<K>(mSize);
+
+    if (mHasFreeKey) {
+      ret.add(null);
+    }
+
+    for (Object key : mKeys) {
+      if (key != null) {
+        ret.add((K) key);
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the values in the map in the same order as {@link #keys()}.
+   *
+   * @return the double[]
+   */
+  public double[] values() {
+    double[] ret = new double[mSize];
+
+    int c = 0;
+
+    if (mHasFreeKey) {
+      ret[c++] = mFreeValue;
+    }
+
+    for (int i = 0; i < mKeys.length; ++i) {
+      if (mKeys[i] != null) {
+        ret[c++] = mValues[i];
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the no value.
+   *
+   * @return the double
+   */
+  public double getNoValue() {
+    return mNoValue;
+  }
+
+  /**
+   * Size.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Checks if is empty.
+   *
+   * @return true, if is empty
+   */
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * Clear.
+   */
+  public void clear() {
+    mSize = 0;
+    mHasFreeKey = false;
+    Arrays.fill(mKeys, null);
+  }
+
+  /**
+   * Find a key.
+   *
+   * @param key the key
+   * @return the slot of the key or, if the key is not in the map, -(slot + 1)
+   *         where slot is where the key should be inserted.
+   */
+  private int index(Object key) {
+    int ptr = IntHashMap.phiMix(key.hashCode()) & mMask;
+    Object k;
+
+    while ((k = mKeys[ptr]) != null) {
+      if (k == key || k.equals(key)) {
+        return ptr;
+      }
+
+      ptr = (ptr + 1) & mMask;
+    }
+
+    return -ptr - 1;
+  }
+
+  /**
+   * Insert a new key into a free slot.
+   *
+   * @param ptr   the ptr
+   * @param key   the key
+   * @param value the value
+   */
+  private void insert(int ptr, Object key, double value) {
+    mKeys[ptr] = key;
+    mValues[ptr] = value;
+
+    if (++mSize >= mThreshold) {
+      rehash(mKeys.length * 2);
+    }
+  }
+
+  /**
+   * Shift entries following a removed key so that probing still finds them.
+   *
+   * @param pos the pos
+   */
+  private void shiftKeys(int pos) {
+    int last;
+    int slot;
+    Object k;
+
+    while (true) {
+      pos = ((last = pos) + 1) & mMask;
+
+      while (true) {
+        if ((k = mKeys[pos]) == null) {
+          mKeys[last] = null;
+          return;
+        }
+
+        // calculate the starting slot for the current key
+        slot = IntHashMap.phiMix(k.hashCode()) & mMask;
+
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+
+        pos = (pos + 1) & mMask;
+      }
+
+      mKeys[last] = k;
+      mValues[last] = mValues[pos];
+    }
+  }
+
+  /**
+   * Allocate empty arrays.
+   *
+   * @param capacity the capacity
+   */
+  private void alloc(int capacity) {
+    mKeys = new Object[capacity];
+    mValues = new double[capacity];
+    mMask = capacity - 1;
+    mThreshold = (int) (capacity * mFillFactor);
+  }
+
+  /**
+   * Rehash.
+   *
+   * @param newCapacity the new capacity
+   */
+  private void rehash(int newCapacity) {
+    Object[] oldKeys = mKeys;
+    double[] oldValues = mValues;
+
+    alloc(newCapacity);
+
+    for (int i = 0; i < oldKeys.length; ++i) {
+      Object key = oldKeys[i];
+
+      if (key != null) {
+        int ptr = -index(key) - 1;
+
+        mKeys[ptr] = key;
+        mValues[ptr] = oldValues[i];
+      }
+    }
+  }
+}
@@ -15,10 +15,19 @@
  */
 package org.jebtk.core.event;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Provides the ability to register and unregister ModernClickEventListeners for
  * controls and provides standard functions to interface with {
  * EventListenerList by taking care of casting etc.
+ * 
+ * Events fired between {@link #beginUpdate()} and {@link #endUpdate()} are
+ * coalesced so that listeners are only notified once, with the last event,
+ * when the outermost update ends. If an executor is set, listeners are
+ * notified on the executor rather than on the thread firing the event.
  *
  * @author Antony Holmes
  *
@@ -30,6 +39,21 @@ public class ChangeListeners extends EventProducer<ChangeListener> implements Ch
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The event fired by {@link #fireChanged()}. Events are immutable so one
+   * instance can be reused.
+   */
+  private final ChangeEvent mEvent = new ChangeEvent(this);
+
+  /** The number of updates in progress. */
+  private final AtomicInteger mUpdates = new AtomicInteger(0);
+
+  /** The last event fired during an update. */
+  private final AtomicReference<ChangeEvent> mPending = new AtomicReference<ChangeEvent>();
+
+  /** The executor to notify listeners on or null to notify them directly. */
+  private volatile Executor mExecutor = null;
+
   /*
    * (non-Javadoc)
    * 
@@ -37,7 +61,7 @@ public class ChangeListeners extends EventProducer<ChangeListener> implements Ch
    * org.abh.lib.event.ChangeEventProducer#addChangeListener(org.abh.lib.event.
    * ChangeListener)
    */
-  public synchronized void addChangeListener(ChangeListener l) {
+  public void addChangeListener(ChangeListener l) {
     mListeners.add(l);
   }
 
@@ -47,7 +71,7 @@ public class ChangeListeners extends EventProducer<ChangeListener> implements Ch
    * @see org.abh.lib.event.ChangeEventProducer#removeChangeListener(org.abh.lib.
    * event. ChangeListener)
    */
-  public synchronized void removeChangeListener(ChangeListener l) {
+  public void removeChangeListener(ChangeListener l) {
     mListeners.remove(l);
   }
 
@@ -57,20 +81,98 @@ public class ChangeListeners extends EventProducer<ChangeListener> implements Ch
    * @see org.abh.lib.event.ChangeEventProducer#fireChanged(org.abh.lib.event.
    * ChangeEvent)
    */
-  public synchronized void fireChanged(ChangeEvent e) {
-    for (ChangeListener l : mListeners) {
-      // System.err.println("change listener " + l);
+  public void fireChanged(ChangeEvent e) {
+    if (mUpdates.get() > 0) {
+      mPending.set(e);
 
-      l.changed(e);
+      // If the update ended while the event was being stored, fire it
+      // here since endUpdate() may have already checked for it
+      if (mUpdates.get() > 0 || !mPending.compareAndSet(e, null)) {
+        return;
+      }
     }
+
+    dispatch(e);
   }
 
   /**
    * Fire changed.
    */
   public void fireChanged() {
-    // System.err.println("fire changed " + this);
+    fireChanged(mEvent);
+  }
 
-    fireChanged(new ChangeEvent(this));
+  /**
+   * Start a batch of changes. Events fired until the matching
+   * {@link #endUpdate()} are held back and only the last one is fired. Updates
+   * can be nested.
+   */
+  public void beginUpdate() {
+    mUpdates.incrementAndGet();
+  }
+
+  /**
+   * End a batch of changes, firing the last event fired during the batch if
+   * this ends the outermost update.
+   */
+  public void endUpdate() {
+    if (mUpdates.decrementAndGet() == 0) {
+      ChangeEvent e = mPending.getAndSet(null);
+
+      if (e != null) {
+        dispatch(e);
+      }
+    }
+  }
+
+  /**
+   * Set the executor on which listeners are notified. If null, the default,
+   * listeners are notified on the thread that fires the event.
+   *
+   * @param executor the executor
+   * @return the change listeners
+   */
+  public ChangeListeners setExecutor(Executor executor) {
+    mExecutor = executor;
+
+    return this;
+  }
+
+  /**
+   * Notify the listeners of an event.
+   *
+   * @param e the e
+   */
+  private void dispatch(final ChangeEvent e) {
+    final Object[] listeners = mListeners.toArray();
+
+    if (listeners.length == 0) {
+      return;
+    }
+
+    Executor executor = mExecutor;
+
+    if (executor != null) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          dispatch(listeners, e);
+        }
+      });
+    } else {
+      dispatch(listeners, e);
+    }
+  }
+
+  /**
+   * Notify listeners of an event.
+   *
+   * @param listeners the listeners
+   * @param e         the e
+   */
+  private static void dispatch(Object[] listeners, ChangeEvent e) {
+    for (Object l : listeners) {
+      ((ChangeListener) l).changed(e);
+    }
   }
 }
@@ -15,23 +15,31 @@
  */
 package org.jebtk.core.event;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.EventListener;
 import java.util.Iterator;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NoSuchElementException;
 
 /**
  * Provides the ability to register and unregister ModernClickEventListeners for
  * controls and provides standard functions to interface with {
  * EventListenerList by taking care of casting etc.
+ * 
+ * Listeners are stored in an array that is copied whenever a listener is added
+ * or removed. Firing an event only needs to read the current array, via
+ * {@link #toArray()}, so it does not lock or allocate and listeners can safely
+ * add or remove themselves while an event is being fired.
  *
  * @author Antony Holmes
  * @param <T> the generic type
  */
 public class EventListeners<T extends EventListener> implements Iterable<T> {
 
-  private Set<T> mListeners = Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+  /** The constant EMPTY. */
+  private static final Object[] EMPTY = new Object[0];
+
+  /** The current listeners. Never modified once published. */
+  private volatile Object[] mListeners = EMPTY;
 
   /**
    * Instantiates a new event listeners.
@@ -49,12 +57,35 @@ public class EventListeners<T extends EventListener> implements Iterable<T> {
     addAll(l);
   }
 
-  public void add(T listener) {
-    mListeners.add(listener);
+  public synchronized void add(T listener) {
+    Object[] listeners = mListeners;
+
+    if (listener == null || indexOf(listeners, listener) != -1) {
+      return;
+    }
+
+    Object[] ret = Arrays.copyOf(listeners, listeners.length + 1);
+
+    ret[listeners.length] = listener;
+
+    mListeners = ret;
   }
 
-  public void remove(T listener) {
-    mListeners.remove(listener);
+  public synchronized void remove(T listener) {
+    Object[] listeners = mListeners;
+
+    int i = indexOf(listeners, listener);
+
+    if (i == -1) {
+      return;
+    }
+
+    Object[] ret = new Object[listeners.length - 1];
+
+    System.arraycopy(listeners, 0, ret, 0, i);
+    System.arraycopy(listeners, i + 1, ret, i, ret.length - i);
+
+    mListeners = ret;
   }
 
   public void addAll(EventListeners<T> listeners) {
@@ -63,8 +94,82 @@ public class EventListeners<T extends EventListener> implements Iterable<T> {
     }
   }
 
+  /**
+   * Returns the current listeners. The array is shared and must not be
+   * modified; adding or removing a listener replaces it rather than changing
+   * it.
+   *
+   * @return the listeners
+   */
+  public Object[] toArray() {
+    return mListeners;
+  }
+
+  /**
+   * Returns the number of listeners.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mListeners.length;
+  }
+
+  /**
+   * Returns true if there are no listeners.
+   *
+   * @return true, if is empty
+   */
+  public boolean isEmpty() {
+    return mListeners.length == 0;
+  }
+
+  /**
+   * Iterates over the listeners registered when the iterator was created.
+   * Listeners added or removed during iteration are not seen.
+   */
   @Override
   public Iterator<T> iterator() {
-    return mListeners.iterator();
+    final Object[] listeners = mListeners;
+
+    return new Iterator<T>() {
+      private int mI = 0;
+
+      @Override
+      public boolean hasNext() {
+        return mI < listeners.length;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public T next() {
+        if (mI == listeners.length) {
+          throw new NoSuchElementException();
+        }
+
+        return (T) listeners[mI++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Returns the index of a listener in an array or -1 if it is not present.
+   *
+   * @param listeners the listeners
+   * @param listener  the listener
+   * @return the int
+   */
+  private static int indexOf(Object[] listeners, Object listener) {
+    for (int i = 0; i < listeners.length; ++i) {
+      if (listeners[i].equals(listener)) {
+        return i;
+      }
+    }
+
+    return -1;
   }
-}
\ No newline at end of file
+}
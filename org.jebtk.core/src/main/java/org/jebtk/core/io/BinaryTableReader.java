@@ -0,0 +1,553 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jebtk.core.DoubleTableData;
+import org.jebtk.core.TableData;
+
+/**
+ * Reads tables written by {@link BinaryTableWriter}. The file is memory mapped
+ * and only the header, block index and column names are read when it is
+ * opened. Reading a column or a range of rows from a column touches only
+ * those values, so large tables can be queried without loading them.
+ *
+ * A reader is not thread safe since it shares one position within the file.
+ *
+ * @author Antony Holmes
+ */
+public class BinaryTableReader implements Closeable {
+
+  /** The column types in the order of {@link ColumnType#ordinal()}. */
+  private static final ColumnType[] TYPES = ColumnType.values();
+
+  /** The m reader. */
+  private final MMapReader mReader;
+
+  /** The m rows. */
+  private final int mRows;
+
+  /** The m types. */
+  private final ColumnType[] mTypes;
+
+  /** The m offsets. */
+  private final long[] mOffsets;
+
+  /** The offset of the row names or -1. */
+  private final long mRowNamesOffset;
+
+  /** The m row names, read on first use. */
+  private List<String> mRowNames = null;
+
+  /** The m col names or null. */
+  private final List<String> mColNames;
+
+  /** The dictionaries of the string columns, read on first use. */
+  private final String[][] mDicts;
+
+  /** The offsets of the codes of the string columns. */
+  private final long[] mCodeOffsets;
+
+  /**
+   * Open a binary table.
+   *
+   * @param file the file
+   * @throws IOException Signals that an I/O exception has occurred, or if the
+   *                     file is not a binary table.
+   */
+  public BinaryTableReader(Path file) throws IOException {
+    mReader = new MMapReader(file);
+
+    try {
+      if (mReader.size() < BinaryTableWriter.HEADER_SIZE || mReader.readInt() != BinaryTableWriter.MAGIC) {
+        throw new IOException(file + " is not a binary table.");
+      }
+
+      int version = mReader.readInt();
+
+      if (version != BinaryTableWriter.VERSION) {
+        throw new IOException(file + " has unsupported version " + version + ".");
+      }
+
+      mRows = mReader.readInt();
+
+      int cols = mReader.readInt();
+
+      mRowNamesOffset = mReader.readLong();
+
+      long colNamesOffset = mReader.readLong();
+
+      mTypes = new ColumnType[cols];
+      mOffsets = new long[cols];
+
+      for (int i = 0; i < cols; ++i) {
+        mTypes[i] = TYPES[mReader.readByte()];
+        mOffsets[i] = mReader.readLong();
+
+        // Skip the block length
+        mReader.readLong();
+      }
+
+      mColNames = colNamesOffset != -1 ? readNames(colNamesOffset) : null;
+    } catch (IOException e) {
+      mReader.close();
+      throw e;
+    } catch (RuntimeException e) {
+      mReader.close();
+      throw new IOException(file + " is not a valid binary table.", e);
+    }
+
+    mDicts = new String[mTypes.length][];
+    mCodeOffsets = new long[mTypes.length];
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the row count
+   */
+  public int getRowCount() {
+    return mRows;
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return the col count
+   */
+  public int getColCount() {
+    return mTypes.length;
+  }
+
+  /**
+   * Gets the type of a column.
+   *
+   * @param col the col
+   * @return the col type
+   */
+  public ColumnType getColType(int col) {
+    return mTypes[col];
+  }
+
+  /**
+   * Gets the column names.
+   *
+   * @return the column names or null.
+   */
+  public List<String> getColNames() {
+    return mColNames;
+  }
+
+  /**
+   * Gets the row names.
+   *
+   * @return the row names or null.
+   */
+  public List<String> getRowNames() {
+    if (mRowNames == null && mRowNamesOffset != -1) {
+      mRowNames = readNames(mRowNamesOffset);
+    }
+
+    return mRowNames;
+  }
+
+  /**
+   * Returns the index of the first column with a given name.
+   *
+   * @param name the name
+   * @return the index or -1 if there is no such column.
+   */
+  public int findColumn(String name) {
+    return mColNames != null ? mColNames.indexOf(name) : -1;
+  }
+
+  /**
+   * Read a whole column as doubles.
+   *
+   * @param col the col
+   * @return the double column
+   */
+  public double[] getDoubleColumn(int col) {
+    return getDoubleColumn(col, 0, mRows);
+  }
+
+  /**
+   * Read a range of rows from a column as doubles. Int and long columns are
+   * converted.
+   *
+   * @param col   the col
+   * @param start the first row
+   * @param n     the number of rows
+   * @return the double column
+   */
+  public double[] getDoubleColumn(int col, int start, int n) {
+    checkRange(start, n);
+
+    double[] ret = new double[n];
+
+    switch (mTypes[col]) {
+    case DOUBLE:
+      mReader.seek(mOffsets[col] + start * 8L).read(ret, 0, n);
+      break;
+    case LONG:
+      long[] longs = getLongColumn(col, start, n);
+
+      for (int i = 0; i < n; ++i) {
+        ret[i] = longs[i];
+      }
+
+      break;
+    case INT:
+      int[] ints = getIntColumn(col, start, n);
+
+      for (int i = 0; i < n; ++i) {
+        ret[i] = ints[i];
+      }
+
+      break;
+    default:
+      throw new IllegalArgumentException("Column " + col + " is not numeric.");
+    }
+
+    return ret;
+  }
+
+  /**
+   * Read a whole int column.
+   *
+   * @param col the col
+   * @return the int column
+   */
+  public int[] getIntColumn(int col) {
+    return getIntColumn(col, 0, mRows);
+  }
+
+  /**
+   * Read a range of rows from an int column.
+   *
+   * @param col   the col
+   * @param start the first row
+   * @param n     the number of rows
+   * @return the int column
+   */
+  public int[] getIntColumn(int col, int start, int n) {
+    checkType(col, ColumnType.INT);
+    checkRange(start, n);
+
+    int[] ret = new int[n];
+
+    mReader.seek(mOffsets[col] + start * 4L).read(ret, 0, n);
+
+    return ret;
+  }
+
+  /**
+   * Read a whole column as longs.
+   *
+   * @param col the col
+   * @return the long column
+   */
+  public long[] getLongColumn(int col) {
+    return getLongColumn(col, 0, mRows);
+  }
+
+  /**
+   * Read a range of rows from a long or int column as longs.
+   *
+   * @param col   the col
+   * @param start the first row
+   * @param n     the number of rows
+   * @return the long column
+   */
+  public long[] getLongColumn(int col, int start, int n) {
+    long[] ret;
+
+    if (mTypes[col] == ColumnType.INT) {
+      int[] ints = getIntColumn(col, start, n);
+
+      ret = new long[n];
+
+      for (int i = 0; i < n; ++i) {
+        ret[i] = ints[i];
+      }
+    } else {
+      checkType(col, ColumnType.LONG);
+      checkRange(start, n);
+
+      ret = new long[n];
+
+      mReader.seek(mOffsets[col] + start * 8L).read(ret, 0, n);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Read a whole string column.
+   *
+   * @param col the col
+   * @return the string column
+   */
+  public String[] getStringColumn(int col) {
+    return getStringColumn(col, 0, mRows);
+  }
+
+  /**
+   * Read a range of rows from a string column. Rows with the same value share
+   * the same string instance.
+   *
+   * @param col   the col
+   * @param start the first row
+   * @param n     the number of rows
+   * @return the string column
+   */
+  public String[] getStringColumn(int col, int start, int n) {
+    checkType(col, ColumnType.STRING);
+    checkRange(start, n);
+
+    String[] dict = getDict(col);
+
+    int[] codes = new int[n];
+
+    mReader.seek(mCodeOffsets[col] + start * 4L).read(codes, 0, n);
+
+    String[] ret = new String[n];
+
+    for (int i = 0; i < n; ++i) {
+      ret[i] = codes[i] != -1 ? dict[codes[i]] : null;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Read a single value as a double.
+   *
+   * @param row the row
+   * @param col the col
+   * @return the double
+   */
+  public double getDouble(int row, int col) {
+    checkRange(row, 1);
+
+    switch (mTypes[col]) {
+    case DOUBLE:
+      return mReader.seek(mOffsets[col] + row * 8L).readDouble();
+    case LONG:
+      return mReader.seek(mOffsets[col] + row * 8L).readLong();
+    case INT:
+      return mReader.seek(mOffsets[col] + row * 4L).readInt();
+    default:
+      throw new IllegalArgumentException("Column " + col + " is not numeric.");
+    }
+  }
+
+  /**
+   * Read a single value.
+   *
+   * @param row the row
+   * @param col the col
+   * @return an Integer, Long, Double or String depending on the column type.
+   */
+  public Object get(int row, int col) {
+    checkRange(row, 1);
+
+    switch (mTypes[col]) {
+    case DOUBLE:
+      return mReader.seek(mOffsets[col] + row * 8L).readDouble();
+    case LONG:
+      return mReader.seek(mOffsets[col] + row * 8L).readLong();
+    case INT:
+      return mReader.seek(mOffsets[col] + row * 4L).readInt();
+    default:
+      String[] dict = getDict(col);
+
+      int code = mReader.seek(mCodeOffsets[col] + row * 4L).readInt();
+
+      return code != -1 ? dict[code] : null;
+    }
+  }
+
+  /**
+   * Read the whole table as a {@link DoubleTableData}. Every column must be
+   * numeric.
+   *
+   * @return the double table data
+   */
+  public DoubleTableData toDoubleTableData() {
+    double[][] columns = new double[mTypes.length][];
+
+    for (int i = 0; i < mTypes.length; ++i) {
+      columns[i] = getDoubleColumn(i);
+    }
+
+    List<String> rowNames = getRowNames();
+
+    String[] colNames = null;
+
+    // DoubleTableData needs exactly one name per column
+    if (mColNames != null && mColNames.size() == mTypes.length) {
+      colNames = mColNames.toArray(new String[mTypes.length]);
+    }
+
+    return new DoubleTableData(rowNames != null ? rowNames.toArray(new String[mRows]) : null, colNames, columns);
+  }
+
+  /**
+   * Read the whole table as a {@link TableData}. Cells are Integers, Longs,
+   * Doubles or Strings depending on the type of their column.
+   *
+   * @return the table data
+   */
+  public TableData<Object> toTableData() {
+    Object[][] columns = new Object[mTypes.length][];
+
+    for (int i = 0; i < mTypes.length; ++i) {
+      switch (mTypes[i]) {
+      case STRING:
+        columns[i] = getStringColumn(i);
+        break;
+      default:
+        columns[i] = new Object[mRows];
+
+        for (int j = 0; j < mRows; ++j) {
+          columns[i][j] = get(j, i);
+        }
+
+        break;
+      }
+    }
+
+    List<List<Object>> rows = new ArrayList<List<Object>>(mRows);
+
+    for (int i = 0; i < mRows; ++i) {
+      List<Object> row = new ArrayList<Object>(mTypes.length);
+
+      for (int j = 0; j < mTypes.length; ++j) {
+        row.add(columns[j][i]);
+      }
+
+      rows.add(row);
+    }
+
+    TableData<Object> ret = new TableData<Object>(rows);
+
+    if (mColNames != null) {
+      ret.columnHeadings = new ArrayList<String>(mColNames);
+    }
+
+    List<String> rowNames = getRowNames();
+
+    if (rowNames != null) {
+      ret.rowHeader = new ArrayList<String>(rowNames);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Close the file.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public void close() throws IOException {
+    mReader.close();
+  }
+
+  /**
+   * Returns the dictionary of a string column, reading it on first use.
+   *
+   * @param col the col
+   * @return the dict
+   */
+  private String[] getDict(int col) {
+    if (mDicts[col] == null) {
+      List<String> words = readNames(mOffsets[col]);
+
+      mDicts[col] = words.toArray(new String[words.size()]);
+      mCodeOffsets[col] = mReader.tell();
+    }
+
+    return mDicts[col];
+  }
+
+  /**
+   * Read a list of strings.
+   *
+   * @param offset the offset
+   * @return the list
+   */
+  private List<String> readNames(long offset) {
+    mReader.seek(offset);
+
+    int n = mReader.readInt();
+
+    String[] ret = new String[n];
+
+    byte[] buf = new byte[64];
+
+    for (int i = 0; i < n; ++i) {
+      int l = mReader.readInt();
+
+      if (l == -1) {
+        continue;
+      }
+
+      if (l > buf.length) {
+        buf = new byte[Math.max(l, buf.length * 2)];
+      }
+
+      mReader.read(buf, 0, l);
+
+      ret[i] = new String(buf, 0, l, StandardCharsets.UTF_8);
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(ret));
+  }
+
+  /**
+   * Check a column has a given type.
+   *
+   * @param col  the col
+   * @param type the type
+   */
+  private void checkType(int col, ColumnType type) {
+    if (mTypes[col] != type) {
+      throw new IllegalArgumentException("Column " + col + " is " + mTypes[col] + " not " + type + ".");
+    }
+  }
+
+  /**
+   * Check a range of rows is within the table.
+   *
+   * @param start the start
+   * @param n     the n
+   */
+  private void checkRange(int start, int n) {
+    if (start < 0 || n < 0 || start > mRows - n) {
+      throw new IndexOutOfBoundsException("Rows " + start + " to " + (start + n) + " of " + mRows + ".");
+    }
+  }
+}
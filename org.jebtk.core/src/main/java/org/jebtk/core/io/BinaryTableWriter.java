@@ -0,0 +1,646 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jebtk.core.DoubleTableData;
+import org.jebtk.core.TableData;
+
+/**
+ * Writes tables in a binary columnar format that {@link BinaryTableReader}
+ * can memory map, so that a single column or a range of rows can be read
+ * without reading the rest of the file.
+ *
+ * All values are big endian. The file starts with a fixed header:
+ *
+ * <pre>
+ * int  magic (JTBL)
+ * int  version
+ * int  rows
+ * int  cols
+ * long offset of the row names or -1
+ * long offset of the column names or -1
+ * </pre>
+ *
+ * followed by a block index with one entry per column:
+ *
+ * <pre>
+ * byte type (see {@link ColumnType})
+ * long offset of the column
+ * long length of the column in bytes
+ * </pre>
+ *
+ * Names are stored as an int count followed by each name as an int length and
+ * its UTF-8 bytes, with a length of -1 for null. Each column block starts on
+ * an 8 byte boundary and holds the values in row order. String columns hold a
+ * dictionary of distinct values, in the same form as names, followed by an int
+ * dictionary index for each row (-1 for null).
+ *
+ * @author Antony Holmes
+ */
+public class BinaryTableWriter {
+
+  /** Identifies a binary table file. */
+  public static final int MAGIC = 0x4A54424C;
+
+  /** The format version. */
+  public static final int VERSION = 1;
+
+  /** The size of the fixed header in bytes. */
+  static final int HEADER_SIZE = 32;
+
+  /** The size of one block index entry in bytes. */
+  static final int INDEX_ENTRY_SIZE = 17;
+
+  /** The size of the write buffer. */
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /** The m rows. */
+  private final int mRows;
+
+  /** The m row names. */
+  private List<String> mRowNames = null;
+
+  /** Column names that replace the names given to addColumn. */
+  private List<String> mColNames = null;
+
+  /** The names given to addColumn. */
+  private final List<String> mNames = new ArrayList<String>();
+
+  /** The m types. */
+  private final List<ColumnType> mTypes = new ArrayList<ColumnType>();
+
+  /** The column values, a primitive array or a String[]. */
+  private final List<Object> mColumns = new ArrayList<Object>();
+
+  /** The m channel. */
+  private FileChannel mChannel;
+
+  /** The m buffer. */
+  private ByteBuffer mBuffer;
+
+  /** The file position of the start of the buffer. */
+  private long mPosition;
+
+  /**
+   * Instantiates a new binary table writer.
+   *
+   * @param rows the number of rows in each column
+   */
+  public BinaryTableWriter(int rows) {
+    mRows = rows;
+  }
+
+  /**
+   * Sets the row names.
+   *
+   * @param names the names, one per row
+   * @return the binary table writer
+   */
+  public BinaryTableWriter setRowNames(Collection<String> names) {
+    if (names.size() != mRows) {
+      throw new IllegalArgumentException("Row names must match the number of rows.");
+    }
+
+    mRowNames = new ArrayList<String>(names);
+
+    return this;
+  }
+
+  /**
+   * Sets the column names written to the file in place of the names given to
+   * the columns as they are added. The number of names need not match the
+   * number of columns.
+   *
+   * @param names the names
+   * @return the binary table writer
+   */
+  public BinaryTableWriter setColNames(Collection<String> names) {
+    mColNames = new ArrayList<String>(names);
+
+    return this;
+  }
+
+  /**
+   * Adds a column of doubles.
+   *
+   * @param name   the name (may be null)
+   * @param values the values
+   * @return the binary table writer
+   */
+  public BinaryTableWriter addColumn(String name, double[] values) {
+    return add(name, ColumnType.DOUBLE, values, values.length);
+  }
+
+  /**
+   * Adds a column of ints.
+   *
+   * @param name   the name (may be null)
+   * @param values the values
+   * @return the binary table writer
+   */
+  public BinaryTableWriter addColumn(String name, int[] values) {
+    return add(name, ColumnType.INT, values, values.length);
+  }
+
+  /**
+   * Adds a column of longs.
+   *
+   * @param name   the name (may be null)
+   * @param values the values
+   * @return the binary table writer
+   */
+  public BinaryTableWriter addColumn(String name, long[] values) {
+    return add(name, ColumnType.LONG, values, values.length);
+  }
+
+  /**
+   * Adds a column of strings. Values may be null.
+   *
+   * @param name   the name (may be null)
+   * @param values the values
+   * @return the binary table writer
+   */
+  public BinaryTableWriter addColumn(String name, String[] values) {
+    return add(name, ColumnType.STRING, values, values.length);
+  }
+
+  /**
+   * Adds a column.
+   *
+   * @param name   the name
+   * @param type   the type
+   * @param values the values
+   * @param length the number of values
+   * @return the binary table writer
+   */
+  private BinaryTableWriter add(String name, ColumnType type, Object values, int length) {
+    if (length != mRows) {
+      throw new IllegalArgumentException("Column " + name + " has " + length + " rows, expected " + mRows + ".");
+    }
+
+    mNames.add(name);
+    mTypes.add(type);
+    mColumns.add(values);
+
+    return this;
+  }
+
+  /**
+   * Write the table to a file, replacing it if it exists.
+   *
+   * @param file the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void write(Path file) throws IOException {
+    mChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    mPosition = 0;
+
+    try {
+      int cols = mColumns.size();
+
+      // The header and index are filled in once the offsets are known
+      mPosition = HEADER_SIZE + (long) cols * INDEX_ENTRY_SIZE;
+
+      mChannel.position(mPosition);
+
+      long rowNamesOffset = -1;
+
+      if (mRowNames != null) {
+        rowNamesOffset = tell();
+        writeNames(mRowNames);
+      }
+
+      List<String> colNames = mColNames;
+
+      if (colNames == null && !allNull(mNames)) {
+        colNames = mNames;
+      }
+
+      long colNamesOffset = -1;
+
+      if (colNames != null) {
+        colNamesOffset = tell();
+        writeNames(colNames);
+      }
+
+      long[] offsets = new long[cols];
+      long[] lengths = new long[cols];
+
+      for (int i = 0; i < cols; ++i) {
+        align();
+
+        offsets[i] = tell();
+
+        writeColumn(mTypes.get(i), mColumns.get(i));
+
+        lengths[i] = tell() - offsets[i];
+      }
+
+      flush();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + cols * INDEX_ENTRY_SIZE);
+
+      header.putInt(MAGIC).putInt(VERSION).putInt(mRows).putInt(cols).putLong(rowNamesOffset)
+          .putLong(colNamesOffset);
+
+      for (int i = 0; i < cols; ++i) {
+        header.put((byte) mTypes.get(i).ordinal()).putLong(offsets[i]).putLong(lengths[i]);
+      }
+
+      header.flip();
+
+      long p = 0;
+
+      while (header.hasRemaining()) {
+        p += mChannel.write(header, p);
+      }
+    } finally {
+      mChannel.close();
+      mChannel = null;
+      mBuffer = null;
+    }
+  }
+
+  /**
+   * Write a column.
+   *
+   * @param type   the type
+   * @param values the values
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeColumn(ColumnType type, Object values) throws IOException {
+    switch (type) {
+    case DOUBLE:
+      write((double[]) values);
+      break;
+    case LONG:
+      write((long[]) values);
+      break;
+    case INT:
+      write((int[]) values);
+      break;
+    default:
+      writeStrings((String[]) values);
+      break;
+    }
+  }
+
+  /**
+   * Write a dictionary encoded string column.
+   *
+   * @param values the values
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeStrings(String[] values) throws IOException {
+    Map<String, Integer> dict = new HashMap<String, Integer>();
+    List<String> words = new ArrayList<String>();
+    int[] codes = new int[values.length];
+
+    for (int i = 0; i < values.length; ++i) {
+      String v = values[i];
+
+      if (v == null) {
+        codes[i] = -1;
+        continue;
+      }
+
+      Integer code = dict.get(v);
+
+      if (code == null) {
+        code = words.size();
+        dict.put(v, code);
+        words.add(v);
+      }
+
+      codes[i] = code;
+    }
+
+    writeNames(words);
+    write(codes);
+  }
+
+  /**
+   * Write a list of strings.
+   *
+   * @param names the names
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeNames(List<String> names) throws IOException {
+    ensure(4);
+    mBuffer.putInt(names.size());
+
+    for (String name : names) {
+      ensure(4);
+
+      if (name == null) {
+        mBuffer.putInt(-1);
+        continue;
+      }
+
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+
+      mBuffer.putInt(bytes.length);
+
+      int offset = 0;
+
+      while (offset < bytes.length) {
+        if (!mBuffer.hasRemaining()) {
+          flush();
+        }
+
+        int n = Math.min(bytes.length - offset, mBuffer.remaining());
+
+        mBuffer.put(bytes, offset, n);
+
+        offset += n;
+      }
+    }
+  }
+
+  /**
+   * Write doubles, copying as many as fit into the buffer at once.
+   *
+   * @param values the values
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void write(double[] values) throws IOException {
+    int offset = 0;
+
+    while (offset < values.length) {
+      ensure(8);
+
+      int n = Math.min(values.length - offset, mBuffer.remaining() / 8);
+
+      mBuffer.asDoubleBuffer().put(values, offset, n);
+      mBuffer.position(mBuffer.position() + n * 8);
+
+      offset += n;
+    }
+  }
+
+  /**
+   * Write longs, copying as many as fit into the buffer at once.
+   *
+   * @param values the values
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void write(long[] values) throws IOException {
+    int offset = 0;
+
+    while (offset < values.length) {
+      ensure(8);
+
+      int n = Math.min(values.length - offset, mBuffer.remaining() / 8);
+
+      mBuffer.asLongBuffer().put(values, offset, n);
+      mBuffer.position(mBuffer.position() + n * 8);
+
+      offset += n;
+    }
+  }
+
+  /**
+   * Write ints, copying as many as fit into the buffer at once.
+   *
+   * @param values the values
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void write(int[] values) throws IOException {
+    int offset = 0;
+
+    while (offset < values.length) {
+      ensure(4);
+
+      int n = Math.min(values.length - offset, mBuffer.remaining() / 4);
+
+      mBuffer.asIntBuffer().put(values, offset, n);
+      mBuffer.position(mBuffer.position() + n * 4);
+
+      offset += n;
+    }
+  }
+
+  /**
+   * Pad with zeros to the next 8 byte boundary.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void align() throws IOException {
+    int pad = (int) ((8 - (tell() & 7)) & 7);
+
+    ensure(pad);
+
+    for (int i = 0; i < pad; ++i) {
+      mBuffer.put((byte) 0);
+    }
+  }
+
+  /**
+   * Flush the buffer if it has less than the given number of bytes free.
+   *
+   * @param n the n
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void ensure(int n) throws IOException {
+    if (mBuffer.remaining() < n) {
+      flush();
+    }
+  }
+
+  /**
+   * Write the buffer to the channel.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void flush() throws IOException {
+    mBuffer.flip();
+
+    while (mBuffer.hasRemaining()) {
+      mPosition += mChannel.write(mBuffer);
+    }
+
+    mBuffer.clear();
+  }
+
+  /**
+   * Returns the file position that the next byte will be written to.
+   *
+   * @return the long
+   */
+  private long tell() {
+    return mPosition + mBuffer.position();
+  }
+
+  /**
+   * Returns true if every item in a list is null.
+   *
+   * @param values the values
+   * @return true, if successful
+   */
+  private static boolean allNull(List<String> values) {
+    for (String v : values) {
+      if (v != null) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Write a numeric table. Each column is stored as doubles.
+   *
+   * @param table the table
+   * @param file  the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void write(DoubleTableData table, Path file) throws IOException {
+    BinaryTableWriter writer = new BinaryTableWriter(table.getRowCount());
+
+    if (table.hasRowNames()) {
+      writer.setRowNames(table.getRowNames());
+    }
+
+    for (int i = 0; i < table.getColCount(); ++i) {
+      writer.addColumn(table.hasColNames() ? table.getColName(i) : null, table.getColumn(i));
+    }
+
+    writer.write(file);
+  }
+
+  /**
+   * Write a table. The type of each column is chosen from its values: columns
+   * of Integers are stored as ints, columns of Integers and Longs as longs,
+   * other numeric columns as doubles and anything else as strings. Missing
+   * values in a numeric column are stored as NaN, so an integer column with
+   * gaps is stored as doubles. Short rows are treated as having missing values
+   * at the end.
+   *
+   * @param table the table
+   * @param file  the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void write(TableData<?> table, Path file) throws IOException {
+    int rows = table.size();
+    int cols = 0;
+
+    for (int i = 0; i < rows; ++i) {
+      cols = Math.max(cols, table.getRow(i).size());
+    }
+
+    BinaryTableWriter writer = new BinaryTableWriter(rows);
+
+    if (table.rowHeader != null) {
+      writer.setRowNames(table.rowHeader);
+    }
+
+    if (table.columnHeadings != null) {
+      writer.setColNames(table.columnHeadings);
+    }
+
+    for (int i = 0; i < cols; ++i) {
+      Object[] values = new Object[rows];
+
+      for (int j = 0; j < rows; ++j) {
+        List<?> row = table.getRow(j);
+
+        values[j] = i < row.size() ? row.get(i) : null;
+      }
+
+      addObjects(writer, values);
+    }
+
+    writer.write(file);
+  }
+
+  /**
+   * Add a column of objects using the narrowest type that holds them all.
+   *
+   * @param writer the writer
+   * @param values the values
+   */
+  private static void addObjects(BinaryTableWriter writer, Object[] values) {
+    boolean numeric = true;
+    boolean ints = true;
+    boolean longs = true;
+    boolean nulls = false;
+    boolean empty = true;
+
+    for (Object v : values) {
+      if (v == null) {
+        nulls = true;
+      } else if (v instanceof Number) {
+        empty = false;
+        ints &= v instanceof Integer;
+        longs &= v instanceof Integer || v instanceof Long;
+      } else {
+        numeric = false;
+        break;
+      }
+    }
+
+    int n = values.length;
+
+    if (!numeric || empty) {
+      String[] column = new String[n];
+
+      for (int i = 0; i < n; ++i) {
+        column[i] = values[i] != null ? values[i].toString() : null;
+      }
+
+      writer.addColumn(null, column);
+    } else if (ints && !nulls) {
+      int[] column = new int[n];
+
+      for (int i = 0; i < n; ++i) {
+        column[i] = ((Number) values[i]).intValue();
+      }
+
+      writer.addColumn(null, column);
+    } else if (longs && !nulls) {
+      long[] column = new long[n];
+
+      for (int i = 0; i < n; ++i) {
+        column[i] = ((Number) values[i]).longValue();
+      }
+
+      writer.addColumn(null, column);
+    } else {
+      double[] column = new double[n];
+
+      for (int i = 0; i < n; ++i) {
+        column[i] = values[i] != null ? ((Number) values[i]).doubleValue() : Double.NaN;
+      }
+
+      writer.addColumn(null, column);
+    }
+  }
+}
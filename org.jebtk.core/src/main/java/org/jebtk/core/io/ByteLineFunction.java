@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+/**
+ * Receives each line read by {@link ByteLineReader} as a region of the read
+ * buffer. The buffer is reused so the bytes must not be retained after the
+ * call returns.
+ */
+interface ByteLineFunction {
+
+  /**
+   * Give a line to be processed.
+   *
+   * @param buf   the buf
+   * @param start the start of the line
+   * @param end   the end of the line, excluding the line ending
+   */
+  public void parse(byte[] buf, int start, int end);
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a stream in blocks and passes each line to a function in place in the
+ * read buffer, so that no per line objects are created. Lines may end in
+ * either \n or \r\n.
+ */
+class ByteLineReader {
+
+  /** The size of the block read. */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Instantiates a new byte line reader.
+   */
+  private ByteLineReader() {
+    // Do nothing
+  }
+
+  /**
+   * Read a stream, passing each line to a function.
+   *
+   * @param in the in
+   * @param f  the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void read(InputStream in, ByteLineFunction f) throws IOException {
+    byte[] buf = new byte[BUFFER_SIZE];
+
+    // number of valid bytes in buf
+    int len = 0;
+
+    // position up to which buf has been searched for a newline
+    int scan = 0;
+
+    int n;
+
+    while (true) {
+      if (len == buf.length) {
+        // Line is longer than the buffer
+        buf = Arrays.copyOf(buf, buf.length * 2);
+      }
+
+      n = in.read(buf, len, buf.length - len);
+
+      if (n == -1) {
+        break;
+      }
+
+      len += n;
+
+      int s = 0;
+
+      for (int i = scan; i < len; ++i) {
+        if (buf[i] == '\n') {
+          line(buf, s, i, f);
+          s = i + 1;
+        }
+      }
+
+      // Move the partial line to the start of the buffer
+      len -= s;
+      System.arraycopy(buf, s, buf, 0, len);
+      scan = len;
+    }
+
+    if (len > 0) {
+      line(buf, 0, len, f);
+    }
+  }
+
+  /**
+   * Pass a line to the function without its carriage return.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @param f     the f
+   */
+  private static void line(byte[] buf, int start, int end, ByteLineFunction f) {
+    if (end > start && buf[end - 1] == '\r') {
+      --end;
+    }
+
+    f.parse(buf, start, end);
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+/**
+ * How a column of a binary table is stored. See {@link BinaryTableWriter}.
+ *
+ * @author Antony Holmes
+ *
+ */
+public enum ColumnType {
+
+  /**
+   * 4 byte ints.
+   */
+  INT,
+
+  /**
+   * 8 byte longs.
+   */
+  LONG,
+
+  /**
+   * 8 byte doubles.
+   */
+  DOUBLE,
+
+  /**
+   * Strings stored as a dictionary of the distinct values followed by a 4 byte
+   * index into the dictionary for each row.
+   */
+  STRING
+}
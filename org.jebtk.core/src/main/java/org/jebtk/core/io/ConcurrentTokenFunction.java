@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.util.List;
+
+/**
+ * Variant of {@link TokenFunction} used by {@link ParallelReader}.
+ * Implementations may be called from multiple threads at once so must be
+ * thread safe.
+ */
+public interface ConcurrentTokenFunction {
+
+  /**
+   * Give a list of tokens to be processed.
+   *
+   * @param tokens the tokens
+   */
+  public void parse(final List<String> tokens);
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jebtk.core.DoubleTableData;
+import org.jebtk.core.text.NumberScanner;
+
+/**
+ * Parses a delimited numeric table directly from bytes into column arrays.
+ * Numbers are scanned in place in the read buffer so no per line or per cell
+ * strings are created, only the row and column names are decoded.
+ */
+public class DoubleTableLoader {
+
+  /** The Constant DEFAULT_ROWS. */
+  private static final int DEFAULT_ROWS = 1024;
+
+  /** The m delimiter. */
+  private final byte mDelimiter;
+
+  /** The m row header mode. */
+  private final boolean mRowHeaderMode;
+
+  /** The m col names. */
+  private String[] mColNames = null;
+
+  /** The m row names. */
+  private final List<String> mRowNames = new ArrayList<String>(DEFAULT_ROWS);
+
+  /** The m columns. */
+  private double[][] mColumns = null;
+
+  /** The m rows. */
+  private int mRows = 0;
+
+  /** The allocated length of each column. */
+  private int mCapacity = DEFAULT_ROWS;
+
+  /** Whether the header line has been read. */
+  private boolean mHeaderRead = false;
+
+  /**
+   * Instantiates a new double table loader.
+   *
+   * @param delimiter        the delimiter
+   * @param columnHeaderMode the first line contains column names
+   * @param rowHeaderMode    the first column contains row names
+   */
+  private DoubleTableLoader(char delimiter, boolean columnHeaderMode, boolean rowHeaderMode) {
+    mDelimiter = (byte) delimiter;
+    mRowHeaderMode = rowHeaderMode;
+    mHeaderRead = !columnHeaderMode;
+  }
+
+  /**
+   * Load a numeric table from a stream. The delimiter must be a single byte
+   * character such as a tab or comma. If both header modes are enabled, the
+   * first cell of the header line is treated as the corner label and ignored.
+   * Empty cells and cells that are not numbers are loaded as NaN.
+   *
+   * @param in               the in
+   * @param delimiter        the delimiter
+   * @param columnHeaderMode the column header mode
+   * @param rowHeaderMode    the row header mode
+   * @return the double table data
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static DoubleTableData load(InputStream in, char delimiter, boolean columnHeaderMode, boolean rowHeaderMode)
+      throws IOException {
+    DoubleTableLoader loader = new DoubleTableLoader(delimiter, columnHeaderMode, rowHeaderMode);
+
+    loader.read(in);
+
+    return loader.toTable();
+  }
+
+  /**
+   * Read the stream in blocks, processing each complete line in place.
+   *
+   * @param in the in
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void read(InputStream in) throws IOException {
+    ByteLineReader.read(in, new ByteLineFunction() {
+      @Override
+      public void parse(byte[] buf, int start, int end) {
+        line(buf, start, end);
+      }
+    });
+  }
+
+  /**
+   * Process a line.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   */
+  private void line(byte[] buf, int start, int end) {
+    if (isEmpty(buf, start, end)) {
+      return;
+    }
+
+    if (!mHeaderRead) {
+      readHeader(buf, start, end);
+      return;
+    }
+
+    if (mColumns == null) {
+      // No header so size the table using the first line
+      int cols = countFields(buf, start, end) - (mRowHeaderMode ? 1 : 0);
+
+      mColumns = new double[Math.max(0, cols)][DEFAULT_ROWS];
+    }
+
+    if (mRows == mCapacity) {
+      mCapacity *= 2;
+
+      for (int i = 0; i < mColumns.length; ++i) {
+        mColumns[i] = Arrays.copyOf(mColumns[i], mCapacity);
+      }
+    }
+
+    int s = start;
+    int col = mRowHeaderMode ? -1 : 0;
+
+    for (int i = start; i <= end && col < mColumns.length; ++i) {
+      if (i == end || buf[i] == mDelimiter) {
+        if (col == -1) {
+          mRowNames.add(toString(buf, s, i));
+        } else {
+          mColumns[col][mRows] = NumberScanner.parseDouble(buf, s, i);
+        }
+
+        ++col;
+        s = i + 1;
+      }
+    }
+
+    // Short lines are padded with NaN
+    for (; col < mColumns.length; ++col) {
+      mColumns[col][mRows] = Double.NaN;
+    }
+
+    ++mRows;
+  }
+
+  /**
+   * Read header.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   */
+  private void readHeader(byte[] buf, int start, int end) {
+    List<String> names = new ArrayList<String>();
+
+    int s = start;
+
+    for (int i = start; i <= end; ++i) {
+      if (i == end || buf[i] == mDelimiter) {
+        names.add(toString(buf, s, i));
+        s = i + 1;
+      }
+    }
+
+    if (mRowHeaderMode && names.size() > 0) {
+      names.remove(0);
+    }
+
+    mColNames = names.toArray(new String[names.size()]);
+    mColumns = new double[mColNames.length][DEFAULT_ROWS];
+    mHeaderRead = true;
+  }
+
+  /**
+   * Create the table, trimming the column arrays to size.
+   *
+   * @return the double table data
+   */
+  private DoubleTableData toTable() {
+    if (mColumns == null) {
+      mColumns = new double[mColNames != null ? mColNames.length : 0][0];
+    }
+
+    for (int i = 0; i < mColumns.length; ++i) {
+      if (mColumns[i].length != mRows) {
+        mColumns[i] = Arrays.copyOf(mColumns[i], mRows);
+      }
+    }
+
+    String[] rowNames = mRowHeaderMode ? mRowNames.toArray(new String[mRowNames.size()]) : null;
+
+    return new DoubleTableData(rowNames, mColNames, mColumns);
+  }
+
+  /**
+   * Count the fields on a line.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the int
+   */
+  private int countFields(byte[] buf, int start, int end) {
+    int ret = 1;
+
+    for (int i = start; i < end; ++i) {
+      if (buf[i] == mDelimiter) {
+        ++ret;
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns true if a line only contains white space.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return true, if is empty
+   */
+  private static boolean isEmpty(byte[] buf, int start, int end) {
+    for (int i = start; i < end; ++i) {
+      if (buf[i] > ' ') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Decode a name, removing enclosing quotes.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the string
+   */
+  private static String toString(byte[] buf, int start, int end) {
+    if (end - start > 1 && buf[start] == '"' && buf[end - 1] == '"') {
+      ++start;
+      --end;
+    }
+
+    return new String(buf, start, end - start, StandardCharsets.UTF_8);
+  }
+}
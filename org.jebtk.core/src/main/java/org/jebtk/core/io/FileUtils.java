@@ -970,6 +970,16 @@ public class FileUtils {
     return Lines.lines(f);
   }
 
+  /**
+   * Create a reader that processes the lines of a file on multiple threads.
+   *
+   * @param file the file
+   * @return the parallel reader
+   */
+  public static ParallelReader parallel(Path file) {
+    return new ParallelReader(file);
+  }
+
   /**
    * Read lines.
    *
@@ -22,11 +22,13 @@ import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
@@ -38,10 +40,11 @@ import java.util.regex.Pattern;
 import javax.swing.JTextArea;
 import javax.swing.table.TableModel;
 
+import org.jebtk.core.DoubleTableData;
 import org.jebtk.core.TableData;
 import org.jebtk.core.collections.ArrayUtils;
 import org.jebtk.core.collections.CollectionUtils;
-import org.jebtk.core.stream.Stream;
+import org.jebtk.core.text.FieldCursor;
 import org.jebtk.core.text.Splitter;
 import org.jebtk.core.text.TextUtils;
 import org.slf4j.Logger;
@@ -304,20 +307,24 @@ public class Io {
 
     TableData<String> table = new TableData<String>();
 
+    // Reuse one cursor for every line rather than allocating a list of
+    // tokens per line.
+    FieldCursor cursor = Splitter.cursor(delimiter);
+
     String line;
 
     List<String> row;
 
-    List<String> tokens;
-
     try {
       if (columnHeaderMode) {
-        tokens = TextUtils.fastSplitRemoveQuotes(reader.readLine(), TextUtils.TAB_DELIMITER_CHAR);
+        cursor.reset(removeQuotes(reader.readLine()));
+
+        int n = fieldCount(cursor);
 
-        table.columnHeadings = new ArrayList<String>();
+        table.columnHeadings = new ArrayList<String>(n);
 
-        for (String name : tokens) {
-          table.columnHeadings.add(name);
+        for (int i = 0; i < n; ++i) {
+          table.columnHeadings.add(cursor.getString(i));
         }
       }
 
@@ -334,25 +341,31 @@ public class Io {
           continue;
         }
 
-        // System.err.println("table line " + file);
+        cursor.reset(removeQuotes(line));
 
-        tokens = TextUtils.fastSplitRemoveQuotes(line, TextUtils.TAB_DELIMITER_CHAR);
+        int n = fieldCount(cursor);
 
         if (rowHeaderMode) {
-          table.rowHeader.add(tokens.get(0));
+          table.rowHeader.add(cursor.getString(0));
         }
 
-        row = new ArrayList<String>();
-
         if (subset) {
+          row = new ArrayList<String>(columns.size());
+
+          // Only the requested columns are converted to strings
           for (int c : columns) {
-            row.add(tokens.get(c));
+            if (c >= n) {
+              throw new IndexOutOfBoundsException("Index: " + c + ", Size: " + n);
+            }
+
+            row.add(cursor.getString(c));
           }
         } else {
           // add all columns
+          row = new ArrayList<String>(n);
 
-          for (int i = s; i < tokens.size(); ++i) {
-            row.add(tokens.get(i));
+          for (int i = s; i < n; ++i) {
+            row.add(cursor.getString(i));
           }
         }
 
@@ -366,6 +379,35 @@ public class Io {
 
   }
 
+  /**
+   * Returns the number of fields on a line. As with
+   * {@link TextUtils#fastSplit(String, char)}, an empty field after a
+   * trailing delimiter is not counted.
+   *
+   * @param cursor the cursor
+   * @return the number of fields
+   */
+  private static int fieldCount(FieldCursor cursor) {
+    int n = cursor.size();
+
+    return n > 0 && cursor.isEmpty(n - 1) ? n - 1 : n;
+  }
+
+  /**
+   * Remove quotes from a line, avoiding the regex replacement if the line has
+   * none.
+   *
+   * @param line the line
+   * @return the string
+   */
+  private static String removeQuotes(String line) {
+    if (line.indexOf('"') == -1 && line.indexOf('\'') == -1) {
+      return line;
+    }
+
+    return TextUtils.removeQuotes(line);
+  }
+
   /**
    * Load double table.
    *
@@ -436,7 +478,6 @@ public class Io {
           }
 
           table.addRow(row);
-          System.out.println(TextUtils.join(row, TextUtils.TAB_DELIMITER));
         }
       } finally {
         reader.close();
@@ -452,43 +493,102 @@ public class Io {
   }
 
   /**
-   * Write table.
+   * Load a numeric table into a columnar {@link DoubleTableData}. This is
+   * substantially faster and uses far less memory than
+   * {@link #loadDoubleTable(Path, String, boolean, boolean, List)} since cells
+   * are parsed directly from bytes into primitive arrays. Use
+   * {@link DoubleTableData#toTableData()} where a {@link TableData} is required.
+   *
+   * @param file             the file
+   * @param delimiter        the delimiter
+   * @param columnHeaderMode the column header mode
+   * @param rowHeaderMode    the row header mode
+   * @return the double table data
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static final DoubleTableData loadDoubleTableData(Path file, char delimiter, boolean columnHeaderMode,
+      boolean rowHeaderMode) throws IOException {
+    InputStream in = FileUtils.newInputStream(file);
+
+    try {
+      return DoubleTableLoader.load(in, delimiter, columnHeaderMode, rowHeaderMode);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Write table. The file is gzipped if its name ends in .gz.
    *
    * @param <T>       the generic type
    * @param table     the table
    * @param delimiter the delimiter
    * @param file      the file
+   * @throws IOException Signals that an I/O exception has occurred.
    */
-  public static final <T> void writeTable(TableData<T> table, String delimiter, Path file) {
+  public static final <T> void writeTable(TableData<T> table, String delimiter, Path file) throws IOException {
+    TableWriter writer = new TableWriter(file, delimiter);
+
     try {
-      // System.out.println("creating table " + out.getAbsolutePath());
+      if (table.columnHeadings != null) {
+        writer.add(table.columnHeadings).newLine();
+      }
 
-      BufferedWriter writer = FileUtils.newBufferedWriter(file);
+      boolean rowHeader = table.rowHeader != null;
 
-      try {
-        if (table.columnHeadings != null) {
-          writer.write(Stream.of(table.columnHeadings).asString().join(delimiter));
-          writer.newLine();
+      for (int i = 0; i < table.size(); ++i) {
+        if (rowHeader) {
+          writer.add(table.rowHeader.get(i));
         }
 
-        boolean rowHeader = table.rowHeader != null;
+        writer.add(table.getRow(i)).newLine();
+      }
+    } finally {
+      writer.close();
+    }
+  }
 
-        if (table.size() != 0) {
-          for (int i = 0; i < table.size(); ++i) {
-            if (rowHeader) {
-              writer.write(table.rowHeader.get(i));
-              writer.write(delimiter);
-            }
+  /**
+   * Write a numeric table. If the table has row names, the header starts with
+   * an empty cell so that it can be read back with
+   * {@link #loadDoubleTableData(Path, char, boolean, boolean)}. The file is
+   * gzipped if its name ends in .gz.
+   *
+   * @param table     the table
+   * @param delimiter the delimiter
+   * @param precision the number of decimal places, or -1 to write each value
+   *                  in full
+   * @param file      the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static final void writeTable(DoubleTableData table, String delimiter, int precision, Path file)
+      throws IOException {
+    TableWriter writer = new TableWriter(file, delimiter).setPrecision(precision);
 
-            writer.write(TextUtils.join(table.getRow(i), delimiter));
-            writer.newLine();
-          }
+    try {
+      if (table.hasColNames()) {
+        if (table.hasRowNames()) {
+          writer.add(TextUtils.EMPTY_STRING);
         }
-      } finally {
-        writer.close();
+
+        writer.add(table.getColNames()).newLine();
       }
-    } catch (Exception e) {
-      e.printStackTrace();
+
+      int cols = table.getColCount();
+
+      for (int i = 0; i < table.getRowCount(); ++i) {
+        if (table.hasRowNames()) {
+          writer.add(table.getRowName(i));
+        }
+
+        for (int j = 0; j < cols; ++j) {
+          writer.add(table.get(i, j));
+        }
+
+        writer.newLine();
+      }
+    } finally {
+      writer.close();
     }
   }
 
@@ -503,23 +603,78 @@ public class Io {
    */
   public static void writeTable(String[] columnNames, List<Object[]> data, String delimiter, Path file)
       throws IOException {
-    // System.out.println("creating table " + out.getAbsolutePath());
-
-    BufferedWriter writer = FileUtils.newBufferedWriter(file);
+    TableWriter writer = new TableWriter(file, delimiter);
 
     try {
-      writer.write(TextUtils.join(columnNames, delimiter));
-      writer.newLine();
+      writer.add(Arrays.asList(columnNames)).newLine();
 
-      for (int i = 0; i < data.size(); ++i) {
-        writer.write(TextUtils.join(data.get(i), delimiter));
-        writer.newLine();
+      for (Object[] row : data) {
+        writer.add(Arrays.asList(row)).newLine();
       }
     } finally {
       writer.close();
     }
   }
 
+  /**
+   * Write a numeric table in the binary columnar format of
+   * {@link BinaryTableWriter}.
+   *
+   * @param table the table
+   * @param file  the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void writeBinaryTable(DoubleTableData table, Path file) throws IOException {
+    BinaryTableWriter.write(table, file);
+  }
+
+  /**
+   * Write a table in the binary columnar format of {@link BinaryTableWriter}.
+   *
+   * @param table the table
+   * @param file  the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void writeBinaryTable(TableData<?> table, Path file) throws IOException {
+    BinaryTableWriter.write(table, file);
+  }
+
+  /**
+   * Load a numeric table written by
+   * {@link #writeBinaryTable(DoubleTableData, Path)}. Use
+   * {@link BinaryTableReader} directly to read individual columns or rows.
+   *
+   * @param file the file
+   * @return the double table data
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static DoubleTableData loadBinaryDoubleTable(Path file) throws IOException {
+    BinaryTableReader reader = new BinaryTableReader(file);
+
+    try {
+      return reader.toDoubleTableData();
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Load a table written by {@link #writeBinaryTable(TableData, Path)}.
+   *
+   * @param file the file
+   * @return the table data
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static TableData<Object> loadBinaryTable(Path file) throws IOException {
+    BinaryTableReader reader = new BinaryTableReader(file);
+
+    try {
+      return reader.toTableData();
+    } finally {
+      reader.close();
+    }
+  }
+
   /**
    * Writes a list to file.
    *
@@ -21,6 +21,8 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.file.Path;
 
+import org.jebtk.core.text.FieldCursor;
+
 /**
  * The Class Lines will read a file and return lines of text for processing.
  * This can be used to reduce boilerplate code that simply reads lines in a for
@@ -111,6 +113,67 @@ public class Lines {
     }
   }
 
+  /**
+   * Split each line of a file on a delimiter and pass the fields to a function
+   * without creating any per line objects. Lines are read directly as bytes so
+   * the delimiter must be a single byte character.
+   *
+   * @param file      the file
+   * @param delimiter the delimiter
+   * @param f         the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void fields(Path file, char delimiter, FieldFunction f) throws IOException {
+    InputStream in = FileUtils.newInputStream(file);
+
+    try {
+      fields(in, delimiter, f);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Split each line of a stream on a delimiter and pass the fields to a
+   * function without creating any per line objects.
+   *
+   * @param in        the in
+   * @param delimiter the delimiter
+   * @param f         the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void fields(InputStream in, char delimiter, FieldFunction f) throws IOException {
+    fields(in, delimiter, mSkip, false, f);
+  }
+
+  /**
+   * Read a stream in blocks, resetting a cursor on each line in place.
+   *
+   * @param in        the in
+   * @param delimiter the delimiter
+   * @param skip      skip the first line
+   * @param skipEmpty skip empty lines
+   * @param f         the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static void fields(InputStream in, char delimiter, final boolean skip, final boolean skipEmpty,
+      final FieldFunction f) throws IOException {
+    final FieldCursor cursor = new FieldCursor(delimiter);
+
+    ByteLineReader.read(in, new ByteLineFunction() {
+      private boolean mSkipLine = skip;
+
+      @Override
+      public void parse(byte[] buf, int start, int end) {
+        if (mSkipLine) {
+          mSkipLine = false;
+        } else if (!skipEmpty || end > start) {
+          f.parse(cursor.reset(buf, start, end));
+        }
+      }
+    });
+  }
+
   public static Lines lines(LineFunction f) {
     return new Lines(f);
   }
@@ -2,6 +2,7 @@ package org.jebtk.core.io;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
@@ -10,20 +11,55 @@ import java.nio.file.Path;
  * Wrapper class to make Memory mapped file appear more like a regular random
  * access file. This is to allow it to be used as more a drop in replacement for
  * RandomAccessFile without needing to change method names etc.
- * 
+ *
+ * Since a single mapped buffer is limited to 2GB, the file is mapped as a
+ * series of segments so that files of any size can be read. Values that
+ * straddle a segment boundary are assembled byte by byte.
+ *
  * @author antony
  *
  */
 public class MMapReader {
+  /**
+   * The default size of each mapped segment.
+   */
+  public static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
   private RandomAccessFile mReader;
   private FileChannel mFileChannel;
+  private MappedByteBuffer[] mSegments;
+  private long mSegmentSize;
+  private long mSize;
+
+  /**
+   * The current segment.
+   */
   private MappedByteBuffer mBuffer;
+  private int mSegment = 0;
 
   public MMapReader(Path file) throws IOException {
     this(file, -1);
   }
 
   public MMapReader(Path file, long size) throws IOException {
+    this(file, size, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Create a new reader.
+   *
+   * @param file        The file to map.
+   * @param size        The number of bytes to map from the start of the file. If
+   *                    less than 1, the whole file is mapped.
+   * @param segmentSize The size of each mapped segment. Must be between 1 and
+   *                    Integer.MAX_VALUE.
+   * @throws IOException
+   */
+  public MMapReader(Path file, long size, long segmentSize) throws IOException {
+    if (segmentSize < 1 || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segment size must be between 1 and " + Integer.MAX_VALUE);
+    }
+
     mReader = FileUtils.newRandomAccess(file);
 
     mFileChannel = mReader.getChannel();
@@ -32,14 +68,27 @@ public class MMapReader {
       size = mReader.length();
     }
 
+    mSize = size;
+    mSegmentSize = segmentSize;
+
+    int n = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+
+    mSegments = new MappedByteBuffer[n];
+
     // Get direct byte buffer access using channel.map() operation
-    mBuffer = mFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    for (int i = 0; i < n; ++i) {
+      long start = i * segmentSize;
+
+      mSegments[i] = mFileChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, size - start));
+    }
+
+    mBuffer = mSegments[0];
   }
 
   /**
    * Close the file handles for the reader. Note that as a memory mapped file the
    * resources may not be fully released until garbage collection.
-   * 
+   *
    * @throws IOException
    */
   public void close() throws IOException {
@@ -48,78 +97,190 @@ public class MMapReader {
   }
 
   public MMapReader seek(long address) {
-    mBuffer.position((int) address);
+    int segment = (int) Math.min(address / mSegmentSize, mSegments.length - 1);
+
+    mSegment = segment;
+    mBuffer = mSegments[segment];
+    mBuffer.position((int) (address - segment * mSegmentSize));
 
     return this;
   }
 
   /**
    * Read a 4 byte int.
-   * 
+   *
    * @return
    */
   public int readInt() {
-    return mBuffer.getInt();
+    if (mBuffer.remaining() >= 4) {
+      return mBuffer.getInt();
+    }
+
+    return ((readByte() & 0xFF) << 24) | ((readByte() & 0xFF) << 16) | ((readByte() & 0xFF) << 8)
+        | (readByte() & 0xFF);
   }
 
   /**
    * Read 1 byte as an int.
-   * 
+   *
    * @return
    */
   public int read() {
-    return mBuffer.get();
+    return readByte();
   }
 
   /**
    * Read 1 byte.
-   * 
+   *
    * @return
    */
   public byte readByte() {
+    if (!mBuffer.hasRemaining()) {
+      nextSegment();
+    }
+
     return mBuffer.get();
   }
 
   /**
    * Read an 8 byte double.
-   * 
+   *
    * @return
    */
   public double readDouble() {
-    return mBuffer.getDouble();
+    if (mBuffer.remaining() >= 8) {
+      return mBuffer.getDouble();
+    }
+
+    return Double.longBitsToDouble(readLong());
   }
 
   /**
    * Read an 8 byte long.
-   * 
+   *
    * @return
    */
   public long readLong() {
-    return mBuffer.getLong();
+    if (mBuffer.remaining() >= 8) {
+      return mBuffer.getLong();
+    }
+
+    return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
   }
 
   public short readShort() {
-    return mBuffer.getShort();
+    if (mBuffer.remaining() >= 2) {
+      return mBuffer.getShort();
+    }
+
+    return (short) (((readByte() & 0xFF) << 8) | (readByte() & 0xFF));
   }
 
   /**
    * Read bytes into an array.
-   * 
-   * @param dst
+   *
+   * @param dst the dst
    */
   public void read(byte[] dst) {
-    mBuffer.get(dst);
+    read(dst, 0, dst.length);
   }
 
   /**
    * Read bytes into an array.
-   * 
-   * @param dst
-   * @param offset
-   * @param length
+   *
+   * @param dst    the dst
+   * @param offset the offset
+   * @param length the length
    */
   public void read(byte[] dst, int offset, int length) {
-    mBuffer.get(dst, offset, length);
+    while (length > 0) {
+      if (!mBuffer.hasRemaining()) {
+        nextSegment();
+      }
+
+      int n = Math.min(length, mBuffer.remaining());
+
+      mBuffer.get(dst, offset, n);
+
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Read doubles into an array. Runs within a segment are copied in bulk.
+   *
+   * @param dst    the dst
+   * @param offset the offset
+   * @param length the length
+   */
+  public void read(double[] dst, int offset, int length) {
+    while (length > 0) {
+      int n = Math.min(length, mBuffer.remaining() / 8);
+
+      if (n == 0) {
+        // The next value straddles a segment boundary
+        dst[offset++] = readDouble();
+        --length;
+        continue;
+      }
+
+      mBuffer.asDoubleBuffer().get(dst, offset, n);
+      mBuffer.position(mBuffer.position() + n * 8);
+
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Read longs into an array. Runs within a segment are copied in bulk.
+   *
+   * @param dst    the dst
+   * @param offset the offset
+   * @param length the length
+   */
+  public void read(long[] dst, int offset, int length) {
+    while (length > 0) {
+      int n = Math.min(length, mBuffer.remaining() / 8);
+
+      if (n == 0) {
+        dst[offset++] = readLong();
+        --length;
+        continue;
+      }
+
+      mBuffer.asLongBuffer().get(dst, offset, n);
+      mBuffer.position(mBuffer.position() + n * 8);
+
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Read ints into an array. Runs within a segment are copied in bulk.
+   *
+   * @param dst    the dst
+   * @param offset the offset
+   * @param length the length
+   */
+  public void read(int[] dst, int offset, int length) {
+    while (length > 0) {
+      int n = Math.min(length, mBuffer.remaining() / 4);
+
+      if (n == 0) {
+        dst[offset++] = readInt();
+        --length;
+        continue;
+      }
+
+      mBuffer.asIntBuffer().get(dst, offset, n);
+      mBuffer.position(mBuffer.position() + n * 4);
+
+      offset += n;
+      length -= n;
+    }
   }
 
   public MMapReader skipBytes(int skip) {
@@ -127,9 +288,7 @@ public class MMapReader {
   }
 
   public MMapReader skip(int skip) {
-    mBuffer.position(mBuffer.position() + skip);
-
-    return this;
+    return seek(tell() + skip);
   }
 
   public long getFilePointer() {
@@ -137,6 +296,27 @@ public class MMapReader {
   }
 
   public long tell() {
-    return mBuffer.position();
+    return mSegment * mSegmentSize + mBuffer.position();
+  }
+
+  /**
+   * Returns the number of bytes mapped.
+   *
+   * @return
+   */
+  public long size() {
+    return mSize;
+  }
+
+  /**
+   * Move to the start of the next segment.
+   */
+  private void nextSegment() {
+    if (mSegment == mSegments.length - 1) {
+      throw new BufferUnderflowException();
+    }
+
+    mBuffer = mSegments[++mSegment];
+    mBuffer.position(0);
   }
 }
@@ -0,0 +1,481 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * Reads a delimited text file using multiple threads. The file is divided into
+ * chunks aligned to line boundaries, each chunk is memory mapped and its lines
+ * decoded and tokenized on a fork join pool. Since each chunk is mapped
+ * separately, files larger than 2GB can be read.
+ *
+ * In ordered mode (the default) lines are parsed in parallel but the function
+ * is called in file order, one line at a time. In unordered mode the function
+ * is called directly from the worker threads as each chunk is processed so it
+ * must be thread safe.
+ *
+ * Empty lines are skipped. Gzipped files cannot be mapped so should be read
+ * with {@link Lines} or {@link Tokenize}.
+ */
+public class ParallelReader {
+
+  /** The default chunk size. */
+  public static final long DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  /** The size of the window used to search for line ends. */
+  private static final int SCAN_SIZE = 64 * 1024;
+
+  /** The m file. */
+  private final Path mFile;
+
+  /** The m skip. */
+  private boolean mSkip = false;
+
+  /** The m delim. */
+  private char mDelim = TextUtils.TAB_DELIMITER_CHAR;
+
+  /** The m ordered. */
+  private boolean mOrdered = true;
+
+  /** The m chunk size. */
+  private long mChunkSize = DEFAULT_CHUNK_SIZE;
+
+  /** The m pool. */
+  private ForkJoinPool mPool = ForkJoinPool.commonPool();
+
+  /**
+   * Instantiates a new parallel reader.
+   *
+   * @param file the file
+   */
+  public ParallelReader(Path file) {
+    mFile = file;
+  }
+
+  /**
+   * Instantiates a new parallel reader.
+   *
+   * @param r the r
+   */
+  private ParallelReader(ParallelReader r) {
+    mFile = r.mFile;
+    mSkip = r.mSkip;
+    mDelim = r.mDelim;
+    mOrdered = r.mOrdered;
+    mChunkSize = r.mChunkSize;
+    mPool = r.mPool;
+  }
+
+  /**
+   * Skip header.
+   *
+   * @param skip the skip
+   * @return the parallel reader
+   */
+  public ParallelReader skipHeader(boolean skip) {
+    ParallelReader ret = new ParallelReader(this);
+    ret.mSkip = skip;
+
+    return ret;
+  }
+
+  /**
+   * Sets the delimiter used by {@link #tokens(ConcurrentTokenFunction)}.
+   *
+   * @param d the d
+   * @return the parallel reader
+   */
+  public ParallelReader setDelimiter(char d) {
+    ParallelReader ret = new ParallelReader(this);
+    ret.mDelim = d;
+
+    return ret;
+  }
+
+  /**
+   * Set whether lines should be delivered in file order.
+   *
+   * @param ordered the ordered
+   * @return the parallel reader
+   */
+  public ParallelReader ordered(boolean ordered) {
+    ParallelReader ret = new ParallelReader(this);
+    ret.mOrdered = ordered;
+
+    return ret;
+  }
+
+  /**
+   * Set the approximate number of bytes processed by each task.
+   *
+   * @param size the size
+   * @return the parallel reader
+   */
+  public ParallelReader chunkSize(long size) {
+    if (size < 1 || size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Chunk size must be between 1 and " + Integer.MAX_VALUE);
+    }
+
+    ParallelReader ret = new ParallelReader(this);
+    ret.mChunkSize = size;
+
+    return ret;
+  }
+
+  /**
+   * Set the pool used to process chunks.
+   *
+   * @param pool the pool
+   * @return the parallel reader
+   */
+  public ParallelReader pool(ForkJoinPool pool) {
+    ParallelReader ret = new ParallelReader(this);
+    ret.mPool = pool;
+
+    return ret;
+  }
+
+  /**
+   * Process each line of the file.
+   *
+   * @param f the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void lines(final ConcurrentLineFunction f) throws IOException {
+    run(new ChunkParser<String>() {
+      @Override
+      public String parse(String line) {
+        return line;
+      }
+
+      @Override
+      public void apply(String line) {
+        f.parse(line);
+      }
+    });
+  }
+
+  /**
+   * Tokenize each line of the file and process the tokens.
+   *
+   * @param f the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void tokens(final ConcurrentTokenFunction f) throws IOException {
+    run(new ChunkParser<List<String>>() {
+      @Override
+      public List<String> parse(String line) {
+        return TextUtils.fastSplit(line, mDelim);
+      }
+
+      @Override
+      public void apply(List<String> tokens) {
+        f.parse(tokens);
+      }
+    });
+  }
+
+  /**
+   * Converts a line to the item passed to the user function.
+   *
+   * @param <T> the generic type
+   */
+  private interface ChunkParser<T> {
+
+    /**
+     * Parses the line. This is always run on a worker thread.
+     *
+     * @param line the line
+     * @return the t
+     */
+    T parse(String line);
+
+    /**
+     * Pass an item to the user function.
+     *
+     * @param item the item
+     */
+    void apply(T item);
+  }
+
+  /**
+   * Split the file into chunks and process them on the pool.
+   *
+   * @param <T>    the generic type
+   * @param parser the parser
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private <T> void run(final ChunkParser<T> parser) throws IOException {
+    final FileChannel channel = FileChannel.open(mFile, StandardOpenOption.READ);
+
+    try {
+      final long[] bounds = chunks(channel);
+
+      int n = bounds.length - 1;
+
+      if (mOrdered) {
+        // Keep a bounded number of chunks in flight so memory use does not
+        // grow with the file size.
+        int maxInFlight = 2 * mPool.getParallelism();
+
+        Deque<Future<List<T>>> window = new ArrayDeque<Future<List<T>>>(maxInFlight);
+
+        for (int i = 0; i < n; ++i) {
+          final int chunk = i;
+
+          window.add(mPool.submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+              final List<T> ret = new ArrayList<T>();
+
+              readChunk(channel, bounds[chunk], bounds[chunk + 1], chunk == 0 && mSkip, new LineFunction() {
+                @Override
+                public void parse(String line) {
+                  ret.add(parser.parse(line));
+                }
+              });
+
+              return ret;
+            }
+          }));
+
+          if (window.size() == maxInFlight) {
+            apply(parser, get(window.poll()));
+          }
+        }
+
+        while (!window.isEmpty()) {
+          apply(parser, get(window.poll()));
+        }
+      } else {
+        List<Future<Object>> tasks = new ArrayList<Future<Object>>(n);
+
+        for (int i = 0; i < n; ++i) {
+          final int chunk = i;
+
+          tasks.add(mPool.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+              readChunk(channel, bounds[chunk], bounds[chunk + 1], chunk == 0 && mSkip, new LineFunction() {
+                @Override
+                public void parse(String line) {
+                  parser.apply(parser.parse(line));
+                }
+              });
+
+              return null;
+            }
+          }));
+        }
+
+        for (Future<Object> task : tasks) {
+          get(task);
+        }
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Find the chunk boundaries. Each nominal boundary is moved forward to the
+   * start of the next line. The searches are run in parallel.
+   *
+   * @param channel the channel
+   * @return the chunk offsets. Chunk i spans [bounds[i], bounds[i + 1]).
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private long[] chunks(final FileChannel channel) throws IOException {
+    final long size = channel.size();
+
+    int n = (int) Math.max(1, (size + mChunkSize - 1) / mChunkSize);
+
+    long[] bounds = new long[n + 1];
+
+    bounds[n] = size;
+
+    List<Future<Long>> tasks = new ArrayList<Future<Long>>(n);
+
+    for (int i = 1; i < n; ++i) {
+      final long start = i * mChunkSize;
+
+      tasks.add(mPool.submit(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return nextLine(channel, start, size);
+        }
+      }));
+    }
+
+    for (int i = 1; i < n; ++i) {
+      bounds[i] = get(tasks.get(i - 1));
+    }
+
+    return bounds;
+  }
+
+  /**
+   * Apply the parser to a parsed chunk.
+   *
+   * @param <T>    the generic type
+   * @param parser the parser
+   * @param items  the items
+   */
+  private static <T> void apply(ChunkParser<T> parser, List<T> items) {
+    for (T item : items) {
+      parser.apply(item);
+    }
+  }
+
+  /**
+   * Returns the offset of the start of the line following the given position.
+   *
+   * @param channel the channel
+   * @param start   the start
+   * @param size    the size
+   * @return the long
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static long nextLine(FileChannel channel, long start, long size) throws IOException {
+    // The line starts at the boundary if the previous byte ends a line
+    long p = start - 1;
+
+    while (p < size) {
+      int l = (int) Math.min(SCAN_SIZE, size - p);
+
+      MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, p, l);
+
+      for (int i = 0; i < l; ++i) {
+        if (b.get(i) == '\n') {
+          return p + i + 1;
+        }
+      }
+
+      p += l;
+    }
+
+    return size;
+  }
+
+  /**
+   * Map a chunk and pass each non-empty line to a function.
+   *
+   * @param channel the channel
+   * @param start   the start
+   * @param end     the end
+   * @param skip    skip the first line
+   * @param f       the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static void readChunk(FileChannel channel, long start, long end, boolean skip, LineFunction f)
+      throws IOException {
+    if (end <= start) {
+      return;
+    }
+
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IOException("Line exceeds maximum length.");
+    }
+
+    int l = (int) (end - start);
+
+    // Scan the mapped chunk in place. Only the bytes of each line are copied
+    // out, into a buffer that is reused for the whole chunk.
+    MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, start, l);
+
+    byte[] buf = new byte[256];
+
+    int s = 0;
+
+    for (int i = 0; i <= l; ++i) {
+      if (i == l || b.get(i) == '\n') {
+        int e = i;
+
+        if (e > s && b.get(e - 1) == '\r') {
+          --e;
+        }
+
+        if (skip) {
+          skip = false;
+        } else if (e > s) {
+          int n = e - s;
+
+          if (n > buf.length) {
+            buf = new byte[Math.max(n, buf.length * 2)];
+          }
+
+          b.position(s);
+          b.get(buf, 0, n);
+
+          String line = new String(buf, 0, n, StandardCharsets.UTF_8);
+
+          if (!Io.isEmptyLine(line)) {
+            f.parse(line);
+          }
+        }
+
+        s = i + 1;
+      }
+    }
+  }
+
+  /**
+   * Wait for a task, converting its failure to an IOException where possible.
+   *
+   * @param <T>  the generic type
+   * @param task the task
+   * @return the t
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static <T> T get(Future<T> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IOException(cause);
+      }
+    }
+  }
+}
@@ -0,0 +1,706 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * Writes delimited text tables as UTF-8. Cells are encoded straight into a
+ * reusable byte buffer, with ints, longs and doubles formatted without
+ * creating strings, and the buffer is written to a channel in large blocks.
+ * Cells are separated by the delimiter automatically and
+ * {@link #newLine()} ends a row.
+ *
+ * Files ending in .gz are gzipped. Compression runs on a background thread so
+ * formatting the next block overlaps with compressing the last one.
+ *
+ * By default doubles are written exactly as {@link Double#toString(double)}
+ * would write them. Setting a precision writes a fixed number of decimal places
+ * instead, which is considerably faster.
+ *
+ * @author Antony Holmes
+ */
+public class TableWriter implements Closeable, Flushable {
+
+  /** The size of the blocks written to the channel. */
+  public static final int BLOCK_SIZE = 1 << 20;
+
+  /** The number of full blocks that can wait to be compressed. */
+  private static final int GZIP_QUEUE_SIZE = 4;
+
+  /** Largest value written by the fast fixed precision path. */
+  private static final double MAX_FIXED = 1e15;
+
+  /** Largest precision written by the fast fixed precision path. */
+  private static final int MAX_FIXED_PRECISION = 15;
+
+  /** Integral doubles smaller than this print as digits followed by .0. */
+  private static final double MAX_PLAIN = 1e7;
+
+  /** Powers of 10. */
+  private static final long[] POW10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+      1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+      1000000000000000L };
+
+  /**
+   * Destination of full blocks.
+   */
+  private interface Sink extends Closeable {
+
+    /**
+     * Write a block and return a buffer to fill next.
+     *
+     * @param buf the buf
+     * @param len the number of bytes used
+     * @return the buffer to fill next
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    byte[] write(byte[] buf, int len) throws IOException;
+  }
+
+  /**
+   * Writes blocks straight to a channel.
+   */
+  private static class ChannelSink implements Sink {
+
+    /** The m channel. */
+    private final WritableByteChannel mChannel;
+
+    /**
+     * Instantiates a new channel sink.
+     *
+     * @param channel the channel
+     */
+    public ChannelSink(WritableByteChannel channel) {
+      mChannel = channel;
+    }
+
+    @Override
+    public byte[] write(byte[] buf, int len) throws IOException {
+      ByteBuffer b = ByteBuffer.wrap(buf, 0, len);
+
+      while (b.hasRemaining()) {
+        mChannel.write(b);
+      }
+
+      return buf;
+    }
+
+    @Override
+    public void close() throws IOException {
+      mChannel.close();
+    }
+  }
+
+  /**
+   * A block waiting to be compressed.
+   */
+  private static class Block {
+
+    /** The m buf. */
+    private final byte[] mBuf;
+
+    /** The m len. */
+    private final int mLen;
+
+    /**
+     * Instantiates a new block.
+     *
+     * @param buf the buf
+     * @param len the len
+     */
+    public Block(byte[] buf, int len) {
+      mBuf = buf;
+      mLen = len;
+    }
+  }
+
+  /**
+   * Gzips blocks on a background thread. Blocks are handed to the thread and
+   * a free buffer is handed back, so the writer never waits unless the queue
+   * of blocks is full.
+   */
+  private static class GzipSink implements Sink, Runnable {
+
+    /** Marks the end of the blocks. */
+    private static final Block END = new Block(null, -1);
+
+    /** The m out. */
+    private final OutputStream mOut;
+
+    /** The full blocks. */
+    private final BlockingQueue<Block> mFull = new ArrayBlockingQueue<Block>(GZIP_QUEUE_SIZE);
+
+    /** Buffers that have been compressed and can be reused. */
+    private final BlockingQueue<byte[]> mFree = new ArrayBlockingQueue<byte[]>(GZIP_QUEUE_SIZE + 2);
+
+    /** The m thread. */
+    private final Thread mThread;
+
+    /** The first error raised by the compression thread. */
+    private volatile IOException mError = null;
+
+    /**
+     * Instantiates a new gzip sink.
+     *
+     * @param channel the channel
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public GzipSink(WritableByteChannel channel) throws IOException {
+      mOut = new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16);
+
+      mThread = new Thread(this, "table-writer-gzip");
+      mThread.setDaemon(true);
+      mThread.start();
+    }
+
+    @Override
+    public byte[] write(byte[] buf, int len) throws IOException {
+      checkError();
+
+      put(new Block(buf, len));
+
+      byte[] ret = mFree.poll();
+
+      if (ret == null) {
+        ret = new byte[buf.length];
+      }
+
+      return ret;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          Block b = mFull.take();
+
+          if (b == END) {
+            break;
+          }
+
+          // Keep draining after an error so the writer is not blocked
+          if (mError == null) {
+            try {
+              mOut.write(b.mBuf, 0, b.mLen);
+            } catch (IOException e) {
+              mError = e;
+            }
+          }
+
+          mFree.offer(b.mBuf);
+        }
+      } catch (InterruptedException e) {
+        mError = new InterruptedIOException();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        put(END);
+
+        mThread.join();
+      } catch (InterruptedIOException e) {
+        mThread.interrupt();
+
+        throw e;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+
+        throw new InterruptedIOException();
+      } finally {
+        mOut.close();
+      }
+
+      checkError();
+    }
+
+    /**
+     * Queue a block for compression.
+     *
+     * @param b the b
+     * @throws InterruptedIOException the interrupted IO exception
+     */
+    private void put(Block b) throws InterruptedIOException {
+      try {
+        mFull.put(b);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+
+        throw new InterruptedIOException();
+      }
+    }
+
+    /**
+     * Rethrow an error from the compression thread.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void checkError() throws IOException {
+      if (mError != null) {
+        throw new IOException("Failed to compress table", mError);
+      }
+    }
+  }
+
+  /** The m sink. */
+  private final Sink mSink;
+
+  /** The m delimiter. */
+  private final byte[] mDelimiter;
+
+  /** The m buffer. */
+  private byte[] mBuffer = new byte[BLOCK_SIZE];
+
+  /** The number of bytes used in the buffer. */
+  private int mPos = 0;
+
+  /** The number of cells written to the current row. */
+  private int mCells = 0;
+
+  /** The number of decimal places for doubles or -1 to use Double.toString. */
+  private int mPrecision = -1;
+
+  /**
+   * Instantiates a new tab delimited table writer for a file. The file is
+   * gzipped if its name ends in .gz.
+   *
+   * @param file the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter(Path file) throws IOException {
+    this(file, TextUtils.TAB_DELIMITER);
+  }
+
+  /**
+   * Instantiates a new table writer for a file. The file is gzipped if its name
+   * ends in .gz.
+   *
+   * @param file      the file
+   * @param delimiter the delimiter
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter(Path file, String delimiter) throws IOException {
+    this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING), delimiter, PathUtils.getFileExt(file).equals("gz"));
+  }
+
+  /**
+   * Instantiates a new table writer for a channel. Closing the writer closes
+   * the channel.
+   *
+   * @param channel   the channel
+   * @param delimiter the delimiter
+   * @param gzip      whether to gzip the output
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter(WritableByteChannel channel, String delimiter, boolean gzip) throws IOException {
+    mDelimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+
+    if (gzip) {
+      mSink = new GzipSink(channel);
+    } else {
+      mSink = new ChannelSink(channel);
+    }
+  }
+
+  /**
+   * Set the number of decimal places doubles are written with. Values are
+   * rounded as {@code String.format("%.nf")} rounds them, i.e. the decimal
+   * {@link Double#toString(double)} would write is rounded half up. A
+   * negative precision, the default, writes doubles as
+   * {@link Double#toString(double)} does.
+   *
+   * @param precision the precision
+   * @return the table writer
+   */
+  public TableWriter setPrecision(int precision) {
+    mPrecision = precision;
+
+    return this;
+  }
+
+  /**
+   * Write a cell.
+   *
+   * @param value the value
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(String value) throws IOException {
+    sep();
+
+    if (value != null) {
+      writeString(value);
+    }
+
+    return this;
+  }
+
+  /**
+   * Write a cell.
+   *
+   * @param value the value
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(int value) throws IOException {
+    sep();
+
+    writeLong(value);
+
+    return this;
+  }
+
+  /**
+   * Write a cell.
+   *
+   * @param value the value
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(long value) throws IOException {
+    sep();
+
+    writeLong(value);
+
+    return this;
+  }
+
+  /**
+   * Write a cell.
+   *
+   * @param value the value
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(double value) throws IOException {
+    sep();
+
+    writeDouble(value);
+
+    return this;
+  }
+
+  /**
+   * Write a cell. Integers, longs and doubles are formatted directly, other
+   * objects are written using their string representation and null is written
+   * as an empty cell.
+   *
+   * @param value the value
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(Object value) throws IOException {
+    if (value instanceof Double) {
+      return add(((Double) value).doubleValue());
+    } else if (value instanceof Integer) {
+      return add(((Integer) value).intValue());
+    } else if (value instanceof Long) {
+      return add(((Long) value).longValue());
+    } else {
+      return add(TextUtils.toString(value));
+    }
+  }
+
+  /**
+   * Write a cell for each value.
+   *
+   * @param values the values
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(double[] values) throws IOException {
+    for (double v : values) {
+      add(v);
+    }
+
+    return this;
+  }
+
+  /**
+   * Write a cell for each value.
+   *
+   * @param values the values
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter add(Collection<?> values) throws IOException {
+    for (Object v : values) {
+      add(v);
+    }
+
+    return this;
+  }
+
+  /**
+   * End the current row.
+   *
+   * @return the table writer
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public TableWriter newLine() throws IOException {
+    ensureCapacity(1);
+
+    mBuffer[mPos++] = '\n';
+
+    mCells = 0;
+
+    return this;
+  }
+
+  /**
+   * Write the buffered cells to the channel. When gzipping, the block is only
+   * queued for compression.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (mPos > 0) {
+      mBuffer = mSink.write(mBuffer, mPos);
+      mPos = 0;
+    }
+  }
+
+  /**
+   * Write any remaining cells and close the channel.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      mSink.close();
+    }
+  }
+
+  /**
+   * Write the delimiter if the cell is not the first in the row.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void sep() throws IOException {
+    if (mCells++ > 0) {
+      ensureCapacity(mDelimiter.length);
+
+      System.arraycopy(mDelimiter, 0, mBuffer, mPos, mDelimiter.length);
+
+      mPos += mDelimiter.length;
+    }
+  }
+
+  /**
+   * Write a string. ASCII strings are copied directly into the buffer.
+   *
+   * @param s the s
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeString(String s) throws IOException {
+    int n = s.length();
+
+    if (n <= mBuffer.length / 4) {
+      ensureCapacity(n);
+
+      int p = mPos;
+
+      for (int i = 0; i < n; ++i) {
+        char c = s.charAt(i);
+
+        if (c >= 0x80) {
+          p = -1;
+          break;
+        }
+
+        mBuffer[p++] = (byte) c;
+      }
+
+      if (p != -1) {
+        mPos = p;
+        return;
+      }
+    }
+
+    writeBytes(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Write bytes, flushing as many blocks as necessary.
+   *
+   * @param b the b
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeBytes(byte[] b) throws IOException {
+    int off = 0;
+
+    while (off < b.length) {
+      if (mPos == mBuffer.length) {
+        flush();
+      }
+
+      int n = Math.min(b.length - off, mBuffer.length - mPos);
+
+      System.arraycopy(b, off, mBuffer, mPos, n);
+
+      mPos += n;
+      off += n;
+    }
+  }
+
+  /**
+   * Write a long.
+   *
+   * @param v the v
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeLong(long v) throws IOException {
+    if (v == Long.MIN_VALUE) {
+      writeString(Long.toString(v));
+      return;
+    }
+
+    ensureCapacity(20);
+
+    if (v < 0) {
+      mBuffer[mPos++] = '-';
+      v = -v;
+    }
+
+    writeDigits(v, 0);
+  }
+
+  /**
+   * Write the digits of a positive long, padded with leading zeros to a
+   * minimum width. The buffer must have room for 19 digits.
+   *
+   * @param v     the v
+   * @param width the min number of digits
+   */
+  private void writeDigits(long v, int width) {
+    int n = 1;
+
+    for (long t = v / 10; t > 0; t /= 10) {
+      ++n;
+    }
+
+    n = Math.max(n, width);
+
+    int p = mPos + n;
+
+    mPos = p;
+
+    for (int i = 0; i < n; ++i) {
+      mBuffer[--p] = (byte) ('0' + (v % 10));
+      v /= 10;
+    }
+  }
+
+  /**
+   * Write a double.
+   *
+   * @param v the v
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeDouble(double v) throws IOException {
+    if (mPrecision < 0) {
+      // Integral values are common in result tables and Double.toString
+      // writes small ones as plain digits
+      if (v == (long) v && Math.abs(v) < MAX_PLAIN && (v != 0 || Double.doubleToRawLongBits(v) == 0)) {
+        ensureCapacity(12);
+
+        writeLong((long) v);
+
+        mBuffer[mPos++] = '.';
+        mBuffer[mPos++] = '0';
+      } else {
+        writeString(Double.toString(v));
+      }
+
+      return;
+    }
+
+    if (Double.isNaN(v) || Double.isInfinite(v)) {
+      writeString(Double.toString(v));
+      return;
+    }
+
+    double a = Math.abs(v);
+
+    ensureCapacity(40);
+
+    // Keep the sign of values that round to zero, as String.format does
+    if (Double.doubleToRawLongBits(v) < 0) {
+      mBuffer[mPos++] = '-';
+    }
+
+    double x = mPrecision <= MAX_FIXED_PRECISION ? a * POW10[mPrecision] : MAX_FIXED;
+
+    // String.format rounds the shortest decimal that represents the value
+    // (as Double.toString writes it) half up, so 1.005 is written as 1.01
+    // even though the double is slightly below 1.005. The scaled value is
+    // only trusted to pick the same digits when it is clearly not near a
+    // half.
+    if (x >= MAX_FIXED || Math.abs(x - Math.floor(x) - 0.5) <= 4 * Math.ulp(x)) {
+      writeString(BigDecimal.valueOf(a).setScale(mPrecision, RoundingMode.HALF_UP).toPlainString());
+      return;
+    }
+
+    long scale = POW10[mPrecision];
+    long m = Math.round(x);
+
+    writeDigits(m / scale, 0);
+
+    if (mPrecision > 0) {
+      mBuffer[mPos++] = '.';
+
+      writeDigits(m % scale, mPrecision);
+    }
+  }
+
+  /**
+   * Flush the buffer if it does not have room for n more bytes.
+   *
+   * @param n the n
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void ensureCapacity(int n) throws IOException {
+    if (mPos + n > mBuffer.length) {
+      flush();
+    }
+  }
+}
@@ -17,6 +17,7 @@ package org.jebtk.core.io;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 
 import org.jebtk.core.text.TextUtils;
@@ -118,6 +119,41 @@ public class Tokenize {
     lines.lines(reader);
   }
 
+  /**
+   * Split each non-empty line of a file and pass the fields to a function
+   * without allocating a list and strings for each line. The delimiter must be
+   * a single byte character.
+   *
+   * @param file the file
+   * @param f    the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void fields(Path file, FieldFunction f) throws IOException {
+    InputStream in = FileUtils.newInputStream(file);
+
+    try {
+      fields(in, f);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Split each non-empty line of a stream and pass the fields to a function
+   * without allocating a list and strings for each line.
+   *
+   * @param in the in
+   * @param f  the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void fields(InputStream in, FieldFunction f) throws IOException {
+    if (mDelim.length() != 1) {
+      throw new IllegalArgumentException("Delimiter must be a single character.");
+    }
+
+    Lines.fields(in, mDelim.charAt(0), mSkip, true, f);
+  }
+
   /**
    * Tokenize.
    *
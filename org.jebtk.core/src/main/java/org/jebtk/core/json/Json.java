@@ -712,7 +712,7 @@ public abstract class Json implements Iterable<Json>, PrettyJson {
    * @throws IOException Signals that an I/O exception has occurred.
    */
   public static Json fromJson(Path file) throws IOException {
-    return new JsonParser().parse(file);
+    return new JsonByteParser().parse(file);
   }
 
   /**
@@ -723,7 +723,7 @@ public abstract class Json implements Iterable<Json>, PrettyJson {
    * @throws IOException Signals that an I/O exception has occurred.
    */
   public static Json parse(InputStream is) throws IOException {
-    return new JsonParser().parse(is);
+    return new JsonByteParser().parse(is);
   }
 
   /**
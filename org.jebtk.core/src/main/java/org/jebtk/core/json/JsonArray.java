@@ -16,23 +16,30 @@
 package org.jebtk.core.json;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.jebtk.core.text.TextUtils;
 
 /**
- * The Class JsonArray.
+ * The Class JsonArray. Elements are stored in a plain array that grows as
+ * elements are added and can be trimmed once the array is complete.
  *
  * @author Antony Holmes
  */
 public class JsonArray extends JsonContainer {
 
+  /** The constant EMPTY. */
+  private static final Json[] EMPTY = new Json[0];
+
   /**
    * The member elements.
    */
-  private List<Json> mElements = new ArrayList<Json>();
+  private Json[] mElements = EMPTY;
+
+  /** The number of elements. */
+  private int mSize = 0;
 
   /*
    * (non-Javadoc)
@@ -52,7 +59,11 @@ public class JsonArray extends JsonContainer {
    */
   @Override
   public Json add(Json value) {
-    mElements.add(value);
+    if (mSize == mElements.length) {
+      mElements = Arrays.copyOf(mElements, Math.max(4, mSize * 2));
+    }
+
+    mElements[mSize++] = value;
 
     mJson = null;
 
@@ -78,11 +89,11 @@ public class JsonArray extends JsonContainer {
    */
   @Override
   public Json get(int index) {
-    if (index < 0 || index > mElements.size() - 1) {
+    if (index < 0 || index > mSize - 1) {
       return null;
     }
 
-    return mElements.get(index);
+    return mElements[index];
   }
 
   @Override
@@ -97,7 +108,19 @@ public class JsonArray extends JsonContainer {
    */
   @Override
   public int size() {
-    return mElements.size();
+    return mSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.json.JsonContainer#trimToSize()
+   */
+  @Override
+  public void trimToSize() {
+    if (mSize < mElements.length) {
+      mElements = Arrays.copyOf(mElements, mSize);
+    }
   }
 
   /*
@@ -115,8 +138,8 @@ public class JsonArray extends JsonContainer {
 
     buffer.append(JsonBuilder.JSON_ARRAY_START);
 
-    for (int i = 0; i < mElements.size(); ++i) {
-      Json v = mElements.get(i);
+    for (int i = 0; i < mSize; ++i) {
+      Json v = mElements[i];
 
       if (v == null) {
         buffer.append(TextUtils.NULL);
@@ -124,7 +147,7 @@ public class JsonArray extends JsonContainer {
         v.toJson(buffer);
       }
 
-      if (i < mElements.size() - 1) {
+      if (i < mSize - 1) {
         buffer.append(JsonBuilder.JSON_ARRAY_DELIMITER);
       }
     }
@@ -145,9 +168,9 @@ public class JsonArray extends JsonContainer {
     buffer.append(JsonBuilder.JSON_ARRAY_START);
     buffer.append(TextUtils.NEW_LINE);
 
-    int c = 0;
+    for (int i = 0; i < mSize; ++i) {
+      Json v = mElements[i];
 
-    for (Json v : mElements) {
       buffer.append(indentation2);
 
       if (v == null) {
@@ -156,13 +179,11 @@ public class JsonArray extends JsonContainer {
         v.prettyJson(buffer, level + 1);
       }
 
-      if (c < mElements.size() - 1) {
+      if (i < mSize - 1) {
         buffer.append(JsonBuilder.JSON_ARRAY_DELIMITER);
       }
 
       buffer.append(TextUtils.NEW_LINE);
-
-      c += 1;
     }
 
     buffer.append(indentation);
@@ -177,6 +198,22 @@ public class JsonArray extends JsonContainer {
    */
   @Override
   public Iterator<Json> iterator() {
-    return mElements.iterator();
+    return new Iterator<Json>() {
+      private int mI = 0;
+
+      @Override
+      public boolean hasNext() {
+        return mI < mSize;
+      }
+
+      @Override
+      public Json next() {
+        if (mI >= mSize) {
+          throw new NoSuchElementException();
+        }
+
+        return mElements[mI++];
+      }
+    };
   }
 }
\ No newline at end of file
@@ -0,0 +1,636 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jebtk.core.Mathematics;
+import org.jebtk.core.io.FileUtils;
+import org.jebtk.core.io.StreamUtils;
+import org.jebtk.core.text.NumberScanner;
+
+/**
+ * Parses UTF-8 encoded json held in a byte array. Unlike {@link JsonParser},
+ * which decodes and examines one character at a time, this parser scans
+ * whitespace and the unescaped runs of strings in bulk so that strings are
+ * decoded with a single copy. Numbers are parsed in place from the bytes into
+ * {@link JsonInteger}, {@link JsonLong} or {@link JsonDouble} values.
+ *
+ * Other values are typed in the same way as {@link JsonParser} so, for
+ * example, "true" and true both become booleans and html colors become
+ * {@link JsonColor} objects. Like {@link JsonParser}, the parser is lenient and
+ * does not reject malformed input. Unicode escapes that are not followed by
+ * four hex digits are kept as they are.
+ *
+ * Member names are shared between the objects of a document, so a document
+ * made of many records with the same keys stores each key once, and objects
+ * and arrays are trimmed to size as they are closed.
+ *
+ * A parser is not thread safe, but can be reused.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class JsonByteParser {
+
+  /** The initial depth of the element stack. */
+  private static final int DEFAULT_DEPTH = 32;
+
+  /** The m bytes. */
+  private byte[] mBytes;
+
+  /** The current offset. */
+  private int mPos;
+
+  /** The end offset. */
+  private int mEnd;
+
+  /** The open objects and arrays. */
+  private Json[] mStack = new Json[DEFAULT_DEPTH];
+
+  /** Whether each open element is an object. */
+  private boolean[] mObjects = new boolean[DEFAULT_DEPTH];
+
+  /** The depth. */
+  private int mDepth;
+
+  /** The name of the next member of the current object. */
+  private String mName;
+
+  /** The m root. */
+  private Json mRoot;
+
+  /** The member names seen in the current document. */
+  private final Map<String, String> mNames = new HashMap<String, String>();
+
+  /** Buffer for decoding strings containing escapes. */
+  private final StringBuilder mBuffer = JsonBuilder.createBuffer();
+
+  /**
+   * Parses a file. Gzipped files are decompressed.
+   *
+   * @param file the file
+   * @return the json
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public Json parse(Path file) throws IOException {
+    if (file.getFileName().toString().toLowerCase().endsWith("gz")) {
+      return parse(FileUtils.newBufferedInputStream(file));
+    } else {
+      return parse(Files.readAllBytes(file));
+    }
+  }
+
+  /**
+   * Parses a stream. The stream is read fully and closed.
+   *
+   * @param in the in
+   * @return the json
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public Json parse(InputStream in) throws IOException {
+    byte[] buf;
+
+    try {
+      buf = StreamUtils.toByteArray(in);
+    } finally {
+      in.close();
+    }
+
+    return parse(buf);
+  }
+
+  /**
+   * Parses the remaining bytes of a buffer. The position of the buffer is not
+   * changed. Buffers that are not backed by an array are copied first.
+   *
+   * @param buffer the buffer
+   * @return the json
+   */
+  public Json parse(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      int offset = buffer.arrayOffset();
+
+      return parse(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+    } else {
+      byte[] buf = new byte[buffer.remaining()];
+
+      buffer.duplicate().get(buf);
+
+      return parse(buf);
+    }
+  }
+
+  /**
+   * Parses a byte array.
+   *
+   * @param buf the buf
+   * @return the json
+   */
+  public Json parse(byte[] buf) {
+    return parse(buf, 0, buf.length);
+  }
+
+  /**
+   * Parses the bytes between start (inclusive) and end (exclusive).
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the json or null if there is no json.
+   */
+  public Json parse(byte[] buf, int start, int end) {
+    mBytes = buf;
+    mPos = start;
+    mEnd = end;
+    mDepth = 0;
+    mName = null;
+    mRoot = null;
+
+    try {
+      parse();
+
+      return mRoot;
+    } finally {
+      // Do not hold on to the input or the parsed tree
+      mBytes = null;
+      mRoot = null;
+      mNames.clear();
+      Arrays.fill(mStack, 0, mDepth, null);
+    }
+  }
+
+  /**
+   * Parses the current input.
+   */
+  private void parse() {
+    final byte[] buf = mBytes;
+
+    while (true) {
+      // Skip whitespace in bulk
+      while (mPos < mEnd && buf[mPos] <= ' ' && buf[mPos] >= 0) {
+        ++mPos;
+      }
+
+      if (mPos == mEnd) {
+        break;
+      }
+
+      byte b = buf[mPos];
+
+      switch (b) {
+      case JsonBuilder.JSON_OBJECT_START:
+        ++mPos;
+        push(new JsonObject(), true);
+        break;
+      case JsonBuilder.JSON_ARRAY_START:
+        ++mPos;
+        push(new JsonArray(), false);
+        break;
+      case JsonBuilder.JSON_OBJECT_END:
+      case JsonBuilder.JSON_ARRAY_END:
+        ++mPos;
+        pop();
+        break;
+      case ',':
+      case ':':
+        ++mPos;
+        break;
+      case '"':
+        ++mPos;
+
+        String s = readString();
+
+        if (isName()) {
+          mName = intern(s);
+        } else {
+          add(JsonParser.toJson(s));
+        }
+
+        break;
+      default:
+        int start = mPos;
+
+        while (mPos < mEnd && !isTokenEnd(buf[mPos])) {
+          ++mPos;
+        }
+
+        if (isName()) {
+          mName = intern(new String(buf, start, mPos - start, StandardCharsets.UTF_8));
+        } else {
+          add(toJson(buf, start, mPos));
+        }
+
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns true if the next string or token is the name of an object
+   * member.
+   *
+   * @return true, if is name
+   */
+  private boolean isName() {
+    return mDepth > 0 && mObjects[mDepth - 1] && mName == null;
+  }
+
+  /**
+   * Add a value to the current object or array.
+   *
+   * @param value the value
+   */
+  private void add(Json value) {
+    if (mDepth > 0) {
+      // Arrays ignore the name
+      mStack[mDepth - 1].add(mName, value);
+
+      mName = null;
+    } else if (mRoot == null) {
+      mRoot = value;
+    }
+  }
+
+  /**
+   * Add an object or array to the current element and make it the current
+   * element.
+   *
+   * @param json   the json
+   * @param object true if the element is an object
+   */
+  private void push(Json json, boolean object) {
+    add(json);
+
+    if (mDepth == mStack.length) {
+      mStack = Arrays.copyOf(mStack, mDepth * 2);
+      mObjects = Arrays.copyOf(mObjects, mDepth * 2);
+    }
+
+    mStack[mDepth] = json;
+    mObjects[mDepth] = object;
+
+    ++mDepth;
+  }
+
+  /**
+   * Close the current object or array.
+   */
+  private void pop() {
+    if (mDepth > 0) {
+      ((JsonContainer) mStack[--mDepth]).trimToSize();
+
+      mStack[mDepth] = null;
+    }
+
+    mName = null;
+  }
+
+  /**
+   * Returns the shared copy of a member name.
+   *
+   * @param name the name
+   * @return the string
+   */
+  private String intern(String name) {
+    String ret = mNames.get(name);
+
+    if (ret == null) {
+      mNames.put(name, name);
+
+      ret = name;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Read a string whose opening quote has been consumed. Runs of bytes
+   * without escapes are decoded in one go.
+   *
+   * @return the string
+   */
+  private String readString() {
+    final byte[] buf = mBytes;
+
+    int start = mPos;
+    int i = start;
+    boolean ascii = true;
+    boolean escaped = false;
+
+    // Find the closing quote
+    while (i < mEnd) {
+      byte b = buf[i];
+
+      if (b == '"') {
+        break;
+      } else if (b == '\\') {
+        escaped = true;
+        i += 2;
+      } else {
+        if (b < 0) {
+          ascii = false;
+        }
+
+        ++i;
+      }
+    }
+
+    i = Math.min(i, mEnd);
+
+    mPos = Math.min(i + 1, mEnd);
+
+    if (!escaped) {
+      // Plain ASCII can be copied without decoding
+      return new String(buf, start, i - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    } else {
+      return unescape(start, i, ascii);
+    }
+  }
+
+  /**
+   * Decode the four hex digits of a unicode escape.
+   *
+   * @param buf   the buf
+   * @param start the offset of the first digit
+   * @return the char code or -1 if the digits are not hex
+   */
+  private static int hex(byte[] buf, int start) {
+    int ret = 0;
+
+    for (int i = start; i < start + 4; ++i) {
+      int d = Character.digit(buf[i], 16);
+
+      if (d == -1) {
+        return -1;
+      }
+
+      ret = (ret << 4) | d;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Decode a string containing escape sequences.
+   *
+   * @param start the start
+   * @param end   the offset of the closing quote
+   * @param ascii true if the string only contains ASCII bytes
+   * @return the string
+   */
+  private String unescape(int start, int end, boolean ascii) {
+    final byte[] buf = mBytes;
+
+    mBuffer.setLength(0);
+
+    int s = start;
+    int i = start;
+
+    while (i < end) {
+      if (buf[i] != '\\') {
+        ++i;
+        continue;
+      }
+
+      append(s, i, ascii);
+
+      if (++i == end) {
+        s = i;
+        break;
+      }
+
+      byte b = buf[i++];
+
+      switch (b) {
+      case 'b':
+        mBuffer.append('\b');
+        break;
+      case 'f':
+        mBuffer.append('\f');
+        break;
+      case 'n':
+        mBuffer.append('\n');
+        break;
+      case 'r':
+        mBuffer.append('\r');
+        break;
+      case 't':
+        mBuffer.append('\t');
+        break;
+      case 'u':
+        int c = i + 4 <= end ? hex(buf, i) : -1;
+
+        if (c != -1) {
+          mBuffer.append((char) c);
+          i += 4;
+        } else {
+          // Malformed escapes are kept as they are
+          mBuffer.append("\\u");
+        }
+
+        break;
+      default:
+        // Quotes, slashes and anything else escaped are kept as is. The
+        // escaped character may be the start of a multibyte sequence.
+        --i;
+        s = i;
+
+        ++i;
+
+        while (i < end && (buf[i] & 0xC0) == 0x80) {
+          ++i;
+        }
+
+        append(s, i, ascii);
+
+        break;
+      }
+
+      s = i;
+    }
+
+    append(s, end, ascii);
+
+    return mBuffer.toString();
+  }
+
+  /**
+   * Append decoded bytes to the string buffer.
+   *
+   * @param start the start
+   * @param end   the end
+   * @param ascii true if the bytes are known to be ASCII
+   */
+  private void append(int start, int end, boolean ascii) {
+    if (end <= start) {
+      return;
+    }
+
+    if (ascii) {
+      for (int i = start; i < end; ++i) {
+        mBuffer.append((char) mBytes[i]);
+      }
+    } else {
+      mBuffer.append(new String(mBytes, start, end - start, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Returns true if a byte ends an unquoted token.
+   *
+   * @param b the b
+   * @return true, if is token end
+   */
+  private static boolean isTokenEnd(byte b) {
+    switch (b) {
+    case ',':
+    case ':':
+    case '"':
+    case JsonBuilder.JSON_OBJECT_START:
+    case JsonBuilder.JSON_OBJECT_END:
+    case JsonBuilder.JSON_ARRAY_START:
+    case JsonBuilder.JSON_ARRAY_END:
+      return true;
+    default:
+      return b <= ' ' && b >= 0;
+    }
+  }
+
+  /**
+   * Convert an unquoted token to json. Numbers are parsed directly from the
+   * bytes; other tokens use the same rules as {@link JsonParser}.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the json
+   */
+  private static Json toJson(byte[] buf, int start, int end) {
+    int i = start;
+
+    if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+      ++i;
+    }
+
+    int digitStart = i;
+
+    while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+      ++i;
+    }
+
+    int digits = i - digitStart;
+
+    if (digits > 0) {
+      if (i == end) {
+        // A plain integer
+        if (digits <= 18) {
+          long v = NumberScanner.parseLong(buf, start, end);
+
+          if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+            return new JsonInteger((int) v);
+          } else {
+            return new JsonLong(v);
+          }
+        } else {
+          return new JsonDouble(NumberScanner.parseDouble(buf, start, end));
+        }
+      }
+
+      if (isDecimal(buf, i, end)) {
+        double v = NumberScanner.parseDouble(buf, start, end);
+
+        // As with JsonParser, whole numbers such as 2.0 are integers
+        if (Mathematics.isInt(v) && v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+          return new JsonInteger((int) v);
+        } else {
+          return new JsonDouble(v);
+        }
+      }
+    } else {
+      switch (end - start) {
+      case 4:
+        if (buf[start] == 'n' && buf[start + 1] == 'u' && buf[start + 2] == 'l' && buf[start + 3] == 'l') {
+          return null;
+        } else if (buf[start] == 't' && buf[start + 1] == 'r' && buf[start + 2] == 'u' && buf[start + 3] == 'e') {
+          return new JsonBoolean(true);
+        }
+
+        break;
+      case 5:
+        if (buf[start] == 'f' && buf[start + 1] == 'a' && buf[start + 2] == 'l' && buf[start + 3] == 's'
+            && buf[start + 4] == 'e') {
+          return new JsonBoolean(false);
+        }
+
+        break;
+      default:
+        break;
+      }
+    }
+
+    return JsonParser.toJson(new String(buf, start, end - start, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns true if the bytes following the integer part of a number are a
+   * fraction and/or an exponent.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return true, if is decimal
+   */
+  private static boolean isDecimal(byte[] buf, int start, int end) {
+    int i = start;
+
+    if (buf[i] == '.') {
+      ++i;
+
+      while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+        ++i;
+      }
+    }
+
+    if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+      ++i;
+
+      if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+        ++i;
+      }
+
+      int s = i;
+
+      while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+        ++i;
+      }
+
+      if (i == s) {
+        return false;
+      }
+    }
+
+    return i == end && i > start;
+  }
+}
@@ -73,6 +73,14 @@ public abstract class JsonContainer extends Json {
     return this;
   }
 
+  /**
+   * Release any spare capacity once the container is complete. Called by the
+   * parsers when an object or array is closed.
+   */
+  public void trimToSize() {
+    // Do nothing
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -0,0 +1,29 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.json;
+
+/**
+ * Receives subtrees selected from a document by {@link JsonReader}.
+ */
+public interface JsonFunction {
+
+  /**
+   * Give a selected subtree to be processed.
+   *
+   * @param json the json (may be null if the selected value is null)
+   */
+  public void parse(final Json json);
+}
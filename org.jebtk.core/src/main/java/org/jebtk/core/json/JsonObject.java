@@ -16,33 +16,47 @@
 package org.jebtk.core.json;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 
-import org.jebtk.core.collections.IterHashMap;
-import org.jebtk.core.collections.IterMap;
-import org.jebtk.core.collections.UniqueArrayList;
 import org.jebtk.core.text.TextUtils;
 
 /**
- * Represents a json object containing key value pairs.
+ * Represents a json object containing key value pairs. Members are kept in
+ * insertion order in parallel key and value arrays. Small objects, which are
+ * the majority in most documents, are searched linearly; once an object has
+ * more than {@link #HASH_THRESHOLD} members an open addressed index of the
+ * keys is built so lookups stay constant time.
  * 
  * @author Antony Holmes
  *
  */
 public class JsonObject extends JsonContainer {
-  // Keep the members sorted alphabetically
 
-  /**
-   * The member member names.
-   */
-  private List<String> mMemberNames = new UniqueArrayList<String>();
+  /** Objects larger than this are indexed by a hash table. */
+  public static final int HASH_THRESHOLD = 8;
+
+  /** The constant EMPTY_KEYS. */
+  private static final String[] EMPTY_KEYS = new String[0];
+
+  /** The constant EMPTY_VALUES. */
+  private static final Json[] EMPTY_VALUES = new Json[0];
+
+  /** The member names in insertion order. */
+  private String[] mKeys = EMPTY_KEYS;
+
+  /** The member values. */
+  private Json[] mValues = EMPTY_VALUES;
+
+  /** The number of members. */
+  private int mSize = 0;
 
   /**
-   * The member member map.
+   * Hash table of member positions + 1, with 0 marking an empty slot. Null
+   * until the object is large enough to need it.
    */
-  private IterMap<String, Json> mMemberMap = new IterHashMap<String, Json>();
+  private int[] mIndex = null;
 
   /**
    * Instantiates a new json object.
@@ -67,7 +81,11 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public Json get(int i) {
-    return get(mMemberNames.get(i));
+    if (i < 0 || i >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + mSize);
+    }
+
+    return mValues[i];
   }
 
   /*
@@ -77,7 +95,9 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public Json get(String name) {
-    return mMemberMap.get(name);
+    int i = indexOf(name);
+
+    return i != -1 ? mValues[i] : null;
   }
 
   /*
@@ -102,9 +122,30 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public Json add(String name, Json value) {
-    mMemberNames.add(name);
+    int i = indexOf(name);
 
-    mMemberMap.put(name, value);
+    if (i != -1) {
+      // Existing members keep their position
+      mValues[i] = value;
+    } else {
+      if (mSize == mKeys.length) {
+        int capacity = Math.max(4, mSize * 2);
+
+        mKeys = Arrays.copyOf(mKeys, capacity);
+        mValues = Arrays.copyOf(mValues, capacity);
+      }
+
+      mKeys[mSize] = name;
+      mValues[mSize] = value;
+
+      ++mSize;
+
+      if (mIndex != null && mSize * 2 <= mIndex.length) {
+        index(mSize - 1);
+      } else if (mSize > HASH_THRESHOLD) {
+        rehash();
+      }
+    }
 
     mJson = null;
 
@@ -131,7 +172,7 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public boolean containsKey(String key) {
-    return mMemberMap.containsKey(key);
+    return indexOf(key) != -1;
   }
 
   /*
@@ -141,7 +182,7 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public Collection<String> getKeys() {
-    return Collections.unmodifiableList(mMemberNames);
+    return Collections.unmodifiableList(Arrays.asList(mKeys).subList(0, mSize));
   }
 
   /*
@@ -151,7 +192,108 @@ public class JsonObject extends JsonContainer {
    */
   @Override
   public int size() {
-    return mMemberMap.size();
+    return mSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.json.JsonContainer#trimToSize()
+   */
+  @Override
+  public void trimToSize() {
+    if (mSize < mKeys.length) {
+      mKeys = Arrays.copyOf(mKeys, mSize);
+      mValues = Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  /**
+   * Returns the position of a member or -1 if the object does not contain it.
+   *
+   * @param name the name
+   * @return the int
+   */
+  private int indexOf(String name) {
+    if (mIndex == null) {
+      for (int i = 0; i < mSize; ++i) {
+        if (equals(mKeys[i], name)) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+
+    int mask = mIndex.length - 1;
+
+    for (int h = hash(name) & mask; mIndex[h] != 0; h = (h + 1) & mask) {
+      int i = mIndex[h] - 1;
+
+      if (equals(mKeys[i], name)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Rebuild the hash index so that it is at most half full.
+   */
+  private void rehash() {
+    int capacity = Integer.highestOneBit(mSize) * 4;
+
+    mIndex = new int[capacity];
+
+    for (int i = 0; i < mSize; ++i) {
+      index(i);
+    }
+  }
+
+  /**
+   * Add a member position to the hash index.
+   *
+   * @param i the i
+   */
+  private void index(int i) {
+    int mask = mIndex.length - 1;
+
+    int h = hash(mKeys[i]) & mask;
+
+    while (mIndex[h] != 0) {
+      h = (h + 1) & mask;
+    }
+
+    mIndex[h] = i + 1;
+  }
+
+  /**
+   * Hash.
+   *
+   * @param name the name
+   * @return the int
+   */
+  private static int hash(String name) {
+    if (name == null) {
+      return 0;
+    }
+
+    int h = name.hashCode();
+
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Equals.
+   *
+   * @param n1 the n 1
+   * @param n2 the n 2
+   * @return true, if successful
+   */
+  private static boolean equals(String n1, String n2) {
+    // Keys shared by a parser are often the same instance
+    return n1 == n2 || (n1 != null && n1.equals(n2));
   }
 
   /*
@@ -163,12 +305,9 @@ public class JsonObject extends JsonContainer {
   public void toJson(Appendable buffer) throws IOException {
     buffer.append(JsonBuilder.JSON_OBJECT_START);
 
-    int c = 0;
-
-    Json v = null;
-
-    for (String name : mMemberNames) {
-      v = mMemberMap.get(name);
+    for (int i = 0; i < mSize; ++i) {
+      String name = mKeys[i];
+      Json v = mValues[i];
 
       buffer.append(TextUtils.quote(JsonString.escape(name))).append(JsonBuilder.JSON_VALUE_DELIMITER);
 
@@ -178,11 +317,9 @@ public class JsonObject extends JsonContainer {
         v.toJson(buffer);
       }
 
-      if (c < mMemberNames.size() - 1) {
+      if (i < mSize - 1) {
         buffer.append(JsonBuilder.JSON_ARRAY_DELIMITER);
       }
-
-      c += 1;
     }
 
     buffer.append(JsonBuilder.JSON_OBJECT_END);
@@ -208,12 +345,9 @@ public class JsonObject extends JsonContainer {
     buffer.append(JsonBuilder.JSON_OBJECT_START);
     buffer.append(TextUtils.NEW_LINE);
 
-    int c = 0;
-
-    Json v = null;
-
-    for (String name : mMemberNames) {
-      v = mMemberMap.get(name);
+    for (int i = 0; i < mSize; ++i) {
+      String name = mKeys[i];
+      Json v = mValues[i];
 
       buffer.append(indentation2);
       JsonBuilder.quote(JsonString.escape(name), buffer);
@@ -227,13 +361,11 @@ public class JsonObject extends JsonContainer {
         v.prettyJson(buffer, level + 1);
       }
 
-      if (c < mMemberNames.size() - 1) {
+      if (i < mSize - 1) {
         buffer.append(TextUtils.FORMATTED_COMMA_DELIMITER);
       }
 
       buffer.append(TextUtils.NEW_LINE);
-
-      c += 1;
     }
 
     buffer.append(indentation);
@@ -267,6 +399,6 @@ public class JsonObject extends JsonContainer {
 
   @Override
   public String toString() {
-    return mMemberNames.toString();
+    return getKeys().toString();
   }
 }
\ No newline at end of file
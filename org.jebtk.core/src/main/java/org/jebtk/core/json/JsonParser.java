@@ -484,43 +484,119 @@ public class JsonParser {
 
     // System.err.println("add " + mCurrentName + " " + mBuffer);
 
-    Json value = null;
+    Json value = toJson(mBuffer.toString());
 
-    String s = mBuffer.toString();
+    if (mCurrentName != null) {
+      // we are adding a field to an object
+      mElementStack.peek().add(mCurrentName.toString(), value);
+    } else {
+      // we are adding to an array
+      mElementStack.peek().add(value);
+    }
+  }
 
+  /**
+   * Convert the text of a value to the appropriate JSON type. Quoted and
+   * unquoted values are treated the same way so that, for example, "true" and
+   * true both become booleans.
+   *
+   * @param s the text of the value (without quotes)
+   * @return the json or null if the value is null.
+   */
+  static Json toJson(String s) {
     if (s.length() == 0) {
       // If the buffer is zero length, it means we have an zero
       // length string
-      value = new JsonString(TextUtils.EMPTY_STRING);
+      return new JsonString(TextUtils.EMPTY_STRING);
+    } else if (isPlainString(s)) {
+      return new JsonString(s);
     } else if (s.equals(TextUtils.NULL)) {
-      value = null;
+      return null;
     } else if (s.toLowerCase().equals(TextUtils.TRUE)) {
-      value = new JsonBoolean(true);
+      return new JsonBoolean(true);
     } else if (s.toLowerCase().equals(TextUtils.FALSE)) {
-      value = new JsonBoolean(false);
+      return new JsonBoolean(false);
     } else if (ColorUtils.isHtmlColor(s)) {
-      value = new JsonColor(ColorUtils.decodeHtmlColor(s));
+      return new JsonColor(ColorUtils.decodeHtmlColor(s));
     } else if (TextUtils.isNumber(s)) {
       double v = Double.parseDouble(s);
 
       if (Mathematics.isInt(v)) {
-        value = new JsonInteger((int) v);
+        return new JsonInteger((int) v);
       } else {
-        value = new JsonDouble(v);
+        return new JsonDouble(v);
       }
     } else {
-      value = new JsonString(s);
+      return new JsonString(s);
     }
+  }
 
-    if (mCurrentName != null) {
-      // we are adding a field to an object
-      mElementStack.peek().add(mCurrentName.toString(), value);
-    } else {
-      // we are adding to an array
-      mElementStack.peek().add(value);
+  /**
+   * Returns true if a value cannot be null, a boolean, a color or a number so
+   * that the more expensive tests in {@link #toJson(String)} can be skipped.
+   *
+   * @param s the s
+   * @return true, if is plain string
+   */
+  private static boolean isPlainString(String s) {
+    switch (s.charAt(0)) {
+    case '0':
+    case '1':
+    case '2':
+    case '3':
+    case '4':
+    case '5':
+    case '6':
+    case '7':
+    case '8':
+    case '9':
+    case '+':
+    case '-':
+    case 'N':
+    case 'I':
+    case 'n':
+    case 't':
+    case 'T':
+    case 'f':
+    case 'F':
+      return false;
+    default:
+      // Colors can appear anywhere in the text
+      return s.indexOf('#') == -1;
+    }
+  }
+
+  /**
+   * Parse a file in streaming mode, passing only the subtrees matching a path
+   * to a function. Memory use depends on the size of the selected subtrees
+   * rather than the whole document.
+   *
+   * @param file the file
+   * @param path the path pattern (see {@link JsonReader#select(String, JsonFunction)})
+   * @param f    the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void select(Path file, String path, JsonFunction f) throws IOException {
+    JsonReader reader = reader(file);
+
+    try {
+      reader.select(path, f);
+    } finally {
+      reader.close();
     }
   }
 
+  /**
+   * Create a streaming reader for a file.
+   *
+   * @param file the file
+   * @return the json reader
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static JsonReader reader(Path file) throws IOException {
+    return new JsonReader(FileUtils.newBufferedInputStream(file));
+  }
+
   /**
    * Json.
    *
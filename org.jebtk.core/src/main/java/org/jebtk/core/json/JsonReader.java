@@ -0,0 +1,665 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.jebtk.core.text.Splitter;
+
+/**
+ * Streaming pull parser for JSON. Rather than building a {@link Json} tree,
+ * each call to {@link #next()} reads the next token (start or end of an object
+ * or array, a member name or a value) so a document of any size can be
+ * processed in constant memory. Individual subtrees can be materialized with
+ * {@link #readJson()} or skipped with {@link #skip()}, and
+ * {@link #select(String, JsonFunction)} materializes only the subtrees matching
+ * a path.
+ *
+ * Values are converted to Json using the same rules as {@link JsonParser}.
+ */
+public class JsonReader {
+
+  /**
+   * The tokens reported by the reader.
+   */
+  public enum Token {
+    START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, NAME, VALUE, END_DOCUMENT
+  }
+
+  /** Wildcard path element. */
+  public static final String WILDCARD = "*";
+
+  /** The Constant BUFFER_SIZE. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** The Constant DEFAULT_DEPTH. */
+  private static final int DEFAULT_DEPTH = 32;
+
+  /** The m reader. */
+  private final Reader mReader;
+
+  /** The m buffer. */
+  private final char[] mBuffer = new char[BUFFER_SIZE];
+
+  /** The m pos. */
+  private int mPos = 0;
+
+  /** The m limit. */
+  private int mLimit = 0;
+
+  /** Accumulates the text of names and values. */
+  private final StringBuilder mText = new StringBuilder();
+
+  /** The current token. */
+  private Token mToken = null;
+
+  /** Whether the current value was quoted. */
+  private boolean mQuoted = false;
+
+  /** The number of open containers. */
+  private int mDepth = 0;
+
+  /** For each open container, whether it is an array. */
+  private boolean[] mArrays = new boolean[DEFAULT_DEPTH];
+
+  /**
+   * For each open container, the name of the current member (objects) or null.
+   */
+  private String[] mNames = new String[DEFAULT_DEPTH];
+
+  /**
+   * For each open container, the index of the current element (arrays) or -1.
+   */
+  private int[] mIndices = new int[DEFAULT_DEPTH];
+
+  /**
+   * Instantiates a new json reader over a UTF-8 encoded stream.
+   *
+   * @param in the in
+   */
+  public JsonReader(InputStream in) {
+    this(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Instantiates a new json reader.
+   *
+   * @param reader the reader
+   */
+  public JsonReader(Reader reader) {
+    mReader = reader;
+  }
+
+  /**
+   * Close the underlying reader.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void close() throws IOException {
+    mReader.close();
+  }
+
+  /**
+   * Read the next token.
+   *
+   * @return the token
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public Token next() throws IOException {
+    int c;
+
+    while (true) {
+      c = read();
+
+      switch (c) {
+      case -1:
+        mToken = Token.END_DOCUMENT;
+        return mToken;
+      case '{':
+        advance();
+        push(false);
+        mToken = Token.START_OBJECT;
+        return mToken;
+      case '[':
+        advance();
+        push(true);
+        mToken = Token.START_ARRAY;
+        return mToken;
+      case '}':
+        pop();
+        mToken = Token.END_OBJECT;
+        return mToken;
+      case ']':
+        pop();
+        mToken = Token.END_ARRAY;
+        return mToken;
+      case ',':
+      case ':':
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+      case '\b':
+      case '\f':
+        break;
+      case '"':
+        readString();
+        return nameOrValue(true);
+      default:
+        readBare(c);
+        return nameOrValue(false);
+      }
+    }
+  }
+
+  /**
+   * Decide whether a string just read is a member name or a value.
+   *
+   * @param quoted the quoted
+   * @return the token
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private Token nameOrValue(boolean quoted) throws IOException {
+    mQuoted = quoted;
+
+    if (mDepth > 0 && !mArrays[mDepth - 1] && isNameNext()) {
+      mNames[mDepth - 1] = mText.toString();
+      mToken = Token.NAME;
+    } else {
+      advance();
+      mToken = Token.VALUE;
+    }
+
+    return mToken;
+  }
+
+  /**
+   * Returns true if the next non-whitespace char is a colon, i.e. the text just
+   * read was a member name.
+   *
+   * @return true, if is name next
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private boolean isNameNext() throws IOException {
+    int c;
+
+    while ((c = peek()) != -1) {
+      if (c == ':') {
+        return true;
+      } else if (c > ' ') {
+        return false;
+      }
+
+      ++mPos;
+    }
+
+    return false;
+  }
+
+  /**
+   * Update the current index when a new element starts in an array.
+   */
+  private void advance() {
+    if (mDepth > 0 && mArrays[mDepth - 1]) {
+      ++mIndices[mDepth - 1];
+    }
+  }
+
+  /**
+   * Open a container.
+   *
+   * @param array the array
+   */
+  private void push(boolean array) {
+    if (mDepth == mArrays.length) {
+      mArrays = Arrays.copyOf(mArrays, mDepth * 2);
+      mNames = Arrays.copyOf(mNames, mDepth * 2);
+      mIndices = Arrays.copyOf(mIndices, mDepth * 2);
+    }
+
+    mArrays[mDepth] = array;
+    mNames[mDepth] = null;
+    mIndices[mDepth] = -1;
+
+    ++mDepth;
+  }
+
+  /**
+   * Close a container.
+   */
+  private void pop() {
+    if (mDepth > 0) {
+      --mDepth;
+    }
+  }
+
+  /**
+   * Read a quoted string into the text buffer, decoding escapes.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void readString() throws IOException {
+    mText.setLength(0);
+
+    int c;
+
+    while (true) {
+      // Copy runs of plain chars in one go
+      int s = mPos;
+
+      while (mPos < mLimit) {
+        c = mBuffer[mPos];
+
+        if (c == '"' || c == '\\') {
+          break;
+        }
+
+        ++mPos;
+      }
+
+      mText.append(mBuffer, s, mPos - s);
+
+      c = read();
+
+      switch (c) {
+      case -1:
+      case '"':
+        return;
+      case '\\':
+        readEscape();
+        break;
+      default:
+        // buffer exhausted, refill on next pass
+        mText.append((char) c);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Decode an escape sequence.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void readEscape() throws IOException {
+    int c = read();
+
+    switch (c) {
+    case 'b':
+      mText.append('\b');
+      break;
+    case 'f':
+      mText.append('\f');
+      break;
+    case 'n':
+      mText.append('\n');
+      break;
+    case 'r':
+      mText.append('\r');
+      break;
+    case 't':
+      mText.append('\t');
+      break;
+    case 'u':
+      int v = 0;
+
+      for (int i = 0; i < 4; ++i) {
+        v = (v << 4) | Character.digit(read(), 16);
+      }
+
+      mText.append((char) v);
+      break;
+    case -1:
+      break;
+    default:
+      // \" \\ \/ and any other char are taken literally
+      mText.append((char) c);
+      break;
+    }
+  }
+
+  /**
+   * Read an unquoted token such as a number, true, false or null.
+   *
+   * @param first the first char of the token
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void readBare(int first) throws IOException {
+    mText.setLength(0);
+    mText.append((char) first);
+
+    int c;
+
+    while ((c = peek()) != -1) {
+      if (c == ',' || c == ':' || c == '}' || c == ']' || c <= ' ') {
+        break;
+      }
+
+      mText.append((char) c);
+      ++mPos;
+    }
+  }
+
+  /**
+   * Read the next char.
+   *
+   * @return the char or -1 at the end of the stream.
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private int read() throws IOException {
+    if (mPos == mLimit && !fill()) {
+      return -1;
+    }
+
+    return mBuffer[mPos++];
+  }
+
+  /**
+   * Look at the next char without consuming it.
+   *
+   * @return the char or -1 at the end of the stream.
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private int peek() throws IOException {
+    if (mPos == mLimit && !fill()) {
+      return -1;
+    }
+
+    return mBuffer[mPos];
+  }
+
+  /**
+   * Refill the buffer.
+   *
+   * @return true if more chars were read.
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private boolean fill() throws IOException {
+    int n = mReader.read(mBuffer, 0, mBuffer.length);
+
+    mPos = 0;
+    mLimit = Math.max(0, n);
+
+    return n > 0;
+  }
+
+  /**
+   * Returns the current token.
+   *
+   * @return the token
+   */
+  public Token getToken() {
+    return mToken;
+  }
+
+  /**
+   * Returns the text of the current name or value.
+   *
+   * @return the text
+   */
+  public String getText() {
+    return mText.toString();
+  }
+
+  /**
+   * Returns true if the current value was a quoted string.
+   *
+   * @return true, if is quoted
+   */
+  public boolean isQuoted() {
+    return mQuoted;
+  }
+
+  /**
+   * Returns the member name of the current token if it is inside an object.
+   *
+   * @return the name or null.
+   */
+  public String getName() {
+    int n = pathDepth();
+
+    return n > 0 && !mArrays[n - 1] ? mNames[n - 1] : null;
+  }
+
+  /**
+   * Returns the number of containers enclosing the current position. For start
+   * tokens this includes the container just opened.
+   *
+   * @return the depth
+   */
+  public int getDepth() {
+    return mDepth;
+  }
+
+  /**
+   * Returns the path of the current token, with elements separated by '/',
+   * object members identified by name and array elements by index, e.g.
+   * features/3/name.
+   *
+   * @return the path
+   */
+  public String getPath() {
+    StringBuilder buffer = new StringBuilder();
+
+    int n = pathDepth();
+
+    for (int i = 0; i < n; ++i) {
+      if (i > 0) {
+        buffer.append('/');
+      }
+
+      if (mArrays[i]) {
+        buffer.append(mIndices[i]);
+      } else {
+        buffer.append(mNames[i]);
+      }
+    }
+
+    return buffer.toString();
+  }
+
+  /**
+   * The number of containers that contribute to the path of the current token.
+   * A start token opens a container that is not yet part of its own path.
+   *
+   * @return the int
+   */
+  private int pathDepth() {
+    if (mToken == Token.START_OBJECT || mToken == Token.START_ARRAY) {
+      return mDepth - 1;
+    } else {
+      return mDepth;
+    }
+  }
+
+  /**
+   * Convert the current value to Json.
+   *
+   * @return the json or null if the value is null.
+   */
+  public Json getValue() {
+    return JsonParser.toJson(mText.toString());
+  }
+
+  /**
+   * Materialize the structure starting at the current token. If the current
+   * token is the start of an object or array, the whole object or array is read
+   * and the reader is left on its end token. If the current token is a value,
+   * the value is returned.
+   *
+   * @return the json
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public Json readJson() throws IOException {
+    switch (mToken) {
+    case VALUE:
+      return getValue();
+    case START_OBJECT:
+    case START_ARRAY:
+      break;
+    default:
+      throw new IllegalStateException("Not at a value: " + mToken);
+    }
+
+    Json root = mToken == Token.START_OBJECT ? new JsonObject() : new JsonArray();
+
+    Json[] stack = new Json[DEFAULT_DEPTH];
+
+    int top = 0;
+
+    stack[0] = root;
+
+    int depth = mDepth;
+
+    Json json;
+
+    while (mDepth >= depth) {
+      switch (next()) {
+      case START_OBJECT:
+      case START_ARRAY:
+        json = mToken == Token.START_OBJECT ? new JsonObject() : new JsonArray();
+
+        add(stack[top], json);
+
+        if (++top == stack.length) {
+          stack = Arrays.copyOf(stack, top * 2);
+        }
+
+        stack[top] = json;
+
+        break;
+      case END_OBJECT:
+      case END_ARRAY:
+        --top;
+        break;
+      case VALUE:
+        add(stack[top], getValue());
+        break;
+      case END_DOCUMENT:
+        return root;
+      default:
+        // Names are picked up from the path
+        break;
+      }
+    }
+
+    return root;
+  }
+
+  /**
+   * Add a value to the container that the current token belongs to.
+   *
+   * @param parent the parent
+   * @param value  the value
+   */
+  private void add(Json parent, Json value) {
+    if (parent instanceof JsonObject) {
+      parent.add(mNames[pathDepth() - 1], value);
+    } else {
+      parent.add(value);
+    }
+  }
+
+  /**
+   * Skip over the structure starting at the current token without creating any
+   * objects.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void skip() throws IOException {
+    if (mToken != Token.START_OBJECT && mToken != Token.START_ARRAY) {
+      return;
+    }
+
+    int depth = mDepth;
+
+    while (mDepth >= depth && next() != Token.END_DOCUMENT) {
+      // Do nothing
+    }
+  }
+
+  /**
+   * Read the rest of the document and pass each subtree whose path matches a
+   * pattern to a function. Patterns use the same format as {@link #getPath()}
+   * and an element of * matches any member name or array index, so replacing
+   * the index in features/0/properties with * selects the properties of every
+   * feature. Only matching subtrees are materialized; everything else is read
+   * in constant memory.
+   *
+   * @param pattern the pattern
+   * @param f       the f
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void select(String pattern, JsonFunction f) throws IOException {
+    String[] elements = pattern.length() > 0
+        ? Splitter.on('/').text(pattern).toArray(new String[0])
+        : new String[0];
+
+    Token token;
+
+    while ((token = next()) != Token.END_DOCUMENT) {
+      switch (token) {
+      case START_OBJECT:
+      case START_ARRAY:
+      case VALUE:
+        if (matches(elements)) {
+          f.parse(readJson());
+        }
+
+        break;
+      default:
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns true if the current path matches a pattern.
+   *
+   * @param elements the elements
+   * @return true, if successful
+   */
+  private boolean matches(String[] elements) {
+    int n = pathDepth();
+
+    if (n != elements.length) {
+      return false;
+    }
+
+    for (int i = 0; i < n; ++i) {
+      if (elements[i].equals(WILDCARD)) {
+        continue;
+      }
+
+      if (mArrays[i]) {
+        if (!elements[i].equals(Integer.toString(mIndices[i]))) {
+          return false;
+        }
+      } else {
+        if (!elements[i].equals(mNames[i])) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+}
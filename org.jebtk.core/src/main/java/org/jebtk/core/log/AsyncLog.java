@@ -0,0 +1,420 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jebtk.core.collections.ConcurrentRingBuffer;
+
+/**
+ * Log listener that hands events to a background thread rather than writing
+ * them on the calling thread. Events are placed in a lock free ring buffer
+ * and the background thread removes them in batches, passing each batch to
+ * its sinks so that a sink makes one write per batch rather than one per
+ * event. What happens when the buffer is full is controlled by a
+ * {@link FullBufferPolicy}.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class AsyncLog implements LogEventListener {
+
+  /** The Constant DEFAULT_CAPACITY. */
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  /** The Constant DEFAULT_BATCH_SIZE. */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  /** The Constant DEFAULT_SAMPLE_RATE. */
+  public static final int DEFAULT_SAMPLE_RATE = 100;
+
+  /** How long producers wait between attempts to add to a full buffer. */
+  private static final long FULL_WAIT_NS = 100000;
+
+  /** The m buffer. */
+  private final ConcurrentRingBuffer<LogEvent> mBuffer;
+
+  /** The m sinks. */
+  private final List<LogSink> mSinks = new CopyOnWriteArrayList<LogSink>();
+
+  /** Where failures of the other sinks are reported. */
+  private volatile LogSink mFallback = StreamLogSink.stdErr();
+
+  /** The m policy. */
+  private volatile FullBufferPolicy mPolicy = FullBufferPolicy.BLOCK;
+
+  /** The m sample rate. */
+  private volatile int mSampleRate = DEFAULT_SAMPLE_RATE;
+
+  /** The m batch size. */
+  private volatile int mBatchSize = DEFAULT_BATCH_SIZE;
+
+  /** How long the consumer sleeps when there are no events. */
+  private volatile long mFlushInterval = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /** The number of events added to the buffer. */
+  private final AtomicLong mPublished = new AtomicLong(0);
+
+  /** The number of events written to the sinks. */
+  private volatile long mWritten = 0;
+
+  /** The m dropped. */
+  private final AtomicLong mDropped = new AtomicLong(0);
+
+  /** Counts events rejected by a full buffer for sampling. */
+  private final AtomicLong mRejected = new AtomicLong(0);
+
+  /** The m batches. */
+  private volatile long mBatches = 0;
+
+  /** Whether the consumer is parked waiting for events. */
+  private volatile boolean mSleeping = false;
+
+  /** The m running. */
+  private volatile boolean mRunning = true;
+
+  /** The m consumer. */
+  private final Thread mConsumer;
+
+  /**
+   * Instantiates a new async log.
+   *
+   * @param sinks the sinks
+   */
+  public AsyncLog(LogSink... sinks) {
+    this(DEFAULT_CAPACITY, sinks);
+  }
+
+  /**
+   * Instantiates a new async log.
+   *
+   * @param capacity the maximum number of events waiting to be written
+   * @param sinks    the sinks
+   */
+  public AsyncLog(int capacity, LogSink... sinks) {
+    mBuffer = new ConcurrentRingBuffer<LogEvent>(capacity);
+
+    for (LogSink sink : sinks) {
+      mSinks.add(sink);
+    }
+
+    mConsumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        consume();
+      }
+    }, "async-log");
+
+    mConsumer.setDaemon(true);
+    mConsumer.start();
+  }
+
+  /**
+   * Adds a sink.
+   *
+   * @param sink the sink
+   * @return the async log
+   */
+  public AsyncLog addSink(LogSink sink) {
+    mSinks.add(sink);
+
+    return this;
+  }
+
+  /**
+   * Sets the sink that failures of the other sinks are reported to. Defaults
+   * to stderr. The fallback is not closed with the log.
+   *
+   * @param sink the sink. If null, failures are ignored.
+   * @return the async log
+   */
+  public AsyncLog setFallbackSink(LogSink sink) {
+    mFallback = sink;
+
+    return this;
+  }
+
+  /**
+   * Sets what happens to new events when the buffer is full.
+   *
+   * @param policy the policy
+   * @return the async log
+   */
+  public AsyncLog setPolicy(FullBufferPolicy policy) {
+    mPolicy = policy;
+
+    return this;
+  }
+
+  /**
+   * Sets how many events are dropped for each event kept when the buffer is
+   * full and the policy is {@link FullBufferPolicy#SAMPLE}.
+   *
+   * @param sampleRate the sample rate
+   * @return the async log
+   */
+  public AsyncLog setSampleRate(int sampleRate) {
+    mSampleRate = Math.max(1, sampleRate);
+
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of events passed to the sinks at once.
+   *
+   * @param batchSize the batch size
+   * @return the async log
+   */
+  public AsyncLog setBatchSize(int batchSize) {
+    mBatchSize = Math.max(1, batchSize);
+
+    return this;
+  }
+
+  /**
+   * Sets the longest time an event waits before being written when the log is
+   * quiet.
+   *
+   * @param time the time
+   * @param unit the unit
+   * @return the async log
+   */
+  public AsyncLog setFlushInterval(long time, TimeUnit unit) {
+    mFlushInterval = Math.max(1, unit.toNanos(time));
+
+    return this;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.log.LogEventListener#logEvent(org.jebtk.core.log.
+   * LogEvent)
+   */
+  @Override
+  public void logEvent(LogEvent e) {
+    if (!mRunning) {
+      mDropped.incrementAndGet();
+      return;
+    }
+
+    if (!mBuffer.offer(e)) {
+      switch (mPolicy) {
+      case DROP:
+        mDropped.incrementAndGet();
+        return;
+      case SAMPLE:
+        if (mRejected.incrementAndGet() % mSampleRate != 0) {
+          mDropped.incrementAndGet();
+          return;
+        }
+
+        waitToOffer(e);
+        break;
+      default:
+        waitToOffer(e);
+        break;
+      }
+    }
+
+    mPublished.incrementAndGet();
+
+    if (mSleeping) {
+      mSleeping = false;
+      LockSupport.unpark(mConsumer);
+    }
+  }
+
+  /**
+   * Wait until there is space in the buffer for an event.
+   *
+   * @param e the e
+   */
+  private void waitToOffer(LogEvent e) {
+    do {
+      LockSupport.unpark(mConsumer);
+      LockSupport.parkNanos(FULL_WAIT_NS);
+    } while (!mBuffer.offer(e));
+  }
+
+  /**
+   * Wait until all events logged before this call have been written.
+   */
+  public void flush() {
+    long target = mPublished.get();
+
+    while (mWritten < target && mConsumer.isAlive()) {
+      LockSupport.unpark(mConsumer);
+      LockSupport.parkNanos(FULL_WAIT_NS);
+    }
+  }
+
+  /**
+   * Write any waiting events, stop the background thread and close the sinks.
+   * Events logged after closing are dropped.
+   */
+  public void close() {
+    mRunning = false;
+
+    LockSupport.unpark(mConsumer);
+
+    try {
+      mConsumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the number of events discarded because the buffer was full or
+   * the log was closed.
+   *
+   * @return the dropped
+   */
+  public long getDropped() {
+    return mDropped.get();
+  }
+
+  /**
+   * Returns the number of events waiting to be written.
+   *
+   * @return the depth
+   */
+  public int getDepth() {
+    return mBuffer.size();
+  }
+
+  /**
+   * Gets the number of events written.
+   *
+   * @return the written
+   */
+  public long getWritten() {
+    return mWritten;
+  }
+
+  /**
+   * Gets the number of batches written.
+   *
+   * @return the batches
+   */
+  public long getBatches() {
+    return mBatches;
+  }
+
+  /**
+   * Gets the capacity.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return mBuffer.capacity();
+  }
+
+  /**
+   * Background loop that writes batches of events until the log is closed.
+   */
+  private void consume() {
+    List<LogEvent> batch = new ArrayList<LogEvent>(mBatchSize);
+
+    try {
+      while (true) {
+        batch.clear();
+
+        mBuffer.drainTo(batch, mBatchSize);
+
+        if (batch.size() > 0) {
+          write(batch);
+          continue;
+        }
+
+        if (!mRunning) {
+          // Pick up events added while we were stopping
+          if (mBuffer.isEmpty()) {
+            break;
+          }
+
+          continue;
+        }
+
+        mSleeping = true;
+
+        // Check again in case an event arrived before the flag was seen
+        if (mBuffer.isEmpty()) {
+          LockSupport.parkNanos(this, mFlushInterval);
+        }
+
+        mSleeping = false;
+      }
+    } finally {
+      // Release the sinks' files even if the thread dies
+      for (LogSink sink : mSinks) {
+        try {
+          sink.close();
+        } catch (Exception e) {
+          failed(sink, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Pass a batch to each sink.
+   *
+   * @param batch the batch
+   */
+  private void write(List<LogEvent> batch) {
+    for (LogSink sink : mSinks) {
+      try {
+        sink.write(batch);
+      } catch (Exception e) {
+        // A failing sink should not stop the others or kill the thread
+        failed(sink, e);
+      }
+    }
+
+    mWritten += batch.size();
+    ++mBatches;
+  }
+
+  /**
+   * Report a sink failure to the fallback sink.
+   *
+   * @param sink the sink that failed
+   * @param e    the e
+   */
+  private void failed(LogSink sink, Exception e) {
+    LogSink fallback = mFallback;
+
+    if (fallback == null || fallback == sink) {
+      return;
+    }
+
+    try {
+      fallback.write(Collections.singletonList(
+          new LogEvent(this, sink.getClass().getSimpleName() + " failed: " + e, LogEventType.ERROR)));
+    } catch (Exception ex) {
+      // Nowhere left to report the failure
+    }
+  }
+}
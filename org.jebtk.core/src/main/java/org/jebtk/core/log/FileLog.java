@@ -15,25 +15,31 @@
  */
 package org.jebtk.core.log;
 
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 
-import org.apache.log4j.ConsoleAppender;
-import org.apache.log4j.Logger;
 import org.jebtk.core.io.PathUtils;
-import org.jebtk.core.text.TextUtils;
 
 /**
- * The class FileLog.
+ * The class FileLog. Writes each event to the file as it is logged; use an
+ * {@link AsyncLog} with a {@link FileLogSink} to write from a background
+ * thread instead. The file is kept open until the log is closed.
  */
-public class FileLog implements LogEventListener {
+public class FileLog implements LogEventListener, Closeable {
 
   /**
    * The constant DEFAULT_LOG_FILE.
    */
   public static final Path DEFAULT_LOG_FILE = PathUtils.getPath("log.txt");
 
+  /** The m sink. */
+  private final FileLogSink mSink;
+
+  /** Where failures to write the file are reported. */
+  private final StreamLogSink mErrors = StreamLogSink.stdErr();
+
   /**
    * Instantiates a new file log.
    */
@@ -47,17 +53,7 @@ public class FileLog implements LogEventListener {
    * @param file the file
    */
   public FileLog(Path file) {
-    Logger.getRootLogger().getLoggerRepository().resetConfiguration();
-
-    ConsoleAppender console = new ConsoleAppender(); // create appender
-    // configure the appender
-    // String PATTERN = "%d [%p|%c|%C{1}] %m%n";
-    // console.setLayout(new PatternLayout(PATTERN));
-    // console.setThreshold(Level.FATAL);
-    console.activateOptions();
-
-    // add appender to any Logger (here is root)
-    Logger.getRootLogger().addAppender(console);
+    mSink = new FileLogSink(file);
   }
 
   /*
@@ -66,30 +62,22 @@ public class FileLog implements LogEventListener {
    * @see org.abh.lib.log.LogEventListener#logEvent(org.abh.lib.log.LogEvent)
    */
   @Override
-  public void logEvent(LogEvent e) {
-
-    BufferedWriter writer = null;
-
+  public synchronized void logEvent(LogEvent e) {
     try {
-      // writer = new BufferedWriter(new FileWriter(mFile, mFile.exists()));
-
-      try {
-        writer.write(e.getType().toString());
-        writer.write(TextUtils.TAB_DELIMITER);
-        writer.write(e.getFormattedDate());
-        writer.write(TextUtils.TAB_DELIMITER);
-        writer.write(e.getSource().toString());
-        writer.write(TextUtils.TAB_DELIMITER);
-        writer.write(e.getMessage());
-        writer.write(TextUtils.TAB_DELIMITER);
-        writer.write(Integer.toString(e.getId()));
-
-        writer.newLine();
-      } finally {
-        writer.close();
-      }
+      mSink.write(Collections.singletonList(e));
     } catch (IOException ex) {
-      ex.printStackTrace();
+      mErrors.write(
+          Collections.singletonList(new LogEvent(this, "Could not write log file: " + ex, LogEventType.ERROR)));
     }
   }
+
+  /**
+   * Close the log file. Logging an event afterwards opens it again.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    mSink.close();
+  }
 }
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * Appends batches of log events to a file. Each batch is formatted into a
+ * single buffer and written with one call. The file is kept open between
+ * batches and can be rolled over once it reaches a maximum size or age, in
+ * which case the current file is renamed to file.1, the previous file.1 to
+ * file.2 and so on, keeping a fixed number of old files.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class FileLogSink implements LogSink {
+
+  /** The Constant DEFAULT_MAX_FILES. */
+  public static final int DEFAULT_MAX_FILES = 5;
+
+  /** The m file. */
+  private final Path mFile;
+
+  /** Roll over once the file reaches this many bytes. */
+  private long mMaxSize = -1;
+
+  /** Roll over once the file has been open this many milliseconds. */
+  private long mMaxAge = -1;
+
+  /** The m max files. */
+  private int mMaxFiles = DEFAULT_MAX_FILES;
+
+  /** The m channel. */
+  private FileChannel mChannel = null;
+
+  /** The m size. */
+  private long mSize = 0;
+
+  /** The time the current file was opened. */
+  private long mOpened = 0;
+
+  /** The m buffer. */
+  private final StringBuilder mBuffer = new StringBuilder();
+
+  /**
+   * Instantiates a new file log sink.
+   *
+   * @param file the file
+   */
+  public FileLogSink(Path file) {
+    mFile = file;
+  }
+
+  /**
+   * Roll over the file once it reaches a maximum size.
+   *
+   * @param bytes the max size in bytes
+   * @return the file log sink
+   */
+  public FileLogSink setMaxSize(long bytes) {
+    mMaxSize = bytes;
+
+    return this;
+  }
+
+  /**
+   * Roll over the file at a fixed interval.
+   *
+   * @param time the time
+   * @param unit the unit
+   * @return the file log sink
+   */
+  public FileLogSink setRolloverInterval(long time, TimeUnit unit) {
+    mMaxAge = time > 0 ? unit.toMillis(time) : -1;
+
+    return this;
+  }
+
+  /**
+   * Sets the number of rolled over files to keep.
+   *
+   * @param maxFiles the max files
+   * @return the file log sink
+   */
+  public FileLogSink setMaxFiles(int maxFiles) {
+    mMaxFiles = Math.max(1, maxFiles);
+
+    return this;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.log.LogSink#write(java.util.List)
+   */
+  @Override
+  public void write(List<LogEvent> events) throws IOException {
+    mBuffer.setLength(0);
+
+    for (LogEvent e : events) {
+      format(e, mBuffer);
+    }
+
+    byte[] bytes = mBuffer.toString().getBytes(StandardCharsets.UTF_8);
+
+    if (mChannel == null) {
+      open();
+    } else if ((mMaxSize > 0 && mSize + bytes.length > mMaxSize && mSize > 0)
+        || (mMaxAge > 0 && System.currentTimeMillis() - mOpened > mMaxAge)) {
+      rollover();
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    while (buffer.hasRemaining()) {
+      mChannel.write(buffer);
+    }
+
+    mSize += bytes.length;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.log.LogSink#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (mChannel != null) {
+      mChannel.close();
+      mChannel = null;
+    }
+  }
+
+  /**
+   * Format an event as a tab separated line.
+   *
+   * @param e      the e
+   * @param buffer the buffer
+   */
+  public static void format(LogEvent e, StringBuilder buffer) {
+    buffer.append(e.getType()).append(TextUtils.TAB_DELIMITER).append(e.getFormattedDate())
+        .append(TextUtils.TAB_DELIMITER).append(e.getSource()).append(TextUtils.TAB_DELIMITER)
+        .append(e.getMessage()).append(TextUtils.TAB_DELIMITER).append(e.getId())
+        .append(System.lineSeparator());
+  }
+
+  /**
+   * Open the file for appending.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void open() throws IOException {
+    Path dir = mFile.toAbsolutePath().getParent();
+
+    if (dir != null) {
+      Files.createDirectories(dir);
+    }
+
+    mChannel = FileChannel.open(mFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+
+    mSize = mChannel.size();
+    mOpened = System.currentTimeMillis();
+  }
+
+  /**
+   * Close the current file, shift the old files up by one and start a new
+   * file.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void rollover() throws IOException {
+    close();
+
+    Files.deleteIfExists(rolled(mMaxFiles));
+
+    for (int i = mMaxFiles - 1; i > 0; --i) {
+      Path from = rolled(i);
+
+      if (Files.exists(from)) {
+        Files.move(from, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    if (Files.exists(mFile)) {
+      Files.move(mFile, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    open();
+  }
+
+  /**
+   * Returns the name of a rolled over file.
+   *
+   * @param i the i
+   * @return the path
+   */
+  private Path rolled(int i) {
+    return mFile.resolveSibling(mFile.getFileName() + "." + i);
+  }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.log;
+
+/**
+ * What an {@link AsyncLog} does with new events when its buffer is full.
+ *
+ * @author Antony Holmes
+ *
+ */
+public enum FullBufferPolicy {
+
+  /**
+   * Wait for space in the buffer so no events are lost.
+   */
+  BLOCK,
+
+  /**
+   * Discard the event.
+   */
+  DROP,
+
+  /**
+   * Keep one event in every sample rate events, waiting for space if
+   * necessary, and discard the rest.
+   */
+  SAMPLE
+}
@@ -44,8 +44,6 @@ public class Log extends LogEventListeners implements LogEventListener {
    */
   public Log(String name) {
     mName = name;
-
-    addLogListener(this);
   }
 
   /**
@@ -35,9 +35,10 @@ public class LogEvent extends Event {
   private Date date;
 
   /**
-   * The formatted date.
+   * The formatted date. Created when first requested so that logging threads
+   * do not pay for formatting when events are written asynchronously.
    */
-  private String formattedDate;
+  private volatile String formattedDate = null;
 
   /**
    * The type.
@@ -57,7 +58,6 @@ public class LogEvent extends Event {
     this.type = type;
 
     this.date = new Date();
-    this.formattedDate = Log.DATE_FORMAT.format(date.getTime());
   }
 
   /**
@@ -84,6 +84,17 @@ public class LogEvent extends Event {
    * @return the formatted date
    */
   public final String getFormattedDate() {
-    return formattedDate;
+    String ret = formattedDate;
+
+    if (ret == null) {
+      // DateFormat is not thread safe
+      synchronized (Log.DATE_FORMAT) {
+        ret = Log.DATE_FORMAT.format(date);
+      }
+
+      formattedDate = ret;
+    }
+
+    return ret;
   }
 }
@@ -56,8 +56,8 @@ public class LogEventListeners extends EventProducer<LogEventListener> implement
    * @see org.abh.lib.log.LogEventProducer#fireLogEvent(org.abh.lib.log.LogEvent)
    */
   public void fireLogEvent(LogEvent e) {
-    for (LogEventListener l : mListeners) {
-      l.logEvent(e);
+    for (Object l : mListeners.toArray()) {
+      ((LogEventListener) l).logEvent(e);
     }
   }
 }
\ No newline at end of file
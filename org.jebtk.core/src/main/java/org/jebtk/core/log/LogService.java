@@ -15,11 +15,18 @@
  */
 package org.jebtk.core.log;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.jebtk.core.model.NameMapModel;
 
 /**
  * Allows multiple logs to be agglomerated so a message can be fire to multiple
  * logs.
+ * 
+ * File, console and stderr logs added through the service are written
+ * asynchronously by an {@link AsyncLog} per named log so that logging does not
+ * block the caller on I/O. Waiting events are written when the JVM exits.
  *
  * @author Antony Holmes
  *
@@ -49,11 +56,19 @@ public class LogService extends NameMapModel<Log> {
     return LogServiceLoader.INSTANCE;
   }
 
+  /** The background writer of each named log. */
+  private final Map<String, AsyncLog> mAsyncLogs = new HashMap<String, AsyncLog>();
+
   /**
    * Instantiates a new log service.
    */
   private LogService() {
-    // Do nothing
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        close();
+      }
+    });
   }
 
   /**
@@ -63,7 +78,7 @@ public class LogService extends NameMapModel<Log> {
    * @param name the name
    * @return the log
    */
-  public final Log getLog(String name) {
+  public final synchronized Log getLog(String name) {
     if (contains(name)) {
       return get(name);
     }
@@ -79,7 +94,17 @@ public class LogService extends NameMapModel<Log> {
    * @param name the name
    */
   public void addFileLog(String name) {
-    getLog(name).addLogListener(new FileLog());
+    addFileLog(name, new FileLogSink(FileLog.DEFAULT_LOG_FILE));
+  }
+
+  /**
+   * Adds a file log with custom rollover settings.
+   *
+   * @param name the name
+   * @param sink the sink
+   */
+  public void addFileLog(String name, FileLogSink sink) {
+    getAsyncLog(name).addSink(sink);
   }
 
   /**
@@ -88,7 +113,7 @@ public class LogService extends NameMapModel<Log> {
    * @param name the name
    */
   public void addConsoleLog(String name) {
-    getLog(name).addLogListener(new ConsoleLog());
+    getAsyncLog(name).addSink(StreamLogSink.console());
   }
 
   /**
@@ -97,6 +122,40 @@ public class LogService extends NameMapModel<Log> {
    * @param name the name
    */
   public void addStdErrLog(String name) {
-    getLog(name).addLogListener(new StdErrLog());
+    getAsyncLog(name).addSink(StreamLogSink.stdErr());
+  }
+
+  /**
+   * Returns the background writer of a log, creating it if necessary. Use it
+   * to add sinks or to change what happens when its buffer is full.
+   *
+   * @param name the name
+   * @return the async log
+   */
+  public synchronized AsyncLog getAsyncLog(String name) {
+    AsyncLog log = mAsyncLogs.get(name);
+
+    if (log == null) {
+      log = new AsyncLog();
+
+      getLog(name).addLogListener(log);
+
+      mAsyncLogs.put(name, log);
+    }
+
+    return log;
+  }
+
+  /**
+   * Write any waiting events and stop the background writers.
+   */
+  public synchronized void close() {
+    for (Map.Entry<String, AsyncLog> e : mAsyncLogs.entrySet()) {
+      get(e.getKey()).removeLogListener(e.getValue());
+
+      e.getValue().close();
+    }
+
+    mAsyncLogs.clear();
   }
 }
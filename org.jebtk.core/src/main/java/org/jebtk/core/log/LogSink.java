@@ -0,0 +1,46 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.log;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for batches of log events written by an {@link AsyncLog}. Sinks
+ * are only called from the log's background thread so do not need to be
+ * thread safe.
+ *
+ * @author Antony Holmes
+ *
+ */
+public interface LogSink {
+
+  /**
+   * Write a batch of events. Implementations should write the batch in one
+   * operation rather than one event at a time.
+   *
+   * @param events the events
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void write(List<LogEvent> events) throws IOException;
+
+  /**
+   * Release any resources held by the sink.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void close() throws IOException;
+}
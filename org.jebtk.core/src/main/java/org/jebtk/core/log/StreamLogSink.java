@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.log;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Writes batches of log events to a print stream such as the console, using
+ * the same format as {@link ConsoleLog}.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class StreamLogSink implements LogSink {
+
+  /** The m out. */
+  private final PrintStream mOut;
+
+  /** The m buffer. */
+  private final StringBuilder mBuffer = new StringBuilder();
+
+  /**
+   * Instantiates a new stream log sink.
+   *
+   * @param out the out
+   */
+  public StreamLogSink(PrintStream out) {
+    mOut = out;
+  }
+
+  /**
+   * Create a sink that writes to stdout.
+   *
+   * @return the stream log sink
+   */
+  public static StreamLogSink console() {
+    return new StreamLogSink(System.out);
+  }
+
+  /**
+   * Create a sink that writes to stderr.
+   *
+   * @return the stream log sink
+   */
+  public static StreamLogSink stdErr() {
+    return new StreamLogSink(System.err);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.log.LogSink#write(java.util.List)
+   */
+  @Override
+  public void write(List<LogEvent> events) {
+    mBuffer.setLength(0);
+
+    for (LogEvent e : events) {
+      mBuffer.append('[').append(e.getFormattedDate()).append("] ").append(e.getMessage())
+          .append(System.lineSeparator());
+    }
+
+    mOut.print(mBuffer);
+    mOut.flush();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.log.LogSink#close()
+   */
+  @Override
+  public void close() {
+    // The stream is owned by the caller so is only flushed
+    mOut.flush();
+  }
+}
@@ -61,9 +61,15 @@ public class ListModel<T> extends ArrayList<T> implements ChangeEventProducer {
    * @param items the items
    */
   public void set(Collection<T> items) {
-    clear();
+    beginUpdate();
+
+    try {
+      clear();
 
-    add(items);
+      add(items);
+    } finally {
+      endUpdate();
+    }
   }
 
   /*
@@ -178,4 +184,18 @@ public class ListModel<T> extends ArrayList<T> implements ChangeEventProducer {
     listeners.fireChanged(e);
   }
 
-}
\ No newline at end of file
+  /**
+   * Start a batch of changes. Listeners are notified once when the matching
+   * {@link #endUpdate()} is called rather than after each change.
+   */
+  public void beginUpdate() {
+    listeners.beginUpdate();
+  }
+
+  /**
+   * End a batch of changes.
+   */
+  public void endUpdate() {
+    listeners.endUpdate();
+  }
+}
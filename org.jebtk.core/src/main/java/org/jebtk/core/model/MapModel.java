@@ -129,4 +129,19 @@ public class MapModel<T extends Comparable<? super T>, X> extends HashMap<T, X>
   public void fireChanged() {
     listeners.fireChanged();
   }
-}
\ No newline at end of file
+
+  /**
+   * Start a batch of changes. Listeners are notified once when the matching
+   * {@link #endUpdate()} is called rather than after each change.
+   */
+  public void beginUpdate() {
+    listeners.beginUpdate();
+  }
+
+  /**
+   * End a batch of changes.
+   */
+  public void endUpdate() {
+    listeners.endUpdate();
+  }
+}
@@ -60,9 +60,16 @@ public class SetModel<T extends Comparable<? super T>> extends HashSet<T> implem
    * @param items the items
    */
   public void set(Collection<T> items) {
-    addAll(items);
+    // addAll calls add for each item so hold back the events
+    beginUpdate();
 
-    fireChanged();
+    try {
+      addAll(items);
+
+      fireChanged();
+    } finally {
+      endUpdate();
+    }
   }
 
   /*
@@ -177,4 +184,19 @@ public class SetModel<T extends Comparable<? super T>> extends HashSet<T> implem
   public void fireChanged() {
     listeners.fireChanged();
   }
-}
\ No newline at end of file
+
+  /**
+   * Start a batch of changes. Listeners are notified once when the matching
+   * {@link #endUpdate()} is called rather than after each change.
+   */
+  public void beginUpdate() {
+    listeners.beginUpdate();
+  }
+
+  /**
+   * End a batch of changes.
+   */
+  public void endUpdate() {
+    listeners.endUpdate();
+  }
+}
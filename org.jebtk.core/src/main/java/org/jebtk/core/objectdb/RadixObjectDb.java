@@ -16,11 +16,20 @@
 package org.jebtk.core.objectdb;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
 
+import org.jebtk.core.collections.CollectionUtils;
 import org.jebtk.core.text.TextUtils;
 
 /**
- * Creates a search radix tree of objects tagged by their name.
+ * Creates a search radix tree of objects tagged by their name. Words are
+ * stored in a compact {@link RadixTree} rather than one node per character.
+ * Prefix nodes returned by {@link #getChild(String)} are light weight views
+ * onto the tree.
  *
  * @author Antony Holmes
  * @param <T> the generic type
@@ -30,13 +39,215 @@ public class RadixObjectDb<T> extends RadixObjectNode<T> implements Serializable
   /**
    * The constant serialVersionUID.
    */
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
+
+  /**
+   * A view of the words in a tree starting with a prefix.
+   *
+   * @param <T> the generic type
+   */
+  private static class PrefixNode<T> extends RadixObjectNode<T> {
+
+    /**
+     * The constant serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** The m tree. */
+    private final RadixTree<T> mTree;
+
+    /**
+     * Instantiates a new prefix node.
+     *
+     * @param tree   the tree
+     * @param prefix the prefix
+     */
+    public PrefixNode(RadixTree<T> tree, String prefix) {
+      super(prefix.charAt(prefix.length() - 1), prefix, false);
+
+      mTree = tree;
+    }
+
+    @Override
+    public List<T> getObjects() {
+      return mTree.getObjects(getPrefix());
+    }
+
+    @Override
+    public RadixObjectNode<T> getChild(String prefix) {
+      if (TextUtils.isNullOrEmpty(prefix)) {
+        return this;
+      }
+
+      return RadixObjectDb.getChild(mTree, getPrefix() + prefix);
+    }
+
+    @Override
+    public Set<String> getWords(String prefix) {
+      return RadixObjectDb.getWords(mTree, getPrefix() + prefix);
+    }
+
+    @Override
+    public Set<String> getWords() {
+      return getWords(TextUtils.EMPTY_STRING);
+    }
+
+    @Override
+    public void addObject(String word, T object) {
+      if (!TextUtils.isNullOrEmpty(word)) {
+        mTree.add(getPrefix() + word, object);
+      }
+    }
+
+    @Override
+    public int getChildCount() {
+      return mTree.getChildCount(getPrefix());
+    }
+
+    /**
+     * Remove all words starting with the prefix from the tree.
+     */
+    @Override
+    public void clear() {
+      mTree.clear(getPrefix());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return getObjects().iterator();
+    }
+  }
+
+  /** The m tree. */
+  private final RadixTree<T> mTree;
 
   /**
    * Instantiates a new radix object db.
    */
   public RadixObjectDb() {
-    super('r', TextUtils.EMPTY_STRING);
+    this(new RadixTree<T>());
+  }
+
+  /**
+   * Instantiates a new radix object db.
+   *
+   * @param tree the tree
+   */
+  public RadixObjectDb(RadixTree<T> tree) {
+    super('r', TextUtils.EMPTY_STRING, false);
+
+    mTree = tree;
+  }
+
+  /**
+   * Gets the tree.
+   *
+   * @return the tree
+   */
+  public RadixTree<T> getTree() {
+    return mTree;
+  }
+
+  @Override
+  public void addObject(String word, T object) {
+    mTree.add(word, object);
+  }
+
+  @Override
+  public List<T> getObjects() {
+    return mTree.getObjects(TextUtils.EMPTY_STRING);
+  }
+
+  /**
+   * Returns up to limit objects for words starting with a prefix.
+   *
+   * @param prefix the prefix
+   * @param limit  the limit
+   * @return the objects
+   */
+  public List<T> getObjects(String prefix, int limit) {
+    return mTree.getObjects(prefix, limit);
+  }
+
+  /**
+   * Returns up to limit words starting with a prefix in alphabetical order.
+   *
+   * @param prefix the prefix
+   * @param limit  the limit
+   * @return the words
+   */
+  public List<String> getWords(String prefix, int limit) {
+    return mTree.getWords(prefix, limit);
+  }
+
+  /**
+   * Returns a view of the words starting with a prefix or null if there are
+   * none. An empty prefix returns the db itself.
+   *
+   * @param prefix the prefix
+   * @return the child
+   */
+  @Override
+  public RadixObjectNode<T> getChild(String prefix) {
+    if (TextUtils.isNullOrEmpty(prefix)) {
+      return this;
+    }
+
+    return getChild(mTree, prefix);
+  }
+
+  @Override
+  public Set<String> getWords(String prefix) {
+    return getWords(mTree, prefix);
+  }
+
+  @Override
+  public Set<String> getWords() {
+    return getWords(TextUtils.EMPTY_STRING);
+  }
+
+  @Override
+  public int getChildCount() {
+    return mTree.getChildCount(TextUtils.EMPTY_STRING);
+  }
+
+  @Override
+  public void clear() {
+    mTree.clear();
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return getObjects().iterator();
+  }
+
+  /**
+   * Returns a view of the words starting with a prefix or null if there are
+   * none.
+   *
+   * @param <TT>   the generic type
+   * @param tree   the tree
+   * @param prefix the prefix
+   * @return the child
+   */
+  private static <TT> RadixObjectNode<TT> getChild(RadixTree<TT> tree, String prefix) {
+    if (!tree.contains(prefix)) {
+      return null;
+    }
+
+    return new PrefixNode<TT>(tree, prefix);
+  }
+
+  /**
+   * Gets the words starting with a prefix.
+   *
+   * @param <TT>   the generic type
+   * @param tree   the tree
+   * @param prefix the prefix
+   * @return the words
+   */
+  private static <TT> Set<String> getWords(RadixTree<TT> tree, String prefix) {
+    return Collections.unmodifiableSet(CollectionUtils.toSet(tree.getWords(prefix)));
   }
 
   /**
@@ -49,4 +260,15 @@ public class RadixObjectDb<T> extends RadixObjectNode<T> implements Serializable
   public static <TT> RadixObjectDb<TT> create() {
     return new RadixObjectDb<TT>();
   }
+
+  /**
+   * Create a db from entries sorted by word.
+   *
+   * @param <TT>    the generic type
+   * @param entries the entries
+   * @return the radix object db
+   */
+  public static <TT> RadixObjectDb<TT> build(Iterator<? extends Entry<String, TT>> entries) {
+    return new RadixObjectDb<TT>(RadixTree.build(entries));
+  }
 }
@@ -20,12 +20,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.jebtk.core.collections.CollectionUtils;
-import org.jebtk.core.collections.UniqueArrayList;
 import org.jebtk.core.text.TextUtils;
 
 /**
@@ -45,17 +45,17 @@ public class RadixObjectNode<T> implements Comparable<RadixObjectNode<T>>, Seria
   /**
    * The member words.
    */
-  private Set<String> mWords = new HashSet<String>();
+  private Set<String> mWords;
 
   /**
    * The member objects.
    */
-  private List<T> mObjects = new UniqueArrayList<T>();
+  private Set<T> mObjects;
 
   /**
    * The member children.
    */
-  private Map<Character, RadixObjectNode<T>> mChildren = new HashMap<Character, RadixObjectNode<T>>();
+  private Map<Character, RadixObjectNode<T>> mChildren;
 
   /**
    * The member c.
@@ -74,8 +74,27 @@ public class RadixObjectNode<T> implements Comparable<RadixObjectNode<T>>, Seria
    * @param prefix the prefix
    */
   public RadixObjectNode(char c, String prefix) {
+    this(c, prefix, true);
+  }
+
+  /**
+   * Instantiates a new radix object node. Subclasses that store their words
+   * elsewhere and override the accessors can skip allocating the node's own
+   * storage.
+   *
+   * @param c       the c
+   * @param prefix  the prefix
+   * @param storage whether to allocate the words, objects and children
+   */
+  protected RadixObjectNode(char c, String prefix, boolean storage) {
     mC = standardize(c);
     mPrefix = standardize(prefix);
+
+    if (storage) {
+      mWords = new HashSet<String>();
+      mObjects = new LinkedHashSet<T>();
+      mChildren = new HashMap<Character, RadixObjectNode<T>>();
+    }
   }
 
   /**
@@ -112,16 +131,12 @@ public class RadixObjectNode<T> implements Comparable<RadixObjectNode<T>>, Seria
    * @return the child
    */
   public RadixObjectNode<T> getChild(String prefix) {
-    return getChild(this, prefix);
-  }
-
-  public static <TT> RadixObjectNode<TT> getChild(RadixObjectNode<TT> root, String prefix) {
-    RadixObjectNode<TT> ret = root;
+    RadixObjectNode<T> ret = this;
 
     char[] chars = standardize(prefix).toCharArray();
 
     for (char c : chars) {
-      RadixObjectNode<TT> node = ret.mChildren.get(c);
+      RadixObjectNode<T> node = ret.mChildren.get(c);
 
       if (node != null) {
         ret = node;
@@ -133,6 +148,18 @@ public class RadixObjectNode<T> implements Comparable<RadixObjectNode<T>>, Seria
     return ret;
   }
 
+  /**
+   * Returns the node associated with a given prefix.
+   *
+   * @param <TT>   the generic type
+   * @param root   the root
+   * @param prefix the prefix
+   * @return the child
+   */
+  public static <TT> RadixObjectNode<TT> getChild(RadixObjectNode<TT> root, String prefix) {
+    return root.getChild(prefix);
+  }
+
   /**
    * Returns a child node. Will return null if the child does not exist.
    *
@@ -151,13 +178,21 @@ public class RadixObjectNode<T> implements Comparable<RadixObjectNode<T>>, Seria
    * @return the words
    */
   public Set<String> getWords(String prefix) {
-    return getWords(this, prefix);
+    RadixObjectNode<T> ret = getChild(prefix);
+
+    return Collections.unmodifiableSet(ret.mWords);
   }
 
+  /**
+   * Return the words associated with a prefix.
+   *
+   * @param <TT>   the generic type
+   * @param root   the root
+   * @param prefix the prefix
+   * @return the words
+   */
   public static <TT> Set<String> getWords(RadixObjectNode<TT> root, String prefix) {
-    RadixObjectNode<TT> ret = getChild(root, prefix);
-
-    return Collections.unmodifiableSet(ret.mWords);
+    return root.getWords(prefix);
   }
 
   /**
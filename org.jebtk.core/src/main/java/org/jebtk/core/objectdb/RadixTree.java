@@ -0,0 +1,855 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.objectdb;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * Compact, case insensitive radix tree mapping words to objects. Chains of
+ * single child nodes are collapsed into one node whose edge is stored as a
+ * char array. Each node keeps the first char of each child edge in a sorted
+ * char array that is sized to the number of children, so small nodes are
+ * scanned and large nodes binary searched. Objects are only stored on the node
+ * where a word ends and prefix queries walk the subtree below the prefix,
+ * stopping once a limit is reached.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public class RadixTree<T> implements Serializable {
+
+  /**
+   * The constant serialVersionUID.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /** Nodes with more children than this are binary searched. */
+  private static final int LINEAR_SEARCH_SIZE = 8;
+
+  /** The constant EMPTY_CHARS. */
+  private static final char[] EMPTY_CHARS = new char[0];
+
+  /** The constant EMPTY_NODES. */
+  private static final Node[] EMPTY_NODES = new Node[0];
+
+  /**
+   * A node in the tree.
+   */
+  private static final class Node {
+
+    /** The chars on the edge leading to this node. */
+    private char[] mLabel;
+
+    /** The first char of each child edge in sorted order. */
+    private char[] mKeys = EMPTY_CHARS;
+
+    /** The m children. */
+    private Node[] mChildren = EMPTY_NODES;
+
+    /** The number of children in use. */
+    private int mCount = 0;
+
+    /** The words ending at this node or null if no word ends here. */
+    private String[] mWords = null;
+
+    /** The objects of the words ending at this node. */
+    private Object[] mValues = null;
+
+    /** The number of objects in use. */
+    private int mValueCount = 0;
+
+    /**
+     * Index of the objects once there are too many to scan on every add.
+     * Dropped when the node is trimmed and rebuilt if more are added.
+     */
+    private Set<Object> mValueIndex = null;
+
+    /**
+     * Instantiates a new node.
+     *
+     * @param label the label
+     */
+    private Node(char[] label) {
+      mLabel = label;
+    }
+
+    /**
+     * Returns the index of the child whose edge starts with c or
+     * (-(insertion point) - 1) if there is no such child.
+     *
+     * @param c the c
+     * @return the int
+     */
+    private int indexOf(char c) {
+      if (mCount == 0) {
+        return -1;
+      }
+
+      // Words added in sorted order always hit the last child, so check
+      // it first
+      char last = mKeys[mCount - 1];
+
+      if (c == last) {
+        return mCount - 1;
+      }
+
+      if (c > last) {
+        return -mCount - 1;
+      }
+
+      if (mCount <= LINEAR_SEARCH_SIZE) {
+        for (int i = 0; i < mCount; ++i) {
+          if (mKeys[i] == c) {
+            return i;
+          } else if (mKeys[i] > c) {
+            return -i - 1;
+          }
+        }
+
+        return -mCount - 1;
+      }
+
+      return Arrays.binarySearch(mKeys, 0, mCount, c);
+    }
+
+    /**
+     * Insert a child.
+     *
+     * @param index the index
+     * @param child the child
+     */
+    private void insert(int index, Node child) {
+      if (mCount == mKeys.length) {
+        int size = Math.max(2, mCount * 2);
+
+        mKeys = Arrays.copyOf(mKeys, size);
+        mChildren = Arrays.copyOf(mChildren, size);
+      }
+
+      System.arraycopy(mKeys, index, mKeys, index + 1, mCount - index);
+      System.arraycopy(mChildren, index, mChildren, index + 1, mCount - index);
+
+      mKeys[index] = child.mLabel[0];
+      mChildren[index] = child;
+
+      ++mCount;
+    }
+
+    /**
+     * Add a word and object to the node.
+     *
+     * @param word  the word
+     * @param value the value
+     * @return true if the node was not already the end of a word.
+     */
+    private boolean add(String word, Object value) {
+      if (mWords == null) {
+        mWords = new String[] { word };
+        mValues = new Object[] { value };
+        mValueCount = 1;
+
+        return true;
+      }
+
+      // Only the case variants of one word end here so this stays short
+      if (!contains(mWords, mWords.length, word)) {
+        mWords = Arrays.copyOf(mWords, mWords.length + 1);
+        mWords[mWords.length - 1] = word;
+      }
+
+      if (mValueIndex == null && mValueCount > LINEAR_SEARCH_SIZE) {
+        mValueIndex = new HashSet<Object>(Arrays.asList(mValues).subList(0, mValueCount));
+      }
+
+      boolean added = mValueIndex != null ? mValueIndex.add(value) : !contains(mValues, mValueCount, value);
+
+      if (added) {
+        if (mValueCount == mValues.length) {
+          mValues = Arrays.copyOf(mValues, mValueCount * 2);
+        }
+
+        mValues[mValueCount++] = value;
+      }
+
+      return false;
+    }
+
+    /**
+     * Shrink the child arrays of this node and its descendants to their used
+     * size.
+     */
+    private void trim() {
+      if (mCount < mKeys.length) {
+        mKeys = mCount > 0 ? Arrays.copyOf(mKeys, mCount) : EMPTY_CHARS;
+        mChildren = mCount > 0 ? Arrays.copyOf(mChildren, mCount) : EMPTY_NODES;
+      }
+
+      if (mValues != null && mValueCount < mValues.length) {
+        mValues = Arrays.copyOf(mValues, mValueCount);
+      }
+
+      mValueIndex = null;
+
+      for (int i = 0; i < mCount; ++i) {
+        mChildren[i].trim();
+      }
+    }
+  }
+
+  /** The m root. */
+  private transient Node mRoot;
+
+  /** The number of distinct keys in the tree. */
+  private transient int mSize;
+
+  /**
+   * Instantiates a new radix tree.
+   */
+  public RadixTree() {
+    clear();
+  }
+
+  /**
+   * Build a tree from entries sorted by word. Sorted input only ever appends
+   * to the end of each node so no children need to be shifted. Unsorted input
+   * is still indexed correctly, just more slowly.
+   *
+   * @param <TT>    the generic type
+   * @param entries the entries
+   * @return the radix tree
+   */
+  public static <TT> RadixTree<TT> build(Iterator<? extends Entry<String, TT>> entries) {
+    RadixTree<TT> tree = new RadixTree<TT>();
+
+    while (entries.hasNext()) {
+      Entry<String, TT> e = entries.next();
+
+      tree.add(e.getKey(), e.getValue());
+    }
+
+    tree.trim();
+
+    return tree;
+  }
+
+  /**
+   * Associate an object with a word.
+   *
+   * @param word   the word
+   * @param object the object
+   */
+  public void add(String word, T object) {
+    if (TextUtils.isNullOrEmpty(word) || object == null) {
+      return;
+    }
+
+    char[] key = standardize(word).toCharArray();
+
+    Node node = mRoot;
+
+    int i = 0;
+
+    while (i < key.length) {
+      int index = node.indexOf(key[i]);
+
+      if (index < 0) {
+        Node child = new Node(Arrays.copyOfRange(key, i, key.length));
+
+        node.insert(-index - 1, child);
+
+        node = child;
+
+        break;
+      }
+
+      Node child = node.mChildren[index];
+
+      char[] label = child.mLabel;
+
+      int j = 1;
+
+      while (j < label.length && i + j < key.length && label[j] == key[i + j]) {
+        ++j;
+      }
+
+      if (j < label.length) {
+        // The key diverges part way along the edge so split it
+        Node split = new Node(Arrays.copyOf(label, j));
+
+        child.mLabel = Arrays.copyOfRange(label, j, label.length);
+
+        split.insert(0, child);
+
+        node.mChildren[index] = split;
+
+        child = split;
+      }
+
+      node = child;
+
+      i += j;
+    }
+
+    if (node.add(word, object)) {
+      ++mSize;
+    }
+  }
+
+  /**
+   * Returns true if any word in the tree starts with the prefix.
+   *
+   * @param prefix the prefix
+   * @return true, if successful
+   */
+  public boolean contains(String prefix) {
+    return find(prefix) != null;
+  }
+
+  /**
+   * Returns the objects of all words starting with a prefix, without
+   * duplicates.
+   *
+   * @param prefix the prefix
+   * @return the objects
+   */
+  public List<T> getObjects(String prefix) {
+    return getObjects(prefix, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the objects of words starting with a prefix, without duplicates.
+   * Words are visited in alphabetical order and the search stops once limit
+   * objects have been found.
+   *
+   * @param prefix the prefix
+   * @param limit  the max number of objects to return
+   * @return the objects
+   */
+  public List<T> getObjects(String prefix, int limit) {
+    List<T> ret = new ArrayList<T>();
+
+    Node node = find(prefix);
+
+    if (node != null && limit > 0) {
+      collectObjects(node, limit, new HashSet<Object>(), ret);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns all words starting with a prefix.
+   *
+   * @param prefix the prefix
+   * @return the words
+   */
+  public List<String> getWords(String prefix) {
+    return getWords(prefix, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns words starting with a prefix in alphabetical order, stopping once
+   * limit words have been found.
+   *
+   * @param prefix the prefix
+   * @param limit  the max number of words to return
+   * @return the words
+   */
+  public List<String> getWords(String prefix, int limit) {
+    List<String> ret = new ArrayList<String>();
+
+    Node node = find(prefix);
+
+    if (node != null && limit > 0) {
+      collectWords(node, limit, ret);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the number of distinct chars that can follow a prefix or -1 if no
+   * word starts with the prefix.
+   *
+   * @param prefix the prefix
+   * @return the child count
+   */
+  public int getChildCount(String prefix) {
+    String p = standardize(prefix);
+
+    Node node = mRoot;
+
+    int i = 0;
+
+    while (i < p.length()) {
+      int index = node.indexOf(p.charAt(i));
+
+      if (index < 0) {
+        return -1;
+      }
+
+      node = node.mChildren[index];
+
+      char[] label = node.mLabel;
+
+      for (int j = 0; j < label.length; ++j, ++i) {
+        if (i == p.length()) {
+          // The prefix ends part way along an edge
+          return 1;
+        }
+
+        if (label[j] != p.charAt(i)) {
+          return -1;
+        }
+      }
+    }
+
+    return node.mCount;
+  }
+
+  /**
+   * Returns the number of distinct, case insensitive, words in the tree.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Remove all words from the tree.
+   */
+  public void clear() {
+    mRoot = new Node(EMPTY_CHARS);
+    mSize = 0;
+  }
+
+  /**
+   * Remove all words starting with a prefix.
+   *
+   * @param prefix the prefix
+   */
+  public void clear(String prefix) {
+    String p = standardize(prefix);
+
+    if (p.length() == 0) {
+      clear();
+
+      return;
+    }
+
+    Node parent = null;
+    Node node = mRoot;
+    int index = -1;
+
+    int i = 0;
+
+    while (i < p.length()) {
+      index = node.indexOf(p.charAt(i));
+
+      if (index < 0) {
+        return;
+      }
+
+      parent = node;
+      node = node.mChildren[index];
+
+      char[] label = node.mLabel;
+
+      for (int j = 0; j < label.length && i < p.length(); ++j, ++i) {
+        if (label[j] != p.charAt(i)) {
+          return;
+        }
+      }
+    }
+
+    mSize -= countWords(node);
+
+    System.arraycopy(parent.mKeys, index + 1, parent.mKeys, index, parent.mCount - index - 1);
+    System.arraycopy(parent.mChildren, index + 1, parent.mChildren, index, parent.mCount - index - 1);
+
+    parent.mChildren[--parent.mCount] = null;
+
+    // Keep the path compressed by merging a parent left with a single child
+    // and no words of its own into that child
+    if (parent != mRoot && parent.mCount == 1 && parent.mWords == null) {
+      Node child = parent.mChildren[0];
+
+      char[] label = Arrays.copyOf(parent.mLabel, parent.mLabel.length + child.mLabel.length);
+
+      System.arraycopy(child.mLabel, 0, label, parent.mLabel.length, child.mLabel.length);
+
+      parent.mLabel = label;
+      parent.mKeys = child.mKeys;
+      parent.mChildren = child.mChildren;
+      parent.mCount = child.mCount;
+      parent.mWords = child.mWords;
+      parent.mValues = child.mValues;
+      parent.mValueCount = child.mValueCount;
+      parent.mValueIndex = child.mValueIndex;
+    }
+  }
+
+  /**
+   * Shrink the tree's arrays to their used size. Useful once a tree is fully
+   * built since nodes grow their arrays in steps as words are added.
+   */
+  public void trim() {
+    mRoot.trim();
+  }
+
+  /**
+   * Returns the highest node containing all words that start with the prefix
+   * or null if there are no such words.
+   *
+   * @param prefix the prefix
+   * @return the node
+   */
+  private Node find(String prefix) {
+    String p = standardize(prefix);
+
+    Node node = mRoot;
+
+    int i = 0;
+
+    while (i < p.length()) {
+      int index = node.indexOf(p.charAt(i));
+
+      if (index < 0) {
+        return null;
+      }
+
+      node = node.mChildren[index];
+
+      char[] label = node.mLabel;
+
+      for (int j = 0; j < label.length && i < p.length(); ++j, ++i) {
+        if (label[j] != p.charAt(i)) {
+          return null;
+        }
+      }
+    }
+
+    return node;
+  }
+
+  /**
+   * Collect objects from a subtree.
+   *
+   * @param node  the node
+   * @param limit the limit
+   * @param used  the objects already collected
+   * @param ret   the list to add to
+   * @return true if the limit has been reached
+   */
+  @SuppressWarnings("unchecked")
+  private static <TT> boolean collectObjects(Node node, int limit, Set<Object> used, List<TT> ret) {
+    for (int i = 0; i < node.mValueCount; ++i) {
+      Object v = node.mValues[i];
+
+      if (used.add(v)) {
+        ret.add((TT) v);
+
+        if (ret.size() == limit) {
+          return true;
+        }
+      }
+    }
+
+    for (int i = 0; i < node.mCount; ++i) {
+      if (collectObjects(node.mChildren[i], limit, used, ret)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the number of nodes in a subtree that end a word.
+   *
+   * @param node the node
+   * @return the int
+   */
+  private static int countWords(Node node) {
+    int ret = node.mWords != null ? 1 : 0;
+
+    for (int i = 0; i < node.mCount; ++i) {
+      ret += countWords(node.mChildren[i]);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Collect words from a subtree.
+   *
+   * @param node  the node
+   * @param limit the limit
+   * @param ret   the list to add to
+   * @return true if the limit has been reached
+   */
+  private static boolean collectWords(Node node, int limit, Collection<String> ret) {
+    if (node.mWords != null) {
+      for (String word : node.mWords) {
+        ret.add(word);
+
+        if (ret.size() == limit) {
+          return true;
+        }
+      }
+    }
+
+    for (int i = 0; i < node.mCount; ++i) {
+      if (collectWords(node.mChildren[i], limit, ret)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Write the tree as a few flat arrays rather than a graph of node objects.
+   * Nodes are written in depth first order as their label length, child count
+   * and the indices of their words and objects in shared tables, so each
+   * distinct word and object is only written once.
+   *
+   * @param out the out
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+
+    StringBuilder labels = new StringBuilder();
+
+    int[] structure = new int[64];
+
+    Map<Object, Integer> words = new HashMap<Object, Integer>();
+    Map<Object, Integer> values = new HashMap<Object, Integer>();
+
+    List<Node> stack = new ArrayList<Node>();
+
+    stack.add(mRoot);
+
+    int n = 0;
+    int nodes = 0;
+
+    while (!stack.isEmpty()) {
+      Node node = stack.remove(stack.size() - 1);
+
+      labels.append(node.mLabel);
+
+      int wc = node.mWords != null ? node.mWords.length : 0;
+      int vc = node.mValueCount;
+
+      if (n + 4 + wc + vc > structure.length) {
+        structure = Arrays.copyOf(structure, Math.max(structure.length * 2, n + 4 + wc + vc));
+      }
+
+      structure[n++] = node.mLabel.length;
+      structure[n++] = node.mCount;
+      structure[n++] = wc;
+
+      for (int i = 0; i < wc; ++i) {
+        structure[n++] = index(words, node.mWords[i]);
+      }
+
+      structure[n++] = vc;
+
+      for (int i = 0; i < vc; ++i) {
+        structure[n++] = index(values, node.mValues[i]);
+      }
+
+      // Push in reverse so children are written in order
+      for (int i = node.mCount - 1; i >= 0; --i) {
+        stack.add(node.mChildren[i]);
+      }
+
+      ++nodes;
+    }
+
+    out.writeInt(mSize);
+    out.writeInt(nodes);
+    out.writeObject(labels.toString());
+    out.writeObject(Arrays.copyOf(structure, n));
+    out.writeObject(table(words));
+    out.writeObject(table(values));
+  }
+
+  /**
+   * Read a tree written by {@link #writeObject(ObjectOutputStream)}.
+   *
+   * @param in the in
+   * @throws IOException            Signals that an I/O exception has occurred.
+   * @throws ClassNotFoundException the class not found exception
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+
+    mSize = in.readInt();
+
+    int nodes = in.readInt();
+
+    char[] labels = ((String) in.readObject()).toCharArray();
+    int[] structure = (int[]) in.readObject();
+    Object[] words = (Object[]) in.readObject();
+    Object[] values = (Object[]) in.readObject();
+
+    // Parents waiting for children and how many children each still needs
+    Node[] parents = new Node[nodes];
+    int[] remaining = new int[nodes];
+
+    int depth = 0;
+    int l = 0;
+    int n = 0;
+
+    for (int k = 0; k < nodes; ++k) {
+      int length = structure[n++];
+      int count = structure[n++];
+
+      Node node = new Node(length > 0 ? Arrays.copyOfRange(labels, l, l + length) : EMPTY_CHARS);
+
+      l += length;
+
+      int wc = structure[n++];
+
+      if (wc > 0) {
+        node.mWords = new String[wc];
+
+        for (int i = 0; i < wc; ++i) {
+          node.mWords[i] = (String) words[structure[n++]];
+        }
+      }
+
+      int vc = structure[n++];
+
+      if (vc > 0) {
+        node.mValues = new Object[vc];
+        node.mValueCount = vc;
+
+        for (int i = 0; i < vc; ++i) {
+          node.mValues[i] = values[structure[n++]];
+        }
+      }
+
+      if (count > 0) {
+        node.mKeys = new char[count];
+        node.mChildren = new Node[count];
+      }
+
+      if (k == 0) {
+        mRoot = node;
+      } else {
+        Node parent = parents[depth - 1];
+
+        parent.mKeys[parent.mCount] = node.mLabel[0];
+        parent.mChildren[parent.mCount++] = node;
+
+        --remaining[depth - 1];
+
+        // Parents whose children are complete can be discarded
+        while (depth > 0 && remaining[depth - 1] == 0) {
+          --depth;
+        }
+      }
+
+      if (count > 0) {
+        parents[depth] = node;
+        remaining[depth] = count;
+        ++depth;
+      }
+    }
+  }
+
+  /**
+   * Returns the index of an item in a table, adding it if necessary.
+   *
+   * @param table the table
+   * @param item  the item
+   * @return the int
+   */
+  private static int index(Map<Object, Integer> table, Object item) {
+    Integer index = table.get(item);
+
+    if (index == null) {
+      index = table.size();
+
+      table.put(item, index);
+    }
+
+    return index;
+  }
+
+  /**
+   * Convert a table of items to an array ordered by index.
+   *
+   * @param table the table
+   * @return the object[]
+   */
+  private static Object[] table(Map<Object, Integer> table) {
+    Object[] ret = new Object[table.size()];
+
+    for (Entry<Object, Integer> e : table.entrySet()) {
+      ret[e.getValue()] = e.getKey();
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns true if the first n items of an array contain an item.
+   *
+   * @param items the items
+   * @param n     the number of items in use
+   * @param item  the item
+   * @return true, if successful
+   */
+  private static boolean contains(Object[] items, int n, Object item) {
+    for (int i = 0; i < n; ++i) {
+      if (items[i].equals(item)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Ensure words are consistent for searching purposes i.e case insensitive.
+   *
+   * @param word the word
+   * @return the string
+   */
+  private static String standardize(String word) {
+    return word.toLowerCase();
+  }
+}
@@ -0,0 +1,590 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.pool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe, bounded pool of reusable objects that does not lock on check
+ * out or check in. Idle objects are kept in a lock free queue and each
+ * thread also remembers the last object it checked in so that it can usually
+ * take it back without touching the shared queue. Objects are created on
+ * demand by an {@link ObjectCreator} until the pool reaches its maximum size,
+ * after which callers of {@link #checkOut(long, TimeUnit)} wait for an object
+ * to be checked in.
+ *
+ * Optionally, objects can be validated before they are handed out and
+ * objects that have been idle for longer than a timeout are evicted. The pool
+ * keeps counts of hits, misses and waits for monitoring.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public class ConcurrentObjectPool<T> {
+
+  /** The object is waiting to be checked out. */
+  private static final int IDLE = 0;
+
+  /** The object is checked out. */
+  private static final int IN_USE = 1;
+
+  /** The object has been removed from the pool. */
+  private static final int REMOVED = 2;
+
+  /**
+   * Wraps an object with its pool state.
+   *
+   * @param <T> the generic type
+   */
+  private static class Pooled<T> {
+
+    /** The m object. */
+    final T mObject;
+
+    /** The m state. */
+    final AtomicInteger mState = new AtomicInteger(IN_USE);
+
+    /** Whether the object is in the idle queue. */
+    final AtomicBoolean mQueued = new AtomicBoolean(false);
+
+    /** The time the object was last checked in. */
+    volatile long mLastUsed;
+
+    /**
+     * Instantiates a new pooled.
+     *
+     * @param object the object
+     */
+    Pooled(T object) {
+      mObject = object;
+    }
+  }
+
+  /**
+   * Identity based map key so that objects with their own equals method can
+   * be pooled.
+   */
+  private static class Key {
+
+    /** The m object. */
+    private final Object mObject;
+
+    /**
+     * Instantiates a new key.
+     *
+     * @param object the object
+     */
+    Key(Object object) {
+      mObject = object;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(mObject);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).mObject == mObject;
+    }
+  }
+
+  /** The m name. */
+  private final String mName;
+
+  /** The m creator. */
+  private final ObjectCreator<T> mCreator;
+
+  /** The m max size. */
+  private final int mMaxSize;
+
+  /** One permit for each object that can be checked out. */
+  private final Semaphore mPermits;
+
+  /** The idle objects. May contain objects that have since been claimed. */
+  private final ConcurrentLinkedQueue<Pooled<T>> mIdle = new ConcurrentLinkedQueue<Pooled<T>>();
+
+  /** Every object owned by the pool. */
+  private final Map<Key, Pooled<T>> mObjects = new ConcurrentHashMap<Key, Pooled<T>>();
+
+  /** The last object each thread checked in. */
+  private final ThreadLocal<Pooled<T>> mLocal = new ThreadLocal<Pooled<T>>();
+
+  /** The number of objects owned by the pool. */
+  private final AtomicInteger mSize = new AtomicInteger(0);
+
+  /** The m validator. */
+  private volatile ObjectValidator<T> mValidator = null;
+
+  /** The m destroyer. */
+  private volatile ObjectDestroyer<T> mDestroyer = null;
+
+  /** The idle timeout in nanoseconds. */
+  private volatile long mIdleTimeout = -1;
+
+  /** When idle objects should next be checked. */
+  private volatile long mNextEviction = 0;
+
+  /** Stops more than one thread evicting at once. */
+  private final AtomicBoolean mEvicting = new AtomicBoolean(false);
+
+  /** Check outs that reused an object. */
+  private final LongAdder mHits = new LongAdder();
+
+  /** Check outs that created an object. */
+  private final LongAdder mMisses = new LongAdder();
+
+  /** Check outs that had to wait. */
+  private final LongAdder mWaits = new LongAdder();
+
+  /** The total time spent waiting. */
+  private final LongAdder mWaitTime = new LongAdder();
+
+  /** Check outs that timed out. */
+  private final LongAdder mTimeouts = new LongAdder();
+
+  /**
+   * Instantiates a new concurrent object pool.
+   *
+   * @param name    the name
+   * @param creator the creator
+   * @param maxSize the max number of objects in the pool
+   */
+  public ConcurrentObjectPool(String name, ObjectCreator<T> creator, int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Pool size must be positive.");
+    }
+
+    mName = name;
+    mCreator = creator;
+    mMaxSize = maxSize;
+    mPermits = new Semaphore(maxSize);
+  }
+
+  /**
+   * Set a validator that is run on objects before they are reused. Objects
+   * that fail are destroyed and replaced.
+   *
+   * @param validator the validator
+   * @return the concurrent object pool
+   */
+  public ConcurrentObjectPool<T> setValidator(ObjectValidator<T> validator) {
+    mValidator = validator;
+
+    return this;
+  }
+
+  /**
+   * Set a function to release objects removed from the pool.
+   *
+   * @param destroyer the destroyer
+   * @return the concurrent object pool
+   */
+  public ConcurrentObjectPool<T> setDestroyer(ObjectDestroyer<T> destroyer) {
+    mDestroyer = destroyer;
+
+    return this;
+  }
+
+  /**
+   * Evict objects that have not been used for a given time. Eviction is run
+   * during check in so no extra threads are needed. A timeout less than 1
+   * disables eviction. This should be set before the pool is used.
+   *
+   * @param timeout the timeout
+   * @param unit    the unit
+   * @return the concurrent object pool
+   */
+  public ConcurrentObjectPool<T> setIdleTimeout(long timeout, TimeUnit unit) {
+    mIdleTimeout = timeout > 0 ? unit.toNanos(timeout) : -1;
+    mNextEviction = System.nanoTime() + mIdleTimeout;
+
+    return this;
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return mName;
+  }
+
+  /**
+   * Check out an object if one is immediately available.
+   *
+   * @return the object or null if the pool is exhausted.
+   */
+  public T checkOut() {
+    if (!mPermits.tryAcquire()) {
+      return null;
+    }
+
+    return claim(System.nanoTime());
+  }
+
+  /**
+   * Check out an object, waiting for one to be checked in if the pool is
+   * exhausted.
+   *
+   * @param timeout the timeout
+   * @param unit    the unit
+   * @return the t
+   * @throws ObjectPoolExhaustedException if no object became available in
+   *                                      time.
+   * @throws InterruptedException         the interrupted exception
+   */
+  public T checkOut(long timeout, TimeUnit unit) throws ObjectPoolExhaustedException, InterruptedException {
+    long start = System.nanoTime();
+    long deadline = start + unit.toNanos(timeout);
+
+    if (!mPermits.tryAcquire()) {
+      boolean acquired = mPermits.tryAcquire(timeout, unit);
+
+      mWaits.increment();
+      mWaitTime.add(System.nanoTime() - start);
+
+      if (!acquired) {
+        mTimeouts.increment();
+
+        throw new ObjectPoolExhaustedException(this);
+      }
+    }
+
+    T ret = claim(deadline);
+
+    if (ret == null) {
+      mTimeouts.increment();
+
+      throw new ObjectPoolExhaustedException(this);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Return an object to the pool. Objects that did not come from this pool or
+   * that are not checked out are ignored.
+   *
+   * @param object the object
+   */
+  public void checkIn(T object) {
+    Pooled<T> p = find(object);
+
+    if (p == null || !p.mState.compareAndSet(IN_USE, IDLE)) {
+      return;
+    }
+
+    long idleTimeout = mIdleTimeout;
+
+    if (idleTimeout > 0) {
+      p.mLastUsed = System.nanoTime();
+    }
+
+    mLocal.set(p);
+
+    if (p.mQueued.compareAndSet(false, true)) {
+      mIdle.offer(p);
+    }
+
+    mPermits.release();
+
+    if (idleTimeout > 0 && p.mLastUsed - mNextEviction > 0) {
+      evict();
+    }
+  }
+
+  /**
+   * Destroy objects that have been idle for longer than the idle timeout.
+   */
+  public void evict() {
+    if (mIdleTimeout < 1 || !mEvicting.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      long now = System.nanoTime();
+
+      for (Pooled<T> p : mObjects.values()) {
+        if (now - p.mLastUsed > mIdleTimeout && p.mState.compareAndSet(IDLE, REMOVED)) {
+          remove(p);
+        }
+      }
+
+      mNextEviction = now + mIdleTimeout;
+    } finally {
+      mEvicting.set(false);
+    }
+  }
+
+  /**
+   * Claim an object once a permit has been acquired. The permit is released
+   * if no object can be claimed.
+   *
+   * @param deadline the System.nanoTime() after which to stop waiting for an
+   *                 object to be queued.
+   * @return the object or null if the deadline passed.
+   */
+  private T claim(long deadline) {
+    try {
+      while (true) {
+        Pooled<T> p = take();
+
+        if (p != null) {
+          if (!validate(p)) {
+            continue;
+          }
+
+          mHits.increment();
+
+          return p.mObject;
+        }
+
+        // No idle objects so make a new one if there is room
+        int size = mSize.get();
+
+        if (size < mMaxSize) {
+          if (mSize.compareAndSet(size, size + 1)) {
+            return create();
+          }
+        } else if (System.nanoTime() - deadline > 0) {
+          mPermits.release();
+
+          return null;
+        } else {
+          // Holding a permit guarantees an object is either idle or about
+          // to be queued by the thread checking it in.
+          Thread.yield();
+        }
+      }
+    } catch (RuntimeException e) {
+      mPermits.release();
+
+      throw e;
+    } catch (Error e) {
+      mPermits.release();
+
+      throw e;
+    }
+  }
+
+  /**
+   * Create an object once space has been reserved for it in the pool. The
+   * space is given back if the creator fails.
+   *
+   * @return the t
+   */
+  private T create() {
+    boolean created = false;
+
+    try {
+      Pooled<T> p = new Pooled<T>(mCreator.create());
+
+      mObjects.put(new Key(p.mObject), p);
+
+      created = true;
+
+      mMisses.increment();
+
+      return p.mObject;
+    } finally {
+      if (!created) {
+        mSize.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Check an idle object can be reused. Objects that fail validation, or whose
+   * validator throws, are removed from the pool.
+   *
+   * @param p the p
+   * @return true, if the object can be reused.
+   */
+  private boolean validate(Pooled<T> p) {
+    ObjectValidator<T> validator = mValidator;
+
+    if (validator == null) {
+      return true;
+    }
+
+    boolean valid = false;
+
+    try {
+      valid = validator.validate(p.mObject);
+    } finally {
+      if (!valid) {
+        remove(p);
+      }
+    }
+
+    return valid;
+  }
+
+  /**
+   * Take an idle object, trying the object last used by this thread first.
+   *
+   * @return the object or null if there are no idle objects.
+   */
+  private Pooled<T> take() {
+    Pooled<T> p = mLocal.get();
+
+    if (p != null && p.mState.compareAndSet(IDLE, IN_USE)) {
+      return p;
+    }
+
+    while ((p = mIdle.poll()) != null) {
+      p.mQueued.set(false);
+
+      if (p.mState.compareAndSet(IDLE, IN_USE)) {
+        return p;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Find the pool entry of an object.
+   *
+   * @param object the object
+   * @return the pooled
+   */
+  private Pooled<T> find(T object) {
+    Pooled<T> p = mLocal.get();
+
+    if (p != null && p.mObject == object) {
+      return p;
+    }
+
+    return mObjects.get(new Key(object));
+  }
+
+  /**
+   * Remove an object from the pool. The object must be in the REMOVED state or
+   * held by the caller.
+   *
+   * @param p the p
+   */
+  private void remove(Pooled<T> p) {
+    p.mState.set(REMOVED);
+
+    mObjects.remove(new Key(p.mObject));
+    mSize.decrementAndGet();
+
+    ObjectDestroyer<T> destroyer = mDestroyer;
+
+    if (destroyer != null) {
+      destroyer.destroy(p.mObject);
+    }
+  }
+
+  /**
+   * Returns the maximum number of objects in the pool.
+   *
+   * @return the max size
+   */
+  public int getMaxSize() {
+    return mMaxSize;
+  }
+
+  /**
+   * Returns the number of objects currently owned by the pool.
+   *
+   * @return the size
+   */
+  public int getSize() {
+    return mSize.get();
+  }
+
+  /**
+   * Returns the number of objects checked out.
+   *
+   * @return the in use
+   */
+  public int getInUse() {
+    return mMaxSize - mPermits.availablePermits();
+  }
+
+  /**
+   * Returns the fraction of the maximum pool size that is checked out.
+   *
+   * @return the utilization
+   */
+  public double getUtilization() {
+    return (double) getInUse() / mMaxSize;
+  }
+
+  /**
+   * Returns the number of check outs that reused an object.
+   *
+   * @return the hits
+   */
+  public long getHits() {
+    return mHits.sum();
+  }
+
+  /**
+   * Returns the number of check outs that created a new object.
+   *
+   * @return the misses
+   */
+  public long getMisses() {
+    return mMisses.sum();
+  }
+
+  /**
+   * Returns the number of check outs that had to wait.
+   *
+   * @return the waits
+   */
+  public long getWaits() {
+    return mWaits.sum();
+  }
+
+  /**
+   * Returns the number of check outs that timed out.
+   *
+   * @return the timeouts
+   */
+  public long getTimeouts() {
+    return mTimeouts.sum();
+  }
+
+  /**
+   * Returns the total time check outs spent waiting.
+   *
+   * @param unit the unit
+   * @return the wait time
+   */
+  public long getWaitTime(TimeUnit unit) {
+    return unit.convert(mWaitTime.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return mName + " [size=" + getSize() + ", in use=" + getInUse() + ", hits=" + getHits() + ", misses="
+        + getMisses() + ", waits=" + getWaits() + ", timeouts=" + getTimeouts() + "]";
+  }
+}
@@ -36,4 +36,13 @@ public class ObjectPoolExhaustedException extends MessageException {
     super(pool.getName() + " exhausted.");
   }
 
+  /**
+   * Instantiates a new object pool exhausted exception.
+   *
+   * @param pool the pool
+   */
+  public ObjectPoolExhaustedException(ConcurrentObjectPool<?> pool) {
+    super(pool.getName() + " exhausted.");
+  }
+
 }
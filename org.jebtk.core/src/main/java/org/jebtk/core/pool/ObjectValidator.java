@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.pool;
+
+/**
+ * Checks whether a pooled object can still be used.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public interface ObjectValidator<T> {
+
+  /**
+   * Should return true if the object can be handed out again.
+   *
+   * @param object the object
+   * @return true, if valid
+   */
+  boolean validate(T object);
+}
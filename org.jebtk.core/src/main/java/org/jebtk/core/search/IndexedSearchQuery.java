@@ -0,0 +1,309 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.search;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * Search query that evaluates queries against a {@link SearchIndex} rather
+ * than scanning the documents for each term. Subclasses register their
+ * documents in {@link #index(SearchIndex)}, which is called the first time
+ * the query is run. Terms are looked up as posting lists and boolean
+ * operators are evaluated as merges of the lists. Negated terms are carried
+ * through the evaluation as a flag rather than being expanded into the set of
+ * all other documents, so {@code a -b} is a single merge.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public abstract class IndexedSearchQuery<T> extends SearchQuery<T> {
+
+  /**
+   * The result of part of a query.
+   */
+  private static class Result {
+
+    /** The ids of the matching documents. */
+    private final int[] mIds;
+
+    /** Whether the result is every document except mIds. */
+    private final boolean mNegated;
+
+    /**
+     * Instantiates a new result.
+     *
+     * @param ids     the ids
+     * @param negated the negated
+     */
+    private Result(int[] ids, boolean negated) {
+      mIds = ids;
+      mNegated = negated;
+    }
+  }
+
+  /** The m index. */
+  private SearchIndex<T> mIndex = null;
+
+  /**
+   * Add the documents to be searched to an index.
+   *
+   * @param index the index
+   */
+  protected abstract void index(SearchIndex<T> index);
+
+  /**
+   * Standardize a term before it is looked up in the index. Subclasses should
+   * apply the same conversion to the terms they index.
+   *
+   * @param term the term
+   * @return the string
+   */
+  protected String standardize(String term) {
+    return term;
+  }
+
+  /**
+   * Returns the index, creating it if necessary.
+   *
+   * @return the index
+   */
+  public synchronized SearchIndex<T> getIndex() {
+    if (mIndex == null) {
+      SearchIndex<T> index = new SearchIndex<T>();
+
+      index(index);
+
+      mIndex = index;
+    }
+
+    return mIndex;
+  }
+
+  /**
+   * Discard the index so that it is rebuilt the next time the query is run.
+   * Should be called if the documents change.
+   */
+  public synchronized void reindex() {
+    mIndex = null;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.jebtk.core.search.SearchQuery#search(java.util.List)
+   */
+  @Override
+  public Collection<T> search(List<SearchStackElement> search) {
+    return search(search, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the first documents, in the order they were indexed, matching a
+   * query.
+   *
+   * @param search the search
+   * @param limit  the max number of documents to return
+   * @return the list
+   */
+  public List<T> search(String search, int limit) {
+    return search(SearchStackElement.parseQuery(search), limit);
+  }
+
+  /**
+   * Returns the first documents, in the order they were indexed, matching a
+   * query. The limit is applied to the final operation of the query so it
+   * stops merging once enough documents have been found.
+   *
+   * @param search the search
+   * @param limit  the max number of documents to return
+   * @return the list
+   */
+  public List<T> search(List<SearchStackElement> search, int limit) {
+    SearchIndex<T> index = getIndex();
+
+    Deque<Result> tempStack = new ArrayDeque<Result>();
+
+    for (int i = 0; i < search.size(); ++i) {
+      SearchStackElement e = search.get(i);
+
+      // Only the last operation can stop early
+      int l = i == search.size() - 1 ? limit : Integer.MAX_VALUE;
+
+      switch (e.mOp) {
+      case MATCH:
+        tempStack.push(match(index, e.mText));
+        break;
+      case AND:
+        tempStack.push(and(tempStack.pop(), tempStack.pop(), l));
+        break;
+      case OR:
+        tempStack.push(or(tempStack.pop(), tempStack.pop(), l));
+        break;
+      case XOR:
+        tempStack.push(xor(tempStack.pop(), tempStack.pop(), l));
+        break;
+      default:
+        break;
+      }
+    }
+
+    if (tempStack.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Result result = tempStack.pop();
+
+    int[] ids;
+
+    if (result.mNegated) {
+      ids = Postings.not(result.mIds, index.size(), limit);
+    } else if (result.mIds.length > limit) {
+      ids = Arrays.copyOf(result.mIds, limit);
+    } else {
+      ids = result.mIds;
+    }
+
+    return index.getDocs(ids);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.jebtk.core.search.SearchQuery#match(java.lang.String, boolean,
+   * boolean)
+   */
+  @Override
+  public Collection<T> match(String s, boolean exactMatch, boolean include) {
+    SearchIndex<T> index = getIndex();
+
+    int[] ids = match(index, standardize(s), exactMatch);
+
+    if (!include) {
+      ids = Postings.not(ids, index.size(), Integer.MAX_VALUE);
+    }
+
+    return index.getDocs(ids);
+  }
+
+  /**
+   * Look up a query term, which may be quoted for an exact match or prefixed
+   * with a dash to negate it.
+   *
+   * @param index the index
+   * @param text  the text
+   * @return the result
+   */
+  private Result match(SearchIndex<T> index, String text) {
+    boolean exactMatch = quoted(text);
+
+    String keyword;
+
+    if (exactMatch) {
+      keyword = TextUtils.unquote(text);
+    } else {
+      keyword = text;
+    }
+
+    boolean negated = negated(keyword);
+
+    if (negated) {
+      keyword = removeNegation(keyword);
+    }
+
+    return new Result(match(index, standardize(keyword), exactMatch), negated);
+  }
+
+  /**
+   * Returns the ids of the documents matching a term.
+   *
+   * @param index      the index
+   * @param term       the term
+   * @param exactMatch the exact match
+   * @return the int[]
+   */
+  private static int[] match(SearchIndex<?> index, String term, boolean exactMatch) {
+    if (exactMatch) {
+      return index.get(term);
+    } else {
+      return index.contains(term);
+    }
+  }
+
+  /**
+   * And.
+   *
+   * @param r1    the r 1
+   * @param r2    the r 2
+   * @param limit the limit
+   * @return the result
+   */
+  private static Result and(Result r1, Result r2, int limit) {
+    if (r1.mNegated && r2.mNegated) {
+      // not a and not b = not (a or b)
+      return new Result(Postings.or(r1.mIds, r2.mIds, Integer.MAX_VALUE), true);
+    } else if (r1.mNegated) {
+      return new Result(Postings.andNot(r2.mIds, r1.mIds, limit), false);
+    } else if (r2.mNegated) {
+      return new Result(Postings.andNot(r1.mIds, r2.mIds, limit), false);
+    } else {
+      return new Result(Postings.and(r1.mIds, r2.mIds, limit), false);
+    }
+  }
+
+  /**
+   * Or.
+   *
+   * @param r1    the r 1
+   * @param r2    the r 2
+   * @param limit the limit
+   * @return the result
+   */
+  private static Result or(Result r1, Result r2, int limit) {
+    if (r1.mNegated && r2.mNegated) {
+      // not a or not b = not (a and b)
+      return new Result(Postings.and(r1.mIds, r2.mIds, Integer.MAX_VALUE), true);
+    } else if (r1.mNegated) {
+      // not a or b = not (a and not b)
+      return new Result(Postings.andNot(r1.mIds, r2.mIds, Integer.MAX_VALUE), true);
+    } else if (r2.mNegated) {
+      return new Result(Postings.andNot(r2.mIds, r1.mIds, Integer.MAX_VALUE), true);
+    } else {
+      return new Result(Postings.or(r1.mIds, r2.mIds, limit), false);
+    }
+  }
+
+  /**
+   * Xor.
+   *
+   * @param r1    the r 1
+   * @param r2    the r 2
+   * @param limit the limit
+   * @return the result
+   */
+  private static Result xor(Result r1, Result r2, int limit) {
+    // Negating one side negates the result and negating both cancels out
+    boolean negated = r1.mNegated != r2.mNegated;
+
+    return new Result(Postings.xor(r1.mIds, r2.mIds, negated ? Integer.MAX_VALUE : limit), negated);
+  }
+}
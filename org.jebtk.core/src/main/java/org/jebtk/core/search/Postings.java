@@ -0,0 +1,259 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.search;
+
+import java.util.Arrays;
+
+/**
+ * Boolean operations on posting lists, i.e. sorted arrays of unique document
+ * ids. Each operation is a single merge of its inputs and stops once limit ids
+ * have been produced, so the first results of a query can be found without
+ * evaluating it over the whole index.
+ *
+ * @author Antony Holmes
+ */
+public class Postings {
+
+  /** The constant EMPTY. */
+  public static final int[] EMPTY = new int[0];
+
+  /**
+   * Intersections switch from a linear merge to galloping through the larger
+   * list once it is this many times bigger than the smaller.
+   */
+  private static final int GALLOP_RATIO = 8;
+
+  /**
+   * Instantiates a new postings.
+   */
+  private Postings() {
+    // Do nothing
+  }
+
+  /**
+   * Returns the ids in both lists.
+   *
+   * @param a     the a
+   * @param b     the b
+   * @param limit the max number of ids to return
+   * @return the int[]
+   */
+  public static int[] and(int[] a, int[] b, int limit) {
+    if (a.length > b.length) {
+      int[] t = a;
+      a = b;
+      b = t;
+    }
+
+    int[] ret = new int[Math.min(a.length, limit)];
+
+    int n = 0;
+
+    if (b.length / GALLOP_RATIO > a.length) {
+      int j = 0;
+
+      for (int i = 0; i < a.length && n < ret.length; ++i) {
+        j = gallop(b, j, a[i]);
+
+        if (j == b.length) {
+          break;
+        }
+
+        if (b[j] == a[i]) {
+          ret[n++] = a[i];
+        }
+      }
+    } else {
+      int i = 0;
+      int j = 0;
+
+      while (i < a.length && j < b.length && n < ret.length) {
+        if (a[i] < b[j]) {
+          ++i;
+        } else if (a[i] > b[j]) {
+          ++j;
+        } else {
+          ret[n++] = a[i];
+          ++i;
+          ++j;
+        }
+      }
+    }
+
+    return trim(ret, n);
+  }
+
+  /**
+   * Returns the ids in either list.
+   *
+   * @param a     the a
+   * @param b     the b
+   * @param limit the max number of ids to return
+   * @return the int[]
+   */
+  public static int[] or(int[] a, int[] b, int limit) {
+    int[] ret = new int[(int) Math.min((long) a.length + b.length, limit)];
+
+    int n = 0;
+    int i = 0;
+    int j = 0;
+
+    while (n < ret.length && (i < a.length || j < b.length)) {
+      if (j == b.length || (i < a.length && a[i] < b[j])) {
+        ret[n++] = a[i++];
+      } else if (i == a.length || a[i] > b[j]) {
+        ret[n++] = b[j++];
+      } else {
+        ret[n++] = a[i];
+        ++i;
+        ++j;
+      }
+    }
+
+    return trim(ret, n);
+  }
+
+  /**
+   * Returns the ids in a that are not in b.
+   *
+   * @param a     the a
+   * @param b     the b
+   * @param limit the max number of ids to return
+   * @return the int[]
+   */
+  public static int[] andNot(int[] a, int[] b, int limit) {
+    int[] ret = new int[Math.min(a.length, limit)];
+
+    int n = 0;
+    int j = 0;
+
+    for (int i = 0; i < a.length && n < ret.length; ++i) {
+      while (j < b.length && b[j] < a[i]) {
+        ++j;
+      }
+
+      if (j == b.length || b[j] != a[i]) {
+        ret[n++] = a[i];
+      }
+    }
+
+    return trim(ret, n);
+  }
+
+  /**
+   * Returns the ids in exactly one of the lists.
+   *
+   * @param a     the a
+   * @param b     the b
+   * @param limit the max number of ids to return
+   * @return the int[]
+   */
+  public static int[] xor(int[] a, int[] b, int limit) {
+    int[] ret = new int[(int) Math.min((long) a.length + b.length, limit)];
+
+    int n = 0;
+    int i = 0;
+    int j = 0;
+
+    while (n < ret.length && (i < a.length || j < b.length)) {
+      if (j == b.length || (i < a.length && a[i] < b[j])) {
+        ret[n++] = a[i++];
+      } else if (i == a.length || a[i] > b[j]) {
+        ret[n++] = b[j++];
+      } else {
+        ++i;
+        ++j;
+      }
+    }
+
+    return trim(ret, n);
+  }
+
+  /**
+   * Returns the ids from 0 to size - 1 that are not in a list.
+   *
+   * @param a     the a
+   * @param size  the number of documents
+   * @param limit the max number of ids to return
+   * @return the int[]
+   */
+  public static int[] not(int[] a, int size, int limit) {
+    int[] ret = new int[Math.min(size - a.length, limit)];
+
+    int n = 0;
+    int j = 0;
+
+    for (int i = 0; i < size && n < ret.length; ++i) {
+      if (j < a.length && a[j] == i) {
+        ++j;
+      } else {
+        ret[n++] = i;
+      }
+    }
+
+    return trim(ret, n);
+  }
+
+  /**
+   * Returns the index of the first element in a sorted array, at or after a
+   * start index, that is greater than or equal to a value. The step size is
+   * doubled until the value is passed and the last step is then binary
+   * searched, so skipping k elements costs O(log k).
+   *
+   * @param a     the a
+   * @param start the start
+   * @param v     the v
+   * @return the index or a.length if all elements are less than v.
+   */
+  private static int gallop(int[] a, int start, int v) {
+    int lo = start;
+    int step = 1;
+
+    while (lo + step < a.length && a[lo + step] < v) {
+      lo += step;
+      step <<= 1;
+    }
+
+    int hi = Math.min(lo + step, a.length - 1);
+
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+
+      if (a[mid] < v) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+
+    return lo;
+  }
+
+  /**
+   * Trim an array to the number of elements used.
+   *
+   * @param a the a
+   * @param n the n
+   * @return the int[]
+   */
+  private static int[] trim(int[] a, int n) {
+    if (n == 0) {
+      return EMPTY;
+    }
+
+    return n < a.length ? Arrays.copyOf(a, n) : a;
+  }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jebtk.core.collections.IntList;
+
+/**
+ * Inverted index mapping terms to the documents containing them. Documents
+ * are numbered in the order they are added and each term keeps a posting list
+ * of the ids of its documents in ascending order, so queries can be answered
+ * with the merges in {@link Postings} instead of scanning every document.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public class SearchIndex<T> {
+
+  /** The documents indexed by id. */
+  private final List<T> mDocs = new ArrayList<T>();
+
+  /** The posting list of each term. */
+  private final Map<String, IntList> mPostings = new HashMap<String, IntList>();
+
+  /**
+   * Add a document to the index.
+   *
+   * @param doc   the doc
+   * @param terms the terms the document should be found by
+   * @return the id of the document
+   */
+  public int add(T doc, Iterable<String> terms) {
+    int id = mDocs.size();
+
+    mDocs.add(doc);
+
+    for (String term : terms) {
+      IntList posting = mPostings.get(term);
+
+      if (posting == null) {
+        posting = new IntList(4);
+
+        mPostings.put(term, posting);
+      }
+
+      // Documents are added in id order so a repeated term will always be
+      // at the end of the list
+      if (posting.size() == 0 || posting.getInt(posting.size() - 1) != id) {
+        posting.add(id);
+      }
+    }
+
+    return id;
+  }
+
+  /**
+   * Add a document to the index.
+   *
+   * @param doc   the doc
+   * @param terms the terms
+   * @return the id of the document
+   */
+  public int add(T doc, String... terms) {
+    return add(doc, Arrays.asList(terms));
+  }
+
+  /**
+   * Returns the ids of the documents containing a term. The returned array is
+   * shared with the index and must not be modified.
+   *
+   * @param term the term
+   * @return the ids in ascending order.
+   */
+  public int[] get(String term) {
+    IntList posting = mPostings.get(term);
+
+    if (posting == null) {
+      return Postings.EMPTY;
+    }
+
+    posting.trimToSize();
+
+    return posting.getArray();
+  }
+
+  /**
+   * Returns the ids of the documents containing any term that contains a
+   * string.
+   *
+   * @param s the s
+   * @return the ids in ascending order.
+   */
+  public int[] contains(String s) {
+    BitSet ids = null;
+
+    int[] single = Postings.EMPTY;
+
+    for (Entry<String, IntList> e : mPostings.entrySet()) {
+      if (!e.getKey().contains(s)) {
+        continue;
+      }
+
+      IntList posting = e.getValue();
+
+      if (single.length == 0 && ids == null) {
+        // Most searches match a single term so avoid the bit set unless
+        // a second term is found
+        single = get(e.getKey());
+      } else {
+        if (ids == null) {
+          ids = new BitSet(mDocs.size());
+
+          set(single, single.length, ids);
+        }
+
+        set(posting.getArray(), posting.size(), ids);
+      }
+    }
+
+    if (ids == null) {
+      return single;
+    }
+
+    int[] ret = new int[ids.cardinality()];
+
+    int n = 0;
+
+    for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+      ret[n++] = i;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the document with a given id.
+   *
+   * @param id the id
+   * @return the t
+   */
+  public T getDoc(int id) {
+    return mDocs.get(id);
+  }
+
+  /**
+   * Returns the documents with the given ids.
+   *
+   * @param ids the ids
+   * @return the docs
+   */
+  public List<T> getDocs(int[] ids) {
+    List<T> ret = new ArrayList<T>(ids.length);
+
+    for (int id : ids) {
+      ret.add(mDocs.get(id));
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the number of documents in the index.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mDocs.size();
+  }
+
+  /**
+   * Returns the number of distinct terms in the index.
+   *
+   * @return the int
+   */
+  public int getTermCount() {
+    return mPostings.size();
+  }
+
+  /**
+   * Remove all documents from the index.
+   */
+  public void clear() {
+    mDocs.clear();
+    mPostings.clear();
+  }
+
+  /**
+   * Set the bits of the ids in a posting list.
+   *
+   * @param ids  the ids
+   * @param size the number of ids
+   * @param bits the bits
+   */
+  private static void set(int[] ids, int size, BitSet bits) {
+    for (int i = 0; i < size; ++i) {
+      bits.set(ids[i]);
+    }
+  }
+}
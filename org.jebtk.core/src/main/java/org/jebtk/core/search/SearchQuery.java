@@ -60,7 +60,7 @@ public abstract class SearchQuery<T> {
         }
 
         // Get all samples matched to those keywords for the tag.
-        tempStack.push(match(keyword, exactMatch, negated));
+        tempStack.push(match(keyword, exactMatch, !negated));
 
         break;
       case AND:
@@ -107,7 +107,7 @@ public abstract class SearchQuery<T> {
    * @param keyword the keyword
    * @return true, if successful
    */
-  private static boolean quoted(String keyword) {
+  protected static boolean quoted(String keyword) {
     return keyword.charAt(0) == '"';
   }
 
@@ -118,11 +118,11 @@ public abstract class SearchQuery<T> {
    * @param keyword the keyword
    * @return true, if successful
    */
-  private static boolean negated(String keyword) {
+  protected static boolean negated(String keyword) {
     return keyword.charAt(0) == '-';
   }
 
-  private static String removeNegation(String keyword) {
+  protected static String removeNegation(String keyword) {
     return keyword.substring(1);
   }
 }
@@ -1,10 +1,14 @@
 package org.jebtk.core.search;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
-public class TextSearchQuery extends SearchQuery<String> {
+/**
+ * Searches a collection of strings. Exact (quoted) terms match whole strings
+ * and other terms match strings containing them. The strings are indexed the
+ * first time the query is run, so {@link #reindex()} should be called if the
+ * collection changes afterwards.
+ */
+public class TextSearchQuery extends IndexedSearchQuery<String> {
 
   private boolean mCaseSens = false;
   private Collection<String> mSearches;
@@ -14,50 +18,28 @@ public class TextSearchQuery extends SearchQuery<String> {
   }
 
   public TextSearchQuery setCaseSens(boolean sens) {
-    mCaseSens = sens;
+    if (sens != mCaseSens) {
+      mCaseSens = sens;
+
+      reindex();
+    }
 
     return this;
   }
 
   @Override
-  public Collection<String> match(String s, boolean exact, boolean include) {
-    String ls;
+  protected void index(SearchIndex<String> index) {
+    for (String t : mSearches) {
+      index.add(t, standardize(t));
+    }
+  }
 
+  @Override
+  protected String standardize(String s) {
     if (mCaseSens) {
-      ls = s;
+      return s;
     } else {
-      ls = s.toLowerCase();
+      return s.toLowerCase();
     }
-
-    List<String> ret = new ArrayList<String>(mSearches.size());
-
-    for (String t : mSearches) {
-      boolean found = false;
-
-      if (exact) {
-        if (mCaseSens) {
-          found = t.equals(ls);
-        } else {
-          found = t.toLowerCase().equals(ls);
-        }
-      } else {
-        if (mCaseSens) {
-          found = t.contains(ls);
-        } else {
-          found = t.toLowerCase().contains(ls);
-        }
-      }
-
-      if (!include) {
-        found = !found;
-      }
-
-      if (found) {
-        ret.add(t);
-      }
-    }
-
-    return ret;
   }
-
 }
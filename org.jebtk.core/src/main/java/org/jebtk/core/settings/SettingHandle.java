@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.settings;
+
+import java.awt.Color;
+
+import org.jebtk.core.path.Path;
+import org.jebtk.core.text.TextUtils;
+
+/**
+ * A resolved reference to a setting. Handles are obtained once from
+ * {@link Settings#getHandle(String)} and always see the current value of the
+ * setting, so code that reads a setting repeatedly can keep the handle rather
+ * than looking the setting up by name each time. Reading a handle does not
+ * lock or allocate.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class SettingHandle {
+
+  /** The m path. */
+  private final Path mPath;
+
+  /** The current setting or null if the setting does not exist. */
+  private volatile Setting mSetting = null;
+
+  /**
+   * Instantiates a new setting handle.
+   *
+   * @param path the path
+   */
+  SettingHandle(Path path) {
+    mPath = path;
+  }
+
+  /**
+   * Sets the setting. Called by {@link Settings} when the setting changes.
+   *
+   * @param setting the setting
+   */
+  void setSetting(Setting setting) {
+    mSetting = setting;
+  }
+
+  /**
+   * Gets the path.
+   *
+   * @return the path
+   */
+  public Path getPath() {
+    return mPath;
+  }
+
+  /**
+   * Gets the current setting.
+   *
+   * @return the setting or null if it does not exist.
+   */
+  public Setting getSetting() {
+    return mSetting;
+  }
+
+  /**
+   * Returns true if the setting exists.
+   *
+   * @return true, if successful
+   */
+  public boolean exists() {
+    return mSetting != null;
+  }
+
+  /**
+   * Gets the as int.
+   *
+   * @return the as int
+   */
+  public int getInt() {
+    return mSetting.getInt();
+  }
+
+  /**
+   * Gets the as long.
+   *
+   * @return the as long
+   */
+  public long getLong() {
+    return mSetting.getLong();
+  }
+
+  /**
+   * Gets the as double.
+   *
+   * @return the as double
+   */
+  public double getDouble() {
+    return mSetting.getDouble();
+  }
+
+  /**
+   * Gets the as bool.
+   *
+   * @return the as bool
+   */
+  public boolean getBool() {
+    Setting setting = mSetting;
+
+    return setting != null && setting.getBool();
+  }
+
+  /**
+   * Gets the as string.
+   *
+   * @return the as string
+   */
+  public String getString() {
+    Setting setting = mSetting;
+
+    return setting != null ? setting.getString() : TextUtils.EMPTY_STRING;
+  }
+
+  /**
+   * Gets the as color.
+   *
+   * @return the as color
+   */
+  public Color getColor() {
+    return mSetting.getColor();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return mPath + "=" + mSetting;
+  }
+}
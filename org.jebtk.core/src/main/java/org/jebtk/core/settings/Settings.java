@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -34,8 +37,6 @@ import javax.xml.transform.TransformerException;
 
 import org.jebtk.core.Resources;
 import org.jebtk.core.collections.CollectionUtils;
-import org.jebtk.core.collections.DefaultHashMap;
-import org.jebtk.core.collections.EntryCreator;
 import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.core.io.FileUtils;
 import org.jebtk.core.io.Io;
@@ -64,6 +65,11 @@ import org.xml.sax.helpers.DefaultHandler;
  * res folders in the class path. It will then attempt to load user.settings.xml
  * from the res folder in the application directory. This allows users to alter
  * settings if they need to.
+ * 
+ * Reads do not lock. The current value of each setting is published through a
+ * {@link SettingHandle} when it is written, and setting names are parsed into
+ * paths once and cached, so looking up a setting by name does not allocate.
+ * Writes are serialized and still fire change events.
  *
  * @author Antony Holmes
  *
@@ -78,11 +84,20 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    */
   protected final Logger LOG = LoggerFactory.getLogger(Settings.class);
 
+  /** Maximum number of setting names whose parsed paths are cached. */
+  private static final int MAX_PATH_CACHE_SIZE = 4096;
+
   /**
-   * The member settings.
+   * The member settings. Guarded by this.
    */
   protected Map<Path, SettingsHistory> mSettings; // <Path, Setting>();
 
+  /** The current value of each setting. */
+  private final Map<Path, SettingHandle> mHandles = new ConcurrentHashMap<Path, SettingHandle>();
+
+  /** Parsed paths keyed by the setting name they were created from. */
+  private final Map<String, Path> mPathCache = new ConcurrentHashMap<String, Path>();
+
   /** The m update map. */
   // protected Map<Path, Boolean> mUpdateMap = new HashMap<Path, Boolean>();
 
@@ -164,12 +179,30 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * Instantiates a new settings.
    */
   public Settings() {
-    mSettings = DefaultHashMap.create(new EntryCreator<SettingsHistory>() {
-      @Override
-      public SettingsHistory newEntry() {
-        return new SettingsHistory();
+    mSettings = new HashMap<Path, SettingsHistory>();
+  }
+
+  /**
+   * Returns the path of a setting name. Names are parsed once and the path
+   * is reused on subsequent lookups.
+   *
+   * @param name the name
+   * @return the path
+   */
+  protected Path path(String name) {
+    Path path = mPathCache.get(name);
+
+    if (path == null) {
+      path = new StrictPath(name);
+
+      // Names are normally string literals, but stop caching if callers
+      // generate them so the cache cannot grow without bound
+      if (mPathCache.size() < MAX_PATH_CACHE_SIZE) {
+        mPathCache.put(name, path);
       }
-    });
+    }
+
+    return path;
   }
 
   /**
@@ -209,7 +242,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param value the value
    */
   public void update(String path, String value) {
-    update(new StrictPath(path), value);
+    update(path(path), value);
   }
 
   /**
@@ -358,6 +391,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
 
     settings.add(setting, updated);
 
+    handle(path).setSetting(settings.current());
+
     LOG.info("Update settings {}:{}...", path, setting);
 
     /*
@@ -376,7 +411,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param path the path
    */
   public void resetToDefault(String path) {
-    resetToDefault(new StrictPath(path));
+    resetToDefault(path(path));
   }
 
   /**
@@ -384,10 +419,16 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    *
    * @param path the path
    */
-  public void resetToDefault(Path path) {
-    SettingsHistory settings = getSettings(path);
+  public synchronized void resetToDefault(Path path) {
+    SettingsHistory settings = mSettings.get(path);
+
+    if (settings == null || settings.size() == 0) {
+      return;
+    }
 
     settings.resetToDefault();
+
+    handle(path).setSetting(settings.current());
   }
 
   /*
@@ -428,8 +469,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the setting
    */
-  public synchronized Setting getSetting(String name) {
-    return getSetting(new StrictPath(name));
+  public Setting getSetting(String name) {
+    return getSetting(path(name));
   }
 
   /**
@@ -438,17 +479,60 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param path the path
    * @return the setting
    */
-  public synchronized Setting getSetting(Path path) {
-    SettingsHistory history = getSettings(path);
+  public Setting getSetting(Path path) {
+    SettingHandle handle = mHandles.get(path);
 
-    if (history.size() > 0) {
-      return history.current();
-    } else {
+    Setting setting = handle != null ? handle.getSetting() : null;
+
+    if (setting == null) {
       LOG.error("Please ensure setting {} exists.", path);
+    }
 
-      return null;
+    return setting;
+  }
+
+  /**
+   * Returns a handle to a setting that can be kept and read repeatedly
+   * without looking the setting up again. The setting does not need to exist
+   * yet; the handle will see it once it is added.
+   *
+   * @param name the name
+   * @return the handle
+   */
+  public SettingHandle getHandle(String name) {
+    return getHandle(path(name));
+  }
+
+  /**
+   * Returns a handle to a setting.
+   *
+   * @param path the path
+   * @return the handle
+   */
+  public SettingHandle getHandle(Path path) {
+    return handle(path);
+  }
+
+  /**
+   * Returns the handle of a path, creating it if necessary.
+   *
+   * @param path the path
+   * @return the setting handle
+   */
+  private SettingHandle handle(Path path) {
+    SettingHandle handle = mHandles.get(path);
+
+    if (handle == null) {
+      SettingHandle newHandle = new SettingHandle(path);
+
+      handle = mHandles.putIfAbsent(path, newHandle);
+
+      if (handle == null) {
+        handle = newHandle;
+      }
     }
 
+    return handle;
   }
 
   /**
@@ -458,7 +542,14 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @return the settings
    */
   public synchronized SettingsHistory getSettings(Path path) {
-    return mSettings.get(path);
+    SettingsHistory history = mSettings.get(path);
+
+    if (history == null) {
+      history = new SettingsHistory();
+      mSettings.put(path, history);
+    }
+
+    return history;
   }
 
   /**
@@ -467,8 +558,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param path the path
    * @return true, if successful
    */
-  public synchronized boolean contains(String path) {
-    return contains(new StrictPath(path));
+  public boolean contains(String path) {
+    return contains(path(path));
   }
 
   /**
@@ -477,8 +568,10 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param path the path
    * @return true, if successful
    */
-  public synchronized boolean contains(Path path) {
-    return mSettings.containsKey(path);
+  public boolean contains(Path path) {
+    SettingHandle handle = mHandles.get(path);
+
+    return handle != null && handle.exists();
   }
 
   /**
@@ -490,7 +583,9 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
   public synchronized boolean isUpdated(Path path) {
     // if a user has updated a setting, the size will be greater than 1
     // since we log changes to settings.
-    return mSettings.get(path).size() > 1;
+    SettingsHistory history = mSettings.get(path);
+
+    return history != null && history.size() > 1;
   }
 
   /**
@@ -499,8 +594,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as int
    */
-  public synchronized int getInt(String name) {
-    return getSetting(name).getInt();
+  public int getInt(String name) {
+    return getSetting(path(name)).getInt();
   }
 
   /**
@@ -509,7 +604,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as int
    */
-  public synchronized int getInt(Path name) {
+  public int getInt(Path name) {
     return getSetting(name).getInt();
   }
 
@@ -519,8 +614,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as double
    */
-  public synchronized double getDouble(String name) {
-    return getSetting(name).getDouble();
+  public double getDouble(String name) {
+    return getSetting(path(name)).getDouble();
   }
 
   /**
@@ -529,20 +624,26 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as double
    */
-  public synchronized double getDouble(Path name) {
+  public double getDouble(Path name) {
     return getSetting(name).getDouble();
   }
 
-  public synchronized double getDouble(String name, double defaultValue) {
-    return getDouble(new StrictPath(name), defaultValue);
+  public double getDouble(String name, double defaultValue) {
+    return getDouble(path(name), defaultValue);
   }
 
-  public synchronized double getDouble(Path name, double defaultValue) {
-    if (!contains(name)) {
-      set(name, defaultValue);
+  public double getDouble(Path name, double defaultValue) {
+    SettingHandle handle = getHandle(name);
+
+    if (!handle.exists()) {
+      synchronized (this) {
+        if (!handle.exists()) {
+          set(name, defaultValue);
+        }
+      }
     }
 
-    return getSetting(name).getDouble();
+    return handle.getDouble();
   }
 
   /**
@@ -551,8 +652,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as bool
    */
-  public synchronized boolean getBool(String name) {
-    Setting setting = getSetting(name);
+  public boolean getBool(String name) {
+    Setting setting = getSetting(path(name));
 
     if (setting != null) {
       return setting.getBool();
@@ -567,7 +668,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as bool
    */
-  public synchronized boolean getBool(Path name) {
+  public boolean getBool(Path name) {
     Setting setting = getSetting(name);
 
     if (setting != null) {
@@ -584,8 +685,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param defaultValue the default value
    * @return the as bool
    */
-  public synchronized boolean getBool(String name, boolean defaultValue) {
-    return getBool(new StrictPath(name), defaultValue);
+  public boolean getBool(String name, boolean defaultValue) {
+    return getBool(path(name), defaultValue);
   }
 
   /**
@@ -595,12 +696,18 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param defaultValue the default value
    * @return the as bool
    */
-  public synchronized boolean getBool(Path name, boolean defaultValue) {
-    if (!contains(name)) {
-      set(name, defaultValue);
+  public boolean getBool(Path name, boolean defaultValue) {
+    SettingHandle handle = getHandle(name);
+
+    if (!handle.exists()) {
+      synchronized (this) {
+        if (!handle.exists()) {
+          set(name, defaultValue);
+        }
+      }
     }
 
-    return getSetting(name).getBool();
+    return handle.getBool();
   }
 
   /**
@@ -609,8 +716,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as string
    */
-  public synchronized String getString(String name) {
-    return getString(new StrictPath(name));
+  public String getString(String name) {
+    return getString(path(name));
   }
 
   /**
@@ -619,7 +726,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as string
    */
-  public synchronized String getString(Path name) {
+  public String getString(Path name) {
     Setting setting = getSetting(name);
 
     if (setting != null) {
@@ -635,8 +742,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as color
    */
-  public synchronized Color getColor(String name) {
-    return getSetting(name).getColor();
+  public Color getColor(String name) {
+    return getSetting(path(name)).getColor();
   }
 
   /**
@@ -645,7 +752,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as color
    */
-  public synchronized Color getColor(Path name) {
+  public Color getColor(Path name) {
     return getSetting(name).getColor();
   }
 
@@ -655,8 +762,8 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as url
    */
-  public synchronized URL getUrl(String name) {
-    return getSetting(name).getUrl();
+  public URL getUrl(String name) {
+    return getSetting(path(name)).getUrl();
   }
 
   /**
@@ -665,7 +772,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @param name the name
    * @return the as url
    */
-  public synchronized URL getUrl(Path name) {
+  public URL getUrl(Path name) {
     return getSetting(name).getUrl();
   }
 
@@ -676,7 +783,7 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    * @return the as file
    */
   public java.nio.file.Path getFile(String name) {
-    return getSetting(name).getFile();
+    return getSetting(path(name)).getFile();
   }
 
   /**
@@ -696,7 +803,19 @@ public class Settings extends ChangeListeners implements Iterable<Path>, XmlRepr
    */
   @Override
   public Iterator<Path> iterator() {
-    return CollectionUtils.sort(mSettings.keySet()).iterator();
+    List<Path> paths;
+
+    synchronized (this) {
+      paths = new ArrayList<Path>(mSettings.size());
+
+      for (Map.Entry<Path, SettingsHistory> e : mSettings.entrySet()) {
+        if (e.getValue().size() > 0) {
+          paths.add(e.getKey());
+        }
+      }
+    }
+
+    return CollectionUtils.sort(paths).iterator();
   }
 
   /**
@@ -70,6 +70,9 @@ public class SettingsService extends Settings {
    */
   private boolean mAutoLoad = true;
 
+  /** Set once the settings have been loaded so reads can skip the lock. */
+  private volatile boolean mLoaded = false;
+
   /** The m auto save. */
   private boolean mAutoSave = true;
 
@@ -115,7 +118,7 @@ public class SettingsService extends Settings {
    * @return the setting
    */
   @Override
-  public synchronized Setting getSetting(Path path) {
+  public Setting getSetting(Path path) {
     try {
       autoLoad();
     } catch (Exception e) {
@@ -125,6 +128,18 @@ public class SettingsService extends Settings {
     return super.getSetting(path);
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.settings.Settings#getHandle(org.jebtk.core.path.Path)
+   */
+  @Override
+  public SettingHandle getHandle(Path path) {
+    autoLoad();
+
+    return super.getHandle(path);
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -140,19 +155,46 @@ public class SettingsService extends Settings {
   /**
    * Attempt to find all settings files and load them.
    */
-  private synchronized void autoLoad() {
-    if (mAutoLoad) {
-      // Set this here to stop recursive infinite calling
-      // of this method.
-      mAutoLoad = false;
-
-      // autoLoadXml();
-      // autoLoadJson();
+  private void autoLoad() {
+    if (mLoaded) {
+      return;
+    }
 
-      load();
+    synchronized (this) {
+      if (mAutoLoad) {
+        // Set this here to stop recursive infinite calling
+        // of this method.
+        mAutoLoad = false;
+
+        // autoLoadXml();
+        // autoLoadJson();
+
+        try {
+          load();
+        } finally {
+          // Only publish once loading has finished so other threads wait
+          // for the complete settings rather than reading a partial set
+          mLoaded = true;
+        }
+      }
     }
   }
 
+  /**
+   * Sets whether settings are loaded from the settings files the first time
+   * they are read. Turning auto loading off means reads no longer need to
+   * wait for a load and only see settings that are added explicitly.
+   * Turning it back on loads the settings files again on the next read.
+   *
+   * @param autoLoad the new auto load
+   */
+  public synchronized void setAutoLoad(boolean autoLoad) {
+    mAutoLoad = autoLoad;
+
+    // Reads only need the lock while a load is pending
+    mLoaded = !autoLoad;
+  }
+
   /**
    * Load.
    */
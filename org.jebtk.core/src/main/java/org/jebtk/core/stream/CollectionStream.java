@@ -18,6 +18,7 @@ package org.jebtk.core.stream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * The Class BaseStream encapulates an initial collection with the intent of
@@ -30,6 +31,9 @@ public class CollectionStream<T> extends IteratorStream<T> {
   /** The m items. */
   private Collection<T> mItems;
 
+  /** The number of items consumed. */
+  private int mPc = 0;
+
   /**
    * Instantiates a new base stream.
    *
@@ -48,7 +52,56 @@ public class CollectionStream<T> extends IteratorStream<T> {
    */
   @Override
   public List<T> toList() {
-    return new ArrayList<T>(mItems);
+    if (mPc == 0) {
+      return new ArrayList<T>(mItems);
+    } else {
+      return super.toList();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.IteratorStream#next()
+   */
+  @Override
+  public T next() {
+    T ret = super.next();
+
+    ++mPc;
+
+    return ret;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<T> source() {
+    final List<T> list;
+
+    if (mItems instanceof List && mItems instanceof RandomAccess) {
+      list = (List<T>) mItems;
+    } else {
+      // Copy collections that cannot be indexed efficiently
+      list = new ArrayList<T>(mItems);
+    }
+
+    final int offset = mPc;
+
+    return new StreamSource<T>() {
+      @Override
+      public int size() {
+        return list.size() - offset;
+      }
+
+      @Override
+      public T get(int index) {
+        return list.get(offset + index);
+      }
+    };
   }
 
   /*
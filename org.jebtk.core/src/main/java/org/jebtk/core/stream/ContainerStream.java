@@ -15,6 +15,8 @@
  */
 package org.jebtk.core.stream;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Holds a reference to an existing stream.
  *
@@ -64,4 +66,14 @@ public class ContainerStream<T> extends Stream<T> {
   public int size() {
     return mStream.size();
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#getPool()
+   */
+  @Override
+  protected ForkJoinPool getPool() {
+    return mStream.getPool();
+  }
 }
@@ -42,7 +42,7 @@ public class DoubleArrayStream extends Stream<Double> {
    */
   @Override
   public boolean hasNext() {
-    return mPc < mArray.length - 1;
+    return mPc < mArray.length;
   }
 
   /*
@@ -64,4 +64,26 @@ public class DoubleArrayStream extends Stream<Double> {
   public int size() {
     return mArray.length;
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<Double> source() {
+    final int offset = mPc;
+
+    return new StreamSource<Double>() {
+      @Override
+      public int size() {
+        return mArray.length - offset;
+      }
+
+      @Override
+      public Double get(int index) {
+        return mArray[offset + index];
+      }
+    };
+  }
 }
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.stream;
+
+/**
+ * Combines two doubles into one without boxing, for use with
+ * {@link DoubleStream}.
+ *
+ * @author Antony Holmes
+ */
+public interface DoubleCombiner {
+
+  /**
+   * Combine two values.
+   *
+   * @param a the a
+   * @param b the b
+   * @return the double
+   */
+  public double combine(double a, double b);
+}
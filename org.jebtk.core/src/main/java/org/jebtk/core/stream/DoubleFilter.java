@@ -0,0 +1,32 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.stream;
+
+/**
+ * Decides whether doubles are kept in a {@link DoubleStream}.
+ *
+ * @author Antony Holmes
+ */
+public interface DoubleFilter {
+
+  /**
+   * Returns true if the value should be kept.
+   *
+   * @param v the v
+   * @return true, if successful
+   */
+  public boolean keep(double v);
+}
@@ -15,93 +15,162 @@
  */
 package org.jebtk.core.stream;
 
-import org.jebtk.core.Function;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
 import org.jebtk.core.Mathematics;
+import org.jebtk.core.collections.DoubleList;
 
 /**
  * The Class DoubleStream is a wrapper for a generic Stream<Double> providing
- * extra numerical functions.
+ * extra numerical functions. The primitive methods such as
+ * {@link #nextDouble()}, {@link #mapDouble} and {@link #sum()} do not box
+ * values. Primitive maps and filters are fused into a single chain that values
+ * are pushed through, so a stream created from an array reduces to a loop over
+ * the array.
  */
 public class DoubleStream extends NumberStream<Double> {
 
   /**
-   * The Class MinFunction.
+   * Receives the values of a stream.
    */
-  private static class MinFunction implements ReduceFunction<Double, Double> {
+  private interface DoubleSink {
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /**
+     * Accept.
+     *
+     * @param v the v
      */
-    @Override
-    public Double apply(Stream<Double> stream) {
-      double min = Double.MAX_VALUE;
+    void accept(double v);
+  }
 
-      while (stream.hasNext()) {
-        double v = stream.next().doubleValue();
+  /**
+   * A primitive map or filter. Stages form a linked list ending at the most
+   * recently added.
+   */
+  private abstract static class DoubleOp {
 
-        if (v < min) {
-          min = v;
-        }
-      }
+    /** The m prev. */
+    protected final DoubleOp mPrev;
 
-      return min;
+    /**
+     * Instantiates a new double op.
+     *
+     * @param prev the prev
+     */
+    public DoubleOp(DoubleOp prev) {
+      mPrev = prev;
     }
+
+    /**
+     * Returns a sink that applies this stage and passes the result on.
+     *
+     * @param sink the sink
+     * @return the double sink
+     */
+    public abstract DoubleSink wrap(DoubleSink sink);
   }
 
   /**
-   * The Class MaxFunction.
+   * The Class MapOp.
    */
-  private static class MaxFunction implements ReduceFunction<Double, Double> {
+  private static class MapOp extends DoubleOp {
+
+    /** The m F. */
+    private final DoubleUnaryFunction mF;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /**
+     * Instantiates a new map op.
+     *
+     * @param prev the prev
+     * @param f    the f
      */
-    @Override
-    public Double apply(Stream<Double> stream) {
-      double max = stream.next();
+    public MapOp(DoubleOp prev, DoubleUnaryFunction f) {
+      super(prev);
 
-      while (stream.hasNext()) {
-        double v = stream.next();
+      mF = f;
+    }
 
-        if (v > max) {
-          max = v;
+    @Override
+    public DoubleSink wrap(final DoubleSink sink) {
+      return new DoubleSink() {
+        @Override
+        public void accept(double v) {
+          sink.accept(mF.apply(v));
         }
-      }
-
-      return max;
+      };
     }
   }
 
   /**
-   * The Class SumFunction.
+   * The Class FilterOp.
    */
-  private static class SumFunction implements DoubleReduceFunction<Double> {
+  private static class FilterOp extends DoubleOp {
+
+    /** The m filter. */
+    private final DoubleFilter mFilter;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /**
+     * Instantiates a new filter op.
+     *
+     * @param prev   the prev
+     * @param filter the filter
      */
+    public FilterOp(DoubleOp prev, DoubleFilter filter) {
+      super(prev);
+
+      mFilter = filter;
+    }
+
+    @Override
+    public DoubleSink wrap(final DoubleSink sink) {
+      return new DoubleSink() {
+        @Override
+        public void accept(double v) {
+          if (mFilter.keep(v)) {
+            sink.accept(v);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Collects count, sum, min and max in one pass.
+   */
+  private static class SummarySink implements DoubleSink {
+
+    /** The m count. */
+    int mCount = 0;
+
+    /** The m sum. */
+    double mSum = 0;
+
+    /** The m min. */
+    double mMin = Double.MAX_VALUE;
+
+    /** The m max. */
+    double mMax = -Double.MAX_VALUE;
+
     @Override
-    public Double apply(Stream<Double> stream) {
-      double sum = 0;
+    public void accept(double v) {
+      ++mCount;
+      mSum += v;
 
-      while (stream.hasNext()) {
-        sum += stream.next();
+      if (v < mMin) {
+        mMin = v;
       }
 
-      return sum;
+      if (v > mMax) {
+        mMax = v;
+      }
     }
   }
 
   /**
    * The Class RoundFunction.
    */
-  private static class RoundFunction implements Function<Double, Double> {
+  private static class RoundFunction implements DoubleUnaryFunction {
 
     /** The m places. */
     private int mPlaces;
@@ -115,13 +184,8 @@ public class DoubleStream extends NumberStream<Double> {
       mPlaces = places;
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
-     */
     @Override
-    public Double apply(Double v) {
+    public double apply(double v) {
       return Mathematics.round(v, mPlaces);
     }
   }
@@ -129,13 +193,13 @@ public class DoubleStream extends NumberStream<Double> {
   /**
    * The Class MultiplyFunction.
    */
-  private static class MultiplyFunction implements Function<Double, Double> {
+  private static class MultiplyFunction implements DoubleUnaryFunction {
 
-    /** The m places. */
+    /** The m V. */
     private double mV;
 
     /**
-     * Instantiates a new round function.
+     * Instantiates a new multiply function.
      *
      * @param v the v
      */
@@ -143,80 +207,440 @@ public class DoubleStream extends NumberStream<Double> {
       mV = v;
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
-     */
     @Override
-    public Double apply(Double v) {
+    public double apply(double v) {
       return v * mV;
     }
   }
 
+  /** The array of an array backed stream or null. */
+  private final double[] mArray;
+
+  /** The position in the array. */
+  private int mPc;
+
+  /** The end of the array range. */
+  private final int mEnd;
+
+  /** The primitive stages or null if there are none. */
+  private final DoubleOp mOps;
+
+  /** The stages feeding {@link #mNext}, created on first use. */
+  private DoubleSink mCursor = null;
+
+  /** Whether {@link #mNext} holds a value. */
+  private boolean mHasNext = false;
+
+  /** The next value found by {@link #hasNext()}. */
+  private double mNext;
+
   /**
    * Instantiates a new double stream.
    *
    * @param stream the stream
    */
   public DoubleStream(Stream<Double> stream) {
+    this(stream, null, 0, 0, null);
+  }
+
+  /**
+   * Instantiates a new double stream over an array.
+   *
+   * @param values the values
+   */
+  public DoubleStream(double... values) {
+    this(values, 0, values.length);
+  }
+
+  /**
+   * Instantiates a new double stream over part of an array.
+   *
+   * @param values the values
+   * @param start  the start
+   * @param end    the end (exclusive)
+   */
+  public DoubleStream(double[] values, int start, int end) {
+    this(null, values, start, end, null);
+  }
+
+  /**
+   * Instantiates a new double stream.
+   *
+   * @param stream the stream
+   * @param array  the array
+   * @param start  the start
+   * @param end    the end
+   * @param ops    the ops
+   */
+  private DoubleStream(Stream<Double> stream, double[] array, int start, int end, DoubleOp ops) {
     super(stream);
+
+    mArray = array;
+    mPc = start;
+    mEnd = end;
+    mOps = ops;
   }
 
   /**
-   * Sum.
+   * Returns a stream with an extra stage reading from the same source.
+   *
+   * @param op the op
+   * @return the double stream
+   */
+  private DoubleStream append(DoubleOp op) {
+    return new DoubleStream(mStream, mArray, mPc, mEnd, op);
+  }
+
+  /**
+   * Map each value to another double.
+   *
+   * @param f the f
+   * @return the double stream
+   */
+  public DoubleStream mapDouble(DoubleUnaryFunction f) {
+    if (mHasNext) {
+      // A value has already been read so wrap this stream
+      return new DoubleStream(this).mapDouble(f);
+    }
+
+    return append(new MapOp(mOps, f));
+  }
+
+  /**
+   * Keep only the values accepted by a filter.
+   *
+   * @param filter the filter
+   * @return the double stream
+   */
+  public DoubleStream filterDouble(DoubleFilter filter) {
+    if (mHasNext) {
+      return new DoubleStream(this).filterDouble(filter);
+    }
+
+    return append(new FilterOp(mOps, filter));
+  }
+
+  /**
+   * Apply the stages to a sink.
+   *
+   * @param sink the sink
+   * @return the double sink
+   */
+  private DoubleSink wrap(DoubleSink sink) {
+    for (DoubleOp op = mOps; op != null; op = op.mPrev) {
+      sink = op.wrap(sink);
+    }
+
+    return sink;
+  }
+
+  /**
+   * Push every remaining value through the stages into a sink. This consumes
+   * the stream.
+   *
+   * @param sink the sink
+   */
+  private void drain(DoubleSink sink) {
+    if (mHasNext) {
+      mHasNext = false;
+      sink.accept(mNext);
+    }
+
+    DoubleSink s = wrap(sink);
+
+    if (mArray != null) {
+      double[] a = mArray;
+      int end = mEnd;
+
+      for (int i = mPc; i < end; ++i) {
+        s.accept(a[i]);
+      }
+
+      mPc = end;
+    } else {
+      while (mStream.hasNext()) {
+        Double v = mStream.next();
+
+        if (v != null) {
+          s.accept(v);
+        }
+      }
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    if (mHasNext) {
+      return true;
+    }
+
+    if (mCursor == null) {
+      mCursor = wrap(new DoubleSink() {
+        @Override
+        public void accept(double v) {
+          mNext = v;
+          mHasNext = true;
+        }
+      });
+    }
+
+    if (mArray != null) {
+      while (!mHasNext && mPc < mEnd) {
+        mCursor.accept(mArray[mPc++]);
+      }
+    } else {
+      while (!mHasNext && mStream.hasNext()) {
+        Double v = mStream.next();
+
+        if (v != null) {
+          mCursor.accept(v);
+        }
+      }
+    }
+
+    return mHasNext;
+  }
+
+  /**
+   * Returns the next value without boxing.
    *
    * @return the double
    */
-  public double sum() {
-    return reduce(new SumFunction());
+  public double nextDouble() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    mHasNext = false;
+
+    return mNext;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#next()
+   */
+  @Override
+  public Double next() {
+    return nextDouble();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#size()
+   */
+  @Override
+  public int size() {
+    if (mOps != null) {
+      return -1;
+    }
+
+    if (mArray != null) {
+      return mEnd - mPc + (mHasNext ? 1 : 0);
+    }
+
+    return super.size();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<Double> source() {
+    if (mOps != null || mHasNext) {
+      return null;
+    }
+
+    if (mArray != null) {
+      final int start = mPc;
+
+      return new StreamSource<Double>() {
+        @Override
+        public int size() {
+          return mEnd - start;
+        }
+
+        @Override
+        public Double get(int index) {
+          return mArray[start + index];
+        }
+      };
+    }
+
+    return super.source();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#getPool()
+   */
+  @Override
+  protected ForkJoinPool getPool() {
+    return mStream != null ? super.getPool() : null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#asDouble()
+   */
+  @Override
+  public DoubleStream asDouble() {
+    return this;
   }
 
   /**
-   * Min.
+   * Sum.
    *
-   * @param places the places
    * @return the double
    */
-  // public double min() {
-  // return reduce(new MinFunction<Double>());
-  // }
+  public double sum() {
+    return summary().mSum;
+  }
 
   /**
-   * Rounds the numbers in the stream to a given number of decimal places.
+   * Round.
    *
    * @param places the places
-   * @return the stream
+   * @return the double stream
    */
   public DoubleStream round(int places) {
-    return new DoubleStream(map(new RoundFunction(places)));
+    return mapDouble(new RoundFunction(places));
   }
 
   /**
-   * Multiply the values in the stream by a constant.
+   * Multiply.
    *
    * @param v the v
    * @return the double stream
    */
   public DoubleStream multiply(double v) {
-    return new DoubleStream(map(new MultiplyFunction(v)));
+    return mapDouble(new MultiplyFunction(v));
   }
 
   /**
    * Min.
    *
-   * @return the double
+   * @return the min or Double.MAX_VALUE if the stream is empty.
    */
   public double min() {
-    return reduce(new MinFunction());
+    return summary().mMin;
   }
 
   /**
    * Max.
    *
-   * @return the double
+   * @return the max or -Double.MAX_VALUE if the stream is empty.
    */
   public double max() {
-    return reduce(new MaxFunction());
+    return summary().mMax;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.NumberStream#mean()
+   */
+  @Override
+  public double mean() {
+    SummarySink s = summary();
+
+    return s.mSum / s.mCount;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#count()
+   */
+  @Override
+  public int count() {
+    return summary().mCount;
+  }
+
+  /**
+   * Summarize the remaining values.
+   *
+   * @return the summary sink
+   */
+  private SummarySink summary() {
+    SummarySink s = new SummarySink();
+
+    drain(s);
+
+    return s;
+  }
+
+  /**
+   * Combine the values into a single value without boxing.
+   *
+   * @param identity the initial value
+   * @param f        the f
+   * @return the double
+   */
+  public double reduceDouble(final double identity, final DoubleCombiner f) {
+    final double[] ret = { identity };
+
+    drain(new DoubleSink() {
+      @Override
+      public void accept(double v) {
+        ret[0] = f.combine(ret[0], v);
+      }
+    });
+
+    return ret[0];
+  }
+
+  /**
+   * Count the values falling in equal width bins between min and max. Values
+   * outside the range are ignored.
+   *
+   * @param min  the min
+   * @param max  the max (inclusive)
+   * @param bins the number of bins
+   * @return the counts of each bin
+   */
+  public int[] histogram(final double min, final double max, final int bins) {
+    final int[] ret = new int[bins];
+    final double scale = bins / (max - min);
+
+    drain(new DoubleSink() {
+      @Override
+      public void accept(double v) {
+        if (v >= min && v <= max) {
+          ++ret[Math.min(bins - 1, (int) ((v - min) * scale))];
+        }
+      }
+    });
+
+    return ret;
+  }
+
+  /**
+   * Returns the remaining values as an array.
+   *
+   * @return the double[]
+   */
+  public double[] toDoubleArray() {
+    final DoubleList ret = new DoubleList(Math.max(16, size()));
+
+    drain(new DoubleSink() {
+      @Override
+      public void accept(double v) {
+        ret.add(v);
+      }
+    });
+
+    return ret.toDoubleArray();
   }
 }
@@ -0,0 +1,585 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.jebtk.core.Function;
+
+/**
+ * Applies a chain of maps and filters to a stream as a single function.
+ * Mapping or filtering a fused stream composes the new stage with the
+ * existing ones rather than adding another stream to the chain, so each value
+ * passes through one {@code hasNext()}/{@code next()} call however many
+ * stages there are. A stage removes a value by returning null.
+ * 
+ * If the underlying stream has a {@link StreamSource}, the terminal
+ * operations {@link #toList()}, {@link #count()} and
+ * {@link #reduce(Object, Combiner)} loop over the source directly, and if the
+ * stream is parallel, split the source into ranges that are processed on a
+ * fork join pool. Results are returned in stream order.
+ *
+ * @author Antony Holmes
+ * @param <S> the type of the underlying stream
+ * @param <T> the generic type
+ */
+public class FusedStream<S, T> extends Stream<T> {
+
+  /** The smallest number of values given to a parallel task. */
+  private static final int MIN_CHUNK_SIZE = 4096;
+
+  /** The number of tasks per thread, to balance uneven work. */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  /**
+   * Identity function.
+   *
+   * @param <T> the generic type
+   */
+  private static class IdentityFunction<T> implements Function<T, T> {
+    @Override
+    public T apply(T item) {
+      return item;
+    }
+  }
+
+  /**
+   * Applies a map after the existing stages.
+   *
+   * @param <S> the generic type
+   * @param <T> the generic type
+   * @param <V> the value type
+   */
+  private static class MapFunction<S, T, V> implements Function<S, V> {
+
+    /** The m f. */
+    private final Function<S, T> mF;
+
+    /** The m g. */
+    private final Function<T, V> mG;
+
+    /**
+     * Instantiates a new map function.
+     *
+     * @param f the f
+     * @param g the g
+     */
+    public MapFunction(Function<S, T> f, Function<T, V> g) {
+      mF = f;
+      mG = g;
+    }
+
+    @Override
+    public V apply(S item) {
+      T v = mF.apply(item);
+
+      return v != null ? mG.apply(v) : null;
+    }
+  }
+
+  /**
+   * Applies a filter after the existing stages.
+   *
+   * @param <S> the generic type
+   * @param <T> the generic type
+   */
+  private static class FilterFunction<S, T> implements Function<S, T> {
+
+    /** The m f. */
+    private final Function<S, T> mF;
+
+    /** The m filter. */
+    private final Filter<T> mFilter;
+
+    /**
+     * Instantiates a new filter function.
+     *
+     * @param f      the f
+     * @param filter the filter
+     */
+    public FilterFunction(Function<S, T> f, Filter<T> filter) {
+      mF = f;
+      mFilter = filter;
+    }
+
+    @Override
+    public T apply(S item) {
+      T v = mF.apply(item);
+
+      return v != null && mFilter.keep(v) ? v : null;
+    }
+  }
+
+  /**
+   * Process one range of a source.
+   *
+   * @param <T> the generic type
+   * @param <V> the value type
+   */
+  private abstract static class ChunkTask<T, V> extends RecursiveTask<V> {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The m source. */
+    protected final StreamSource<T> mSource;
+
+    /** The m start. */
+    protected final int mStart;
+
+    /** The m end. */
+    protected final int mEnd;
+
+    /**
+     * Instantiates a new chunk task.
+     *
+     * @param source the source
+     * @param start  the start
+     * @param end    the end
+     */
+    public ChunkTask(StreamSource<T> source, int start, int end) {
+      mSource = source;
+      mStart = start;
+      mEnd = end;
+    }
+  }
+
+  /** The m stream. */
+  private final Stream<S> mStream;
+
+  /** The fused stages. */
+  private final Function<S, T> mF;
+
+  /** The pool for parallel operations or null if the stream is sequential. */
+  private final ForkJoinPool mPool;
+
+  /** The next value, found by {@link #hasNext()}. */
+  private T mNext = null;
+
+  /**
+   * Instantiates a new fused stream.
+   *
+   * @param stream the stream
+   * @param f      the f
+   * @param pool   the pool or null for a sequential stream.
+   */
+  public FusedStream(Stream<S> stream, Function<S, T> f, ForkJoinPool pool) {
+    mStream = stream;
+    mF = f;
+    mPool = pool;
+  }
+
+  /**
+   * Create a stream with no stages.
+   *
+   * @param <T>    the generic type
+   * @param stream the stream
+   * @param pool   the pool or null for a sequential stream.
+   * @return the fused stream
+   */
+  public static <T> FusedStream<T, T> create(Stream<T> stream, ForkJoinPool pool) {
+    return new FusedStream<T, T>(stream, new IdentityFunction<T>(), pool);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Iterator#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    while (mNext == null && mStream.hasNext()) {
+      S v = mStream.next();
+
+      if (v != null) {
+        mNext = mF.apply(v);
+      }
+    }
+
+    return mNext != null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.Iterator#next()
+   */
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    T ret = mNext;
+
+    mNext = null;
+
+    return ret;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#map(org.jebtk.core.Function)
+   */
+  @Override
+  public <V> Stream<V> map(Function<T, V> f) {
+    if (mNext != null) {
+      // A value has already been taken from the underlying stream
+      return super.map(f);
+    }
+
+    return new FusedStream<S, V>(mStream, new MapFunction<S, T, V>(mF, f), mPool);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#filter(org.jebtk.core.stream.Filter)
+   */
+  @Override
+  public Stream<T> filter(Filter<T> filter) {
+    if (mNext != null) {
+      return super.filter(filter);
+    }
+
+    return new FusedStream<S, T>(mStream, new FilterFunction<S, T>(mF, filter), mPool);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#parallel(java.util.concurrent.
+   * ForkJoinPool)
+   */
+  @Override
+  public Stream<T> parallel(ForkJoinPool pool) {
+    if (mNext != null) {
+      return super.parallel(pool);
+    }
+
+    return new FusedStream<S, T>(mStream, mF, pool);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#sequential()
+   */
+  @Override
+  public Stream<T> sequential() {
+    return mPool != null ? parallel(null) : this;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#getPool()
+   */
+  @Override
+  protected ForkJoinPool getPool() {
+    return mPool;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<T> source() {
+    if (mNext != null) {
+      return null;
+    }
+
+    final StreamSource<S> source = mStream.source();
+
+    if (source == null) {
+      return null;
+    }
+
+    return new StreamSource<T>() {
+      @Override
+      public int size() {
+        return source.size();
+      }
+
+      @Override
+      public T get(int index) {
+        S v = source.get(index);
+
+        return v != null ? mF.apply(v) : null;
+      }
+    };
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#toList()
+   */
+  @Override
+  public List<T> toList() {
+    StreamSource<T> source = source();
+
+    if (source == null) {
+      return super.toList();
+    }
+
+    int[] bounds = chunks(source.size());
+
+    if (bounds.length == 2) {
+      return toList(source, 0, source.size());
+    }
+
+    List<ChunkTask<T, List<T>>> tasks = new ArrayList<ChunkTask<T, List<T>>>(bounds.length - 1);
+
+    for (int i = 0; i < bounds.length - 1; ++i) {
+      tasks.add(new ChunkTask<T, List<T>>(source, bounds[i], bounds[i + 1]) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected List<T> compute() {
+          return toList(mSource, mStart, mEnd);
+        }
+      });
+    }
+
+    invoke(tasks);
+
+    int size = 0;
+
+    for (ChunkTask<T, List<T>> task : tasks) {
+      size += task.join().size();
+    }
+
+    List<T> ret = new ArrayList<T>(size);
+
+    for (ChunkTask<T, List<T>> task : tasks) {
+      ret.addAll(task.join());
+    }
+
+    return ret;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#count()
+   */
+  @Override
+  public int count() {
+    StreamSource<T> source = source();
+
+    if (source == null) {
+      return super.count();
+    }
+
+    int[] bounds = chunks(source.size());
+
+    if (bounds.length == 2) {
+      return count(source, 0, source.size());
+    }
+
+    List<ChunkTask<T, Integer>> tasks = new ArrayList<ChunkTask<T, Integer>>(bounds.length - 1);
+
+    for (int i = 0; i < bounds.length - 1; ++i) {
+      tasks.add(new ChunkTask<T, Integer>(source, bounds[i], bounds[i + 1]) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Integer compute() {
+          return count(mSource, mStart, mEnd);
+        }
+      });
+    }
+
+    invoke(tasks);
+
+    int ret = 0;
+
+    for (ChunkTask<T, Integer> task : tasks) {
+      ret += task.join();
+    }
+
+    return ret;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#reduce(java.lang.Object,
+   * org.jebtk.core.stream.Combiner)
+   */
+  @Override
+  public T reduce(final T identity, final Combiner<T> f) {
+    StreamSource<T> source = source();
+
+    if (source == null) {
+      return super.reduce(identity, f);
+    }
+
+    int[] bounds = chunks(source.size());
+
+    if (bounds.length == 2) {
+      return reduce(source, 0, source.size(), identity, f);
+    }
+
+    List<ChunkTask<T, T>> tasks = new ArrayList<ChunkTask<T, T>>(bounds.length - 1);
+
+    for (int i = 0; i < bounds.length - 1; ++i) {
+      tasks.add(new ChunkTask<T, T>(source, bounds[i], bounds[i + 1]) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected T compute() {
+          return reduce(mSource, mStart, mEnd, identity, f);
+        }
+      });
+    }
+
+    invoke(tasks);
+
+    T ret = identity;
+
+    for (ChunkTask<T, T> task : tasks) {
+      ret = f.combine(ret, task.join());
+    }
+
+    return ret;
+  }
+
+  /**
+   * Split a range into chunks for parallel processing.
+   *
+   * @param size the size
+   * @return the chunk boundaries. Chunk i spans [bounds[i], bounds[i + 1]).
+   */
+  private int[] chunks(int size) {
+    int n = 1;
+
+    if (mPool != null) {
+      n = Math.min(size / MIN_CHUNK_SIZE, mPool.getParallelism() * CHUNKS_PER_THREAD);
+
+      n = Math.max(1, n);
+    }
+
+    int[] bounds = new int[n + 1];
+
+    for (int i = 0; i <= n; ++i) {
+      bounds[i] = (int) ((long) size * i / n);
+    }
+
+    return bounds;
+  }
+
+  /**
+   * Run tasks on the pool and wait for them to finish.
+   *
+   * @param <V>   the value type
+   * @param tasks the tasks
+   */
+  private <V> void invoke(final List<? extends ForkJoinTask<V>> tasks) {
+    if (ForkJoinTask.getPool() == mPool) {
+      // Already running in the pool so fork the tasks directly
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      mPool.invoke(new RecursiveTask<Object>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object compute() {
+          ForkJoinTask.invokeAll(tasks);
+          return null;
+        }
+      });
+    }
+  }
+
+  /**
+   * Collect the values in a range.
+   *
+   * @param <T>    the generic type
+   * @param source the source
+   * @param start  the start
+   * @param end    the end
+   * @return the list
+   */
+  private static <T> List<T> toList(StreamSource<T> source, int start, int end) {
+    List<T> ret = new ArrayList<T>(end - start);
+
+    for (int i = start; i < end; ++i) {
+      T v = source.get(i);
+
+      if (v != null) {
+        ret.add(v);
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Count the values in a range.
+   *
+   * @param <T>    the generic type
+   * @param source the source
+   * @param start  the start
+   * @param end    the end
+   * @return the int
+   */
+  private static <T> int count(StreamSource<T> source, int start, int end) {
+    int ret = 0;
+
+    for (int i = start; i < end; ++i) {
+      if (source.get(i) != null) {
+        ++ret;
+      }
+    }
+
+    return ret;
+  }
+
+  /**
+   * Reduce the values in a range.
+   *
+   * @param <T>      the generic type
+   * @param source   the source
+   * @param start    the start
+   * @param end      the end
+   * @param identity the identity
+   * @param f        the f
+   * @return the t
+   */
+  private static <T> T reduce(StreamSource<T> source, int start, int end, T identity, Combiner<T> f) {
+    T ret = identity;
+
+    for (int i = start; i < end; ++i) {
+      T v = source.get(i);
+
+      if (v != null) {
+        ret = f.combine(ret, v);
+      }
+    }
+
+    return ret;
+  }
+}
@@ -42,7 +42,7 @@ public class IntArrayStream extends Stream<Integer> {
    */
   @Override
   public boolean hasNext() {
-    return mPc < mArray.length - 1;
+    return mPc < mArray.length;
   }
 
   /*
@@ -64,4 +64,26 @@ public class IntArrayStream extends Stream<Integer> {
   public int size() {
     return mArray.length;
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<Integer> source() {
+    final int offset = mPc;
+
+    return new StreamSource<Integer>() {
+      @Override
+      public int size() {
+        return mArray.length - offset;
+      }
+
+      @Override
+      public Integer get(int index) {
+        return mArray[offset + index];
+      }
+    };
+  }
 }
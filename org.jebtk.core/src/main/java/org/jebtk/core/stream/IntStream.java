@@ -4,9 +4,9 @@
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *   http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
@@ -15,97 +15,167 @@
  */
 package org.jebtk.core.stream;
 
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
 import org.jebtk.core.Function;
+import org.jebtk.core.collections.IntList;
 
 /**
- * The Class IntStream.
+ * Stream of ints. The stream can be used as a {@code Stream<Integer>}, but
+ * the primitive methods such as {@link #nextInt()}, {@link #mapInt} and
+ * {@link #sum()} do not box values. Primitive maps and filters are fused into
+ * a single chain that values are pushed through, so a stream created from an
+ * array reduces to a loop over the array.
  */
 public class IntStream extends NumberStream<Integer> {
 
   /**
-   * The Class MinFunction.
+   * Receives the values of a stream.
    */
-  private static class MinFunction implements ReduceFunction<Integer, Integer> {
+  private interface IntSink {
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /**
+     * Accept.
+     *
+     * @param v the v
      */
-    @Override
-    public Integer apply(Stream<Integer> stream) {
-      int min = Integer.MAX_VALUE;
+    void accept(int v);
+  }
 
-      while (stream.hasNext()) {
-        int v = stream.next().intValue();
+  /**
+   * A primitive map or filter. Stages form a linked list ending at the most
+   * recently added.
+   */
+  private abstract static class IntOp {
 
-        if (v < min) {
-          min = v;
-        }
-      }
+    /** The m prev. */
+    protected final IntOp mPrev;
 
-      return min;
+    /**
+     * Instantiates a new int op.
+     *
+     * @param prev the prev
+     */
+    public IntOp(IntOp prev) {
+      mPrev = prev;
     }
+
+    /**
+     * Returns a sink that applies this stage and passes the result on.
+     *
+     * @param sink the sink
+     * @return the int sink
+     */
+    public abstract IntSink wrap(IntSink sink);
   }
 
   /**
-   * The Class MaxFunction.
+   * The Class MapOp.
    */
-  private static class MaxFunction implements ReduceFunction<Integer, Integer> {
+  private static class MapOp extends IntOp {
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /** The m F. */
+    private final IntUnaryFunction mF;
+
+    /**
+     * Instantiates a new map op.
+     *
+     * @param prev the prev
+     * @param f    the f
      */
-    @Override
-    public Integer apply(Stream<Integer> stream) {
-      int max = stream.next();
+    public MapOp(IntOp prev, IntUnaryFunction f) {
+      super(prev);
 
-      while (stream.hasNext()) {
-        int v = stream.next();
+      mF = f;
+    }
 
-        if (v > max) {
-          max = v;
+    @Override
+    public IntSink wrap(final IntSink sink) {
+      return new IntSink() {
+        @Override
+        public void accept(int v) {
+          sink.accept(mF.apply(v));
         }
-      }
-
-      return max;
+      };
     }
   }
 
   /**
-   * The Class SumFunction.
+   * The Class FilterOp.
    */
-  private static class SumFunction implements ReduceFunction<Integer, Integer> {
+  private static class FilterOp extends IntOp {
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
+    /** The m filter. */
+    private final IntFilter mFilter;
+
+    /**
+     * Instantiates a new filter op.
+     *
+     * @param prev   the prev
+     * @param filter the filter
      */
+    public FilterOp(IntOp prev, IntFilter filter) {
+      super(prev);
+
+      mFilter = filter;
+    }
+
     @Override
-    public Integer apply(Stream<Integer> stream) {
-      int sum = 0;
+    public IntSink wrap(final IntSink sink) {
+      return new IntSink() {
+        @Override
+        public void accept(int v) {
+          if (mFilter.keep(v)) {
+            sink.accept(v);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Collects count, sum, min and max in one pass.
+   */
+  private static class SummarySink implements IntSink {
+
+    /** The m count. */
+    int mCount = 0;
+
+    /** The m sum. */
+    long mSum = 0;
 
-      while (stream.hasNext()) {
-        sum += stream.next().intValue();
+    /** The m min. */
+    int mMin = Integer.MAX_VALUE;
+
+    /** The m max. */
+    int mMax = Integer.MIN_VALUE;
+
+    @Override
+    public void accept(int v) {
+      ++mCount;
+      mSum += v;
+
+      if (v < mMin) {
+        mMin = v;
       }
 
-      return sum;
+      if (v > mMax) {
+        mMax = v;
+      }
     }
   }
 
   /**
    * The Class MultiplyFunction.
    */
-  private static class MultiplyFunction implements Function<Integer, Integer> {
+  private static class MultiplyFunction implements IntUnaryFunction {
 
-    /** The m places. */
+    /** The m V. */
     private int mV;
 
     /**
-     * Instantiates a new round function.
+     * Instantiates a new multiply function.
      *
      * @param v the v
      */
@@ -113,13 +183,8 @@ public class IntStream extends NumberStream<Integer> {
       mV = v;
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
-     */
     @Override
-    public Integer apply(Integer v) {
+    public int apply(int v) {
       return v * mV;
     }
   }
@@ -133,7 +198,7 @@ public class IntStream extends NumberStream<Integer> {
     private double mV;
 
     /**
-     * Instantiates a new round function.
+     * Instantiates a new multiply double function.
      *
      * @param v the v
      */
@@ -155,13 +220,13 @@ public class IntStream extends NumberStream<Integer> {
   /**
    * The Class AddFunction.
    */
-  private static class AddFunction implements Function<Integer, Integer> {
+  private static class AddFunction implements IntUnaryFunction {
 
-    /** The m places. */
+    /** The m V. */
     private int mV;
 
     /**
-     * Instantiates a new round function.
+     * Instantiates a new adds the function.
      *
      * @param v the v
      */
@@ -169,47 +234,319 @@ public class IntStream extends NumberStream<Integer> {
       mV = v;
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.abh.common.Function#apply(java.lang.Object)
-     */
     @Override
-    public Integer apply(Integer v) {
+    public int apply(int v) {
       return v + mV;
     }
   }
 
+  /** The array of an array backed stream or null. */
+  private final int[] mArray;
+
+  /** The position in the array. */
+  private int mPc;
+
+  /** The end of the array range. */
+  private final int mEnd;
+
+  /** The primitive stages or null if there are none. */
+  private final IntOp mOps;
+
+  /** The stages feeding {@link #mNext}, created on first use. */
+  private IntSink mCursor = null;
+
+  /** Whether {@link #mNext} holds a value. */
+  private boolean mHasNext = false;
+
+  /** The next value found by {@link #hasNext()}. */
+  private int mNext;
+
   /**
    * Instantiates a new int stream.
    *
    * @param stream the stream
    */
   public IntStream(Stream<Integer> stream) {
+    this(stream, null, 0, 0, null);
+  }
+
+  /**
+   * Instantiates a new int stream over an array.
+   *
+   * @param values the values
+   */
+  public IntStream(int... values) {
+    this(values, 0, values.length);
+  }
+
+  /**
+   * Instantiates a new int stream over part of an array.
+   *
+   * @param values the values
+   * @param start  the start
+   * @param end    the end (exclusive)
+   */
+  public IntStream(int[] values, int start, int end) {
+    this(null, values, start, end, null);
+  }
+
+  /**
+   * Instantiates a new int stream.
+   *
+   * @param stream the stream
+   * @param array  the array
+   * @param start  the start
+   * @param end    the end
+   * @param ops    the ops
+   */
+  private IntStream(Stream<Integer> stream, int[] array, int start, int end, IntOp ops) {
     super(stream);
+
+    mArray = array;
+    mPc = start;
+    mEnd = end;
+    mOps = ops;
+  }
+
+  /**
+   * Returns a stream with an extra stage reading from the same source.
+   *
+   * @param op the op
+   * @return the int stream
+   */
+  private IntStream append(IntOp op) {
+    return new IntStream(mStream, mArray, mPc, mEnd, op);
+  }
+
+  /**
+   * Map each value to another int.
+   *
+   * @param f the f
+   * @return the int stream
+   */
+  public IntStream mapInt(IntUnaryFunction f) {
+    if (mHasNext) {
+      // A value has already been read so wrap this stream
+      return new IntStream(this).mapInt(f);
+    }
+
+    return append(new MapOp(mOps, f));
+  }
+
+  /**
+   * Keep only the values accepted by a filter.
+   *
+   * @param filter the filter
+   * @return the int stream
+   */
+  public IntStream filterInt(IntFilter filter) {
+    if (mHasNext) {
+      return new IntStream(this).filterInt(filter);
+    }
+
+    return append(new FilterOp(mOps, filter));
+  }
+
+  /**
+   * Apply the stages to a sink.
+   *
+   * @param sink the sink
+   * @return the int sink
+   */
+  private IntSink wrap(IntSink sink) {
+    for (IntOp op = mOps; op != null; op = op.mPrev) {
+      sink = op.wrap(sink);
+    }
+
+    return sink;
+  }
+
+  /**
+   * Push every remaining value through the stages into a sink. This consumes
+   * the stream.
+   *
+   * @param sink the sink
+   */
+  private void drain(IntSink sink) {
+    if (mHasNext) {
+      mHasNext = false;
+      sink.accept(mNext);
+    }
+
+    IntSink s = wrap(sink);
+
+    if (mArray != null) {
+      int[] a = mArray;
+      int end = mEnd;
+
+      for (int i = mPc; i < end; ++i) {
+        s.accept(a[i]);
+      }
+
+      mPc = end;
+    } else {
+      while (mStream.hasNext()) {
+        Integer v = mStream.next();
+
+        if (v != null) {
+          s.accept(v);
+        }
+      }
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    if (mHasNext) {
+      return true;
+    }
+
+    if (mCursor == null) {
+      mCursor = wrap(new IntSink() {
+        @Override
+        public void accept(int v) {
+          mNext = v;
+          mHasNext = true;
+        }
+      });
+    }
+
+    if (mArray != null) {
+      while (!mHasNext && mPc < mEnd) {
+        mCursor.accept(mArray[mPc++]);
+      }
+    } else {
+      while (!mHasNext && mStream.hasNext()) {
+        Integer v = mStream.next();
+
+        if (v != null) {
+          mCursor.accept(v);
+        }
+      }
+    }
+
+    return mHasNext;
+  }
+
+  /**
+   * Returns the next value without boxing.
+   *
+   * @return the int
+   */
+  public int nextInt() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    mHasNext = false;
+
+    return mNext;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#next()
+   */
+  @Override
+  public Integer next() {
+    return nextInt();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#size()
+   */
+  @Override
+  public int size() {
+    if (mOps != null) {
+      return -1;
+    }
+
+    if (mArray != null) {
+      return mEnd - mPc + (mHasNext ? 1 : 0);
+    }
+
+    return super.size();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<Integer> source() {
+    if (mOps != null || mHasNext) {
+      return null;
+    }
+
+    if (mArray != null) {
+      final int start = mPc;
+
+      return new StreamSource<Integer>() {
+        @Override
+        public int size() {
+          return mEnd - start;
+        }
+
+        @Override
+        public Integer get(int index) {
+          return mArray[start + index];
+        }
+      };
+    }
+
+    return super.source();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.ContainerStream#getPool()
+   */
+  @Override
+  protected ForkJoinPool getPool() {
+    return mStream != null ? super.getPool() : null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#asInt()
+   */
+  @Override
+  public IntStream asInt() {
+    return this;
   }
 
   /**
-   * Returns the sum of the stream.
+   * Sum.
    *
    * @return the int
    */
   public int sum() {
-    return reduce(new SumFunction());
+    return (int) summary().mSum;
   }
 
   /**
-   * Multiply the values in a number stream by a constant.
+   * Multiply.
    *
    * @param v the v
    * @return the int stream
    */
   public IntStream multiply(int v) {
-    return new IntStream(map(new MultiplyFunction(v)));
+    return mapInt(new MultiplyFunction(v));
   }
 
   /**
-   * Multiple the values in a number stream by a constant.
+   * Multiply.
    *
    * @param v the v
    * @return the double stream
@@ -225,24 +562,123 @@ public class IntStream extends NumberStream<Integer> {
    * @return the int stream
    */
   public IntStream add(int v) {
-    return new IntStream(map(new AddFunction(v)));
+    return mapInt(new AddFunction(v));
   }
 
   /**
-   * Returns the min value in the stream using {@compareTo()} for ordering.
-   * 
-   * @return The min element.
+   * Min.
+   *
+   * @return the min or Integer.MAX_VALUE if the stream is empty.
    */
   public int min() {
-    return reduce(new MinFunction());
+    return summary().mMin;
   }
 
   /**
-   * Returns the max value in the stream using {@compareTo()} for ordering.
-   * 
-   * @return The max element.
+   * Max.
+   *
+   * @return the max or Integer.MIN_VALUE if the stream is empty.
    */
   public int max() {
-    return reduce(new MaxFunction());
+    return summary().mMax;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.NumberStream#mean()
+   */
+  @Override
+  public double mean() {
+    SummarySink s = summary();
+
+    return (double) s.mSum / s.mCount;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#count()
+   */
+  @Override
+  public int count() {
+    return summary().mCount;
+  }
+
+  /**
+   * Summarize the remaining values.
+   *
+   * @return the summary sink
+   */
+  private SummarySink summary() {
+    SummarySink s = new SummarySink();
+
+    drain(s);
+
+    return s;
+  }
+
+  /**
+   * Combine the values into a single value without boxing.
+   *
+   * @param identity the initial value
+   * @param f        the f
+   * @return the int
+   */
+  public int reduceInt(final int identity, final IntCombiner f) {
+    final int[] ret = { identity };
+
+    drain(new IntSink() {
+      @Override
+      public void accept(int v) {
+        ret[0] = f.combine(ret[0], v);
+      }
+    });
+
+    return ret[0];
+  }
+
+  /**
+   * Count the values falling in equal width bins between min and max. Values
+   * outside the range are ignored.
+   *
+   * @param min  the min
+   * @param max  the max (inclusive)
+   * @param bins the number of bins
+   * @return the counts of each bin
+   */
+  public int[] histogram(final int min, int max, final int bins) {
+    final int[] ret = new int[bins];
+    final int upper = max;
+    final double scale = (double) bins / ((long) max - min + 1);
+
+    drain(new IntSink() {
+      @Override
+      public void accept(int v) {
+        if (v >= min && v <= upper) {
+          ++ret[(int) (((long) v - min) * scale)];
+        }
+      }
+    });
+
+    return ret;
+  }
+
+  /**
+   * Returns the remaining values as an array.
+   *
+   * @return the int[]
+   */
+  public int[] toIntArray() {
+    final IntList ret = new IntList(Math.max(16, size()));
+
+    drain(new IntSink() {
+      @Override
+      public void accept(int v) {
+        ret.add(v);
+      }
+    });
+
+    return ret.toIntArray();
   }
 }
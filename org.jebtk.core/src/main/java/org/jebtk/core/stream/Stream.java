@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.jebtk.core.Function;
 import org.jebtk.core.collections.UniqueArrayList;
@@ -28,6 +29,11 @@ import org.jebtk.core.collections.UniqueArrayList;
 /**
  * A stream represents a series of functional operations on a collection to
  * perform data processing.
+ * 
+ * Maps and filters are fused into a single stage (see {@link FusedStream}).
+ * Streams created from arrays and collections can be split, so calling
+ * {@link #parallel()} lets {@link #toList()}, {@link #count()} and
+ * {@link #reduce(Object, Combiner)} run on a fork join pool.
  *
  * @author Antony Holmes
  * @param <T> the generic type
@@ -50,6 +56,7 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
       int c = 0;
 
       while (stream.hasNext()) {
+        stream.next();
         ++c;
       }
 
@@ -194,7 +201,7 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
    * @return the stream
    */
   public Stream<T> filter(Filter<T> filter) {
-    return new FilterStream<T>(this, filter);
+    return FusedStream.create(this, getPool()).filter(filter);
   }
 
   /**
@@ -230,7 +237,69 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
    * @return the stream
    */
   public <V> Stream<V> map(Function<T, V> f) {
-    return new MapStream<T, V>(this, f);
+    return FusedStream.create(this, getPool()).map(f);
+  }
+
+  /**
+   * Returns a stream whose terminal operations {@link #toList()},
+   * {@link #count()} and {@link #reduce(Object, Combiner)} run on the common
+   * fork join pool. Functions used by the stream must be thread safe. If the
+   * stream cannot be split, it is processed sequentially.
+   *
+   * @return the stream
+   */
+  public Stream<T> parallel() {
+    return parallel(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns a stream whose terminal operations run on a given pool.
+   *
+   * @param pool the pool
+   * @return the stream
+   */
+  public Stream<T> parallel(ForkJoinPool pool) {
+    return FusedStream.create(this, pool);
+  }
+
+  /**
+   * Returns a stream that is processed on the calling thread.
+   *
+   * @return the stream
+   */
+  public Stream<T> sequential() {
+    return this;
+  }
+
+  /**
+   * Returns true if the terminal operations of the stream may run in
+   * parallel.
+   *
+   * @return true, if is parallel
+   */
+  public boolean isParallel() {
+    return getPool() != null;
+  }
+
+  /**
+   * Returns the pool of a parallel stream.
+   *
+   * @return the pool or null if the stream is sequential.
+   */
+  protected ForkJoinPool getPool() {
+    return null;
+  }
+
+  /**
+   * Returns a random access view of the values remaining in the stream so it
+   * can be split, or null if the stream does not support splitting. Streams
+   * that return a source must not have been partly consumed by a parallel
+   * operation.
+   *
+   * @return the stream source
+   */
+  protected StreamSource<T> source() {
+    return null;
   }
 
   /**
@@ -307,6 +376,24 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
     return f.apply(this);
   }
 
+  /**
+   * Combine the items in a stream into a single value. Unlike
+   * {@link #reduce(ReduceFunction)}, this can run in parallel.
+   *
+   * @param identity the initial value, for example 0 for a sum.
+   * @param f        an associative function to combine two values.
+   * @return the t
+   */
+  public T reduce(T identity, Combiner<T> f) {
+    T ret = identity;
+
+    while (hasNext()) {
+      ret = f.combine(ret, next());
+    }
+
+    return ret;
+  }
+
   /**
    * Skip the first n elements of a stream.
    *
@@ -523,7 +610,7 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
   }
 
   public static IntStream asInt(int... values) {
-    return of(values).asInt();
+    return new IntStream(values);
   }
 
   /**
@@ -541,7 +628,7 @@ public abstract class Stream<T> implements StreamIterator<T>, Iterable<T> {
   }
 
   public static DoubleStream asDouble(double... values) {
-    return of(values).asDouble();
+    return new DoubleStream(values);
   }
 
   /**
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.stream;
+
+/**
+ * Random access view of the values remaining in a stream. Sources let a
+ * stream be split into index ranges that are processed independently, for
+ * example on different threads. Implementations must allow concurrent calls
+ * to {@link #get(int)}.
+ *
+ * @author Antony Holmes
+ * @param <T> the generic type
+ */
+public interface StreamSource<T> {
+
+  /**
+   * Returns the number of indices in the source.
+   *
+   * @return the int
+   */
+  public int size();
+
+  /**
+   * Returns the value at an index.
+   *
+   * @param index the index
+   * @return the value or null if the value has been removed from the stream,
+   *         for example by a filter.
+   */
+  public T get(int index);
+}
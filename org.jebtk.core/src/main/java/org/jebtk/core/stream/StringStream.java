@@ -324,6 +324,17 @@ public class StringStream extends ContainerStream<String> {
     super(stream);
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.jebtk.core.stream.Stream#source()
+   */
+  @Override
+  protected StreamSource<String> source() {
+    // Values pass through unchanged so the wrapped source can be used as is
+    return mStream.source();
+  }
+
   /**
    * Removes empty strings from the stream.
    *
@@ -17,22 +17,110 @@ package org.jebtk.core.sys;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jebtk.core.io.LineFunction;
 import org.jebtk.core.text.Join;
 import org.jebtk.core.text.TextUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The class ExternalProcess.
+ * The class ExternalProcess. A process can be run on the calling thread with
+ * {@link #run()} or submitted to a {@link ProcessRunner} with
+ * {@link #start()}. Lines written to stdout and stderr are passed to the
+ * output and error functions, or logged if none are set, and the last lines
+ * of each can be kept in the {@link ProcessResult}.
  */
 public class ExternalProcess {
 
+  /**
+   * Passes the lines of a stream to a function and keeps the most recent.
+   */
+  private static class LinePump implements Callable<Void> {
+
+    /** The m stream. */
+    private final InputStream mStream;
+
+    /** The m f. */
+    private final LineFunction mF;
+
+    /** The max number of lines to keep. */
+    private final int mCapture;
+
+    /** The m lines. */
+    private final Deque<String> mLines = new ArrayDeque<String>();
+
+    /**
+     * Instantiates a new line pump.
+     *
+     * @param stream  the stream
+     * @param f       the f
+     * @param capture the capture
+     */
+    public LinePump(InputStream stream, LineFunction f, int capture) {
+      mStream = stream;
+      mF = f;
+      mCapture = capture;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      BufferedReader br = new BufferedReader(new InputStreamReader(mStream));
+
+      try {
+        String line;
+
+        while ((line = br.readLine()) != null) {
+          if (mF != null) {
+            mF.parse(line);
+          } else {
+            LOG.info(line);
+          }
+
+          if (mCapture > 0) {
+            if (mLines.size() == mCapture) {
+              mLines.removeFirst();
+            }
+
+            mLines.addLast(line);
+          }
+        }
+      } finally {
+        br.close();
+      }
+
+      return null;
+    }
+
+    /**
+     * Returns the kept lines.
+     *
+     * @return the lines
+     */
+    public List<String> getLines() {
+      if (mLines.isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      return new ArrayList<String>(mLines);
+    }
+  }
+
   /**
    * The member args.
    */
@@ -48,6 +136,21 @@ public class ExternalProcess {
    */
   private static final Logger LOG = LoggerFactory.getLogger(ExternalProcess.class);
 
+  /** The function receiving stdout or null to log it. */
+  private LineFunction mOutput = null;
+
+  /** The function receiving stderr or null to log it. */
+  private LineFunction mError = null;
+
+  /** The number of lines of each stream kept in the result. */
+  private int mCapture = 0;
+
+  /** The timeout in milliseconds or 0 to wait indefinitely. */
+  private long mTimeout = 0;
+
+  /** Whether stderr is merged into stdout. */
+  private boolean mMergeError = false;
+
   /**
    * Instantiates a new external process.
    *
@@ -100,6 +203,69 @@ public class ExternalProcess {
     mArgs = Arrays.asList(args);
   }
 
+  /**
+   * Sets the function that receives each line written to stdout. By default
+   * lines are logged.
+   *
+   * @param f the f
+   * @return the external process
+   */
+  public ExternalProcess setOutput(LineFunction f) {
+    mOutput = f;
+
+    return this;
+  }
+
+  /**
+   * Sets the function that receives each line written to stderr. By default
+   * lines are logged.
+   *
+   * @param f the f
+   * @return the external process
+   */
+  public ExternalProcess setError(LineFunction f) {
+    mError = f;
+
+    return this;
+  }
+
+  /**
+   * Keep the last lines of stdout and stderr in the result of the process.
+   *
+   * @param lines the max number of lines of each stream to keep
+   * @return the external process
+   */
+  public ExternalProcess setCapture(int lines) {
+    mCapture = lines;
+
+    return this;
+  }
+
+  /**
+   * Kill the process if it runs for longer than a timeout.
+   *
+   * @param timeout the timeout or 0 to wait indefinitely
+   * @param unit    the unit
+   * @return the external process
+   */
+  public ExternalProcess setTimeout(long timeout, TimeUnit unit) {
+    mTimeout = unit.toMillis(timeout);
+
+    return this;
+  }
+
+  /**
+   * Sets whether stderr is merged into stdout.
+   *
+   * @param merge the merge
+   * @return the external process
+   */
+  public ExternalProcess setMergeError(boolean merge) {
+    mMergeError = merge;
+
+    return this;
+  }
+
   /**
    * Run.
    *
@@ -107,27 +273,104 @@ public class ExternalProcess {
    * @throws InterruptedException the interrupted exception
    */
   public final void run() throws IOException, InterruptedException {
+    ProcessRunner.getInstance().run(this);
+  }
+
+  /**
+   * Submit the process to the shared {@link ProcessRunner}.
+   *
+   * @return the future result
+   */
+  public ProcessFuture start() {
+    return start(ProcessRunner.getInstance());
+  }
+
+  /**
+   * Submit the process to a runner.
+   *
+   * @param runner the runner
+   * @return the future result
+   */
+  public ProcessFuture start(ProcessRunner runner) {
+    return runner.submit(this);
+  }
+
+  /**
+   * Run the process on the calling thread. Stderr is read on the pool of the
+   * runner.
+   *
+   * @param runner the runner
+   * @param future the future
+   * @return the process result
+   * @throws IOException          Signals that an I/O exception has occurred.
+   * @throws InterruptedException the interrupted exception
+   */
+  ProcessResult execute(ProcessRunner runner, ProcessFuture future) throws IOException, InterruptedException {
     ProcessBuilder builder = new ProcessBuilder(mArgs);
 
     builder.directory(mPwd.toFile());
 
-    builder.redirectErrorStream(true);
+    builder.redirectErrorStream(mMergeError);
 
     LOG.info(TextUtils.join(mArgs, TextUtils.SPACE_DELIMITER));
 
-    Process process = builder.start();
+    long start = System.nanoTime();
+
+    final Process process = builder.start();
+
+    future.setProcess(process);
+
+    // Nothing is written to the process so tools waiting on stdin see
+    // the end of the input
+    process.getOutputStream().close();
+
+    final AtomicBoolean timedOut = new AtomicBoolean(false);
 
-    // Runtime runtime = Runtime.getRuntime();
-    // Process process = runtime.exec(args);
+    ScheduledFuture<?> timeout = null;
 
-    BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()));
-    String line;
+    if (mTimeout > 0) {
+      timeout = runner.getTimer().schedule(new Runnable() {
+        @Override
+        public void run() {
+          timedOut.set(true);
 
-    while ((line = br.readLine()) != null) {
-      LOG.info(line);
+          process.destroyForcibly();
+        }
+      }, mTimeout, TimeUnit.MILLISECONDS);
     }
 
-    process.waitFor();
+    LinePump out = new LinePump(process.getInputStream(), mOutput, mCapture);
+    LinePump err = new LinePump(process.getErrorStream(), mError, mCapture);
+
+    boolean done = false;
+
+    try {
+      Future<Void> errFuture = runner.getPumps().submit(err);
+
+      out.call();
+
+      int exitCode = process.waitFor();
+
+      try {
+        errFuture.get();
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+
+      done = true;
+
+      return new ProcessResult(exitCode, timedOut.get(), out.getLines(), err.getLines(), System.nanoTime() - start);
+    } finally {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+
+      // Do not leave the process running if reading it failed or the
+      // thread was interrupted
+      if (!done) {
+        process.destroyForcibly();
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.sys;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of an {@link ExternalProcess} submitted to a
+ * {@link ProcessRunner}. Cancelling the future kills the process if it has
+ * started. Reading from a process cannot be interrupted, so this is the only
+ * way to stop one early.
+ *
+ * @author Antony Holmes
+ */
+public class ProcessFuture implements Future<ProcessResult> {
+
+  /** The m task. */
+  private FutureTask<ProcessResult> mTask;
+
+  /** The m process once it has started. */
+  private volatile Process mProcess = null;
+
+  /** The m cancelled. */
+  private volatile boolean mCancelled = false;
+
+  /**
+   * Sets the task that runs the process.
+   *
+   * @param task the task
+   */
+  void setTask(FutureTask<ProcessResult> task) {
+    mTask = task;
+  }
+
+  /**
+   * Record the process once it has started, killing it if the future has
+   * already been cancelled.
+   *
+   * @param process the process
+   */
+  void setProcess(Process process) {
+    mProcess = process;
+
+    if (mCancelled) {
+      process.destroyForcibly();
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    mCancelled = true;
+
+    // Cancel the task before killing the process, otherwise the task can
+    // see the process exit and complete normally first
+    boolean cancelled = mTask.cancel(mayInterruptIfRunning);
+
+    Process process = mProcess;
+
+    if (process != null) {
+      process.destroyForcibly();
+    }
+
+    return cancelled;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return mTask.isCancelled();
+  }
+
+  @Override
+  public boolean isDone() {
+    return mTask.isDone();
+  }
+
+  @Override
+  public ProcessResult get() throws InterruptedException, ExecutionException {
+    return mTask.get();
+  }
+
+  @Override
+  public ProcessResult get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+      TimeoutException {
+    return mTask.get(timeout, unit);
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.sys;
+
+import java.util.List;
+
+/**
+ * The outcome of running an {@link ExternalProcess}.
+ *
+ * @author Antony Holmes
+ */
+public class ProcessResult {
+
+  /** The m exit code. */
+  private final int mExitCode;
+
+  /** The m timed out. */
+  private final boolean mTimedOut;
+
+  /** The m output. */
+  private final List<String> mOutput;
+
+  /** The m error. */
+  private final List<String> mError;
+
+  /** The wall time in nanoseconds. */
+  private final long mWallTime;
+
+  /**
+   * Instantiates a new process result.
+   *
+   * @param exitCode the exit code
+   * @param timedOut whether the process was killed for running too long
+   * @param output   the captured output lines
+   * @param error    the captured error lines
+   * @param wallTime the wall time in nanoseconds
+   */
+  public ProcessResult(int exitCode, boolean timedOut, List<String> output, List<String> error, long wallTime) {
+    mExitCode = exitCode;
+    mTimedOut = timedOut;
+    mOutput = output;
+    mError = error;
+    mWallTime = wallTime;
+  }
+
+  /**
+   * Returns the exit code of the process.
+   *
+   * @return the exit code
+   */
+  public int getExitCode() {
+    return mExitCode;
+  }
+
+  /**
+   * Returns true if the process exited with code 0 and was not killed.
+   *
+   * @return true, if successful
+   */
+  public boolean isSuccess() {
+    return mExitCode == 0 && !mTimedOut;
+  }
+
+  /**
+   * Returns true if the process was killed because it exceeded its timeout.
+   *
+   * @return true, if is timed out
+   */
+  public boolean isTimedOut() {
+    return mTimedOut;
+  }
+
+  /**
+   * Returns the last lines written to stdout, up to the capture limit of the
+   * process.
+   *
+   * @return the output
+   */
+  public List<String> getOutput() {
+    return mOutput;
+  }
+
+  /**
+   * Returns the last lines written to stderr, up to the capture limit of the
+   * process.
+   *
+   * @return the error
+   */
+  public List<String> getError() {
+    return mError;
+  }
+
+  /**
+   * Returns the time from starting the process to its exit and its output
+   * being read.
+   *
+   * @return the wall time in milliseconds
+   */
+  public double getWallTime() {
+    return mWallTime / 1000000.0;
+  }
+
+  @Override
+  public String toString() {
+    return "exit " + mExitCode + (mTimedOut ? " (timed out)" : "") + " in " + getWallTime() + " ms";
+  }
+}
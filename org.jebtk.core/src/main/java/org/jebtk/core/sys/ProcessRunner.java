@@ -0,0 +1,201 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.sys;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs external processes asynchronously. At most a fixed number of processes
+ * run at once and further submissions wait in a queue. Each running process
+ * reads its stdout on the thread that started it. Its stderr is read on a
+ * shared pool, and one timer thread kills processes that exceed their
+ * timeout. All threads are daemons, so a runner does not need to be shut down
+ * for the JVM to exit.
+ *
+ * @author Antony Holmes
+ */
+public class ProcessRunner {
+
+  /**
+   * Creates named daemon threads.
+   */
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    /** The m name. */
+    private final String mName;
+
+    /** The m count. */
+    private final AtomicInteger mCount = new AtomicInteger(1);
+
+    /**
+     * Instantiates a new daemon thread factory.
+     *
+     * @param name the name
+     */
+    public DaemonThreadFactory(String name) {
+      mName = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, mName + "-" + mCount.getAndIncrement());
+
+      t.setDaemon(true);
+
+      return t;
+    }
+  }
+
+  /**
+   * The Class ProcessRunnerLoader.
+   */
+  private static class ProcessRunnerLoader {
+
+    /** The Constant INSTANCE. */
+    private static final ProcessRunner INSTANCE = new ProcessRunner(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Returns the shared runner, which runs as many processes at once as there
+   * are processors.
+   *
+   * @return single instance of ProcessRunner
+   */
+  public static ProcessRunner getInstance() {
+    return ProcessRunnerLoader.INSTANCE;
+  }
+
+  /** The m processes. */
+  private final ExecutorService mProcesses;
+
+  /** The pool reading stderr. */
+  private final ExecutorService mPumps = Executors.newCachedThreadPool(new DaemonThreadFactory("process-pump"));
+
+  /** The m timer. */
+  private final ScheduledExecutorService mTimer = Executors
+      .newSingleThreadScheduledExecutor(new DaemonThreadFactory("process-timer"));
+
+  /**
+   * Instantiates a new process runner.
+   *
+   * @param maxProcesses the max number of processes to run at once
+   */
+  public ProcessRunner(int maxProcesses) {
+    mProcesses = Executors.newFixedThreadPool(Math.max(1, maxProcesses), new DaemonThreadFactory("process"));
+  }
+
+  /**
+   * Queue a process to be run.
+   *
+   * @param process the process
+   * @return the future result
+   */
+  public ProcessFuture submit(ExternalProcess process) {
+    ProcessFuture future = new ProcessFuture();
+
+    mProcesses.execute(task(process, future));
+
+    return future;
+  }
+
+  /**
+   * Run a process on the calling thread and wait for it to finish. The process
+   * does not count towards the limit on concurrent processes.
+   *
+   * @param process the process
+   * @return the result
+   * @throws IOException          Signals that an I/O exception has occurred.
+   * @throws InterruptedException the interrupted exception
+   */
+  public ProcessResult run(ExternalProcess process) throws IOException, InterruptedException {
+    FutureTask<ProcessResult> task = task(process, new ProcessFuture());
+
+    task.run();
+
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof InterruptedException) {
+        throw (InterruptedException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IOException(cause);
+      }
+    }
+  }
+
+  /**
+   * Creates the task that runs a process and attaches it to the future, so
+   * that cancelling the future cancels the task as well as killing the
+   * process.
+   *
+   * @param process the process
+   * @param future  the future
+   * @return the task
+   */
+  private FutureTask<ProcessResult> task(final ExternalProcess process, final ProcessFuture future) {
+    FutureTask<ProcessResult> task = new FutureTask<ProcessResult>(new Callable<ProcessResult>() {
+      @Override
+      public ProcessResult call() throws IOException, InterruptedException {
+        return process.execute(ProcessRunner.this, future);
+      }
+    });
+
+    future.setTask(task);
+
+    return task;
+  }
+
+  /**
+   * Stop accepting processes. Queued and running processes are not affected.
+   */
+  public void shutdown() {
+    mProcesses.shutdown();
+  }
+
+  /**
+   * Returns the pool used to read stderr.
+   *
+   * @return the pumps
+   */
+  ExecutorService getPumps() {
+    return mPumps;
+  }
+
+  /**
+   * Returns the timer used to kill processes that time out.
+   *
+   * @return the timer
+   */
+  ScheduledExecutorService getTimer() {
+    return mTimer;
+  }
+}
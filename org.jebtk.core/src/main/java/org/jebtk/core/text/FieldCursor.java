@@ -0,0 +1,307 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable, zero copy alternative to {@link Splitter} for delimited lines.
+ * Rather than creating a list of strings, {@link #reset(CharSequence)} records
+ * the start and end offset of each field within the line and the fields can
+ * then be parsed or compared in place. The cursor can be reset for each line of
+ * a file so that no objects are allocated per line. Only call
+ * {@link #getString(int)} where a string is actually needed.
+ *
+ * A cursor is not thread safe; use one per thread.
+ */
+public class FieldCursor {
+
+  /** The Constant DEFAULT_FIELDS. */
+  private static final int DEFAULT_FIELDS = 32;
+
+  /** The m delimiter. */
+  private final char mDelimiter;
+
+  /** The current line if the source is chars. */
+  private CharSequence mChars = null;
+
+  /** The current line if the source is bytes. */
+  private byte[] mBytes = null;
+
+  /** The field starts. */
+  private int[] mStarts = new int[DEFAULT_FIELDS];
+
+  /** The field ends. */
+  private int[] mEnds = new int[DEFAULT_FIELDS];
+
+  /** The number of fields. */
+  private int mSize = 0;
+
+  /**
+   * Instantiates a new field cursor.
+   *
+   * @param delimiter the delimiter
+   */
+  public FieldCursor(char delimiter) {
+    mDelimiter = delimiter;
+  }
+
+  /**
+   * Find the fields in a line.
+   *
+   * @param line the line
+   * @return the field cursor
+   */
+  public FieldCursor reset(CharSequence line) {
+    return reset(line, 0, line.length());
+  }
+
+  /**
+   * Find the fields in a region of a char sequence.
+   *
+   * @param line  the line
+   * @param start the start
+   * @param end   the end
+   * @return the field cursor
+   */
+  public FieldCursor reset(CharSequence line, int start, int end) {
+    mChars = line;
+    mBytes = null;
+    mSize = 0;
+
+    int s = start;
+
+    for (int i = start; i < end; ++i) {
+      if (line.charAt(i) == mDelimiter) {
+        add(s, i);
+        s = i + 1;
+      }
+    }
+
+    add(s, end);
+
+    return this;
+  }
+
+  /**
+   * Find the fields in a region of a byte array. The delimiter must be a single
+   * byte character and the bytes are assumed to be UTF-8.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the field cursor
+   */
+  public FieldCursor reset(byte[] buf, int start, int end) {
+    mBytes = buf;
+    mChars = null;
+    mSize = 0;
+
+    byte d = (byte) mDelimiter;
+
+    int s = start;
+
+    for (int i = start; i < end; ++i) {
+      if (buf[i] == d) {
+        add(s, i);
+        s = i + 1;
+      }
+    }
+
+    add(s, end);
+
+    return this;
+  }
+
+  /**
+   * Record a field.
+   *
+   * @param start the start
+   * @param end   the end
+   */
+  private void add(int start, int end) {
+    if (mSize == mStarts.length) {
+      mStarts = Arrays.copyOf(mStarts, mSize * 2);
+      mEnds = Arrays.copyOf(mEnds, mSize * 2);
+    }
+
+    mStarts[mSize] = start;
+    mEnds[mSize] = end;
+
+    ++mSize;
+  }
+
+  /**
+   * Returns the number of fields on the current line.
+   *
+   * @return the int
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * The offset of the first char (or byte) of a field.
+   *
+   * @param field the field
+   * @return the int
+   */
+  public int start(int field) {
+    return mStarts[field];
+  }
+
+  /**
+   * The offset after the last char (or byte) of a field.
+   *
+   * @param field the field
+   * @return the int
+   */
+  public int end(int field) {
+    return mEnds[field];
+  }
+
+  /**
+   * The length of a field.
+   *
+   * @param field the field
+   * @return the int
+   */
+  public int length(int field) {
+    return mEnds[field] - mStarts[field];
+  }
+
+  /**
+   * Returns true if a field is empty.
+   *
+   * @param field the field
+   * @return true, if is empty
+   */
+  public boolean isEmpty(int field) {
+    return mEnds[field] == mStarts[field];
+  }
+
+  /**
+   * Parses a field as a double.
+   *
+   * @param field the field
+   * @return the double or NaN if the field is not a number.
+   */
+  public double parseDouble(int field) {
+    if (mBytes != null) {
+      return NumberScanner.parseDouble(mBytes, mStarts[field], mEnds[field]);
+    } else {
+      return NumberScanner.parseDouble(mChars, mStarts[field], mEnds[field]);
+    }
+  }
+
+  /**
+   * Parses a field as an int.
+   *
+   * @param field the field
+   * @return the int
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for an int
+   */
+  public int parseInt(int field) {
+    if (mBytes != null) {
+      return NumberScanner.parseInt(mBytes, mStarts[field], mEnds[field]);
+    } else {
+      return NumberScanner.parseInt(mChars, mStarts[field], mEnds[field]);
+    }
+  }
+
+  /**
+   * Parses a field as a long.
+   *
+   * @param field the field
+   * @return the long
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for a long
+   */
+  public long parseLong(int field) {
+    if (mBytes != null) {
+      return NumberScanner.parseLong(mBytes, mStarts[field], mEnds[field]);
+    } else {
+      return NumberScanner.parseLong(mChars, mStarts[field], mEnds[field]);
+    }
+  }
+
+  /**
+   * Returns true if a field is equal to some text. When the source is bytes,
+   * the comparison is only exact for ASCII text.
+   *
+   * @param field the field
+   * @param text  the text
+   * @return true, if successful
+   */
+  public boolean equals(int field, CharSequence text) {
+    int s = mStarts[field];
+    int l = mEnds[field] - s;
+
+    if (l != text.length()) {
+      return false;
+    }
+
+    if (mBytes != null) {
+      for (int i = 0; i < l; ++i) {
+        if (mBytes[s + i] != text.charAt(i)) {
+          return false;
+        }
+      }
+    } else {
+      for (int i = 0; i < l; ++i) {
+        if (mChars.charAt(s + i) != text.charAt(i)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the char (or byte) at an offset within a field.
+   *
+   * @param field the field
+   * @param i     the i
+   * @return the char
+   */
+  public char charAt(int field, int i) {
+    if (mBytes != null) {
+      return (char) (mBytes[mStarts[field] + i] & 0xFF);
+    } else {
+      return mChars.charAt(mStarts[field] + i);
+    }
+  }
+
+  /**
+   * Create a string from a field. This allocates a new string.
+   *
+   * @param field the field
+   * @return the string
+   */
+  public String getString(int field) {
+    int s = mStarts[field];
+    int e = mEnds[field];
+
+    if (mBytes != null) {
+      return new String(mBytes, s, e - s, StandardCharsets.UTF_8);
+    } else {
+      return mChars.subSequence(s, e).toString();
+    }
+  }
+}
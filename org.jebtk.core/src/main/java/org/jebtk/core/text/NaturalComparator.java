@@ -15,17 +15,66 @@
  */
 package org.jebtk.core.text;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * The class NaturalComparator performs a natural sort on strings so that
  * strings beginning with numbers or two strings with the same prefix and then a
  * number are sorted by the number and
+ * 
+ * Strings are compared in place, a chunk of digits or non digits at a time,
+ * so comparing does not allocate. Spaces are ignored.
  *
  * @param <T> the generic type
  */
 public class NaturalComparator<T> implements Comparator<T> {
 
+  /**
+   * An item paired with the string it is sorted by, so that toString() is only
+   * called once per item when sorting.
+   *
+   * @param <T> the generic type
+   */
+  private static class SortKey<T> implements Comparable<SortKey<T>> {
+
+    /** The m key. */
+    private final String mKey;
+
+    /** The m item. */
+    private final T mItem;
+
+    /**
+     * Instantiates a new sort key.
+     *
+     * @param item the item
+     */
+    public SortKey(T item) {
+      mItem = item;
+      mKey = item != null ? item.toString() : null;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(SortKey<T> k) {
+      // Nulls are sorted last to keep the ordering consistent
+      if (mKey == null) {
+        return k.mKey == null ? 0 : 1;
+      } else if (k.mKey == null) {
+        return -1;
+      } else {
+        return NaturalComparator.compare(mKey, k.mKey);
+      }
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -37,126 +86,153 @@ public class NaturalComparator<T> implements Comparator<T> {
       return 0;
     }
 
-    char[] s1 = o1.toString().toCharArray();
-    char[] s2 = o2.toString().toCharArray();
-
-    int marker1 = 0;
-    int marker2 = 0;
-    int sl1 = s1.length;
-    int sl2 = s2.length;
+    return compare(o1.toString(), o2.toString());
+  }
 
-    char[] chunk1 = new char[sl1];
-    char[] chunk2 = new char[sl2];
+  /**
+   * Naturally compare two strings. Runs of digits are compared by their
+   * length and then digit by digit, and other runs are compared char by char.
+   *
+   * @param s1 the s 1
+   * @param s2 the s 2
+   * @return the int
+   */
+  public static int compare(CharSequence s1, CharSequence s2) {
+    int sl1 = s1.length();
+    int sl2 = s2.length();
 
-    int cl1;
-    int cl2;
+    int marker1 = skipSpaces(s1, 0);
+    int marker2 = skipSpaces(s2, 0);
 
     while (marker1 < sl1 && marker2 < sl2) {
-      cl1 = getChunk(s1, sl1, marker1, chunk1);
-      marker1 += cl1;
+      char c1 = s1.charAt(marker1);
+      char c2 = s2.charAt(marker2);
 
-      cl2 = getChunk(s2, sl2, marker2, chunk2);
-      marker2 += cl2;
+      boolean digit1 = isDigit(c1);
+      boolean digit2 = isDigit(c2);
 
-      // If both chunks contain numeric characters, sort them numerically
-      int result = 0;
+      if (digit1 && digit2) {
+        int end1 = digitsEnd(s1, marker1);
+        int end2 = digitsEnd(s2, marker2);
 
-      if (isDigit(chunk1[0]) && isDigit(chunk2[0])) {
         // Simple chunk comparison by length.
-        result = cl1 - cl2;
+        int result = (end1 - marker1) - (end2 - marker2);
+
+        if (result != 0) {
+          return result;
+        }
 
         // If equal, the first different number counts
-        if (result == 0) {
-          for (int i = 0; i < cl1; i++) {
-            result = chunk1[i] - chunk2[i];
+        for (; marker1 < end1; ++marker1, ++marker2) {
+          result = s1.charAt(marker1) - s2.charAt(marker2);
 
-            if (result != 0) {
-              return result;
-            }
+          if (result != 0) {
+            return result;
           }
         }
+      } else if (digit1 || digit2) {
+        return c1 - c2;
       } else {
-        result = compareTo(chunk1, cl1, chunk2, cl2);
-      }
+        // Compare the non digit chunks, the shorter chunk sorting first if
+        // one is a prefix of the other
+        while (true) {
+          boolean end1 = marker1 == sl1 || isDigit(s1.charAt(marker1));
+          boolean end2 = marker2 == sl2 || isDigit(s2.charAt(marker2));
+
+          if (end1 && end2) {
+            break;
+          } else if (end1) {
+            return -1;
+          } else if (end2) {
+            return 1;
+          }
+
+          c1 = s1.charAt(marker1);
+          c2 = s2.charAt(marker2);
 
-      if (result != 0) {
-        return result;
+          if (c1 != c2) {
+            return c1 - c2;
+          }
+
+          marker1 = skipSpaces(s1, marker1 + 1);
+          marker2 = skipSpaces(s2, marker2 + 1);
+        }
       }
+
+      marker1 = skipSpaces(s1, marker1);
+      marker2 = skipSpaces(s2, marker2);
     }
 
     return sl1 - sl2;
   }
 
   /**
-   * Length of string is passed in for improved efficiency (only need to calculate
-   * it once) .
+   * Returns a naturally sorted copy of a collection. Each item is converted to
+   * a string once, rather than on every comparison, and the items are then
+   * sorted by their strings.
    *
-   * @param s       the char string
-   * @param slength the slength
-   * @param marker  the marker
-   * @param buffer  buffer
-   * @return *
+   * @param <T>      the generic type
+   * @param items    the items
+   * @param parallel whether to sort using multiple threads
+   * @return the list
    */
-  private static final int getChunk(char[] s, int slength, int marker, char[] buffer) {
+  @SuppressWarnings("unchecked")
+  public static <T> List<T> sort(Collection<T> items, boolean parallel) {
+    SortKey<T>[] keys = (SortKey<T>[]) new SortKey<?>[items.size()];
 
-    // buffer counter
-    int cp = 0;
+    int i = 0;
 
-    char c = s[marker++];
-    cp = filter(c, cp, buffer);
+    for (T item : items) {
+      keys[i++] = new SortKey<T>(item);
+    }
 
-    // marker++;
+    if (parallel) {
+      Arrays.parallelSort(keys);
+    } else {
+      Arrays.sort(keys);
+    }
 
-    if (isDigit(c)) {
-      // Create the longest run of digits
-      while (marker < slength) {
-        c = s[marker++];
+    List<T> ret = new ArrayList<T>(keys.length);
 
-        if (!isDigit(c)) {
-          break;
-        }
+    for (SortKey<T> key : keys) {
+      ret.add(key.mItem);
+    }
 
-        cp = filter(c, cp, buffer);
-      }
-    } else {
-      // Create the longest string not including digits
-      while (marker < slength) {
-        c = s[marker++];
+    return ret;
+  }
 
-        if (isDigit(c)) {
-          break;
-        }
+  /**
+   * Returns the index after the run of digits starting at an index.
+   *
+   * @param s     the s
+   * @param start the start
+   * @return the int
+   */
+  private static int digitsEnd(CharSequence s, int start) {
+    int l = s.length();
 
-        cp = filter(c, cp, buffer);
-      }
+    while (start < l && isDigit(s.charAt(start))) {
+      ++start;
     }
 
-    // Return buffer length
-    return cp;
+    return start;
   }
 
   /**
-   * Compare two char arrays based on String.compareTo().
+   * Returns the index of the first non space char at or after an index.
    *
-   * @param s1 char array 1.
-   * @param l1 char array 1 length.
-   * @param s2 char array 2.
-   * @param l2 char array 2 length.
+   * @param s     the s
+   * @param start the start
    * @return the int
    */
-  private static final int compareTo(char[] s1, int l1, char[] s2, int l2) {
-    int n = Math.min(l1, l2);
-
-    for (int i = 0; i < n; ++i) {
-      char c1 = s1[i];
-      char c2 = s2[i];
+  private static int skipSpaces(CharSequence s, int start) {
+    int l = s.length();
 
-      if (c1 != c2) {
-        return c1 - c2;
-      }
+    while (start < l && s.charAt(start) == ' ') {
+      ++start;
     }
 
-    return l1 - l2;
+    return start;
   }
 
   /**
@@ -168,21 +244,4 @@ public class NaturalComparator<T> implements Comparator<T> {
   private static final boolean isDigit(char ch) {
     return (ch >= 48) && (ch <= 57);
   }
-
-  /**
-   * Filter any characters we do not want to include.
-   * 
-   * @param c      The character to append.
-   * @param cp     Index in buffer to add next character at.
-   * @param buffer Buffer to append characters to.
-   * @return
-   */
-  private static final int filter(char c, int cp, char[] buffer) {
-    // skip spaces
-    if (c != ' ') {
-      buffer[cp++] = c;
-    }
-
-    return cp;
-  }
 }
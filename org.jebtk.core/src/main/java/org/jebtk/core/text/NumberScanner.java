@@ -0,0 +1,688 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.core.text;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single pass number scanning over a region of a byte array or char sequence
+ * without creating intermediate strings. Simple decimal numbers of the form
+ * [sign]digits[.digits][(e|E)[sign]digits] with at most 18 significant digits
+ * are converted directly. Anything else falls back to the JDK parser so the
+ * results are always identical to {@link Double#parseDouble(String)}.
+ */
+public class NumberScanner {
+
+  /**
+   * Powers of 10 that can be represented exactly as doubles.
+   */
+  private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13,
+      1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /**
+   * Largest mantissa that can be represented exactly as a double.
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * Maximum number of significant digits accumulated into a long.
+   */
+  private static final int MAX_DIGITS = 18;
+
+  /**
+   * Indicates numbers do not contain group separators.
+   */
+  public static final char NO_GROUP = 0;
+
+  /**
+   * Instantiates a new number scanner.
+   */
+  private NumberScanner() {
+    // Do nothing
+  }
+
+  /**
+   * Parse a double from the bytes between start (inclusive) and end (exclusive).
+   * Leading and trailing spaces are ignored.
+   *
+   * @param buf   the buffer
+   * @param start the start offset
+   * @param end   the end offset
+   * @return the double or NaN if the region is not a number.
+   */
+  public static double parseDouble(final byte[] buf, int start, int end) {
+    while (start < end && buf[start] == ' ') {
+      ++start;
+    }
+
+    while (end > start && buf[end - 1] == ' ') {
+      --end;
+    }
+
+    if (start == end) {
+      return Double.NaN;
+    }
+
+    int i = start;
+
+    boolean neg = false;
+
+    if (buf[i] == '-') {
+      neg = true;
+      ++i;
+    } else if (buf[i] == '+') {
+      ++i;
+    }
+
+    long m = 0;
+    int digits = 0;
+    int exp = 0;
+    boolean seenDigit = false;
+
+    int c;
+
+    // integer part
+    while (i < end && (c = buf[i] - '0') >= 0 && c <= 9) {
+      if (m > 0 || c > 0) {
+        if (digits == MAX_DIGITS) {
+          return slowParseDouble(buf, start, end);
+        }
+
+        m = m * 10 + c;
+        ++digits;
+      }
+
+      seenDigit = true;
+      ++i;
+    }
+
+    // fraction
+    if (i < end && buf[i] == '.') {
+      ++i;
+
+      while (i < end && (c = buf[i] - '0') >= 0 && c <= 9) {
+        if (m > 0 || c > 0) {
+          if (digits == MAX_DIGITS) {
+            return slowParseDouble(buf, start, end);
+          }
+
+          m = m * 10 + c;
+          ++digits;
+        }
+
+        --exp;
+        seenDigit = true;
+        ++i;
+      }
+    }
+
+    if (!seenDigit) {
+      return slowParseDouble(buf, start, end);
+    }
+
+    // exponent
+    if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+      ++i;
+
+      boolean negExp = false;
+
+      if (i < end && buf[i] == '-') {
+        negExp = true;
+        ++i;
+      } else if (i < end && buf[i] == '+') {
+        ++i;
+      }
+
+      int e = 0;
+      boolean seenExpDigit = false;
+
+      while (i < end && (c = buf[i] - '0') >= 0 && c <= 9) {
+        if (e < 10000) {
+          e = e * 10 + c;
+        }
+
+        seenExpDigit = true;
+        ++i;
+      }
+
+      if (!seenExpDigit) {
+        return slowParseDouble(buf, start, end);
+      }
+
+      exp += negExp ? -e : e;
+    }
+
+    if (i != end) {
+      return slowParseDouble(buf, start, end);
+    }
+
+    double v = toDouble(neg, m, exp);
+
+    return Double.isNaN(v) ? slowParseDouble(buf, start, end) : v;
+  }
+
+  /**
+   * Parse a double from the chars between start (inclusive) and end (exclusive).
+   * Leading and trailing spaces are ignored.
+   *
+   * @param s     the char sequence
+   * @param start the start offset
+   * @param end   the end offset
+   * @return the double or NaN if the region is not a number.
+   */
+  public static double parseDouble(final CharSequence s, int start, int end) {
+    return parseDouble(s, start, end, NO_GROUP);
+  }
+
+  /**
+   * Parse a double from the chars between start (inclusive) and end (exclusive)
+   * allowing group separators in the integer part, e.g. 1,234,567.89.
+   *
+   * @param s     the char sequence
+   * @param start the start offset
+   * @param end   the end offset
+   * @param group the group separator or {@link #NO_GROUP}.
+   * @return the double or NaN if the region is not a number.
+   */
+  public static double parseDouble(final CharSequence s, int start, int end, char group) {
+    while (start < end && s.charAt(start) == ' ') {
+      ++start;
+    }
+
+    while (end > start && s.charAt(end - 1) == ' ') {
+      --end;
+    }
+
+    if (start == end) {
+      return Double.NaN;
+    }
+
+    int i = start;
+
+    boolean neg = false;
+
+    if (s.charAt(i) == '-') {
+      neg = true;
+      ++i;
+    } else if (s.charAt(i) == '+') {
+      ++i;
+    }
+
+    long m = 0;
+    int digits = 0;
+    int exp = 0;
+    boolean seenDigit = false;
+
+    char ch;
+    int c;
+
+    while (i < end) {
+      ch = s.charAt(i);
+
+      if (group != NO_GROUP && ch == group && seenDigit) {
+        ++i;
+        continue;
+      }
+
+      c = ch - '0';
+
+      if (c < 0 || c > 9) {
+        break;
+      }
+
+      if (m > 0 || c > 0) {
+        if (digits == MAX_DIGITS) {
+          return slowParseDouble(s, start, end);
+        }
+
+        m = m * 10 + c;
+        ++digits;
+      }
+
+      seenDigit = true;
+      ++i;
+    }
+
+    if (i < end && s.charAt(i) == '.') {
+      ++i;
+
+      while (i < end && (c = s.charAt(i) - '0') >= 0 && c <= 9) {
+        if (m > 0 || c > 0) {
+          if (digits == MAX_DIGITS) {
+            return slowParseDouble(s, start, end);
+          }
+
+          m = m * 10 + c;
+          ++digits;
+        }
+
+        --exp;
+        seenDigit = true;
+        ++i;
+      }
+    }
+
+    if (!seenDigit) {
+      return slowParseDouble(s, start, end);
+    }
+
+    if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+      ++i;
+
+      boolean negExp = false;
+
+      if (i < end && s.charAt(i) == '-') {
+        negExp = true;
+        ++i;
+      } else if (i < end && s.charAt(i) == '+') {
+        ++i;
+      }
+
+      int e = 0;
+      boolean seenExpDigit = false;
+
+      while (i < end && (c = s.charAt(i) - '0') >= 0 && c <= 9) {
+        if (e < 10000) {
+          e = e * 10 + c;
+        }
+
+        seenExpDigit = true;
+        ++i;
+      }
+
+      if (!seenExpDigit) {
+        return slowParseDouble(s, start, end);
+      }
+
+      exp += negExp ? -e : e;
+    }
+
+    if (i != end) {
+      return slowParseDouble(s, start, end);
+    }
+
+    double v = toDouble(neg, m, exp);
+
+    return Double.isNaN(v) ? slowParseDouble(s, start, end) : v;
+  }
+
+  /**
+   * Returns true if the chars between start (inclusive) and end (exclusive) are
+   * an optional sign followed by between 1 and 18 digits, i.e. a value that
+   * {@link #parseLong(CharSequence, int, int)} converts exactly.
+   *
+   * @param s     the char sequence
+   * @param start the start
+   * @param end   the end
+   * @return true, if is long
+   */
+  public static boolean isLong(final CharSequence s, int start, int end) {
+    if (start < end && (s.charAt(start) == '-' || s.charAt(start) == '+')) {
+      ++start;
+    }
+
+    if (start == end || end - start > MAX_DIGITS) {
+      return false;
+    }
+
+    char c;
+
+    for (int i = start; i < end; ++i) {
+      c = s.charAt(i);
+
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Parse an int from the bytes between start (inclusive) and end (exclusive).
+   * Fields that are not plain integers are parsed as doubles and truncated.
+   *
+   * @param buf   the buffer
+   * @param start the start
+   * @param end   the end
+   * @return the int
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for an int
+   */
+  public static int parseInt(final byte[] buf, int start, int end) {
+    long v = parseLong(buf, start, end);
+
+    if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+      double d = parseDouble(buf, start, end);
+
+      if (!fitsInt(d)) {
+        throw error(buf, start, end);
+      }
+
+      return (int) d;
+    }
+
+    return (int) v;
+  }
+
+  /**
+   * Parse an int from the chars between start (inclusive) and end (exclusive).
+   * Fields that are not plain integers are parsed as doubles and truncated.
+   *
+   * @param s     the char sequence
+   * @param start the start
+   * @param end   the end
+   * @return the int
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for an int
+   */
+  public static int parseInt(final CharSequence s, int start, int end) {
+    long v = parseLong(s, start, end);
+
+    if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+      double d = parseDouble(s, start, end);
+
+      if (!fitsInt(d)) {
+        throw error(s, start, end);
+      }
+
+      return (int) d;
+    }
+
+    return (int) v;
+  }
+
+  /**
+   * Parse a long from the bytes between start (inclusive) and end (exclusive).
+   * Fields that are not plain integers are parsed as doubles and truncated.
+   *
+   * @param buf   the buffer
+   * @param start the start
+   * @param end   the end
+   * @return the long
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for a long
+   */
+  public static long parseLong(final byte[] buf, int start, int end) {
+    int i = start;
+
+    boolean neg = false;
+
+    if (i < end && buf[i] == '-') {
+      neg = true;
+      ++i;
+    } else if (i < end && buf[i] == '+') {
+      ++i;
+    }
+
+    // Leave room so that accumulating cannot overflow
+    if (i == end || end - i > MAX_DIGITS) {
+      return toLong(buf, start, end);
+    }
+
+    long v = 0;
+    int c;
+
+    for (; i < end; ++i) {
+      c = buf[i] - '0';
+
+      if (c < 0 || c > 9) {
+        return toLong(buf, start, end);
+      }
+
+      v = v * 10 + c;
+    }
+
+    return neg ? -v : v;
+  }
+
+  /**
+   * Parse a long from the chars between start (inclusive) and end (exclusive).
+   * Fields that are not plain integers are parsed as doubles and truncated.
+   *
+   * @param s     the char sequence
+   * @param start the start
+   * @param end   the end
+   * @return the long
+   * @throws NumberFormatException if the field is not a number or is out of
+   *                               range for a long
+   */
+  public static long parseLong(final CharSequence s, int start, int end) {
+    int i = start;
+
+    boolean neg = false;
+
+    if (i < end && s.charAt(i) == '-') {
+      neg = true;
+      ++i;
+    } else if (i < end && s.charAt(i) == '+') {
+      ++i;
+    }
+
+    if (i == end || end - i > MAX_DIGITS) {
+      return toLong(s, start, end);
+    }
+
+    long v = 0;
+    int c;
+
+    for (; i < end; ++i) {
+      c = s.charAt(i) - '0';
+
+      if (c < 0 || c > 9) {
+        return toLong(s, start, end);
+      }
+
+      v = v * 10 + c;
+    }
+
+    return neg ? -v : v;
+  }
+
+  /**
+   * Parse a field that is not a plain integer as a double and truncate it to a
+   * long.
+   *
+   * @param buf   the buffer
+   * @param start the start
+   * @param end   the end
+   * @return the long
+   */
+  private static long toLong(final byte[] buf, int start, int end) {
+    double d = parseDouble(buf, start, end);
+
+    if (!fitsLong(d)) {
+      throw error(buf, start, end);
+    }
+
+    return (long) d;
+  }
+
+  /**
+   * Parse a field that is not a plain integer as a double and truncate it to a
+   * long.
+   *
+   * @param s     the char sequence
+   * @param start the start
+   * @param end   the end
+   * @return the long
+   */
+  private static long toLong(final CharSequence s, int start, int end) {
+    double d = parseDouble(s, start, end);
+
+    if (!fitsLong(d)) {
+      throw error(s, start, end);
+    }
+
+    return (long) d;
+  }
+
+  /**
+   * Returns true if a double truncates to an int without clamping. NaN is
+   * never in range.
+   *
+   * @param d the d
+   * @return true, if it fits
+   */
+  private static boolean fitsInt(double d) {
+    return d > Integer.MIN_VALUE - 1.0 && d < Integer.MAX_VALUE + 1.0;
+  }
+
+  /**
+   * Returns true if a double truncates to a long without clamping. NaN is
+   * never in range.
+   *
+   * @param d the d
+   * @return true, if it fits
+   */
+  private static boolean fitsLong(double d) {
+    // Long.MIN_VALUE is exactly -2^63 as a double, whereas Long.MAX_VALUE
+    // rounds up to 2^63 so must be excluded
+    return d >= Long.MIN_VALUE && d < -(double) Long.MIN_VALUE;
+  }
+
+  /**
+   * Create the error for a field that cannot be parsed.
+   *
+   * @param buf   the buffer
+   * @param start the start
+   * @param end   the end
+   * @return the number format exception
+   */
+  private static NumberFormatException error(final byte[] buf, int start, int end) {
+    return new NumberFormatException(
+        "For input string: \"" + new String(buf, start, end - start, StandardCharsets.UTF_8) + "\"");
+  }
+
+  /**
+   * Create the error for a field that cannot be parsed.
+   *
+   * @param s     the char sequence
+   * @param start the start
+   * @param end   the end
+   * @return the number format exception
+   */
+  private static NumberFormatException error(final CharSequence s, int start, int end) {
+    return new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+  }
+
+  /**
+   * Convert a scanned mantissa and exponent to a double. Both m and 10^|exp| must
+   * be exact so that a single operation gives a correctly rounded result.
+   *
+   * @param neg the neg
+   * @param m   the m
+   * @param exp the exp
+   * @return the double or NaN if the value cannot be computed exactly and must
+   *         be parsed the slow way.
+   */
+  private static double toDouble(boolean neg, long m, int exp) {
+    if (m == 0) {
+      return neg ? -0.0 : 0.0;
+    }
+
+    if (m < MAX_EXACT_MANTISSA && exp >= -22 && exp <= 22) {
+      double v = exp < 0 ? m / POW10[-exp] : m * POW10[exp];
+
+      return neg ? -v : v;
+    }
+
+    return Double.NaN;
+  }
+
+  /**
+   * Parse using the JDK.
+   *
+   * @param buf   the buf
+   * @param start the start
+   * @param end   the end
+   * @return the double or NaN if the region cannot be parsed.
+   */
+  private static double slowParseDouble(final byte[] buf, int start, int end) {
+    return slowParseDouble(new String(buf, start, end - start, StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * Parse using the JDK.
+   *
+   * @param s     the s
+   * @param start the start
+   * @param end   the end
+   * @return the double or NaN if the region cannot be parsed.
+   */
+  private static double slowParseDouble(final CharSequence s, int start, int end) {
+    return slowParseDouble(s.subSequence(start, end).toString());
+  }
+
+  /**
+   * Slow parse double.
+   *
+   * @param s the s
+   * @return the double
+   */
+  private static double slowParseDouble(String s) {
+    // Avoid the cost of an exception for text that cannot be a number
+    if (!isFloatChars(s)) {
+      return Double.NaN;
+    }
+
+    try {
+      return Double.parseDouble(s);
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * Returns true if every char of a string could appear in a string accepted by
+   * {@link Double#parseDouble(String)}.
+   *
+   * @param s the s
+   * @return true, if successful
+   */
+  private static boolean isFloatChars(String s) {
+    char c;
+
+    for (int i = 0; i < s.length(); ++i) {
+      c = s.charAt(i);
+
+      if (c <= ' ' || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
+        continue;
+      }
+
+      switch (c) {
+      case '+':
+      case '-':
+      case '.':
+      case 'x':
+      case 'X':
+      case 'p':
+      case 'P':
+      case 'N':
+      case 'I':
+      case 'n':
+      case 'i':
+      case 't':
+      case 'y':
+        continue;
+      default:
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
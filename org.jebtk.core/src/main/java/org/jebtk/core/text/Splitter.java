@@ -538,6 +538,18 @@ public class Splitter {
     return new Splitter(new CSVSplitMode(), Trimmer.NO_TRIM, false, Integer.MAX_VALUE);
   }
 
+  /**
+   * Returns a reusable cursor that splits lines on a delimiter without
+   * allocating a list or substrings. Unlike {@link #on(char)}, commas are not
+   * given special CSV handling.
+   *
+   * @param delimiter the delimiter
+   * @return the field cursor
+   */
+  public static FieldCursor cursor(char delimiter) {
+    return new FieldCursor(delimiter);
+  }
+
   /**
    * Assumes each string in values is of the form key<delimiter>value and splits
    * each string and adds the key value pairs to a map. Suitable only if keys are
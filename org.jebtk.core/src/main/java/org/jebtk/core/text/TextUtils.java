@@ -929,19 +929,30 @@ public class TextUtils {
   /**
    * Parses an integer field as a double and then converts back to int to provide
    * more robust handling of ints written as floating point numbers in files.
+   * Integers too large for an int throw a NumberFormatException rather than
+   * being clamped.
    *
    * @param field the field
    * @return the int
    * @throws ParseException the parse exception
    */
   public static final int parseInt(String field) {
-    // If it's an int, parse it normally
+    // If it's an int, parse it directly
+    if (NumberScanner.isLong(field, 0, field.length())) {
+      long v = NumberScanner.parseLong(field, 0, field.length());
+
+      if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+        return (int) v;
+      }
+    }
+
     if (INT_PARSE_PATTERN.matcher(field).matches()) {
+      // An int that is out of range so let parseInt report the overflow
       return Integer.parseInt(field);
-    } else {
-      // Convert to double and parse it.
-      return (int) parseDouble(field);
     }
+
+    // Convert to double and parse it.
+    return (int) parseDouble(field);
   }
 
   /**
@@ -952,8 +963,11 @@ public class TextUtils {
    * @return
    */
   public static final long parseLong(String field) {
-    // If it's an int, parse it normally
-    if (INT_PARSE_PATTERN.matcher(field).matches()) {
+    // If it's an int, parse it directly
+    if (NumberScanner.isLong(field, 0, field.length())) {
+      return NumberScanner.parseLong(field, 0, field.length());
+    } else if (INT_PARSE_PATTERN.matcher(field).matches()) {
+      // Too many digits to be sure of not overflowing
       return Long.parseLong(field);
     } else {
       // Convert to double and parse it.
@@ -964,20 +978,39 @@ public class TextUtils {
   /**
    * More robust number extraction that copes with text in the field. If the field
    * appears to be a number, parse that, else look for a number substring in the
-   * text and convert that to a double, failing that return NaN. This
+   * text and convert that to a double, failing that return NaN.
+   * 
+   * Plain numbers, including those with thousands separators, are scanned in a
+   * single pass. Only fields that are not plain numbers are searched using
+   * {@link #NUMBER_PATTERN}.
    *
    * @param field the field
    * @return A double A double value or NaN if the field is either unparsable or
    *         NaN itself.
    */
   public static final double parseDouble(String field) {
+    double v = NumberScanner.parseDouble(field, 0, field.length(), ',');
+
+    if (!Double.isNaN(v)) {
+      return v;
+    }
+
+    return extractDouble(field);
+  }
+
+  /**
+   * Parse a double using regular expressions to find a number within arbitrary
+   * text.
+   *
+   * @param field the field
+   * @return the double
+   */
+  private static double extractDouble(String field) {
     // Remove commas
     field = field.replace(",", EMPTY_STRING);
 
     Matcher matcher = NUMBER_PATTERN.matcher(field);
 
-    // System.err.println(field + " " + NUMBER_PATTERN + " " + matcher.find());
-
     // Whole field is a number so just parse it
     if (matcher.matches()) {
       return Double.parseDouble(field);
@@ -992,8 +1025,6 @@ public class TextUtils {
         return Double.NaN;
       }
     }
-
-    // return Double.parseDouble(field.replace(",", EMPTY_STRING));
   }
 
   /**
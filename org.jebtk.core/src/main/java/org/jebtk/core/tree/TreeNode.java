@@ -22,8 +22,10 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -44,6 +46,13 @@ import org.w3c.dom.Element;
 /**
  * Represents a node in a tree hierarchy. A node may contain a data object as
  * well as child nodes.
+ * 
+ * Cumulative child counts are kept up to date by adding the change in a node's
+ * count to each of its ancestors, so adding or removing a child costs
+ * O(depth) rather than a recount of the subtree. Large trees should be built
+ * between {@link #beginUpdate()} and {@link #endUpdate()}, which suspends the
+ * events of the node and stops counts being passed further up the tree until
+ * the update ends.
  *
  * @author Antony Holmes
  * @param <T> the generic type
@@ -134,6 +143,30 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    */
   private int mCumulativeChildCount = 0;
 
+  /** Children with more than this many children have a lookup by name. */
+  private static final int CHILD_MAP_SIZE = 8;
+
+  /** The first child with each name, created when needed. */
+  private transient Map<String, TreeNode<T>> mChildMap = null;
+
+  /**
+   * The subtree in the order it is searched by {@link #findFirst(String)},
+   * created when needed.
+   */
+  private transient List<TreeNode<T>> mSearchIndex = null;
+
+  /** The lower case names of the nodes in the search index. */
+  private transient String[] mSearchNames = null;
+
+  /** The number of nested updates in progress. */
+  private int mUpdates = 0;
+
+  /** Whether an event was suppressed during an update. */
+  private boolean mChanged = false;
+
+  /** The count this node contributed to its parent when an update began. */
+  private int mUpdateContribution = 0;
+
   /**
    * The class ChildEvents.
    *
@@ -190,6 +223,8 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
   public void setName(String name) {
     mName = name;
 
+    invalidateSearch(this);
+
     fireTreeNodeChanged(new ChangeEvent(this));
   }
 
@@ -244,6 +279,8 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * @param node the node
    */
   public void addChild(TreeNode<T> node) {
+    int contribution = contribution();
+
     node.setParent(this);
 
     // We should listen to the children to decide if we ourselves need
@@ -260,7 +297,9 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
 
     // setExpanded(true);
 
-    countCumulativeChildren();
+    mCumulativeChildCount += node.contribution();
+
+    countCumulativeChildren(contribution);
   }
 
   /**
@@ -280,6 +319,8 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * @param node the node
    */
   public void addChildBefore(int i, TreeNode<T> node) {
+    int contribution = contribution();
+
     node.setParent(this);
 
     node.addTreeNodeListener(this);
@@ -294,7 +335,9 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
 
     // setExpanded(true);
 
-    countCumulativeChildren();
+    mCumulativeChildCount += node.contribution();
+
+    countCumulativeChildren(contribution);
   }
 
   /**
@@ -303,19 +346,23 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * @param children the children
    */
   public void addChildren(List<TreeNode<T>> children) {
+    int contribution = contribution();
+
     for (TreeNode<T> node : children) {
       node.setParent(this);
 
       node.addTreeNodeListener(this);
 
       mChildren.add(node);
+
+      mCumulativeChildCount += node.contribution();
     }
 
     mIsParent = true;
 
     // setExpanded(true);
 
-    countCumulativeChildren();
+    countCumulativeChildren(contribution);
   }
 
   /**
@@ -329,13 +376,19 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
     // occur when doing the cumulative child count.
     node.removeTreeNodeListener(this);
 
-    mChildren.remove(node);
+    int contribution = contribution();
+
+    if (mChildren.remove(node)) {
+      mCumulativeChildCount -= node.contribution();
+
+      detach(node);
+    }
 
     if (mChildren.size() == 0) {
-      setIsParent(false);
+      mIsParent = false;
     }
 
-    countCumulativeChildren();
+    countCumulativeChildren(contribution);
   }
 
   /**
@@ -355,20 +408,28 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
     // Remove the children in reverse order
     // Collections.reverse(indexes);
 
+    int contribution = contribution();
+
     while (indexes.size() > 0) {
       int i = indexes.pop();
 
-      mChildren.get(i).removeTreeNodeListener(this);
+      TreeNode<T> node = mChildren.get(i);
+
+      node.removeTreeNodeListener(this);
 
       mChildren.remove(i);
+
+      mCumulativeChildCount -= node.contribution();
+
+      detach(node);
     }
 
     // If there are no more children, we can't be a parent anymore.
     if (mChildren.size() == 0) {
-      setIsParent(false);
+      mIsParent = false;
     }
 
-    countCumulativeChildren();
+    countCumulativeChildren(contribution);
   }
 
   /**
@@ -415,7 +476,11 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * @param isParent the new checks if is parent
    */
   public void setIsParent(boolean isParent) {
+    int contribution = contribution();
+
     mIsParent = isParent;
+
+    propagate(contribution);
   }
 
   /**
@@ -608,9 +673,18 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * Remove all of this nodes children.
    */
   public void clear() {
+    int contribution = contribution();
+
+    for (TreeNode<T> child : mChildren) {
+      detach(child);
+    }
+
     mChildren.clear();
 
     mIsParent = false;
+    mCumulativeChildCount = 0;
+
+    propagate(contribution);
   }
 
   /**
@@ -664,6 +738,22 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    * @return the child
    */
   public TreeNode<T> getChild(String name) {
+    if (mChildren.size() > CHILD_MAP_SIZE) {
+      if (mChildMap == null) {
+        Map<String, TreeNode<T>> map = new HashMap<String, TreeNode<T>>(mChildren.size() * 2);
+
+        for (TreeNode<T> child : mChildren) {
+          if (!map.containsKey(child.getName())) {
+            map.put(child.getName(), child);
+          }
+        }
+
+        mChildMap = map;
+      }
+
+      return mChildMap.get(name);
+    }
+
     for (TreeNode<T> child : this) {
       if (child.getName().equals(name)) {
         return child;
@@ -736,25 +826,14 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
 
     TreeNode<T> node = this;
 
-    boolean found;
-
     for (String level : path) {
-
-      found = false;
-
-      for (TreeNode<T> child : node) {
-        if (child.getName().equals(level)) {
-          node = child;
-          found = true;
-          break;
-        }
-      }
+      node = node.getChild(level);
 
       // If the level was not found it means
       // the tree hierarchy does not match
       // what we are looking for so return
       // null to indicate failure
-      if (!found) {
+      if (node == null) {
         return null;
       }
     }
@@ -791,21 +870,11 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
   public TreeNode<T> findFirst(String search) {
     String ls = search.toLowerCase();
 
-    Deque<TreeNode<T>> stack = new ArrayDeque<TreeNode<T>>();
-
-    stack.push(this);
+    buildSearchIndex();
 
-    TreeNode<T> node;
-
-    while (!stack.isEmpty()) {
-      node = stack.pop();
-
-      if (node.getName().toLowerCase().contains(ls)) {
-        return node;
-      }
-
-      for (TreeNode<T> child : node) {
-        stack.push(child);
+    for (int i = 0; i < mSearchNames.length; ++i) {
+      if (mSearchNames[i].contains(ls)) {
+        return mSearchIndex.get(i);
       }
     }
 
@@ -838,27 +907,52 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
   public TreeNode<T> matchFirst(String search) {
     String ls = search.toLowerCase();
 
+    buildSearchIndex();
+
+    for (int i = 0; i < mSearchNames.length; ++i) {
+      String n = mSearchNames[i];
+
+      if (n.contains(ls) || ls.contains(n)) {
+        return mSearchIndex.get(i);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Create the search index of the subtree if it does not exist. Nodes are
+   * visited depth first, last child first.
+   */
+  private void buildSearchIndex() {
+    if (mSearchIndex != null) {
+      return;
+    }
+
+    List<TreeNode<T>> nodes = new ArrayList<TreeNode<T>>();
+
     Deque<TreeNode<T>> stack = new ArrayDeque<TreeNode<T>>();
 
     stack.push(this);
 
-    TreeNode<T> node;
-
     while (!stack.isEmpty()) {
-      node = stack.pop();
-
-      String n = node.getName().toLowerCase();
+      TreeNode<T> node = stack.pop();
 
-      if (n.contains(ls) || ls.contains(n)) {
-        return node;
-      }
+      nodes.add(node);
 
       for (TreeNode<T> child : node) {
         stack.push(child);
       }
     }
 
-    return null;
+    String[] names = new String[nodes.size()];
+
+    for (int i = 0; i < names.length; ++i) {
+      names[i] = nodes.get(i).getName().toLowerCase();
+    }
+
+    mSearchNames = names;
+    mSearchIndex = nodes;
   }
 
   /**
@@ -990,6 +1084,8 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    */
   public void sortChildren() {
     Collections.sort(mChildren);
+
+    invalidateSearch(this);
   }
 
   /**
@@ -1069,37 +1165,150 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
   }
 
   /**
-   * Count the total number of children below this node.
+   * Pass a change in the children of this node up the tree and notify the
+   * listeners.
+   *
+   * @param contribution the count this node contributed to its parent before
+   *                     the change
    */
-  private void countCumulativeChildren() {
-    updateCumulativeChildren();
+  private void countCumulativeChildren(int contribution) {
+    propagate(contribution);
 
     // forward the event
-    fireTreeNodeChanged();
+    changed();
   }
 
   /**
-   * Count the total number of children below this node.
+   * Returns the number of leaves this node adds to the cumulative child count
+   * of its parent.
+   *
+   * @return the int
    */
-  private void updateCumulativeChildren() {
-    mCumulativeChildCount = 0;
+  private int contribution() {
+    return mIsParent ? mCumulativeChildCount : 1;
+  }
 
-    Deque<TreeNode<T>> stack = new ArrayDeque<TreeNode<T>>();
+  /**
+   * Add the change in the contribution of this node to the cumulative child
+   * count of each of its ancestors and discard their indexes. Stops at the
+   * first ancestor being updated, which passes on its own change when the
+   * update ends.
+   *
+   * @param contribution the count this node contributed to its parent before
+   *                     it changed
+   */
+  private void propagate(int contribution) {
+    invalidate(this);
 
-    stack.push(this);
+    TreeNode<T> node = this;
 
-    while (!stack.isEmpty()) {
-      TreeNode<T> node = stack.pop();
+    while (node.mUpdates == 0 && node.mParent != null) {
+      TreeNode<T> parent = node.mParent;
 
-      for (TreeNode<T> child : node) {
-        // The count can only change if the child has children
-        // as well
-        if (child.isParent()) {
-          stack.push(child);
-        } else {
-          ++mCumulativeChildCount;
-        }
-      }
+      int parentContribution = parent.contribution();
+
+      parent.mCumulativeChildCount += node.contribution() - contribution;
+
+      invalidate(parent);
+
+      contribution = parentContribution;
+      node = parent;
+    }
+  }
+
+  /**
+   * Discard the indexes of a node and the lookup of its parent.
+   *
+   * @param node the node
+   */
+  private static void invalidate(TreeNode<?> node) {
+    node.mSearchIndex = null;
+    node.mSearchNames = null;
+    node.mChildMap = null;
+
+    if (node.mParent != null) {
+      node.mParent.mChildMap = null;
+    }
+  }
+
+  /**
+   * Discard the indexes of a node and the search indexes of its ancestors,
+   * which also cover the node.
+   *
+   * @param node the node
+   */
+  private static void invalidateSearch(TreeNode<?> node) {
+    invalidate(node);
+
+    for (TreeNode<?> p = node.mParent; p != null; p = p.mParent) {
+      p.mSearchIndex = null;
+      p.mSearchNames = null;
+    }
+  }
+
+  /**
+   * Unlink a node that has been removed from this node.
+   *
+   * @param node the node
+   */
+  private void detach(TreeNode<T> node) {
+    if (node.mParent == this) {
+      node.mParent = null;
+    }
+  }
+
+  /**
+   * Notify the listeners that the node has changed unless an update is in
+   * progress.
+   */
+  private void changed() {
+    if (mUpdates > 0) {
+      mChanged = true;
+    } else {
+      fireTreeNodeChanged();
+    }
+  }
+
+  /**
+   * Suspend change events and stop cumulative counts being passed to the
+   * ancestors of this node until {@link #endUpdate()} is called. Updates may
+   * be nested.
+   */
+  public void beginUpdate() {
+    if (mUpdates++ == 0) {
+      mUpdateContribution = contribution();
+      mChanged = false;
+    }
+  }
+
+  /**
+   * End an update. When the outermost update ends, the change in the count of
+   * the node is passed up the tree and a single change event is fired if
+   * anything changed.
+   */
+  public void endUpdate() {
+    if (mUpdates == 0 || --mUpdates > 0) {
+      return;
+    }
+
+    propagate(mUpdateContribution);
+
+    if (mChanged) {
+      mChanged = false;
+
+      fireTreeNodeChanged();
+    }
+  }
+
+  /**
+   * Count the total number of children below this node from the counts of its
+   * children.
+   */
+  private void updateCumulativeChildren() {
+    mCumulativeChildCount = 0;
+
+    for (TreeNode<T> child : mChildren) {
+      mCumulativeChildCount += child.contribution();
     }
   }
 
@@ -1222,7 +1431,20 @@ public class TreeNode<T> implements IdProperty, Iterable<TreeNode<T>>, Reversibl
    */
   @Override
   public void nodeChanged(ChangeEvent e) {
-    countCumulativeChildren();
+    Object source = e.getSource();
+
+    // Counts are passed up through a node's parent, so recount if the node
+    // has been shared with another parent using inherit
+    if (source instanceof TreeNode && ((TreeNode<?>) source).mParent != this) {
+      int contribution = contribution();
+
+      updateCumulativeChildren();
+
+      propagate(contribution);
+    }
+
+    // forward the event
+    changed();
   }
 
   /*
@@ -59,8 +59,8 @@ public class TreeNodeEventListeners extends EventProducer<TreeNodeEventListener>
    * event. ChangeEvent)
    */
   public void fireTreeNodeChanged(ChangeEvent e) {
-    for (TreeNodeEventListener l : mListeners) {
-      l.nodeChanged(e);
+    for (Object l : mListeners.toArray()) {
+      ((TreeNodeEventListener) l).nodeChanged(e);
     }
   }
 
@@ -71,8 +71,8 @@ public class TreeNodeEventListeners extends EventProducer<TreeNodeEventListener>
    * event. ChangeEvent)
    */
   public void fireTreeNodeUpdated(ChangeEvent e) {
-    for (TreeNodeEventListener l : mListeners) {
-      l.nodeUpdated(e);
+    for (Object l : mListeners.toArray()) {
+      ((TreeNodeEventListener) l).nodeUpdated(e);
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jebtk.core.ArgSort;
+import org.jebtk.core.Cache;
+import org.jebtk.core.CacheLoader;
+import org.jebtk.core.Mathematics;
+import org.jebtk.core.NaNPolicy;
+import org.jebtk.core.RankMethod;
+import org.jebtk.core.Ranks;
+import org.jebtk.core.collections.CountMap;
+import org.jebtk.core.collections.DoubleCountMap;
+import org.jebtk.core.collections.DoubleList;
+import org.jebtk.core.collections.IntIntHashMap;
+import org.jebtk.core.collections.LongHashMap;
+import org.junit.Test;
+
+public class CollectionsTest {
+
+  @Test
+  public void intIntHashMapTest() {
+    IntIntHashMap map = new IntIntHashMap(2);
+
+    for (int i = 0; i < 1000; ++i) {
+      map.put(i, i * 2);
+    }
+
+    map.adjustOrPut(0, 5, 1);
+    map.adjustOrPut(-1, 5, 1);
+
+    for (int i = 1; i < 1000; i += 2) {
+      map.remove(i);
+    }
+
+    assertEquals("size", 501, map.size());
+    assertEquals("free key", 5, map.get(0));
+    assertEquals("put", 1, map.get(-1));
+    assertEquals("get", 1996, map.get(998));
+    assertEquals("removed", 0, map.get(999));
+  }
+
+  @Test
+  public void longHashMapTest() {
+    LongHashMap<String> map = new LongHashMap<String>();
+
+    map.put(1L << 40, "a");
+    map.put(0, "b");
+
+    assertEquals("get", "a", map.get(1L << 40));
+    assertEquals("free key", "b", map.get(0));
+    assertEquals("missing", null, map.get(1));
+  }
+
+  @Test
+  public void countMapTest() {
+    CountMap<String> map = CountMap.create();
+
+    for (int i = 0; i < 100; ++i) {
+      map.inc("k" + (i % 10));
+    }
+
+    map.inc("k3", 5);
+
+    assertEquals("size", 10, map.size());
+    assertEquals("count", 15, map.getCount("k3"));
+    assertEquals("boxed", (Integer) 10, map.get("k1"));
+    assertEquals("max", "k3", map.getMaxK());
+  }
+
+  @Test
+  public void countMapViewTest() {
+    CountMap<String> map = CountMap.create();
+
+    map.inc("a");
+    map.inc("b", 2);
+
+    Set<String> keys = map.keySet();
+
+    map.inc("c", 3);
+
+    // Views are backed by the map
+    assertEquals("live keys", 3, keys.size());
+    assertTrue("contains", keys.contains("c"));
+
+    for (Entry<String, Integer> e : map.entrySet()) {
+      e.setValue(e.getValue() * 10);
+    }
+
+    assertEquals("set value", 30, map.getCount("c"));
+
+    keys.remove("a");
+
+    assertEquals("removed", false, map.containsKey("a"));
+    assertEquals("size", 2, map.size());
+
+    int sum = 0;
+
+    for (int v : map.values()) {
+      sum += v;
+    }
+
+    assertEquals("values", 50, sum);
+
+    try {
+      map.put("d", null);
+      fail("Put a null count");
+    } catch (NullPointerException e) {
+      // Expected
+    }
+
+    assertEquals("null not added", false, map.containsKey("d"));
+    assertEquals("default", (Integer) 0, map.get("e"));
+    assertEquals("get does not add", 2, map.size());
+
+    // Removing the key with the largest count finds the next largest
+    assertEquals("max before remove", "c", map.getMaxK());
+    assertEquals("remove", (Integer) 30, map.remove("c"));
+    assertEquals("remove missing", null, map.remove("c"));
+    assertEquals("size after remove", 1, map.size());
+    assertEquals("max after remove", "b", map.getMaxK());
+    assertEquals("max count after remove", 20, map.getMaxC());
+
+    DoubleCountMap<String> doubles = new DoubleCountMap<String>();
+
+    doubles.inc("x", 0.5);
+    doubles.inc("y", 2);
+
+    Iterator<Entry<String, Double>> iter = doubles.entrySet().iterator();
+
+    while (iter.hasNext()) {
+      if (iter.next().getKey().equals("x")) {
+        iter.remove();
+      }
+    }
+
+    assertEquals("double keys", "[y]", doubles.keySet().toString());
+    assertEquals("double remove", (Double) 2.0, doubles.remove("y"));
+    assertEquals("double remove missing", null, doubles.remove("y"));
+    assertEquals("double max after remove", null, doubles.getMaxK());
+
+    doubles.inc("z");
+
+    doubles.keySet().clear();
+
+    assertTrue("double cleared", doubles.isEmpty());
+
+    try {
+      doubles.put("z", null);
+      fail("Put a null count");
+    } catch (NullPointerException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void doubleListTest() {
+    DoubleList list = new DoubleList(2);
+
+    list.addAll(new double[] { 3, 1, 2 });
+    list.add(5.5);
+    list.add(0, -1);
+    list.remove(4);
+    list.sort();
+
+    assertEquals("size", 4, list.size());
+    assertEquals("list", "[-1.0, 1.0, 2.0, 3.0]", list.toString());
+    assertEquals("get", 2, list.getDouble(2), 0);
+    assertEquals("sum", 5, Mathematics.sum(list), 0);
+    assertEquals("max", 3, Mathematics.max(list), 0);
+
+    DoubleList negative = new DoubleList(3);
+
+    negative.addAll(new double[] { -3, -1, -2 });
+
+    assertEquals("max negative", -1, Mathematics.max(negative), 0);
+    assertEquals("min negative", -3, Mathematics.min(negative), 0);
+  }
+
+  @Test
+  public void cacheTest() {
+    Cache<Integer, Integer> cache = new Cache<Integer, Integer>(3);
+
+    cache.put(1, 1);
+    cache.put(2, 2);
+    cache.put(3, 3);
+    cache.getIfPresent(1);
+    cache.put(4, 4);
+
+    assertEquals("size", 3, cache.size());
+    assertEquals("evicted", null, cache.getIfPresent(2));
+    assertEquals("recent", (Integer) 1, cache.getIfPresent(1));
+    assertEquals("evictions", 1, cache.getEvictions());
+
+    try {
+      cache.put(5, null);
+      fail("Put a null value");
+    } catch (NullPointerException e) {
+      // Expected
+    }
+
+    assertEquals("size after null", 3, cache.size());
+  }
+
+  @Test
+  public void cacheLoaderTest() throws Exception {
+    final AtomicInteger loads = new AtomicInteger(0);
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final Cache<Integer, Integer> cache = new Cache<Integer, Integer>(10);
+
+    cache.setLoader(new CacheLoader<Integer, Integer>() {
+      @Override
+      public Integer load(Integer key) {
+        loads.incrementAndGet();
+
+        if (key < 0) {
+          throw new IllegalStateException("load failed");
+        }
+
+        if (key == 0) {
+          return null;
+        }
+
+        if (key == 1) {
+          loading.countDown();
+
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+
+          // Loaders may use the cache themselves
+          return cache.get(2) * 10;
+        }
+
+        return key;
+      }
+    });
+
+    List<Thread> threads = new ArrayList<Thread>();
+    final List<Integer> values = new ArrayList<Integer>();
+
+    for (int i = 0; i < 4; ++i) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Integer v = cache.get(1);
+
+          synchronized (values) {
+            values.add(v);
+          }
+        }
+      });
+
+      thread.start();
+      threads.add(thread);
+    }
+
+    loading.await(5, TimeUnit.SECONDS);
+
+    // Other keys can be loaded while a load is in progress
+    assertEquals("other key", (Integer) 3, cache.get(3));
+
+    release.countDown();
+
+    for (Thread thread : threads) {
+      thread.join(5000);
+    }
+
+    assertEquals("values", "[20, 20, 20, 20]", values.toString());
+    assertEquals("loaded once", 3, loads.get());
+    assertEquals("load count", 3, cache.getLoads());
+
+    assertEquals("null load", null, cache.get(0));
+    assertEquals("null not cached", 3, cache.size());
+
+    try {
+      cache.get(-1);
+      fail("Loader did not throw");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    // A failed load is not remembered
+    try {
+      cache.get(-1);
+      fail("Loader did not throw");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    assertEquals("loads after failure", 6, loads.get());
+  }
+
+  @Test
+  public void cacheRecursiveLoadTest() throws Exception {
+    final Cache<Integer, Integer> cache = new Cache<Integer, Integer>(10);
+
+    cache.setLoader(new CacheLoader<Integer, Integer>() {
+      @Override
+      public Integer load(Integer key) {
+        // A loader asking for its own key would wait for itself
+        return key == 1 ? cache.get(1) : key;
+      }
+    });
+
+    final List<String> errors = new ArrayList<String>();
+
+    // Run on another thread so that a deadlock fails the test rather than
+    // hanging it
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 2; ++i) {
+          try {
+            cache.get(1);
+          } catch (IllegalStateException e) {
+            errors.add(e.getMessage());
+          }
+        }
+      }
+    });
+
+    thread.start();
+    thread.join(5000);
+
+    assertTrue("no deadlock", !thread.isAlive());
+    assertEquals("errors", "[Recursive load of key 1, Recursive load of key 1]", errors.toString());
+    assertEquals("other keys", (Integer) 2, cache.get(2));
+    assertEquals("not cached", 1, cache.size());
+  }
+
+  @Test
+  public void rankTest() {
+    double[] values = { 20, 10, Double.NaN, 20, 30 };
+
+    assertEquals("fractional", "[2.5, 1.0, NaN, 2.5, 4.0]", Arrays.toString(Mathematics.tiedRank(values)));
+    assertEquals("dense", "[3.0, 2.0, 1.0, 3.0, 4.0]",
+        Arrays.toString(Ranks.rank(values, RankMethod.DENSE, NaNPolicy.FIRST)));
+    assertEquals("negative", "[2.0, 1.0]", Arrays.toString(Mathematics.tiedRank(new double[] { -1, -2 })));
+  }
+
+  @Test
+  public void argsortTest() {
+    double[] values = { 3, 1, Double.NaN, 3, 2, 5 };
+
+    assertEquals("desc", "[5, 0, 3, 4, 1, 2]", Arrays.toString(ArgSort.argsortDesc(values)));
+    assertEquals("top", "[5, 0, 3]", Arrays.toString(ArgSort.top(values, 3)));
+    assertEquals("bottom", "[1, 4]", Arrays.toString(ArgSort.bottom(values, 2)));
+    assertEquals("quick", "[1.0, 2.0, 3.0, 3.0, 5.0, NaN]",
+        Arrays.toString(ArgSort.reorder(values, ArgSort.quickArgsort(values))));
+    assertEquals("invert", "[2, 0, 1]", Arrays.toString(ArgSort.invert(new int[] { 1, 2, 0 })));
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.core.event.ChangeListener;
+import org.jebtk.core.event.EventListeners;
+import org.junit.Test;
+
+public class EventTest {
+
+  /**
+   * Listener that records its name when notified.
+   */
+  private static class NamedListener implements ChangeListener {
+    private final String mName;
+    private final List<String> mLog;
+
+    public NamedListener(String name, List<String> log) {
+      mName = name;
+      mLog = log;
+    }
+
+    @Override
+    public void changed(ChangeEvent e) {
+      mLog.add(mName);
+    }
+  }
+
+  @Test
+  public void iterateTest() {
+    List<String> log = new ArrayList<String>();
+
+    EventListeners<ChangeListener> listeners = new EventListeners<ChangeListener>();
+
+    listeners.add(new NamedListener("a", log));
+    listeners.add(new NamedListener("b", log));
+
+    for (ChangeListener l : listeners) {
+      l.changed(new ChangeEvent(this));
+    }
+
+    assertEquals("Order", "[a, b]", log.toString());
+  }
+
+  @Test
+  public void addRemoveTest() {
+    List<String> log = new ArrayList<String>();
+
+    ChangeListener a = new NamedListener("a", log);
+    ChangeListener b = new NamedListener("b", log);
+
+    EventListeners<ChangeListener> listeners = new EventListeners<ChangeListener>();
+
+    listeners.add(a);
+    listeners.add(a);
+    listeners.add(null);
+    listeners.add(b);
+
+    assertEquals("Size", 2, listeners.size());
+
+    listeners.remove(a);
+
+    assertEquals("Removed", 1, listeners.size());
+    assertTrue("Remaining", listeners.iterator().next() == b);
+
+    listeners.remove(b);
+
+    assertTrue("Empty", listeners.isEmpty());
+    assertTrue("Empty iterator", !listeners.iterator().hasNext());
+  }
+
+  @Test
+  public void copyTest() {
+    List<String> log = new ArrayList<String>();
+
+    EventListeners<ChangeListener> listeners = new EventListeners<ChangeListener>();
+
+    listeners.add(new NamedListener("a", log));
+    listeners.add(new NamedListener("b", log));
+
+    EventListeners<ChangeListener> copy = new EventListeners<ChangeListener>(listeners);
+
+    assertEquals("Copy size", 2, copy.size());
+
+    // Changing the copy does not affect the original
+    copy.add(new NamedListener("c", log));
+
+    assertEquals("Original size", 2, listeners.size());
+
+    copy.addAll(listeners);
+
+    assertEquals("Add all ignores duplicates", 3, copy.size());
+  }
+}
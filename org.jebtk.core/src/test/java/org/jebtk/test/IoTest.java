@@ -0,0 +1,372 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jebtk.core.DoubleTableData;
+import org.jebtk.core.TableData;
+import org.jebtk.core.io.BinaryTableReader;
+import org.jebtk.core.io.BinaryTableWriter;
+import org.jebtk.core.io.ColumnType;
+import org.jebtk.core.io.ConcurrentLineFunction;
+import org.jebtk.core.io.FieldFunction;
+import org.jebtk.core.io.Io;
+import org.jebtk.core.io.LineFunction;
+import org.jebtk.core.io.Lines;
+import org.jebtk.core.io.MMapReader;
+import org.jebtk.core.io.ParallelReader;
+import org.jebtk.core.io.TableWriter;
+import org.jebtk.core.text.FieldCursor;
+import org.junit.Test;
+
+public class IoTest {
+
+  @Test
+  public void tableWriterTest() throws IOException {
+    Path file = Files.createTempFile("table", ".txt");
+
+    try {
+      TableWriter writer = new TableWriter(file);
+
+      try {
+        writer.add("a").add(1).add(-20L).add(0.5).add(3.0).add(1e7).add((Object) null).newLine();
+        writer.setPrecision(2).add(-0.001).add(2.345).add(Double.NaN).newLine();
+      } finally {
+        writer.close();
+      }
+
+      List<String> lines = Files.readAllLines(file);
+
+      assertEquals("default", "a\t1\t-20\t0.5\t3.0\t1.0E7\t", lines.get(0));
+      assertEquals("precision", "-0.00\t2.35\tNaN", lines.get(1));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void tableWriterRoundingTest() throws IOException {
+    Path file = Files.createTempFile("table", ".txt");
+
+    // Half way cases whose doubles lie just below the decimal, plus values
+    // past the fast path
+    double[] values = { 1.005, 2.675, 0.045, -1.005, 0.125, 1234567.125, 513.2995, 1e16 + 2, 123.456 };
+    int[] precisions = { 2, 2, 2, 2, 2, 2, 3, 2, 17 };
+
+    try {
+      TableWriter writer = new TableWriter(file);
+
+      try {
+        for (int i = 0; i < values.length; ++i) {
+          writer.setPrecision(precisions[i]).add(values[i]).newLine();
+        }
+      } finally {
+        writer.close();
+      }
+
+      List<String> lines = Files.readAllLines(file);
+
+      assertEquals("1.005", "1.01", lines.get(0));
+
+      for (int i = 0; i < values.length; ++i) {
+        assertEquals(Double.toString(values[i]), String.format("%." + precisions[i] + "f", values[i]), lines.get(i));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void gzipTableTest() throws IOException {
+    Path file = Files.createTempFile("table", ".txt.gz");
+
+    try {
+      DoubleTableData table = new DoubleTableData(new String[] { "r1", "r2" }, new String[] { "c1", "c2" },
+          new double[][] { { 1, 2 }, { 3.5, 4 } });
+
+      Io.writeTable(table, "\t", -1, file);
+
+      DoubleTableData read = Io.loadDoubleTableData(file, '\t', true, true);
+
+      assertEquals("names", "[c1, c2]", read.getColNames().toString());
+      assertEquals("value", 3.5, read.get(0, 1), 0);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void byteLinesTest() throws IOException {
+    Path file = Files.createTempFile("table", ".txt");
+
+    // A line longer than the read buffer and a mix of line endings
+    char[] wide = new char[100000];
+    Arrays.fill(wide, 'x');
+
+    String text = "r\tc1\tc2\r\n" + new String(wide) + "\t1\t2\n\r\nb\t3\t4\r\nc\t5";
+
+    try {
+      Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+      final List<String> fields = new ArrayList<String>();
+
+      Lines.lines((LineFunction) null).skipHeader(true).fields(file, '\t', new FieldFunction() {
+        @Override
+        public void parse(FieldCursor cursor) {
+          fields.add(cursor.size() + ":" + cursor.length(0) + ":" + cursor.getString(cursor.size() - 1));
+        }
+      });
+
+      assertEquals("fields", "[3:100000:2, 1:0:, 3:1:4, 2:1:5]", fields.toString());
+
+      DoubleTableData table = Io.loadDoubleTableData(file, '\t', true, true);
+
+      assertEquals("names", "[c1, c2]", table.getColNames().toString());
+      assertEquals("rows", 3, table.getRowCount());
+      assertEquals("wide", 100000, table.getRowName(0).length());
+      assertEquals("last", 5, table.get(2, 0), 0);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void loadTableTest() throws IOException {
+    Path file = Files.createTempFile("table", ".txt");
+
+    try {
+      // An empty field after a trailing delimiter is not a column
+      Files.write(file, Arrays.asList("a\tb\t", "r1\t1\t2\t", "r2\t3\t\t", "r3\t\"4\"\t5"), StandardCharsets.UTF_8);
+
+      TableData<String> table = Io.loadTable(file, '\t', true, true);
+
+      assertEquals("headings", "[a, b]", table.columnHeadings.toString());
+      assertEquals("rows", "[r1, r2, r3]", table.rowHeader.toString());
+      assertEquals("trailing", "[1, 2]", table.getRow(0).toString());
+      assertEquals("empty", "[3, ]", table.getRow(1).toString());
+      assertEquals("quotes", "[4, 5]", table.getRow(2).toString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void binaryTableTest() throws IOException {
+    Path file = Files.createTempFile("table", ".bin");
+
+    try {
+      new BinaryTableWriter(4).setRowNames(Arrays.asList("r1", "r2", "r3", "r4"))
+          .addColumn("id", new int[] { 1, 2, 3, 4 }).addColumn("pos", new long[] { 10L, 20L, 5000000000L, 40L })
+          .addColumn("score", new double[] { 0.5, -1, Double.NaN, 2 })
+          .addColumn("gene", new String[] { "A", "B", null, "A" }).write(file);
+
+      BinaryTableReader reader = new BinaryTableReader(file);
+
+      try {
+        assertEquals("cols", 4, reader.getColCount());
+        assertEquals("type", ColumnType.STRING, reader.getColType(3));
+        assertEquals("find", 2, reader.findColumn("score"));
+        assertEquals("rows", "[r1, r2, r3, r4]", reader.getRowNames().toString());
+        assertEquals("range", "[20, 5000000000]", Arrays.toString(reader.getLongColumn(1, 1, 2)));
+        assertEquals("strings", "[B, null, A]", Arrays.toString(reader.getStringColumn(3, 1, 3)));
+        assertEquals("value", -1, reader.getDouble(1, 2), 0);
+        assertEquals("int as double", 4, reader.getDouble(3, 0), 0);
+      } finally {
+        reader.close();
+      }
+
+      TableData<Object> table = Io.loadBinaryTable(file);
+
+      assertEquals("table", "[4, 40, 2.0, A]", table.getRow(3).toString());
+      assertEquals("headings", "[id, pos, score, gene]", table.columnHeadings.toString());
+
+      Io.writeBinaryTable(table, file);
+
+      table = Io.loadBinaryTable(file);
+
+      assertEquals("table round trip", "[3, 5000000000, NaN, null]", table.getRow(2).toString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void mmapSegmentTest() throws IOException {
+    Path file = Files.createTempFile("mmap", ".bin");
+
+    try {
+      DataOutputStream out = new DataOutputStream(Files.newOutputStream(file));
+
+      try {
+        out.writeInt(-123456789);
+        out.writeLong(5000000000L);
+        out.writeDouble(-2.5);
+        out.writeShort(-2);
+
+        for (int i = 0; i < 20; ++i) {
+          out.writeByte(i);
+        }
+
+        for (int i = 0; i < 10; ++i) {
+          out.writeDouble(i + 0.25);
+        }
+
+        for (int i = 0; i < 10; ++i) {
+          out.writeLong(-i * 1000000000L);
+        }
+
+        for (int i = 0; i < 10; ++i) {
+          out.writeInt(i * i);
+        }
+      } finally {
+        out.close();
+      }
+
+      // 13 byte segments so that most values straddle a boundary
+      MMapReader reader = new MMapReader(file, -1, 13);
+
+      try {
+        assertEquals("size", 242, reader.size());
+        assertEquals("int", -123456789, reader.readInt());
+        assertEquals("long", 5000000000L, reader.readLong());
+        assertEquals("double", -2.5, reader.readDouble(), 0);
+        assertEquals("short", -2, reader.readShort());
+
+        byte[] bytes = new byte[20];
+
+        reader.read(bytes);
+
+        assertEquals("bytes", 19, bytes[19]);
+
+        double[] doubles = new double[10];
+
+        reader.read(doubles, 0, 10);
+
+        assertEquals("doubles", "[0.25, 1.25, 2.25, 3.25, 4.25, 5.25, 6.25, 7.25, 8.25, 9.25]",
+            Arrays.toString(doubles));
+
+        long[] longs = new long[10];
+
+        reader.read(longs, 0, 10);
+
+        assertEquals("longs", -9000000000L, longs[9]);
+
+        int[] ints = new int[12];
+
+        reader.read(ints, 1, 10);
+
+        assertEquals("ints", "[0, 0, 1, 4, 9, 16, 25, 36, 49, 64, 81, 0]", Arrays.toString(ints));
+        assertEquals("tell", 242, reader.tell());
+
+        try {
+          reader.readByte();
+          fail("Read past the end");
+        } catch (BufferUnderflowException e) {
+          // Expected
+        }
+
+        // The long written at 4 spans the first and second segments
+        reader.seek(4);
+
+        assertEquals("seek", 5000000000L, reader.readLong());
+
+        // The bytes start at offset 22
+        reader.seek(26).skip(1);
+
+        assertEquals("skip", 5, reader.readByte());
+        assertEquals("tell after skip", 28, reader.tell());
+      } finally {
+        reader.close();
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void parallelReaderTest() throws IOException {
+    Path file = Files.createTempFile("parallel", ".txt");
+
+    try {
+      StringBuilder buffer = new StringBuilder("header\n");
+
+      for (int i = 0; i < 200; ++i) {
+        buffer.append("line\t").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+
+        if (i % 50 == 0) {
+          buffer.append("\n");
+        }
+      }
+
+      // Multi-byte characters must not be split
+      buffer.append("gr\u00fc\u00dfe");
+
+      Files.write(file, buffer.toString().getBytes(StandardCharsets.UTF_8));
+
+      List<String> expected = new ArrayList<String>();
+
+      List<String> all = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+      for (String line : all.subList(1, all.size())) {
+        if (!line.isEmpty()) {
+          expected.add(line);
+        }
+      }
+
+      final List<String> lines = new ArrayList<String>();
+
+      // Chunks much smaller than the file so that lines cross chunk
+      // boundaries
+      new ParallelReader(file).skipHeader(true).ordered(true).chunkSize(37).lines(new ConcurrentLineFunction() {
+        @Override
+        public void parse(String line) {
+          lines.add(line);
+        }
+      });
+
+      assertEquals("ordered", expected, lines);
+
+      final List<String> unordered = Collections.synchronizedList(new ArrayList<String>());
+
+      new ParallelReader(file).skipHeader(true).chunkSize(37).lines(new ConcurrentLineFunction() {
+        @Override
+        public void parse(String line) {
+          unordered.add(line);
+        }
+      });
+
+      Collections.sort(expected);
+      Collections.sort(unordered);
+
+      assertEquals("unordered", expected, unordered);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
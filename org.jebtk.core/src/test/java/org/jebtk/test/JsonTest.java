@@ -15,15 +15,26 @@
  */
 package org.jebtk.test;
 
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jebtk.core.io.PathUtils;
 import org.jebtk.core.json.Json;
 import org.jebtk.core.json.JsonArray;
 import org.jebtk.core.json.JsonBuilder;
+import org.jebtk.core.json.JsonByteParser;
+import org.jebtk.core.json.JsonFunction;
 import org.jebtk.core.json.JsonInteger;
+import org.jebtk.core.json.JsonLong;
 import org.jebtk.core.json.JsonObject;
 import org.jebtk.core.json.JsonParser;
+import org.jebtk.core.json.JsonReader;
 import org.jebtk.core.json.JsonString;
 import org.junit.Test;
 
@@ -95,4 +106,70 @@ public class JsonTest {
         + new JsonBuilder().startArray().add("cake").add(1).add(false).startObject().add("p", "test/sdf\\sdf")
             .add("q", 4).add("r", true).startArray("hmm").add("2").add("dfdf").endArray().endObject().endArray());
   }
+
+  @Test
+  public void testJsonReader() throws IOException {
+    String json = "{\"features\":[{\"id\":1,\"properties\":{\"name\":\"a\"}},{\"id\":2,\"properties\":{\"name\":\"b\"}}]}";
+
+    final List<Json> selected = new ArrayList<Json>();
+
+    new JsonReader(new StringReader(json)).select("features/*/properties", new JsonFunction() {
+      @Override
+      public void parse(Json json) {
+        selected.add(json);
+      }
+    });
+
+    assertEquals("selected", 2, selected.size());
+    assertEquals("selected name", "b", selected.get(1).getString("name"));
+  }
+
+  @Test
+  public void testJsonByteParser() {
+    String json = "{\"id\":12345678901,\"score\":2.5,\"n\":3,\"name\":\"caf\u00e9 \\\"x\\\" \\u00e9\",\"ok\":true,\"tags\":[\"a\",\"\"]}";
+
+    Json o = new JsonByteParser().parse(json.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("long", 12345678901L, o.get("id").getLong());
+    assertEquals("long type", JsonLong.class, o.get("id").getClass());
+    assertEquals("int", 3, o.getInt("n"));
+    assertEquals("double", 2.5, o.get("score").getDouble(), 0);
+    assertEquals("utf-8", "caf\u00e9 \"x\" \u00e9", o.getString("name"));
+    assertEquals("bool", true, o.get("ok").getBool());
+    assertEquals("empty", "", o.get("tags").getString(1));
+  }
+
+  @Test
+  public void testJsonByteParserBadEscape() {
+    // Malformed unicode escapes are kept as they are rather than failing
+    String json = "[\"a\\u00zzb\", \"\\u-0a1\", \"\\u00e9\\u0041\", \"x\\u12\"]";
+
+    Json o = new JsonByteParser().parse(json.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("not hex", "a\\u00zzb", o.getString(0));
+    assertEquals("sign", "\\u-0a1", o.getString(1));
+    assertEquals("valid", "\u00e9A", o.getString(2));
+    assertEquals("short", "x\\u12", o.getString(3));
+  }
+
+  @Test
+  public void testJsonObjectMembers() {
+    JsonObject o = new JsonObject();
+
+    for (int i = 0; i < 20; ++i) {
+      o.add("k" + i, i);
+    }
+
+    o.add("k3", "x");
+
+    assertEquals("size", 20, o.size());
+    assertEquals("hashed", 19, o.getInt("k19"));
+    assertEquals("replaced", "x", o.getString("k3"));
+    assertEquals("order", "k3", o.getKeys().toArray()[3]);
+    assertEquals("missing", false, o.containsKey("k20"));
+
+    Json json = new JsonByteParser().parse("[{\"a\":1,\"b\":[1,2]},{\"a\":2}]".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("json", "[{\"a\":1,\"b\":[1,2]},{\"a\":2}]", json.toJson());
+  }
 }
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jebtk.core.collections.ConcurrentRingBuffer;
+import org.jebtk.core.log.AsyncLog;
+import org.jebtk.core.log.FileLogSink;
+import org.jebtk.core.log.FullBufferPolicy;
+import org.jebtk.core.log.LogEvent;
+import org.jebtk.core.log.LogEventType;
+import org.jebtk.core.log.LogSink;
+import org.jebtk.core.log.StreamLogSink;
+import org.junit.Test;
+
+public class LogTest {
+
+  /**
+   * Sink that holds up the first batch until released, so that the buffer
+   * behind it can be filled.
+   */
+  private static class BlockingSink implements LogSink {
+    private final CountDownLatch mEntered = new CountDownLatch(1);
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private final List<String> mMessages = new ArrayList<String>();
+
+    @Override
+    public void write(List<LogEvent> events) throws IOException {
+      mEntered.countDown();
+
+      try {
+        mRelease.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      for (LogEvent e : events) {
+        mMessages.add(e.getMessage());
+      }
+    }
+
+    @Override
+    public void close() {
+      // Nothing to release
+    }
+  }
+
+  private static LogEvent event(String message) {
+    return new LogEvent(LogTest.class, message, LogEventType.INFORMATION);
+  }
+
+  @Test
+  public void ringBufferContentionTest() throws Exception {
+    // A small buffer so that the positions wrap around many times
+    final ConcurrentRingBuffer<int[]> buffer = new ConcurrentRingBuffer<int[]>(8);
+
+    final int producers = 4;
+    final int n = 5000;
+
+    List<Thread> threads = new ArrayList<Thread>();
+
+    for (int p = 0; p < producers; ++p) {
+      final int producer = p;
+
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < n; ++i) {
+            int[] item = { producer, i };
+
+            while (!buffer.offer(item)) {
+              Thread.yield();
+            }
+          }
+        }
+      });
+
+      thread.start();
+      threads.add(thread);
+    }
+
+    final int[] next = new int[producers];
+    final int[] received = new int[2];
+
+    // Two consumers take turns, one polling and one draining, so that the
+    // order of the elements can be checked
+    List<Thread> consumers = new ArrayList<Thread>();
+
+    for (int c = 0; c < 2; ++c) {
+      final int consumer = c;
+
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          List<int[]> batch = new ArrayList<int[]>();
+
+          while (true) {
+            synchronized (next) {
+              if (received[0] + received[1] == producers * n) {
+                return;
+              }
+
+              // Each producer's elements must come out in the order they
+              // went in
+              batch.clear();
+
+              if (consumer == 0) {
+                int[] item = buffer.poll();
+
+                if (item != null) {
+                  batch.add(item);
+                }
+              } else {
+                buffer.drainTo(batch, 3);
+              }
+
+              for (int[] item : batch) {
+                if (item[1] != next[item[0]]) {
+                  throw new IllegalStateException("Out of order " + Arrays.toString(item));
+                }
+
+                ++next[item[0]];
+              }
+
+              received[consumer] += batch.size();
+            }
+
+            if (batch.isEmpty()) {
+              Thread.yield();
+            }
+          }
+        }
+      });
+
+      thread.start();
+      consumers.add(thread);
+    }
+
+    for (Thread thread : threads) {
+      thread.join(10000);
+    }
+
+    for (Thread thread : consumers) {
+      thread.join(10000);
+    }
+
+    assertEquals("received", producers * n, received[0] + received[1]);
+    assertEquals("in order", "[5000, 5000, 5000, 5000]", Arrays.toString(next));
+    assertTrue("empty", buffer.isEmpty());
+    assertEquals("poll empty", null, buffer.poll());
+  }
+
+  @Test
+  public void dropPolicyTest() throws Exception {
+    BlockingSink sink = new BlockingSink();
+
+    AsyncLog log = new AsyncLog(4, sink).setBatchSize(1).setPolicy(FullBufferPolicy.DROP);
+
+    try {
+      log.logEvent(event("0"));
+
+      // The consumer now holds the first event, so 4 more fill the buffer
+      sink.mEntered.await(5, TimeUnit.SECONDS);
+
+      for (int i = 1; i < 8; ++i) {
+        log.logEvent(event(Integer.toString(i)));
+      }
+
+      assertEquals("dropped", 3, log.getDropped());
+      assertEquals("depth", 4, log.getDepth());
+
+      sink.mRelease.countDown();
+
+      log.flush();
+
+      assertEquals("written", "[0, 1, 2, 3, 4]", sink.mMessages.toString());
+    } finally {
+      sink.mRelease.countDown();
+      log.close();
+    }
+  }
+
+  @Test
+  public void blockPolicyTest() throws Exception {
+    BlockingSink sink = new BlockingSink();
+
+    final AsyncLog log = new AsyncLog(4, sink).setBatchSize(1).setPolicy(FullBufferPolicy.BLOCK);
+
+    try {
+      log.logEvent(event("0"));
+
+      sink.mEntered.await(5, TimeUnit.SECONDS);
+
+      for (int i = 1; i < 5; ++i) {
+        log.logEvent(event(Integer.toString(i)));
+      }
+
+      Thread producer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          log.logEvent(event("5"));
+        }
+      });
+
+      producer.start();
+      producer.join(100);
+
+      assertTrue("blocked", producer.isAlive());
+
+      sink.mRelease.countDown();
+
+      producer.join(5000);
+
+      assertTrue("unblocked", !producer.isAlive());
+
+      log.flush();
+
+      assertEquals("dropped", 0, log.getDropped());
+      assertEquals("written", "[0, 1, 2, 3, 4, 5]", sink.mMessages.toString());
+    } finally {
+      sink.mRelease.countDown();
+      log.close();
+    }
+  }
+
+  @Test
+  public void sinkFailureTest() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    LogSink failing = new LogSink() {
+      @Override
+      public void write(List<LogEvent> events) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      @Override
+      public void close() {
+        // Nothing to release
+      }
+    };
+
+    AsyncLog log = new AsyncLog(failing)
+        .setFallbackSink(new StreamLogSink(new PrintStream(bytes, true, "UTF-8")));
+
+    log.logEvent(event("a"));
+    log.close();
+
+    String out = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+
+    assertTrue(out, out.contains("failed: java.io.IOException: disk full"));
+    assertEquals("written", 1, log.getWritten());
+  }
+
+  @Test
+  public void fileRolloverTest() throws Exception {
+    Path dir = Files.createTempDirectory("log");
+    Path file = dir.resolve("log.txt");
+
+    FileLogSink sink = new FileLogSink(file).setMaxSize(200).setMaxFiles(2);
+
+    try {
+      for (int i = 0; i < 10; ++i) {
+        sink.write(Arrays.asList(event("message " + i), event("message " + i)));
+      }
+    } finally {
+      sink.close();
+    }
+
+    Path rolled1 = dir.resolve("log.txt.1");
+    Path rolled2 = dir.resolve("log.txt.2");
+
+    assertTrue("rolled 1", Files.exists(rolled1));
+    assertTrue("rolled 2", Files.exists(rolled2));
+    assertTrue("max files", !Files.exists(dir.resolve("log.txt.3")));
+    assertTrue("max size", Files.size(file) <= 200);
+
+    List<String> lines = Files.readAllLines(file);
+
+    // Batches are never split across files
+    assertTrue("last batch", lines.get(lines.size() - 1).contains("message 9"));
+    assertEquals("batch lines", 0, lines.size() % 2);
+
+    // Writing after closing opens the file again and appends
+    sink.write(Arrays.asList(event("reopened")));
+    sink.close();
+
+    lines = Files.readAllLines(file);
+
+    assertTrue("reopened", lines.get(lines.size() - 1).contains("reopened"));
+
+    for (Path p : new Path[] { file, rolled1, rolled2 }) {
+      Files.deleteIfExists(p);
+    }
+
+    Files.delete(dir);
+  }
+}
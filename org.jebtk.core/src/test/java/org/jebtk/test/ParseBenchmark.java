@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+import org.jebtk.core.text.TextUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the scanning number parsers in TextUtils with the previous regex
+ * based implementation. Run with
+ *
+ * mvn test-compile exec:java -Dexec.mainClass=org.jebtk.test.ParseBenchmark
+ * -Dexec.classpathScope=test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+  private static final int N = 1000;
+
+  private String[] mDoubles;
+
+  private String[] mInts;
+
+  @Setup
+  public void setup() {
+    Random r = new Random(0);
+
+    mDoubles = new String[N];
+    mInts = new String[N];
+
+    for (int i = 0; i < N; ++i) {
+      mDoubles[i] = Double.toString(r.nextGaussian() * 1000);
+      mInts[i] = Integer.toString(r.nextInt());
+    }
+
+    // Some values with separators and text to exercise the slower paths
+    for (int i = 0; i < N; i += 10) {
+      mDoubles[i] = String.format("%,.2f", r.nextDouble() * 1e7);
+      mDoubles[i + 1] = r.nextInt(100) + " %";
+    }
+  }
+
+  @Benchmark
+  public void parseDouble(Blackhole bh) {
+    for (String s : mDoubles) {
+      bh.consume(TextUtils.parseDouble(s));
+    }
+  }
+
+  @Benchmark
+  public void parseDoubleRegex(Blackhole bh) {
+    for (String s : mDoubles) {
+      bh.consume(regexParseDouble(s));
+    }
+  }
+
+  @Benchmark
+  public void parseInt(Blackhole bh) {
+    for (String s : mInts) {
+      bh.consume(TextUtils.parseInt(s));
+    }
+  }
+
+  @Benchmark
+  public void parseIntRegex(Blackhole bh) {
+    for (String s : mInts) {
+      bh.consume(regexParseInt(s));
+    }
+  }
+
+  /**
+   * The original implementation of TextUtils.parseDouble.
+   */
+  private static double regexParseDouble(String field) {
+    field = field.replace(",", TextUtils.EMPTY_STRING);
+
+    Matcher matcher = TextUtils.NUMBER_PATTERN.matcher(field);
+
+    if (matcher.matches()) {
+      return Double.parseDouble(field);
+    } else {
+      matcher.reset();
+
+      if (matcher.find()) {
+        return Double.parseDouble(matcher.group(1));
+      } else {
+        return Double.NaN;
+      }
+    }
+  }
+
+  /**
+   * The original implementation of TextUtils.parseInt.
+   */
+  private static int regexParseInt(String field) {
+    if (TextUtils.INT_PARSE_PATTERN.matcher(field).matches()) {
+      return Integer.parseInt(field);
+    } else {
+      return (int) regexParseDouble(field);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ParseBenchmark.class.getSimpleName()).build()).run();
+  }
+}
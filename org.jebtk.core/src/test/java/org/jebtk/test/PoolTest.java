@@ -0,0 +1,203 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jebtk.core.pool.ConcurrentObjectPool;
+import org.jebtk.core.pool.ObjectCreator;
+import org.jebtk.core.pool.ObjectDestroyer;
+import org.jebtk.core.pool.ObjectPoolExhaustedException;
+import org.jebtk.core.pool.ObjectValidator;
+import org.junit.Test;
+
+public class PoolTest {
+
+  /**
+   * Creates numbered objects, failing the first few times if asked to.
+   */
+  private static class Creator implements ObjectCreator<List<Integer>> {
+    private final AtomicInteger mCount = new AtomicInteger(0);
+    private final AtomicInteger mFailures;
+
+    public Creator(int failures) {
+      mFailures = new AtomicInteger(failures);
+    }
+
+    @Override
+    public List<Integer> create() {
+      if (mFailures.getAndDecrement() > 0) {
+        throw new IllegalStateException("create failed");
+      }
+
+      List<Integer> ret = new ArrayList<Integer>();
+
+      ret.add(mCount.getAndIncrement());
+
+      return ret;
+    }
+  }
+
+  @Test
+  public void maxSizeTest() throws Exception {
+    ConcurrentObjectPool<List<Integer>> pool = new ConcurrentObjectPool<List<Integer>>("test", new Creator(0), 2);
+
+    List<Integer> a = pool.checkOut();
+    List<Integer> b = pool.checkOut();
+
+    assertTrue("Distinct", a != b);
+    assertTrue("Exhausted", pool.checkOut() == null);
+    assertEquals("Size", 2, pool.getSize());
+
+    pool.checkIn(a);
+
+    assertTrue("Reused", pool.checkOut(100, TimeUnit.MILLISECONDS) == a);
+    assertEquals("Hits", 1, pool.getHits());
+    assertEquals("Misses", 2, pool.getMisses());
+  }
+
+  @Test
+  public void timeoutTest() throws Exception {
+    ConcurrentObjectPool<List<Integer>> pool = new ConcurrentObjectPool<List<Integer>>("test", new Creator(0), 1);
+
+    pool.checkOut();
+
+    long start = System.nanoTime();
+
+    try {
+      pool.checkOut(50, TimeUnit.MILLISECONDS);
+      fail("Checked out from an exhausted pool");
+    } catch (ObjectPoolExhaustedException e) {
+      // Expected
+    }
+
+    assertTrue("Waited", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals("Timeouts", 1, pool.getTimeouts());
+  }
+
+  @Test
+  public void creatorFailureTest() throws Exception {
+    // More failures than the pool has room for
+    ConcurrentObjectPool<List<Integer>> pool = new ConcurrentObjectPool<List<Integer>>("test", new Creator(3), 2);
+
+    for (int i = 0; i < 3; ++i) {
+      try {
+        pool.checkOut(100, TimeUnit.MILLISECONDS);
+        fail("Creator did not fail");
+      } catch (IllegalStateException e) {
+        // Expected
+      }
+    }
+
+    assertEquals("Size after failures", 0, pool.getSize());
+    assertEquals("In use after failures", 0, pool.getInUse());
+
+    pool.checkOut(100, TimeUnit.MILLISECONDS);
+    pool.checkOut(100, TimeUnit.MILLISECONDS);
+
+    assertEquals("Size", 2, pool.getSize());
+  }
+
+  @Test
+  public void validationTest() throws Exception {
+    final List<List<Integer>> destroyed = new ArrayList<List<Integer>>();
+
+    ConcurrentObjectPool<List<Integer>> pool = new ConcurrentObjectPool<List<Integer>>("test", new Creator(0), 2)
+        .setValidator(new ObjectValidator<List<Integer>>() {
+          @Override
+          public boolean validate(List<Integer> object) {
+            if (object.get(0) == 1) {
+              throw new IllegalStateException("validate failed");
+            }
+
+            // Only the first object created is valid
+            return object.get(0) == 0;
+          }
+        }).setDestroyer(new ObjectDestroyer<List<Integer>>() {
+          @Override
+          public void destroy(List<Integer> object) {
+            destroyed.add(object);
+          }
+        });
+
+    List<Integer> a = pool.checkOut();
+    List<Integer> b = pool.checkOut();
+
+    pool.checkIn(a);
+    pool.checkIn(b);
+
+    // b throws when validated so is removed and the error passed on
+    try {
+      pool.checkOut();
+      fail("Validator did not throw");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    assertEquals("Destroyed", "[[1]]", destroyed.toString());
+    assertEquals("Size", 1, pool.getSize());
+    assertTrue("Valid object reused", pool.checkOut() == a);
+
+    // The replacement fails validation when it is reused
+    List<Integer> c = pool.checkOut();
+
+    assertEquals("Replacement", 2, (int) c.get(0));
+
+    pool.checkIn(c);
+    pool.checkIn(a);
+    pool.checkOut();
+    pool.checkOut();
+
+    assertEquals("Destroyed invalid", "[[1], [2]]", destroyed.toString());
+    assertEquals("Misses", 4, pool.getMisses());
+  }
+
+  @Test
+  public void idleEvictionTest() throws Exception {
+    final List<List<Integer>> destroyed = new ArrayList<List<Integer>>();
+
+    ConcurrentObjectPool<List<Integer>> pool = new ConcurrentObjectPool<List<Integer>>("test", new Creator(0), 2)
+        .setIdleTimeout(10, TimeUnit.MILLISECONDS).setDestroyer(new ObjectDestroyer<List<Integer>>() {
+          @Override
+          public void destroy(List<Integer> object) {
+            destroyed.add(object);
+          }
+        });
+
+    List<Integer> a = pool.checkOut();
+    List<Integer> b = pool.checkOut();
+
+    pool.checkIn(a);
+
+    Thread.sleep(20);
+
+    pool.evict();
+
+    assertEquals("Evicted", "[[0]]", destroyed.toString());
+    assertEquals("Size", 1, pool.getSize());
+
+    pool.checkIn(b);
+
+    assertTrue("Not evicted", pool.checkOut() == b);
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.jebtk.core.io.LineFunction;
+import org.jebtk.core.sys.ExternalProcess;
+import org.jebtk.core.sys.ProcessFuture;
+import org.jebtk.core.sys.ProcessResult;
+import org.jebtk.core.sys.ProcessRunner;
+import org.junit.Test;
+
+public class ProcessTest {
+
+  /**
+   * Creates a process running a shell script. The script should exec long
+   * running commands so that killing the shell kills them too.
+   */
+  private static ExternalProcess sh(String script) {
+    ExternalProcess process = new ExternalProcess(Paths.get("."));
+
+    process.addArg("sh", "-c", script);
+
+    return process;
+  }
+
+  @Test
+  public void captureTest() throws Exception {
+    final List<String> lines = new ArrayList<String>();
+
+    ExternalProcess process = sh("echo a; echo b; echo c; echo d 1>&2; exit 3").setCapture(2)
+        .setOutput(new LineFunction() {
+          @Override
+          public void parse(String line) {
+            lines.add(line);
+          }
+        });
+
+    ProcessResult result = new ProcessRunner(1).run(process);
+
+    assertEquals("exit code", 3, result.getExitCode());
+    assertTrue("not timed out", !result.isTimedOut());
+    assertEquals("all lines", "[a, b, c]", lines.toString());
+    assertEquals("captured", "[b, c]", result.getOutput().toString());
+    assertEquals("error", "[d]", result.getError().toString());
+  }
+
+  @Test
+  public void timeoutTest() throws Exception {
+    ExternalProcess process = sh("exec sleep 10").setTimeout(100, TimeUnit.MILLISECONDS);
+
+    long start = System.nanoTime();
+
+    ProcessResult result = new ProcessRunner(1).run(process);
+
+    assertTrue("timed out", result.isTimedOut());
+    assertTrue("killed", result.getExitCode() != 0);
+    assertTrue("did not wait", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+    // Submitted processes time out the same way
+    result = process.start(new ProcessRunner(1)).get(5, TimeUnit.SECONDS);
+
+    assertTrue("submitted timed out", result.isTimedOut());
+  }
+
+  @Test
+  public void cancelTest() throws Exception {
+    // Only one process runs at a time, so the second can only start once
+    // the first has been killed
+    ProcessRunner runner = new ProcessRunner(1);
+
+    ProcessFuture future = sh("exec sleep 10").start(runner);
+    ProcessFuture next = sh("echo done").setCapture(1).start(runner);
+
+    // Give the first process time to start
+    Thread.sleep(200);
+
+    assertTrue("cancelled", future.cancel(true));
+    assertTrue("is cancelled", future.isCancelled());
+    assertTrue("is done", future.isDone());
+
+    try {
+      future.get();
+      fail("Cancelled future returned a result");
+    } catch (CancellationException e) {
+      // Expected
+    }
+
+    assertEquals("next", "[done]", next.get(5, TimeUnit.SECONDS).getOutput().toString());
+
+    // Cancelling a process before it starts stops it running at all
+    ProcessFuture blocker = sh("exec sleep 10").start(runner);
+    ProcessFuture queued = sh("echo queued").start(runner);
+
+    assertTrue("queued cancelled", queued.cancel(true));
+
+    blocker.cancel(true);
+
+    assertTrue("queued is cancelled", queued.isCancelled());
+
+    runner.shutdown();
+  }
+}
@@ -1,8 +1,16 @@
 package org.jebtk.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Set;
 
 import org.jebtk.core.objectdb.RadixObjectDb;
+import org.jebtk.core.objectdb.RadixObjectNode;
 import org.jebtk.core.text.TextUtils;
 import org.junit.Test;
 
@@ -33,4 +41,90 @@ public class RadixObjectTreeTest {
       System.err.println(s);
     }
   }
+
+  @Test
+  public void prefixTest() throws Exception {
+    RadixObjectDb<String> db = new RadixObjectDb<String>();
+
+    db.addObject("antleg", "a");
+    db.addObject("ant", "b");
+    db.addObject("Anteater", "c");
+    db.addObject("bee", "d");
+
+    assertEquals("objects", "[b, c, a]", db.getChild("an").getObjects().toString());
+    assertEquals("limit", "[ant, Anteater]", db.getWords("ANT", 2).toString());
+    assertEquals("missing", null, db.getChild("ab"));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    new ObjectOutputStream(bytes).writeObject(db);
+
+    @SuppressWarnings("unchecked")
+    RadixObjectDb<String> copy = (RadixObjectDb<String>) new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+    assertEquals("serialized", "[b, c, a, d]", copy.getObjects().toString());
+  }
+
+  @Test
+  public void emptyPrefixTest() {
+    RadixObjectDb<String> db = new RadixObjectDb<String>();
+
+    db.addObject("ant", "a");
+
+    assertTrue("root", db.getChild("") == db);
+
+    RadixObjectNode<String> child = db.getChild("an");
+
+    assertTrue("self", child.getChild("") == child);
+    assertEquals("grandchild", "[a]", child.getChild("t").getObjects().toString());
+  }
+
+  @Test
+  public void clearPrefixTest() {
+    RadixObjectDb<String> db = new RadixObjectDb<String>();
+
+    db.addObject("antleg", "a");
+    db.addObject("ant", "b");
+    db.addObject("anteater", "c");
+    db.addObject("bee", "d");
+
+    db.getChild("antl").clear();
+
+    assertEquals("cleared", "[b, c, d]", db.getObjects().toString());
+    assertEquals("size", 3, db.getTree().size());
+    assertEquals("gone", null, db.getChild("antl"));
+
+    // The prefix ends part way along an edge
+    db.getChild("antea").clear();
+
+    assertEquals("partial", "[ant, bee]", db.getWords("", 10).toString());
+
+    db.addObject("anteater", "e");
+
+    assertEquals("re-added", "[b, e]", db.getChild("ant").getObjects().toString());
+
+    db.getChild("an").clear();
+
+    assertEquals("all cleared", "[d]", db.getObjects().toString());
+    assertEquals("size after all", 1, db.getTree().size());
+  }
+
+  @Test
+  public void manyObjectsTest() {
+    RadixObjectDb<Integer> db = new RadixObjectDb<Integer>();
+
+    for (int i = 0; i < 1000; ++i) {
+      db.addObject("gene", i % 100);
+    }
+
+    db.getTree().trim();
+
+    // Adds after trimming still skip duplicates
+    db.addObject("Gene", 5);
+    db.addObject("gene", 100);
+
+    assertEquals("distinct", 101, db.getObjects().size());
+    assertEquals("order", (Integer) 100, db.getObjects().get(100));
+  }
 }
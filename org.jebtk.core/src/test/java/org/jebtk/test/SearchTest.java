@@ -1,8 +1,12 @@
 package org.jebtk.test;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
 import java.util.List;
 
 import org.jebtk.core.search.SearchStackElement;
+import org.jebtk.core.search.TextSearchQuery;
 import org.junit.Test;
 
 public class SearchTest {
@@ -16,4 +20,15 @@ public class SearchTest {
       System.err.println("search: " + e.mOp + " " + e.mText);
     }
   }
+
+  @Test
+  public void textSearchTest() {
+    TextSearchQuery query = new TextSearchQuery(Arrays.asList("BCL6", "BCL2", "MYC", "bcl6-as1", "PAX5"));
+
+    assertEquals("contains", "[BCL6, bcl6-as1]", query.search("bcl6").toString());
+    assertEquals("exact", "[BCL6]", query.search("\"bcl6\"").toString());
+    assertEquals("not", "[BCL2]", query.search("bcl -bcl6").toString());
+    assertEquals("or", "[MYC, PAX5]", query.search("myc OR pax").toString());
+    assertEquals("limit", "[BCL6]", query.search("bcl", 1).toString());
+  }
 }
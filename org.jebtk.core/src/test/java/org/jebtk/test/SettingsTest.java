@@ -0,0 +1,264 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jebtk.core.path.Path;
+import org.jebtk.core.path.StrictPath;
+import org.jebtk.core.settings.Setting;
+import org.jebtk.core.settings.SettingHandle;
+import org.jebtk.core.settings.Settings;
+import org.jebtk.core.settings.SettingsService;
+import org.junit.Test;
+
+public class SettingsTest {
+
+  /**
+   * Exposes the path cache of the settings.
+   */
+  private static class PathSettings extends Settings {
+    public Path getPath(String name) {
+      return path(name);
+    }
+  }
+
+  /**
+   * Holds the monitor of an object until released so that reads can be
+   * checked not to need it.
+   */
+  private static class LockHolder extends Thread {
+    private final Object mLock;
+    private final CountDownLatch mLocked = new CountDownLatch(1);
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    public LockHolder(Object lock) {
+      mLock = lock;
+    }
+
+    @Override
+    public void run() {
+      synchronized (mLock) {
+        mLocked.countDown();
+
+        try {
+          mRelease.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs reads on another thread while the settings are locked and returns
+   * true if they finished without waiting for the lock.
+   */
+  private static boolean readWhileLocked(Object lock, Runnable reads) throws InterruptedException {
+    LockHolder holder = new LockHolder(lock);
+
+    holder.start();
+
+    try {
+      holder.mLocked.await(5, TimeUnit.SECONDS);
+
+      Thread reader = new Thread(reads);
+
+      reader.start();
+      reader.join(2000);
+
+      return !reader.isAlive();
+    } finally {
+      holder.mRelease.countDown();
+      holder.join(5000);
+    }
+  }
+
+  @Test
+  public void pathCacheTest() {
+    PathSettings settings = new PathSettings();
+
+    Path path = settings.getPath("a.b.c");
+
+    assertTrue("cached", settings.getPath("a.b.c") == path);
+    assertEquals("path", "a/b/c", path.toString());
+
+    // Names beyond the size of the cache are still parsed correctly
+    for (int i = 0; i < 5000; ++i) {
+      settings.getPath("a.b" + i);
+    }
+
+    assertEquals("uncached path", "a/b9999", settings.getPath("a.b9999").toString());
+    assertTrue("still cached", settings.getPath("a.b.c") == path);
+
+    // Names and their paths find the same setting
+    settings.update("a.b.c", 3);
+
+    assertEquals("by name", 3, settings.getInt("a.b.c"));
+    assertEquals("by path", 3, settings.getInt(path));
+  }
+
+  @Test
+  public void handleTest() {
+    Settings settings = new Settings();
+
+    SettingHandle handle = settings.getHandle("a.b");
+
+    assertTrue("not yet added", !handle.exists());
+    assertTrue("same handle", settings.getHandle("a.b") == handle);
+
+    settings.update("a.b", 1);
+
+    assertEquals("added", 1, handle.getInt());
+
+    settings.update("a.b", 2);
+
+    assertEquals("updated", 2, handle.getInt());
+    assertEquals("setting", 2, settings.getSetting("a.b").getInt());
+
+    settings.resetToDefault("a.b");
+
+    assertEquals("reset", 1, handle.getInt());
+  }
+
+  @Test
+  public void lockFreeReadTest() throws Exception {
+    final Settings settings = new Settings();
+
+    settings.update("a.b", 1);
+
+    final SettingHandle handle = settings.getHandle("a.b");
+    final List<Integer> read = new ArrayList<Integer>();
+
+    boolean finished = readWhileLocked(settings, new Runnable() {
+      @Override
+      public void run() {
+        read.add(settings.getSetting("a.b").getInt());
+        read.add(handle.getInt());
+      }
+    });
+
+    assertTrue("reads did not wait for the lock", finished);
+    assertEquals("read", "[1, 1]", read.toString());
+  }
+
+  @Test
+  public void autoLoadOffTest() throws Exception {
+    final SettingsService settings = SettingsService.getInstance();
+
+    settings.setAutoLoad(false);
+
+    try {
+      final List<Setting> read = new ArrayList<Setting>();
+
+      // With nothing to load reads should never need the lock
+      boolean finished = readWhileLocked(settings, new Runnable() {
+        @Override
+        public void run() {
+          read.add(settings.getSetting("settings.test.missing"));
+        }
+      });
+
+      assertTrue("reads did not wait for the lock", finished);
+      assertEquals("read", 1, read.size());
+      assertTrue("missing", read.get(0) == null);
+    } finally {
+      settings.setAutoLoad(true);
+    }
+  }
+
+  @Test
+  public void concurrentReadTest() throws Exception {
+    final Settings settings = new Settings();
+
+    settings.update("a.b", 0);
+
+    final SettingHandle handle = settings.getHandle("a.b");
+    final int n = 200;
+    final List<String> errors = new ArrayList<String>();
+
+    List<Thread> readers = new ArrayList<Thread>();
+
+    for (int r = 0; r < 2; ++r) {
+      Thread reader = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          int last = 0;
+
+          while (last < n) {
+            int v = handle.getInt();
+
+            // Values only ever increase as the writer updates them
+            if (v < last || v > n) {
+              synchronized (errors) {
+                errors.add(last + " -> " + v);
+              }
+
+              return;
+            }
+
+            last = v;
+
+            Thread.yield();
+          }
+        }
+      });
+
+      reader.start();
+      readers.add(reader);
+    }
+
+    for (int i = 1; i <= n; ++i) {
+      settings.update("a.b", i);
+    }
+
+    for (Thread reader : readers) {
+      reader.join(5000);
+
+      assertTrue("reader finished", !reader.isAlive());
+    }
+
+    assertEquals("errors", "[]", errors.toString());
+    assertEquals("last", n, settings.getInt("a.b"));
+  }
+
+  @Test
+  public void iteratorTest() {
+    Settings settings = new Settings();
+
+    settings.update("b", 2);
+    settings.update("a", 1);
+
+    // Neither handles nor empty histories count as settings
+    settings.getHandle("c");
+    settings.getSettings(new StrictPath("d"));
+
+    List<String> paths = new ArrayList<String>();
+
+    for (Iterator<Path> it = settings.iterator(); it.hasNext();) {
+      paths.add(it.next().toString());
+    }
+
+    assertEquals("paths", "[a, b]", paths.toString());
+  }
+}
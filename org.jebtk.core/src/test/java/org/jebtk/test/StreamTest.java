@@ -20,7 +20,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.jebtk.core.Function;
+import org.jebtk.core.stream.Combiner;
+import org.jebtk.core.stream.Filter;
+import org.jebtk.core.stream.IntFilter;
 import org.jebtk.core.stream.IntStream;
 import org.jebtk.core.stream.Stream;
 import org.junit.Test;
@@ -125,4 +132,108 @@ public class StreamTest {
 
     assertTrue("Stream list: " + s.toString(), s.toString().equals("[1, 2, 3, 4, 5, 6, 7, 8]"));
   }
+
+  @Test
+  public void parallelTest() {
+    List<Integer> values = new ArrayList<Integer>();
+
+    for (int i = 0; i < 100000; ++i) {
+      values.add(i);
+    }
+
+    Stream<Integer> stream = Stream.of(values).parallel().filter(new Filter<Integer>() {
+      @Override
+      public boolean keep(Integer item) {
+        return item % 2 == 0;
+      }
+    }).map(new Function<Integer, Integer>() {
+      @Override
+      public Integer apply(Integer item) {
+        return item / 2;
+      }
+    });
+
+    List<Integer> s = stream.toList();
+
+    assertEquals("Stream size", 50000, s.size());
+    assertEquals("Stream order", (Integer) 49999, s.get(49999));
+
+    int sum = Stream.of(1, 2, 3, 4).parallel().reduce(0, new Combiner<Integer>() {
+      @Override
+      public Integer combine(Integer a, Integer b) {
+        return a + b;
+      }
+    });
+
+    assertEquals("Stream sum", 10, sum);
+  }
+
+  @Test
+  public void fuseAfterStageTest() {
+    Function<Integer, Integer> identity = new Function<Integer, Integer>() {
+      @Override
+      public Integer apply(Integer item) {
+        return item;
+      }
+    };
+
+    assertEquals("Skip map", "[3, 4, 5, 6]", Stream.of(1, 2, 3, 4, 5, 6).skip(2).map(identity).toList().toString());
+    assertEquals("Skip count", 4, Stream.of(1, 2, 3, 4, 5, 6).skip(2).map(identity).count());
+    assertEquals("Skip parallel", "[3, 4, 5, 6]", Stream.of(1, 2, 3, 4, 5, 6).skip(2).parallel().toList().toString());
+    assertEquals("Jump map", "[1, 3, 5]", Stream.of(1, 2, 3, 4, 5, 6).jump(2).map(identity).toList().toString());
+    assertEquals("Replicate map", "[1, 1, 2, 2]", Stream.of(1, 2).replicate(2).map(identity).toList().toString());
+
+    Stream<Integer> filtered = Stream.of(1, 2, 3, 4, 5, 6).filter(new Filter<Integer>() {
+      @Override
+      public boolean keep(Integer item) {
+        return item > 4;
+      }
+    });
+
+    assertEquals("Filter map", "[5, 6]", filtered.map(identity).toList().toString());
+  }
+
+  @Test
+  public void parallelPoolTest() throws Exception {
+    final List<Integer> values = new ArrayList<Integer>();
+
+    for (int i = 0; i < 100000; ++i) {
+      values.add(i);
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(2);
+
+    try {
+      // Run the terminal operation from inside a different pool
+      int count = ForkJoinPool.commonPool().submit(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          return Stream.of(values).parallel(pool).filter(new Filter<Integer>() {
+            @Override
+            public boolean keep(Integer item) {
+              return ForkJoinTask.getPool() == pool;
+            }
+          }).count();
+        }
+      }).get();
+
+      assertEquals("Stream pool", 100000, count);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void primitiveTest() {
+    IntStream stream = Stream.asInt(1, 2, 3, 4, 5, 6).filterInt(new IntFilter() {
+      @Override
+      public boolean keep(int v) {
+        return v % 2 == 0;
+      }
+    }).multiply(10);
+
+    assertEquals("Stream sum", 120, stream.sum());
+    assertEquals("Stream mean", 2.5, Stream.asDouble(1, 2, 3, 4).mean(), 0);
+    assertEquals("Stream histogram", 2, Stream.asDouble(0, 0.5, 1, 2).histogram(0, 2, 2)[0]);
+  }
 }
@@ -16,7 +16,15 @@ toString * Copyright 2016 Antony Holmes
 package org.jebtk.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+
+import org.jebtk.core.collections.CollectionUtils;
+import org.jebtk.core.text.FieldCursor;
+import org.jebtk.core.text.NumberScanner;
+import org.jebtk.core.text.Splitter;
 import org.jebtk.core.text.TextUtils;
 import org.junit.Test;
 
@@ -38,5 +46,96 @@ public class TextTest {
   public void parseTest() {
     System.err.println("blocl " + TextUtils.parseDouble("200 %"));
     assertEquals("parse num", 200, TextUtils.parseDouble("200 %"), 0.0001);
+    assertEquals("parse separators", 1234567.89, TextUtils.parseDouble("1,234,567.89"), 0.0001);
+    assertEquals("parse exp", -2.5e-3, TextUtils.parseDouble("-2.5E-3"), 0.0000001);
+    assertEquals("parse int", -42, TextUtils.parseInt("-42"));
+    assertEquals("parse int from double", 3, TextUtils.parseInt("3.7"));
+  }
+
+  @Test
+  public void parseEdgeTest() {
+    // A leading point is part of the number rather than skipped
+    assertEquals("parse leading point", 0.5, TextUtils.parseDouble(".5"), 0);
+    assertEquals("parse negative leading point", -0.5, TextUtils.parseDouble("-.5"), 0);
+
+    // Hex floats are parsed as Double.parseDouble would
+    assertEquals("parse hex float", 8.0, TextUtils.parseDouble("0x1p3"), 0);
+    assertEquals("parse hex float exp", 0.25, TextUtils.parseDouble("0x1P-2"), 0);
+
+    assertEquals("parse int max", Integer.MAX_VALUE, TextUtils.parseInt("2147483647"));
+
+    try {
+      TextUtils.parseInt("2147483648");
+      fail("parse int overflow");
+    } catch (NumberFormatException e) {
+      // Expected
+    }
+
+    try {
+      TextUtils.parseInt("-99999999999999999999");
+      fail("parse int long overflow");
+    } catch (NumberFormatException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void cursorTest() {
+    FieldCursor cursor = Splitter.cursor('\t').reset("gene\t1.5\t\t42");
+
+    assertEquals("cursor size", 4, cursor.size());
+    assertTrue("cursor equals", cursor.equals(0, "gene"));
+    assertEquals("cursor double", 1.5, cursor.parseDouble(1), 0.0001);
+    assertTrue("cursor empty", cursor.isEmpty(2));
+    assertEquals("cursor int", 42, cursor.parseInt(3));
+  }
+
+  @Test
+  public void cursorParseErrorTest() {
+    FieldCursor cursor = Splitter.cursor('\t').reset("1e3\t-2.9\t\tabc\t3e9\t1e19\t-9223372036854775808");
+
+    assertEquals("cursor exponent", 1000, cursor.parseInt(0));
+    assertEquals("cursor truncated", -2, cursor.parseInt(1));
+    assertEquals("cursor long", 3000000000L, cursor.parseLong(4));
+    assertEquals("cursor min long", Long.MIN_VALUE, cursor.parseLong(6));
+
+    // Empty, non numeric and out of range fields are errors, not 0 or the
+    // nearest limit
+    int[] ints = { 2, 3, 4, 5 };
+    int[] longs = { 2, 3, 5 };
+
+    for (int field : ints) {
+      try {
+        cursor.parseInt(field);
+        fail("cursor int " + field);
+      } catch (NumberFormatException e) {
+        // Expected
+      }
+    }
+
+    for (int field : longs) {
+      try {
+        cursor.parseLong(field);
+        fail("cursor long " + field);
+      } catch (NumberFormatException e) {
+        // Expected
+      }
+    }
+
+    // Bytes are parsed the same way
+    byte[] bytes = "abc".getBytes();
+
+    try {
+      NumberScanner.parseInt(bytes, 0, bytes.length);
+      fail("bytes int");
+    } catch (NumberFormatException e) {
+      assertEquals("message", "For input string: \"abc\"", e.getMessage());
+    }
+  }
+
+  @Test
+  public void naturalSortTest() {
+    assertEquals("Natural sort", "[chr1, chr2, chr 3, chr10, chrX]",
+        CollectionUtils.naturalSort(Arrays.asList("chr10", "chr2", "chrX", "chr 3", "chr1")).toString());
   }
 }
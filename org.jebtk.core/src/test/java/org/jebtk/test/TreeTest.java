@@ -0,0 +1,91 @@
+/**
+ * Copyright 2018 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.core.tree.TreeNode;
+import org.jebtk.core.tree.TreeNodeEventAdapter;
+import org.jebtk.core.tree.TreeRootNode;
+import org.junit.Test;
+
+public class TreeTest {
+
+  @Test
+  public void cumulativeCountTest() {
+    TreeNode<String> root = new TreeRootNode<String>();
+
+    final int[] events = { 0 };
+
+    root.addTreeNodeListener(new TreeNodeEventAdapter() {
+      @Override
+      public void nodeChanged(ChangeEvent e) {
+        ++events[0];
+      }
+    });
+
+    root.beginUpdate();
+
+    for (int i = 0; i < 20; ++i) {
+      TreeNode<String> folder = new TreeNode<String>("f" + i);
+
+      root.addChild(folder);
+
+      folder.addChild(new TreeNode<String>("a"));
+      folder.addChild(new TreeNode<String>("b"));
+    }
+
+    root.endUpdate();
+
+    assertEquals("events", 1, events[0]);
+    assertEquals("count", 40, root.getCumulativeChildCount());
+
+    TreeNode<String> folder = root.getChildByPath("f7");
+
+    folder.removeChild(folder.getChild("a"));
+    folder.removeChild(folder.getChild("b"));
+
+    // An empty folder is counted as a leaf
+    assertEquals("removed", 39, root.getCumulativeChildCount());
+    assertEquals("path", "b", root.getChildByPath("f12/b").getName());
+    assertEquals("find", "f19", root.findFirst("F1").getName());
+  }
+
+  @Test
+  public void renameTest() {
+    TreeNode<String> root = new TreeRootNode<String>();
+
+    TreeNode<String> folder = new TreeNode<String>("folder");
+
+    root.addChild(folder);
+
+    TreeNode<String> node = new TreeNode<String>("alpha");
+
+    folder.addChild(node);
+
+    // Build the search indexes before renaming
+    assertEquals("before", node, root.findFirst("alpha"));
+    assertEquals("before folder", node, folder.findFirst("alpha"));
+
+    node.setName("omega");
+
+    assertEquals("renamed", node, root.findFirst("omega"));
+    assertEquals("old name", null, root.findFirst("alpha"));
+    assertEquals("renamed folder", node, folder.matchFirst("omega"));
+    assertEquals("lookup", node, root.getChildByPath("folder/omega"));
+  }
+}